@@ -19,6 +19,7 @@ package io.github.whilein.jexpr.api;
 import io.github.whilein.jexpr.api.keyword.KeywordRegistry;
 import io.github.whilein.jexpr.api.token.operand.Operand;
 import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.api.token.operand.OperandParserFactory;
 import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
 import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
 import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
@@ -26,6 +27,10 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public interface Jexpr {
 
@@ -37,12 +42,148 @@ public interface Jexpr {
 
     @NotNull OperandParser getOperandParser();
 
+    @NotNull OperandParserFactory getOperandParserFactory();
+
     @NotNull Operand parse(@NotNull String value);
 
+    /**
+     * Parse part of char sequence without copying it to a string.
+     *
+     * @param value char sequence
+     * @param start start index, inclusive
+     * @param end   end index, exclusive
+     * @return parsed operand
+     */
+    @NotNull Operand parse(@NotNull CharSequence value, int start, int end);
+
+    /**
+     * Parse UTF-8 encoded expression.
+     *
+     * @param value UTF-8 bytes
+     * @return parsed operand
+     */
     @NotNull Operand parse(byte @NotNull [] value);
 
+    /**
+     * Parse UTF-8 encoded expression from part of byte array.
+     *
+     * @param value  UTF-8 bytes
+     * @param offset start of expression
+     * @param length length of expression in bytes
+     * @return parsed operand
+     */
+    @NotNull Operand parse(byte @NotNull [] value, int offset, int length);
+
+    /**
+     * Parse UTF-8 encoded expression from remaining bytes of buffer. Heap, direct and memory-mapped
+     * buffers are read in place, position of the buffer is not changed.
+     *
+     * @param buffer buffer with UTF-8 bytes
+     * @return parsed operand
+     */
+    @NotNull Operand parse(@NotNull ByteBuffer buffer);
+
     @NotNull Operand parse(@NotNull InputStream stream);
 
     @NotNull Operand parse(@NotNull Reader reader);
 
+    /**
+     * Check syntax of expression without throwing {@link io.github.whilein.jexpr.api.exception.SyntaxException}.
+     * Errors are detected the same way as by {@link #parse(String)}, but without building
+     * error messages and stack traces, so validation of invalid input is as cheap as of valid one.
+     *
+     * @param value expression
+     * @return validation result, {@link ValidationResult#valid()} if expression can be parsed
+     */
+    @NotNull ValidationResult validate(@NotNull String value);
+
+    /**
+     * Parse expression and remember spans of bracketed subexpressions for later
+     * {@link #reparse(ParsedExpression, int, int, String)}.
+     *
+     * @param value expression
+     * @return parsed expression with spans
+     */
+    @NotNull ParsedExpression parseSpanned(@NotNull String value);
+
+    /**
+     * Parse expression after an edit of previously parsed source. Only the innermost bracketed
+     * subexpression which contains the edit is parsed again, other subexpressions keep
+     * their operands, and enclosing subexpressions only combine operands of their children.
+     * If edited source is invalid, the same exception as from {@link #parse(String)} is thrown.
+     *
+     * @param previous      previous result
+     * @param offset        start of edit in previous source
+     * @param removedLength number of removed characters
+     * @param insertedText  inserted text
+     * @return parsed expression with spans
+     */
+    @NotNull ParsedExpression reparse(
+            @NotNull ParsedExpression previous,
+            int offset,
+            int removedLength,
+            @NotNull String insertedText
+    );
+
+    /**
+     * Lazily parse expressions separated by delimiter. Delimiter inside of a token, e.g. string literal,
+     * does not split expressions, blank expressions are skipped.
+     * <p>
+     * Expressions which cannot be parsed are passed to error handler with their index and offset,
+     * iteration continues from the next delimiter.
+     *
+     * @param reader       input
+     * @param delimiter    delimiter of expressions, e.g. {@code '\n'} or {@code ';'}
+     * @param errorHandler handler of syntax errors
+     * @return iterator of successfully parsed operands
+     */
+    @NotNull Iterator<@NotNull Operand> parseAll(
+            @NotNull Reader reader,
+            char delimiter,
+            @NotNull ParseErrorHandler errorHandler
+    );
+
+    /**
+     * Lazily parse UTF-8 encoded expressions separated by delimiter.
+     *
+     * @see #parseAll(Reader, char, ParseErrorHandler)
+     */
+    @NotNull Iterator<@NotNull Operand> parseAll(
+            @NotNull InputStream stream,
+            char delimiter,
+            @NotNull ParseErrorHandler errorHandler
+    );
+
+    /**
+     * Lazily parse UTF-8 encoded expressions separated by delimiter from remaining bytes of buffer.
+     * Offsets of errors are in characters, not bytes.
+     *
+     * @see #parseAll(Reader, char, ParseErrorHandler)
+     */
+    @NotNull Iterator<@NotNull Operand> parseAll(
+            @NotNull ByteBuffer buffer,
+            char delimiter,
+            @NotNull ParseErrorHandler errorHandler
+    );
+
+    /**
+     * Parse expressions in parallel using {@link ForkJoinPool#commonPool()}.
+     *
+     * @see #parseAll(List, ForkJoinPool)
+     */
+    @NotNull BulkParseResult parseAll(@NotNull List<@NotNull String> values);
+
+    /**
+     * Parse expressions in parallel. Each worker thread parses with its own operand parser,
+     * so registries must not be changed during the call.
+     * <p>
+     * Failed expressions do not stop parsing, their errors are returned in result. Every expression
+     * is a separate input, so offset of each error is {@code 0}.
+     *
+     * @param values expressions
+     * @param pool   pool to parse in
+     * @return operands in input order and syntax errors
+     */
+    @NotNull BulkParseResult parseAll(@NotNull List<@NotNull String> values, @NotNull ForkJoinPool pool);
+
 }
@@ -0,0 +1,55 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.api;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.List;
+
+/**
+ * Parsed expression which remembers spans of the whole source and every bracketed subexpression.
+ * Can be re-parsed after an edit with {@link Jexpr#reparse(ParsedExpression, int, int, String)}.
+ *
+ * @author whilein
+ */
+public interface ParsedExpression {
+
+    @NotNull String getSource();
+
+    @NotNull Operand getOperand();
+
+    /**
+     * Get spans of the whole source and bracketed subexpressions, brackets included.
+     * Outer spans come before inner ones.
+     *
+     * @return spans ordered by start
+     */
+    @Unmodifiable
+    @NotNull List<@NotNull SourceSpan> getSpans();
+
+    /**
+     * Find innermost span containing character at index.
+     *
+     * @param index index of character
+     * @return innermost span or {@code null} if index is out of source
+     */
+    @Nullable SourceSpan findSpan(int index);
+
+}
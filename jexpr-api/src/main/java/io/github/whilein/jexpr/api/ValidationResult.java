@@ -0,0 +1,58 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.api;
+
+import io.github.whilein.jexpr.api.exception.ExpectedToken;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Result of {@link Jexpr#validate(String)}.
+ *
+ * @author whilein
+ */
+@Value
+public class ValidationResult {
+
+    private static final ValidationResult VALID = new ValidationResult(null, -1, null);
+
+    /**
+     * Kind of error, {@code null} if expression is valid.
+     */
+    @Nullable SyntaxErrorCode errorCode;
+
+    /**
+     * Character offset of token where error was found, or {@code -1} if expression is valid.
+     */
+    int offset;
+
+    /**
+     * Class of token which was expected at offset, {@code null} if unknown or expression is valid.
+     */
+    @Nullable ExpectedToken expected;
+
+    public static @NotNull ValidationResult valid() {
+        return VALID;
+    }
+
+    public boolean isValid() {
+        return errorCode == null;
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.api.exception;
+
+/**
+ * Kind of syntax error.
+ *
+ * @author whilein
+ */
+public enum SyntaxErrorCode {
+
+    /**
+     * Syntax error without more specific kind.
+     */
+    INVALID_SYNTAX,
+
+    /**
+     * Character which cannot start a token.
+     */
+    UNEXPECTED_CHARACTER,
+
+    /**
+     * Operator in place of operand, e.g. {@code 1 + * 2}.
+     */
+    UNEXPECTED_OPERATOR,
+
+    /**
+     * Operand in place of operator, e.g. {@code 1 2}.
+     */
+    UNEXPECTED_OPERAND,
+
+    /**
+     * Expression ended before operand or closing bracket.
+     */
+    UNEXPECTED_EOF,
+
+    /**
+     * Expression or brackets without operands.
+     */
+    EMPTY_EXPRESSION,
+
+    /**
+     * Sequence of operator characters which is not a known operator.
+     */
+    UNKNOWN_OPERATOR,
+
+    /**
+     * Malformed number literal.
+     */
+    INVALID_NUMBER,
+
+    /**
+     * Malformed escape sequence of string literal.
+     */
+    INVALID_STRING,
+
+    /**
+     * Operator is not applicable to constant operands.
+     */
+    INAPPLICABLE_OPERATOR,
+
+    /**
+     * Expression exceeds one of parser limits, e.g. it is too long or too deeply nested.
+     */
+    LIMIT_EXCEEDED
+
+}
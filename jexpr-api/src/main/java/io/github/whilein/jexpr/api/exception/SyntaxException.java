@@ -16,15 +16,57 @@
 
 package io.github.whilein.jexpr.api.exception;
 
+import org.jetbrains.annotations.Nullable;
+
 /**
  * @author whilein
  */
 public class SyntaxException extends RuntimeException {
+
+    private final SyntaxErrorCode code;
+
+    private final ExpectedToken expected;
+
     public SyntaxException(final String message) {
-        super(message);
+        this(message, (Throwable) null);
     }
 
     public SyntaxException(final String message, final Throwable throwable) {
         super(message, throwable);
+
+        this.code = null;
+        this.expected = null;
     }
+
+    /**
+     * Create syntax exception with error details.
+     *
+     * @param message            message
+     * @param code               kind of error
+     * @param expected           class of expected token
+     * @param throwable          cause
+     * @param writableStackTrace whether stack trace should be filled, exceptions without stack trace
+     *                           are much cheaper to create
+     */
+    public SyntaxException(
+            final String message,
+            final @Nullable SyntaxErrorCode code,
+            final @Nullable ExpectedToken expected,
+            final @Nullable Throwable throwable,
+            final boolean writableStackTrace
+    ) {
+        super(message, throwable, writableStackTrace, writableStackTrace);
+
+        this.code = code;
+        this.expected = expected;
+    }
+
+    public @Nullable SyntaxErrorCode getCode() {
+        return code;
+    }
+
+    public @Nullable ExpectedToken getExpected() {
+        return expected;
+    }
+
 }
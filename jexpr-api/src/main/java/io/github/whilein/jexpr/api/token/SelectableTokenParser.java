@@ -18,6 +18,8 @@ package io.github.whilein.jexpr.api.token;
 
 import io.github.whilein.jexpr.api.token.operand.Operand;
 import io.github.whilein.jexpr.api.token.operator.Operator;
+import io.github.whilein.jexpr.api.exception.SyntaxException;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -52,4 +54,42 @@ public interface SelectableTokenParser extends TokenParser {
      */
     boolean shouldSelect(int ch, @Nullable Operand prevOperand, @Nullable Operator prevOperator);
 
+    /**
+     * Может ли парсер выражений закэшировать результат {@link #shouldSelect(int, Operand, Operator)}.
+     * Кэшировать можно, если результат зависит только от символа и от того, равны ли {@code null}
+     * предыдущий операнд и предыдущий оператор, и не меняется со временем.
+     *
+     * @return {@code true}, если результат выбора можно кэшировать
+     */
+    default boolean isSelectionCacheable() {
+        return false;
+    }
+
+    /**
+     * Обработать символы, пока парсер должен оставаться выбранным, эквивалентно чередованию вызовов
+     * {@link #shouldStaySelected(int)} и {@link #update(int)}. Обработка останавливается на первом символе,
+     * для которого {@link #shouldStaySelected(int)} вернул бы {@code false}, этот символ не обрабатывается.
+     *
+     * @param chars  массив символов
+     * @param offset начало последовательности
+     * @param length количество символов
+     * @return количество обработанных символов
+     * @throws SyntaxException при неожиданных входных данных
+     */
+    default int consume(final char @NotNull [] chars, final int offset, final int length) throws SyntaxException {
+        int position = offset;
+
+        for (final int end = offset + length; position < end; position++) {
+            final char ch = chars[position];
+
+            if (!shouldStaySelected(ch)) {
+                break;
+            }
+
+            update(ch);
+        }
+
+        return position - offset;
+    }
+
 }
@@ -36,6 +36,22 @@ public interface TokenParser {
      */
     void update(int ch) throws SyntaxException;
 
+    /**
+     * Обработать последовательность символов, эквивалентно вызову {@link #update(int)} для каждого символа.
+     * Реализации могут обрабатывать длинные последовательности (имена, числа, пробелы) без посимвольной
+     * диспетчеризации.
+     *
+     * @param chars  массив символов
+     * @param offset начало последовательности
+     * @param length количество символов
+     * @throws SyntaxException при неожиданных входных данных
+     */
+    default void update(final char @NotNull [] chars, final int offset, final int length) throws SyntaxException {
+        for (int i = offset, j = offset + length; i < j; i++) {
+            update(chars[i]);
+        }
+    }
+
     /**
      * Завершить обработку токена.
      *
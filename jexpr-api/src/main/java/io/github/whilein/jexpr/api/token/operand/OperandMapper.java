@@ -67,4 +67,12 @@ public interface OperandMapper<T> {
         throw new IllegalStateException("Unexpected unary");
     }
 
+    /**
+     * Map unary node, which member is constant. Such node exists only if operator cannot be applied
+     * to the constant, e.g. {@code !0} in a branch, which may be never evaluated.
+     */
+    default T mapUnary(@NotNull OperandConstant member, @NotNull UnaryOperator op) {
+        throw new IllegalStateException("Unexpected unary");
+    }
+
 }
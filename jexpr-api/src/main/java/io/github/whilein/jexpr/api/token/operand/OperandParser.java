@@ -28,6 +28,15 @@ public interface OperandParser extends TokenParser {
 
     @NotNull Operand doFinal();
 
+    /**
+     * Определить, продолжит ли символ текущий токен, например строковой литерал,
+     * вместо того чтобы начать новый. Используется для разделения нескольких выражений.
+     *
+     * @param ch символ
+     * @return {@code true}, если символ будет обработан текущим токеном
+     */
+    boolean isTokenContinuedBy(int ch);
+
     @Override
     default void doFinal(final @NotNull TokenVisitor tv) throws SyntaxException {
         tv.visitOperand(doFinal());
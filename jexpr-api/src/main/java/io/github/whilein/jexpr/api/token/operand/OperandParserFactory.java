@@ -0,0 +1,31 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.api.token.operand;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Creates independent {@link OperandParser} instances. Every created parser owns its own state
+ * (operator/operand stacks and token buffers) and may be used by a single thread at a time.
+ *
+ * @author whilein
+ */
+public interface OperandParserFactory {
+
+    @NotNull OperandParser create();
+
+}
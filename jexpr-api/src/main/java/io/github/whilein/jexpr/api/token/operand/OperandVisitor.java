@@ -63,4 +63,12 @@ public interface OperandVisitor {
         throw new IllegalStateException("Unexpected unary");
     }
 
+    /**
+     * Visit unary node, which member is constant. Such node exists only if operator cannot be applied
+     * to the constant, e.g. {@code !0} in a branch, which may be never evaluated.
+     */
+    default void visitUnary(@NotNull OperandConstant member, @NotNull UnaryOperator op) {
+        throw new IllegalStateException("Unexpected unary");
+    }
+
 }
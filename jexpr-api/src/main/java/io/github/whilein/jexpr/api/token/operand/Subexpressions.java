@@ -0,0 +1,365 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.api.token.operand;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbering of structurally equal subexpressions of a tree: equal nodes get the same id,
+ * members get smaller ids than nodes that contain them. Tree is traversed without recursion.
+ *
+ * @param <T> type of nodes
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class Subexpressions<T> {
+
+    private static final int NO_PARENT = -1;
+    private static final int MANY_PARENTS = -2;
+
+    private static final int NONE = -1;
+
+    Structure<T> structure;
+
+    Map<T, Integer> ids = new IdentityHashMap<>();
+
+    Map<Object, Integer> keys = new HashMap<>();
+
+    // первый экземпляр каждого номера
+    List<T> nodes = new ArrayList<>();
+
+    @NonFinal
+    int[] counts = new int[32];
+
+    @NonFinal
+    int[] lefts = new int[32];
+
+    @NonFinal
+    int[] rights = new int[32];
+
+    // номер родителя, если все вхождения находятся в одинаковых родителях
+    @NonFinal
+    int[] parents = new int[32];
+
+    @NonFinal
+    boolean[] pure = new boolean[32];
+
+    // экземпляры каждого номера связаны в список через номер следующего экземпляра в occurrences
+    List<T> occurrences = new ArrayList<>();
+
+    @NonFinal
+    int[] nextOccurrences = new int[32];
+
+    @NonFinal
+    int[] firstOccurrences = new int[32];
+
+    @NonFinal
+    int[] lastOccurrences = new int[32];
+
+    private Subexpressions(final Structure<T> structure) {
+        this.structure = structure;
+    }
+
+    /**
+     * Number subexpressions of tree.
+     *
+     * @param root      root of tree
+     * @param structure structure of nodes
+     * @param <T>       type of nodes
+     * @return numbering
+     */
+    public static <T> @NotNull Subexpressions<T> find(final @NotNull T root, final @NotNull Structure<T> structure) {
+        val subexpressions = new Subexpressions<T>(structure);
+        subexpressions.number(root);
+
+        return subexpressions;
+    }
+
+    /**
+     * Get count of distinct subexpressions, ids are from {@code 0} to {@code size() - 1}.
+     *
+     * @return count of distinct subexpressions
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Get id of node.
+     *
+     * @param node node
+     * @return id or {@code -1}, if node is not in tree
+     */
+    public int getId(final @NotNull T node) {
+        val id = ids.get(node);
+
+        return id != null ? id : NONE;
+    }
+
+    /**
+     * Get first occurrence of subexpression.
+     *
+     * @param id id of subexpression
+     * @return node
+     */
+    public @NotNull T getNode(final int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Get distinct instances of subexpression in order of their occurrence.
+     *
+     * @param id id of subexpression
+     * @return instances
+     */
+    public @NotNull List<T> getOccurrences(final int id) {
+        val result = new ArrayList<T>();
+
+        for (int i = firstOccurrences[id]; i != NONE; i = nextOccurrences[i]) {
+            result.add(occurrences.get(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * Get count of occurrences of subexpression, the same instance is counted as many times as it occurs.
+     *
+     * @param id id of subexpression
+     * @return count of occurrences
+     */
+    public int getCount(final int id) {
+        return counts[id];
+    }
+
+    /**
+     * @param id id of subexpression
+     * @return id of left member or member of unary node, {@code -1} for leaves
+     */
+    public int getLeftMember(final int id) {
+        return lefts[id];
+    }
+
+    /**
+     * @param id id of subexpression
+     * @return id of right member, {@code -1} for unary nodes and leaves
+     */
+    public int getRightMember(final int id) {
+        return rights[id];
+    }
+
+    public boolean isLeaf(final int id) {
+        return lefts[id] == NONE;
+    }
+
+    /**
+     * @param id id of subexpression
+     * @return whether subexpression and all its members are {@link Structure#isPure pure}
+     */
+    public boolean isPure(final int id) {
+        return pure[id];
+    }
+
+    /**
+     * Check whether subexpression is worth to be evaluated once: it is pure, not a leaf, occurs
+     * more than once, and not only inside the same common subexpression, which is evaluated with it.
+     *
+     * @param id id of subexpression
+     * @return whether subexpression is common
+     */
+    public boolean isCommon(final int id) {
+        if (counts[id] < 2 || !pure[id] || isLeaf(id)) {
+            return false;
+        }
+
+        val parent = parents[id];
+
+        return parent < 0 || !pure[parent] || counts[parent] < counts[id];
+    }
+
+    private void number(final T root) {
+        Object[] stack = new Object[32];
+        boolean[] visited = new boolean[32];
+        int size = 0;
+
+        stack[size++] = root;
+
+        while (size != 0) {
+            @SuppressWarnings("unchecked") val node = (T) stack[size - 1];
+            val id = ids.get(node);
+
+            if (id != null) {
+                // тот же экземпляр уже пронумерован вместе с членами
+                counts[id]++;
+                stack[--size] = null;
+                continue;
+            }
+
+            val left = structure.getLeftMember(node);
+
+            if (left != null && !visited[size - 1]) {
+                visited[size - 1] = true;
+
+                if (size + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                    visited = Arrays.copyOf(visited, stack.length);
+                }
+
+                val right = structure.getRightMember(node);
+
+                if (right != null) {
+                    stack[size++] = right;
+                }
+
+                stack[size++] = left;
+                continue;
+            }
+
+            visited[--size] = false;
+            stack[size] = null;
+
+            if (left == null) {
+                add(node, node, structure.isPure(node), NONE, NONE);
+                continue;
+            }
+
+            val leftId = ids.get(left);
+            val right = structure.getRightMember(node);
+
+            if (right == null) {
+                add(node, Arrays.asList(structure.getOperator(node), leftId),
+                        structure.isPure(node) && pure[leftId], leftId, NONE);
+            } else {
+                val rightId = ids.get(right);
+
+                add(node, Arrays.asList(structure.getOperator(node), leftId, rightId),
+                        structure.isPure(node) && pure[leftId] && pure[rightId], leftId, rightId);
+            }
+        }
+    }
+
+    private void add(final T node, final Object key, final boolean pure, final int left, final int right) {
+        Integer id = keys.get(key);
+
+        if (id == null) {
+            id = nodes.size();
+            keys.put(key, id);
+            nodes.add(node);
+
+            if (id == counts.length) {
+                counts = Arrays.copyOf(counts, id * 2);
+                lefts = Arrays.copyOf(lefts, id * 2);
+                rights = Arrays.copyOf(rights, id * 2);
+                parents = Arrays.copyOf(parents, id * 2);
+                this.pure = Arrays.copyOf(this.pure, id * 2);
+                firstOccurrences = Arrays.copyOf(firstOccurrences, id * 2);
+                lastOccurrences = Arrays.copyOf(lastOccurrences, id * 2);
+            }
+
+            lefts[id] = left;
+            rights[id] = right;
+            parents[id] = NO_PARENT;
+            this.pure[id] = pure;
+            lastOccurrences[id] = NONE;
+        }
+
+        counts[id]++;
+        ids.put(node, id);
+        addOccurrence(node, id);
+
+        if (left != NONE) setParent(left, id);
+        if (right != NONE) setParent(right, id);
+    }
+
+    private void addOccurrence(final T node, final int id) {
+        val index = occurrences.size();
+        occurrences.add(node);
+
+        if (index == nextOccurrences.length) {
+            nextOccurrences = Arrays.copyOf(nextOccurrences, index * 2);
+        }
+
+        nextOccurrences[index] = NONE;
+
+        val last = lastOccurrences[id];
+
+        if (last == NONE) {
+            firstOccurrences[id] = index;
+        } else {
+            nextOccurrences[last] = index;
+        }
+
+        lastOccurrences[id] = index;
+    }
+
+    private void setParent(final int child, final int parent) {
+        if (parents[child] == NO_PARENT) {
+            parents[child] = parent;
+        } else if (parents[child] != parent) {
+            parents[child] = MANY_PARENTS;
+        }
+    }
+
+    /**
+     * Structure of nodes.
+     *
+     * @param <T> type of nodes
+     */
+    public interface Structure<T> {
+
+        /**
+         * @param node node
+         * @return left member of binary node, member of unary node or {@code null} for leaves
+         */
+        @Nullable T getLeftMember(@NotNull T node);
+
+        /**
+         * @param node node
+         * @return right member of binary node or {@code null}
+         */
+        @Nullable T getRightMember(@NotNull T node);
+
+        /**
+         * @param node binary or unary node
+         * @return operator, nodes with equal operators and members are equal
+         */
+        @NotNull Object getOperator(@NotNull T node);
+
+        /**
+         * Check whether node itself, not counting its members, can be evaluated once for all its occurrences.
+         * Leaves are equal by {@link Object#equals(Object)}.
+         *
+         * @param node node
+         * @return whether node is pure
+         */
+        boolean isPure(@NotNull T node);
+
+    }
+
+}
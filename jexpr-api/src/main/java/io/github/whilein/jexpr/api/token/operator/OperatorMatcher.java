@@ -35,4 +35,11 @@ public interface OperatorMatcher<T extends Operator> {
 
     @Nullable T getMatchedResult();
 
+    /**
+     * Reset matcher to the state before the first character of operator.
+     * Matchers which are not reused do nothing.
+     */
+    default void reset() {
+    }
+
 }
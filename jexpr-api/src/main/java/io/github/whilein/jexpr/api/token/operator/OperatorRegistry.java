@@ -32,6 +32,18 @@ public interface OperatorRegistry<T extends Operator> extends Registry<T, String
      */
     boolean hasMatcher(int ch);
 
+    /**
+     * Create reusable matcher, which is positioned before the first character of operator.
+     * Matcher can be reused for the next operator after {@link OperatorMatcher#reset()}.
+     * <p>
+     * By default matcher delegates to {@link #matchOperator(int)} for each operator.
+     *
+     * @return matcher
+     */
+    default @NotNull OperatorMatcher<T> createMatcher() {
+        return new RegistryOperatorMatcher<>(this);
+    }
+
     /**
      * Get matcher for operator which value starts with {@code ch}
      *
@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.api.token.operator;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Reusable matcher over registry, which has no own reusable matcher.
+ *
+ * @author whilein
+ */
+final class RegistryOperatorMatcher<T extends Operator> implements OperatorMatcher<T> {
+
+    private final OperatorRegistry<T> registry;
+
+    private OperatorMatcher<T> delegate;
+
+    RegistryOperatorMatcher(final OperatorRegistry<T> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void next(final int ch) {
+        if (delegate == null) {
+            delegate = registry.matchOperator(ch);
+        }
+
+        delegate.next(ch);
+    }
+
+    @Override
+    public boolean hasNext(final int ch) {
+        return delegate == null ? registry.hasMatcher(ch) : delegate.hasNext(ch);
+    }
+
+    @Override
+    public @Unmodifiable @NotNull Set<@NotNull T> getProbablyResults() {
+        return delegate == null ? Collections.emptySet() : delegate.getProbablyResults();
+    }
+
+    @Override
+    public @Nullable T getMatchedResult() {
+        return delegate == null ? null : delegate.getMatchedResult();
+    }
+
+    @Override
+    public void reset() {
+        delegate = null;
+    }
+
+}
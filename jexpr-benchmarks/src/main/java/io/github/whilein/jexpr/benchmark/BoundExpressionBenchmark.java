@@ -0,0 +1,125 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandVariableResolver;
+import io.github.whilein.jexpr.eval.BoundExpression;
+import io.github.whilein.jexpr.eval.SlotLayout;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of an expression with variables: {@code solve} resolves names through a map,
+ * bound expression reads values of slots by index.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundExpressionBenchmark {
+
+    private static final String EXPRESSION = "(price * quantity - discount) * rate > limit && quantity < 100 "
+            + "|| price * rate >= limit * 2";
+
+    Operand operand;
+
+    OperandVariableResolver resolver;
+
+    BoundExpression bound;
+
+    Object[] objectSlots;
+
+    int[] intSlots;
+
+    @Setup
+    public void setup() {
+        operand = DefaultJexpr.create().parse(EXPRESSION);
+
+        val values = new HashMap<String, Operand>();
+        values.put("price", Operands.constantInt(120));
+        values.put("quantity", Operands.constantInt(30));
+        values.put("discount", Operands.constantInt(200));
+        values.put("rate", Operands.constantInt(3));
+        values.put("limit", Operands.constantInt(5000));
+
+        resolver = new MapResolver(values);
+
+        bound = BoundExpression.bind(operand, SlotLayout.of("price", "quantity", "discount", "rate", "limit"));
+        objectSlots = new Object[]{120, 30, 200, 3, 5000};
+        intSlots = new int[]{120, 30, 200, 3, 5000};
+    }
+
+    @Benchmark
+    public Operand solve() {
+        return operand.solve(resolver);
+    }
+
+    @Benchmark
+    public Operand boundObjects() {
+        return bound.evaluate(objectSlots);
+    }
+
+    @Benchmark
+    public Operand boundInts() {
+        return bound.evaluate(intSlots);
+    }
+
+    private static final class MapResolver implements OperandVariableResolver {
+
+        final Map<String, Operand> values;
+
+        MapResolver(final Map<String, Operand> values) {
+            this.values = values;
+        }
+
+        @Override
+        public Operand resolve(final String reference) {
+            return values.get(reference);
+        }
+
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BoundExpressionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.compiler.DefaultJexprCompiler;
+import io.github.whilein.jexpr.compiler.JexprCompiler;
+import io.github.whilein.jexpr.eval.ClosureExpression;
+import io.github.whilein.jexpr.eval.ClosureFrame;
+import io.github.whilein.jexpr.eval.PrimitiveType;
+import io.github.whilein.jexpr.eval.SlotLayout;
+import io.github.whilein.jexpr.token.operand.Operands;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation and compilation of a rule by {@code solve}, closure expression and class generated
+ * by {@link io.github.whilein.jexpr.compiler.SimpleOperandInterfaceImplementor}.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClosureExpressionBenchmark {
+
+    // без сравнений: сгенерированный класс не содержит stack map frames, и ветвления не проходят верификацию
+    private static final String EXPRESSION = "(price * quantity - discount) * rate / 100.0 + price * 0.2 - limit % 7";
+
+    private static final SlotLayout LAYOUT = SlotLayout.of("price", "quantity", "discount", "rate", "limit");
+
+    private static final PrimitiveType[] TYPES = {PrimitiveType.DOUBLE, PrimitiveType.INT,
+            PrimitiveType.DOUBLE, PrimitiveType.DOUBLE, PrimitiveType.DOUBLE};
+
+    Operand operand;
+
+    Map<String, Operand> values;
+
+    JexprCompiler jexprCompiler;
+
+    ClosureExpression closure;
+
+    ClosureFrame frame;
+
+    Rule generated;
+
+    @Setup
+    public void setup() {
+        operand = DefaultJexpr.create().parse(EXPRESSION);
+
+        values = new HashMap<>();
+        values.put("price", Operands.constantDouble(120.5));
+        values.put("quantity", Operands.constantInt(30));
+        values.put("discount", Operands.constantDouble(200.25));
+        values.put("rate", Operands.constantDouble(3.5));
+        values.put("limit", Operands.constantDouble(5000));
+
+        jexprCompiler = DefaultJexprCompiler.create();
+
+        closure = compileClosure();
+        frame = closure.newFrame();
+
+        generated = compileGenerated();
+    }
+
+    @Benchmark
+    public Object solve() {
+        return operand.solve(values::get).getValue();
+    }
+
+    @Benchmark
+    public double closure() {
+        return closure.evalDouble(frame
+                .setDouble(0, 120.5)
+                .setInt(1, 30)
+                .setDouble(2, 200.25)
+                .setDouble(3, 3.5)
+                .setDouble(4, 5000));
+    }
+
+    @Benchmark
+    public double generated() {
+        return generated.apply(120.5, 30, 200.25, 3.5, 5000);
+    }
+
+    @Benchmark
+    public ClosureExpression compileClosure() {
+        return ClosureExpression.compile(operand, LAYOUT, TYPES);
+    }
+
+    @Benchmark
+    public Rule compileGenerated() {
+        return jexprCompiler.implementInterface(Rule.class)
+                .name(0, "price")
+                .name(1, "quantity")
+                .name(2, "discount")
+                .name(3, "rate")
+                .name(4, "limit")
+                .compile(operand);
+    }
+
+    public interface Rule {
+
+        double apply(double price, int quantity, double discount, double rate, double limit);
+
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClosureExpressionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.eval.ColumnarExpression;
+import io.github.whilein.jexpr.eval.PrimitiveExpression;
+import io.github.whilein.jexpr.eval.PrimitiveFrame;
+import io.github.whilein.jexpr.eval.PrimitiveType;
+import io.github.whilein.jexpr.eval.SlotLayout;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of an expression over all rows of a table: row by row with {@code solve} and with
+ * primitive expression, and vector by vector with columnar expression.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnarExpressionBenchmark {
+
+    private static final String EXPRESSION = "quantity > 0 && (price * quantity - discount) * rate / 100.0 > limit";
+
+    @Param({"100000"})
+    int rows;
+
+    Operand operand;
+
+    double[] price;
+
+    int[] quantity;
+
+    double[] discount;
+
+    double[] rate;
+
+    double[] limit;
+
+    Object[] columns;
+
+    boolean[] output;
+
+    PrimitiveExpression primitive;
+
+    PrimitiveFrame frame;
+
+    ColumnarExpression columnar;
+
+    @Setup
+    public void setup() {
+        operand = DefaultJexpr.create().parse(EXPRESSION);
+
+        val random = new Random(0);
+
+        price = new double[rows];
+        quantity = new int[rows];
+        discount = new double[rows];
+        rate = new double[rows];
+        limit = new double[rows];
+
+        for (int i = 0; i < rows; i++) {
+            price[i] = random.nextDouble() * 1000;
+            quantity[i] = random.nextInt(100) - 10;
+            discount[i] = random.nextDouble() * 100;
+            rate[i] = random.nextDouble() * 10;
+            limit[i] = random.nextDouble() * 500;
+        }
+
+        columns = new Object[]{price, quantity, discount, rate, limit};
+        output = new boolean[rows];
+
+        val layout = SlotLayout.of("price", "quantity", "discount", "rate", "limit");
+        val types = new PrimitiveType[]{PrimitiveType.DOUBLE, PrimitiveType.INT,
+                PrimitiveType.DOUBLE, PrimitiveType.DOUBLE, PrimitiveType.DOUBLE};
+
+        primitive = PrimitiveExpression.analyze(operand, layout, types);
+        frame = primitive.newFrame();
+
+        columnar = ColumnarExpression.analyze(operand, layout, types);
+    }
+
+    @Benchmark
+    public boolean[] solve() {
+        val values = new HashMap<String, Operand>();
+
+        for (int i = 0; i < rows; i++) {
+            values.put("price", Operands.constantDouble(price[i]));
+            values.put("quantity", Operands.constantInt(quantity[i]));
+            values.put("discount", Operands.constantDouble(discount[i]));
+            values.put("rate", Operands.constantDouble(rate[i]));
+            values.put("limit", Operands.constantDouble(limit[i]));
+
+            output[i] = (Boolean) operand.solve(values::get).getValue();
+        }
+
+        return output;
+    }
+
+    @Benchmark
+    public boolean[] primitive() {
+        for (int i = 0; i < rows; i++) {
+            output[i] = primitive.evalBoolean(frame
+                    .setDouble(0, price[i])
+                    .setInt(1, quantity[i])
+                    .setDouble(2, discount[i])
+                    .setDouble(3, rate[i])
+                    .setDouble(4, limit[i]));
+        }
+
+        return output;
+    }
+
+    @Benchmark
+    public boolean[] columnar() {
+        columnar.evalBoolean(columns, rows, output);
+
+        return output;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ColumnarExpressionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
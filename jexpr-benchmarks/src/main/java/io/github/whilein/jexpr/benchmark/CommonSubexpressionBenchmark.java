@@ -0,0 +1,120 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandVariableResolver;
+import io.github.whilein.jexpr.compiler.DefaultJexprCompiler;
+import io.github.whilein.jexpr.eval.BoundExpression;
+import io.github.whilein.jexpr.eval.SlotLayout;
+import io.github.whilein.jexpr.token.operand.Operands;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of an expression with repeated subexpression {@code a * b + c}: {@code solve} computes
+ * it on each occurrence, bound and compiled expressions compute it once.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonSubexpressionBenchmark {
+
+    private static final String EXPRESSION = "(a * b + c) > 0 && (a * b + c) < 10000 && (a * b + c) % 7 != 3";
+
+    Operand operand;
+
+    OperandVariableResolver resolver;
+
+    BoundExpression bound;
+
+    IntTernaryPredicate compiled;
+
+    int[] slots;
+
+    @Setup
+    public void setup() {
+        operand = DefaultJexpr.create().parse(EXPRESSION);
+
+        resolver = reference -> {
+            switch (reference) {
+                case "a":
+                    return Operands.constantInt(120);
+                case "b":
+                    return Operands.constantInt(30);
+                default:
+                    return Operands.constantInt(200);
+            }
+        };
+
+        bound = BoundExpression.bind(operand, SlotLayout.of("a", "b", "c"));
+        slots = new int[]{120, 30, 200};
+
+        compiled = DefaultJexprCompiler.create().implementInterface(IntTernaryPredicate.class)
+                .name(0, "a")
+                .name(1, "b")
+                .name(2, "c")
+                .compile(operand);
+    }
+
+    @Benchmark
+    public Operand solve() {
+        return operand.solve(resolver);
+    }
+
+    @Benchmark
+    public Operand bound() {
+        return bound.evaluate(slots);
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return compiled.test(slots[0], slots[1], slots[2]);
+    }
+
+    public interface IntTernaryPredicate {
+
+        boolean test(int a, int b, int c);
+
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CommonSubexpressionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.ConcurrentJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput of single shared {@link ConcurrentJexpr}, run with 1, 2, 4, ... threads
+ * up to number of available processors to show how it scales.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentParseBenchmark {
+
+    private static final String EXPRESSION
+            = "(a + b * 2) / (c - 1) > 10 && name == \"jexpr\" || !(flag & 0xFF) != 0";
+
+    Jexpr jexpr;
+
+    @Setup
+    public void setup() {
+        jexpr = ConcurrentJexpr.create();
+    }
+
+    @Benchmark
+    public Operand parse() {
+        return jexpr.parse(EXPRESSION);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        val processors = Runtime.getRuntime().availableProcessors();
+
+        for (int threads = 1; ; threads <<= 1) {
+            val actualThreads = Math.min(threads, processors);
+
+            new Runner(new OptionsBuilder()
+                    .include(ConcurrentParseBenchmark.class.getSimpleName())
+                    .threads(actualThreads)
+                    .build()).run();
+
+            if (actualThreads == processors) {
+                break;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandVariableResolver;
+import io.github.whilein.jexpr.compiler.DefaultJexprCompiler;
+import io.github.whilein.jexpr.compiler.JexprCompiler;
+import io.github.whilein.jexpr.compiler.SimpleOperandCompiler;
+import io.github.whilein.jexpr.compiler.local.LocalMap;
+import io.github.whilein.jexpr.compiler.local.SimpleLocalMap;
+import io.github.whilein.jexpr.compiler.operand.TypedOperand;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.val;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solving, printing, comparison, mapping and compilation of a shallow expression and of left-deep
+ * chains {@code x + y + x + y + ...} with 4&times;10<sup>3</sup> and 10<sup>5</sup> nodes.
+ * Compiled chain is cut to {@value #MAX_COMPILED_TERMS} terms, because longer one does not fit into a method.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeepTreeBenchmark {
+
+    private static final String SHALLOW = "(x + y) * 2 - x / 4 > 10 && (y - 1) * (x + 3) < 1000 || -x == y";
+
+    private static final int MAX_COMPILED_TERMS = 20_000;
+
+    @Param({"shallow", "2000", "50000"})
+    String terms;
+
+    JexprCompiler jexprCompiler;
+
+    LocalMap localMap;
+
+    OperandVariableResolver resolver;
+
+    Operand operand;
+
+    Operand copy;
+
+    TypedOperand typedOperand;
+
+    @Setup
+    public void setup() {
+        final String expression;
+        final String compiledExpression;
+
+        if (terms.equals("shallow")) {
+            expression = compiledExpression = SHALLOW;
+        } else {
+            val count = Integer.parseInt(terms);
+
+            expression = chain(count);
+            compiledExpression = chain(Math.min(count, MAX_COMPILED_TERMS));
+        }
+
+        val x = Operands.constantInt(7);
+        val y = Operands.constantInt(3);
+
+        resolver = reference -> reference.equals("x") ? x : y;
+
+        jexprCompiler = DefaultJexprCompiler.create();
+        localMap = SimpleLocalMap.create()
+                .add("x", 0, Type.INT_TYPE)
+                .add("y", 1, Type.INT_TYPE);
+
+        val jexpr = DefaultJexpr.create();
+
+        operand = jexpr.parse(expression);
+        copy = jexpr.parse(expression);
+        typedOperand = jexpr.parse(compiledExpression)
+                .apply(jexprCompiler.getToTypedOperandMapperFactory().create(localMap));
+    }
+
+    private static String chain(final int terms) {
+        val builder = new StringBuilder("x");
+
+        for (int i = 1; i < terms; i++) {
+            builder.append(i % 2 == 0 ? " + x" : " + y");
+        }
+
+        return builder.toString();
+    }
+
+    @Benchmark
+    public Operand solve() {
+        return operand.solve(resolver);
+    }
+
+    @Benchmark
+    public String print() {
+        return operand.toString();
+    }
+
+    @Benchmark
+    public boolean equals() {
+        return operand.equals(copy);
+    }
+
+    @Benchmark
+    public TypedOperand map() {
+        return operand.apply(jexprCompiler.getToTypedOperandMapperFactory().create(localMap));
+    }
+
+    @Benchmark
+    public byte[] compile() {
+        val cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Expression", null, "java/lang/Object", null);
+
+        val returnType = typedOperand.getType();
+
+        val mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "evaluate",
+                Type.getMethodDescriptor(returnType, Type.INT_TYPE, Type.INT_TYPE), null, null);
+        mv.visitCode();
+
+        new SimpleOperandCompiler(mv, 2).compile(typedOperand);
+
+        mv.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+
+        return cw.toByteArray();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DeepTreeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
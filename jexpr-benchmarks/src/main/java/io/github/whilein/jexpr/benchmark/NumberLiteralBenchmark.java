@@ -0,0 +1,143 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.token.TokenVisitor;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.io.ByteArrayOutput;
+import io.github.whilein.jexpr.token.NumberTokenParser;
+import io.github.whilein.jexpr.token.TokenVisitors;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Number-heavy expressions: 64 literals of one kind joined with {@code +}. {@code parse} parses
+ * the whole expression, {@code literals} runs only {@link NumberTokenParser} over every literal.
+ * Run with {@code -prof gc} to see allocations per operation.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberLiteralBenchmark {
+
+    private static final int LITERALS = 64;
+
+    @Param({"int", "hex", "long", "double", "float"})
+    String kind;
+
+    Jexpr jexpr;
+
+    String expression;
+
+    char[][] literals;
+
+    NumberTokenParser tokenParser;
+
+    TokenVisitor visitor;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        val random = new Random(0);
+
+        literals = new char[LITERALS][];
+
+        val expression = new StringBuilder();
+
+        for (int i = 0; i < LITERALS; i++) {
+            final String literal;
+
+            switch (kind) {
+                case "int":
+                    literal = String.valueOf(random.nextInt(1_000_000));
+                    break;
+                case "hex":
+                    literal = "0x" + Integer.toHexString(random.nextInt(Integer.MAX_VALUE));
+                    break;
+                case "long":
+                    literal = (random.nextLong() & Long.MAX_VALUE) + "L";
+                    break;
+                case "double":
+                    literal = random.nextInt(100_000) + "." + random.nextInt(1000);
+                    break;
+                case "float":
+                    literal = random.nextInt(1000) + "." + random.nextInt(100) + "f";
+                    break;
+                default:
+                    throw new IllegalStateException(kind);
+            }
+
+            if (i != 0) {
+                expression.append(" + ");
+            }
+
+            expression.append(literal);
+
+            literals[i] = literal.toCharArray();
+        }
+
+        this.expression = expression.toString();
+        this.jexpr = DefaultJexpr.create();
+        this.tokenParser = new NumberTokenParser(new ByteArrayOutput());
+        this.visitor = TokenVisitors.interceptOperand(blackhole::consume);
+    }
+
+    @Benchmark
+    public Operand parse() {
+        return jexpr.parse(expression);
+    }
+
+    @Benchmark
+    public void literals() {
+        val tokenParser = this.tokenParser;
+
+        for (val literal : literals) {
+            tokenParser.consume(literal, 0, literal.length);
+            tokenParser.doFinal(visitor);
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NumberLiteralBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.token.operand.OperandSimplifier;
+import io.github.whilein.jexpr.token.operand.Operands;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of a machine-generated expression before and after simplification.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperandSimplifierBenchmark {
+
+    private static final String EXPRESSION = "!!(level + 1 + 2 - 3 > limit * 1 - 0) && true"
+            + " || (score * 1 + 0) * 2 * 4 > limit && !!enabled";
+
+    Operand original;
+
+    Operand simplified;
+
+    OperandSimplifier simplifier;
+
+    Map<String, Operand> values;
+
+    @Setup
+    public void setup() {
+        original = DefaultJexpr.create().parse(EXPRESSION);
+
+        final Map<String, Class<?>> types = new HashMap<>();
+        types.put("level", int.class);
+        types.put("limit", int.class);
+        types.put("score", long.class);
+        types.put("enabled", boolean.class);
+
+        simplifier = OperandSimplifier.create(types::get);
+        simplified = simplifier.simplify(original).getOperand();
+
+        values = new HashMap<>();
+        values.put("level", Operands.constantInt(10));
+        values.put("limit", Operands.constantInt(50));
+        values.put("score", Operands.constantLong(40));
+        values.put("enabled", Operands.constantBoolean(true));
+    }
+
+    @Benchmark
+    public Object solveOriginal() {
+        return original.solve(values::get).getValue();
+    }
+
+    @Benchmark
+    public Object solveSimplified() {
+        return simplified.solve(values::get).getValue();
+    }
+
+    @Benchmark
+    public Object simplify() {
+        return simplifier.simplify(original);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OperandSimplifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
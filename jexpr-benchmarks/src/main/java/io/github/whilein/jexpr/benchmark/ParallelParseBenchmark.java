@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to parse a rule pack of 20 000 expressions with {@link Jexpr#parseAll(List, ForkJoinPool)}
+ * depending on parallelism of the pool. Parallelism {@code 0} means sequential parse on the calling thread.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelParseBenchmark {
+
+    private static final int EXPRESSIONS = 20_000;
+
+    @Param({"0", "1", "2", "4", "8", "16"})
+    int parallelism;
+
+    Jexpr jexpr;
+
+    List<String> values;
+
+    ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        jexpr = DefaultJexpr.create();
+        values = new ArrayList<>(EXPRESSIONS);
+
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            values.add("(user.age + " + i + ") * 2 >= limit_" + (i % 100)
+                    + " && user.name != \"rule " + i + "\" || !(flags & 0x" + Integer.toHexString(i) + ")");
+        }
+
+        if (parallelism != 0) {
+            pool = new ForkJoinPool(Math.min(parallelism, Runtime.getRuntime().availableProcessors()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Object parse() {
+        if (pool == null) {
+            val operands = new Object[EXPRESSIONS];
+
+            for (int i = 0; i < EXPRESSIONS; i++) {
+                operands[i] = jexpr.parse(values.get(i));
+            }
+
+            return operands;
+        }
+
+        return jexpr.parseAll(values, pool);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ParallelParseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.eval.BoundExpression;
+import io.github.whilein.jexpr.eval.PrimitiveExpression;
+import io.github.whilein.jexpr.eval.PrimitiveFrame;
+import io.github.whilein.jexpr.eval.PrimitiveType;
+import io.github.whilein.jexpr.eval.SlotLayout;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of a double expression: {@code solve} and bound expression wrap every intermediate result
+ * into an operand, primitive expression computes in primitives. Run with {@code -prof gc} to compare
+ * allocation per call.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveExpressionBenchmark {
+
+    private static final String EXPRESSION = "(price * quantity - discount) * rate / 100.0 + price * 0.2";
+
+    Operand operand;
+
+    Map<String, Operand> values;
+
+    BoundExpression bound;
+
+    double[] slots;
+
+    PrimitiveExpression primitive;
+
+    PrimitiveFrame frame;
+
+    @Setup
+    public void setup() {
+        operand = DefaultJexpr.create().parse(EXPRESSION);
+
+        values = new HashMap<>();
+        values.put("price", Operands.constantDouble(120.5));
+        values.put("quantity", Operands.constantDouble(30));
+        values.put("discount", Operands.constantDouble(200.25));
+        values.put("rate", Operands.constantDouble(3.5));
+
+        val layout = SlotLayout.of("price", "quantity", "discount", "rate");
+
+        bound = BoundExpression.bind(operand, layout);
+        slots = new double[]{120.5, 30, 200.25, 3.5};
+
+        primitive = PrimitiveExpression.analyze(operand, layout,
+                PrimitiveType.DOUBLE, PrimitiveType.DOUBLE, PrimitiveType.DOUBLE, PrimitiveType.DOUBLE);
+        frame = primitive.newFrame();
+    }
+
+    @Benchmark
+    public Object solve() {
+        return operand.solve(values::get).getValue();
+    }
+
+    @Benchmark
+    public Object bound() {
+        return bound.evaluate(slots).getValue();
+    }
+
+    @Benchmark
+    public double primitive() {
+        return primitive.evalDouble(frame
+                .setDouble(0, slots[0])
+                .setDouble(1, slots[1])
+                .setDouble(2, slots[2])
+                .setDouble(3, slots[3]));
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PrimitiveExpressionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.io.OperandDecoder;
+import io.github.whilein.jexpr.io.OperandEncoder;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load a rule pack of 1000 expressions over 300 variable names: {@code parse} parses
+ * texts of expressions, {@code decode} reads the same operands encoded by {@link OperandEncoder}.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulePackLoadBenchmark {
+
+    private static final int RULES = 1000;
+
+    private static final int NAMES = 300;
+
+    Jexpr jexpr;
+
+    String[] rules;
+
+    byte[] pack;
+
+    @Setup
+    public void setup() {
+        val random = new Random(0);
+
+        jexpr = DefaultJexpr.create();
+        rules = new String[RULES];
+
+        val encoder = OperandEncoder.create();
+
+        for (int i = 0; i < RULES; i++) {
+            val rule = new StringBuilder();
+
+            for (int j = 0, clauses = 2 + random.nextInt(4); j < clauses; j++) {
+                if (j != 0) {
+                    rule.append(random.nextBoolean() ? " && " : " || ");
+                }
+
+                switch (random.nextInt(3)) {
+                    case 0:
+                        rule.append("var").append(random.nextInt(NAMES))
+                                .append(" + var").append(random.nextInt(NAMES))
+                                .append(" * ").append(random.nextInt(100))
+                                .append(" > ").append(random.nextInt(10000));
+                        break;
+                    case 1:
+                        rule.append("var").append(random.nextInt(NAMES))
+                                .append(" == \"value").append(random.nextInt(50)).append('"');
+                        break;
+                    default:
+                        rule.append("!(var").append(random.nextInt(NAMES))
+                                .append(" - ").append(random.nextDouble())
+                                .append(" <= var").append(random.nextInt(NAMES)).append(')');
+                        break;
+                }
+            }
+
+            rules[i] = rule.toString();
+            encoder.write(jexpr.parse(rules[i]));
+        }
+
+        pack = encoder.toByteArray();
+    }
+
+    @Benchmark
+    public void parse(final Blackhole blackhole) {
+        for (val rule : rules) {
+            blackhole.consume(jexpr.parse(rule));
+        }
+    }
+
+    @Benchmark
+    public void decode(final Blackhole blackhole) {
+        val decoder = OperandDecoder.create(pack, jexpr);
+
+        while (decoder.hasNext()) {
+            blackhole.consume(decoder.read());
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RulePackLoadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.eval.BoundExpression;
+import io.github.whilein.jexpr.eval.SpecializationCache;
+import io.github.whilein.jexpr.token.operand.Operands;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of an expression, most of which depends on rarely changing configuration: full {@code solve}
+ * against {@code solve} and bound evaluation of residual operand specialized for the configuration.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecializationCacheBenchmark {
+
+    private static final String EXPRESSION = "premium && amount * (1 - discount / 100.0) > threshold * (region + 1)"
+            + " || amount > threshold * 10";
+
+    Operand operand;
+
+    Map<String, Operand> values;
+
+    SpecializationCache<Operand> residuals;
+
+    SpecializationCache<BoundExpression> bound;
+
+    @Setup
+    public void setup() {
+        operand = DefaultJexpr.create().parse(EXPRESSION);
+
+        values = new HashMap<>();
+        values.put("premium", Operands.constantBoolean(true));
+        values.put("discount", Operands.constantDouble(15));
+        values.put("threshold", Operands.constantInt(250));
+        values.put("region", Operands.constantInt(3));
+        values.put("amount", Operands.constantDouble(1200.5));
+
+        residuals = SpecializationCache.create(operand,
+                Arrays.asList("premium", "discount", "threshold", "region"), 1024);
+        bound = SpecializationCache.create(operand,
+                Arrays.asList("premium", "discount", "threshold", "region"), BoundExpression::bind, 1024);
+    }
+
+    @Benchmark
+    public Object solve() {
+        return operand.solve(values::get).getValue();
+    }
+
+    @Benchmark
+    public Object residual() {
+        return residuals.get(true, 15.0, 250, 3).getCompiled().solve(values::get).getValue();
+    }
+
+    @Benchmark
+    public Object residualBound() {
+        return bound.get(true, 15.0, 250, 3).getCompiled().evaluate(new double[]{1200.5}).getValue();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SpecializationCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultOperandParser;
+import io.github.whilein.jexpr.api.token.SelectableTokenParser;
+import io.github.whilein.jexpr.api.token.TokenVisitor;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.api.token.operator.Operator;
+import io.github.whilein.jexpr.io.ByteArrayOutput;
+import io.github.whilein.jexpr.io.CharArrayOutput;
+import io.github.whilein.jexpr.keyword.DefaultKeywordRegistry;
+import io.github.whilein.jexpr.token.BinaryOperatorTokenParser;
+import io.github.whilein.jexpr.token.NumberTokenParser;
+import io.github.whilein.jexpr.token.ReferenceTokenParser;
+import io.github.whilein.jexpr.token.StringTokenParser;
+import io.github.whilein.jexpr.token.UnaryOperatorTokenParser;
+import io.github.whilein.jexpr.token.operator.DefaultBinaryOperatorRegistry;
+import io.github.whilein.jexpr.token.operator.DefaultUnaryOperatorRegistry;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse time with 24 custom token parsers registered before the built-in ones. Custom parsers never
+ * select characters of the expression, so they only add cost to token parser selection.
+ * With {@code cacheable = false} each token start asks every parser, with {@code cacheable = true}
+ * parser is taken from the dispatch table.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenParserDispatchBenchmark {
+
+    private static final String MARKERS = "#@`:;?[]{},\\";
+
+    private static final char[] EXPRESSION = ("(a + b * 2) / (c - 1) > 10 && name == \"jexpr\""
+            + " || !(flag & 0xFF) != 0 && x.y.z >= 1.5e3 - -d").toCharArray();
+
+    @Param({"0", "24"})
+    int customParsers;
+
+    @Param({"false", "true"})
+    boolean cacheable;
+
+    OperandParser parser;
+
+    @Setup
+    public void setup() {
+        val buffer = new ByteArrayOutput();
+        val parsers = new ArrayList<SelectableTokenParser>();
+
+        for (int i = 0; i < customParsers; i++) {
+            parsers.add(new MarkerTokenParser(MARKERS.charAt(i % MARKERS.length()), i % 2 == 0, cacheable));
+        }
+
+        parsers.add(new NumberTokenParser(buffer));
+        parsers.add(new StringTokenParser(new CharArrayOutput()));
+        parsers.add(new UnaryOperatorTokenParser(new DefaultUnaryOperatorRegistry()));
+        parsers.add(new BinaryOperatorTokenParser(new DefaultBinaryOperatorRegistry()));
+        parsers.add(new ReferenceTokenParser(new DefaultKeywordRegistry(), buffer));
+
+        parser = DefaultOperandParser.create(parsers);
+    }
+
+    @Benchmark
+    public Operand parse() {
+        parser.update(EXPRESSION, 0, EXPRESSION.length);
+
+        return parser.doFinal();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenParserDispatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor
+    private static final class MarkerTokenParser implements SelectableTokenParser {
+
+        char marker;
+
+        boolean afterOperand;
+
+        boolean cacheable;
+
+        @Override
+        public boolean shouldStaySelected(final int ch) {
+            return false;
+        }
+
+        @Override
+        public boolean shouldSelect(
+                final int ch,
+                final @Nullable Operand prevOperand,
+                final @Nullable Operator prevOperator
+        ) {
+            return ch == marker && (prevOperand != null) == afterOperand;
+        }
+
+        @Override
+        public boolean isSelectionCacheable() {
+            return cacheable;
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void update(final int ch) {
+        }
+
+        @Override
+        public void doFinal(final @NotNull TokenVisitor tokenVisitor) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.benchmark;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.exception.SyntaxException;
+import io.github.whilein.jexpr.token.SyntaxErrorMode;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of untrusted expressions, a third of which are invalid. {@code parse} catches
+ * exceptions with stack trace and parser report, {@code parseStackless} catches exceptions
+ * without them, {@code validate} does not throw at all.
+ *
+ * @author whilein
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private static final String[] EXPRESSIONS = {
+            "(user.age >= 18 && user.country == 'DE') || user.verified",
+            "price * quantity - discount > 100",
+            "((a + b) * (c - d)) / 2 <= limit",
+            "(user.age >= 18 && user.country == 'DE') || || user.verified",
+            "price * quantity - discount > ",
+            "((a + b) * (c - d) / 2 <= limit"
+    };
+
+    Jexpr jexpr;
+
+    Jexpr stacklessJexpr;
+
+    @Setup
+    public void setup() {
+        jexpr = DefaultJexpr.create();
+        stacklessJexpr = DefaultJexpr.create(SyntaxErrorMode.STACKLESS);
+    }
+
+    @Benchmark
+    public void parse(final Blackhole blackhole) {
+        parse(jexpr, blackhole);
+    }
+
+    @Benchmark
+    public void parseStackless(final Blackhole blackhole) {
+        parse(stacklessJexpr, blackhole);
+    }
+
+    @Benchmark
+    public void validate(final Blackhole blackhole) {
+        val jexpr = this.jexpr;
+
+        for (val expression : EXPRESSIONS) {
+            blackhole.consume(jexpr.validate(expression));
+        }
+    }
+
+    private static void parse(final Jexpr jexpr, final Blackhole blackhole) {
+        for (val expression : EXPRESSIONS) {
+            try {
+                blackhole.consume(jexpr.parse(expression));
+            } catch (final SyntaxException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -23,4 +23,16 @@ public interface OperandCompilerFactory {
 
     @NotNull OperandCompiler create(@NotNull MethodVisitor mv);
 
+    /**
+     * Create compiler, which may use locals starting from {@code firstFreeLocal} for intermediate results,
+     * e.g. to compile very deep expressions.
+     *
+     * @param mv             method visitor
+     * @param firstFreeLocal index of first unused local
+     * @return operand compiler
+     */
+    default @NotNull OperandCompiler create(@NotNull MethodVisitor mv, int firstFreeLocal) {
+        return create(mv);
+    }
+
 }
@@ -16,12 +16,18 @@
 
 package io.github.whilein.jexpr.compiler;
 
+import io.github.whilein.jexpr.api.token.operand.Subexpressions;
 import io.github.whilein.jexpr.compiler.local.Local;
 import io.github.whilein.jexpr.compiler.operand.TypedOperand;
+import io.github.whilein.jexpr.compiler.operand.TypedOperandBinary;
+import io.github.whilein.jexpr.compiler.operand.TypedOperandConstant;
+import io.github.whilein.jexpr.compiler.operand.TypedOperandReference;
+import io.github.whilein.jexpr.compiler.operand.TypedOperandUnary;
 import io.github.whilein.jexpr.compiler.operand.TypedOperandVariable;
 import io.github.whilein.jexpr.compiler.operand.TypedOperandVisitor;
 import io.github.whilein.jexpr.compiler.operator.AsmBinaryOperator;
 import io.github.whilein.jexpr.compiler.operator.AsmUnaryOperator;
+import io.github.whilein.jexpr.compiler.operator.type.AsmOperatorArithmetic;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
@@ -30,28 +36,199 @@ import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.objectweb.asm.Opcodes.IDIV;
 import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.IREM;
+import static org.objectweb.asm.Opcodes.ISTORE;
 
 /**
+ * Compiler of typed operands into bytecode.
+ * <p>
+ * If compiler can use locals, structurally equal subexpressions, which cannot throw, are computed once
+ * before the expression and stored in locals, then each occurrence loads the local. Such subexpression
+ * is computed even if all its occurrences are skipped by {@code &&} or {@code ||}.
+ *
  * @author whilein
  */
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public final class SimpleOperandCompiler implements OperandCompiler, TypedOperandVisitor {
 
+    /**
+     * Сколько узлов левой ветви компилируются рекурсивно, прежде чем поддерево выносится в локальную переменную.
+     */
+    private static final int MAX_SPINE_DEPTH = 256;
+
     AsmMethodCompiler asmMethodCompiler;
 
+    int firstFreeLocal;
+
     @NonFinal
     OperandOrigin actualOrigin;
 
+    @NonFinal
+    Map<TypedOperand, Local> hoisted;
+
+    @NonFinal
+    int nextLocal;
+
     public SimpleOperandCompiler(final MethodVisitor mv) {
+        this(mv, -1);
+    }
+
+    /**
+     * Create compiler, which can store intermediate results of very deep expressions
+     * in locals starting from {@code firstFreeLocal}.
+     *
+     * @param mv             method visitor
+     * @param firstFreeLocal index of first unused local or {@code -1}, if locals cannot be used
+     */
+    public SimpleOperandCompiler(final MethodVisitor mv, final int firstFreeLocal) {
         this.asmMethodCompiler = new AsmMethodCompiler(mv);
+        this.firstFreeLocal = firstFreeLocal;
     }
 
     @Override
     public void compile(final @NotNull TypedOperand operand) {
+        if (firstFreeLocal != -1) {
+            nextLocal = firstFreeLocal;
+
+            hoistCommonSubexpressions(operand);
+            hoistLeftSpine(operand);
+        }
+
         compile0(new RootOperandOrigin(), operand);
 
         asmMethodCompiler.endConcat();
+
+        hoisted = null;
+    }
+
+    private static TypedOperand getLeftMember(final TypedOperand operand) {
+        if (operand instanceof TypedOperandBinary) {
+            return ((TypedOperandBinary) operand).getLeftMember();
+        } else if (operand instanceof TypedOperandUnary) {
+            return ((TypedOperandUnary) operand).getMember();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Компиляция рекурсивна, и цепочки вроде {@code a + b + c + ...} переполнили бы стек.
+     * Левый член всегда вычисляется первым, поэтому каждые {@link #MAX_SPINE_DEPTH} узлов левой ветви
+     * можно заранее вычислить и сохранить в локальную переменную, начиная с самого глубокого.
+     * Тогда глубина рекурсии при компиляции любого поддерева ограничена.
+     */
+    private void hoistLeftSpine(final TypedOperand operand) {
+        val spine = new ArrayList<TypedOperand>();
+
+        for (TypedOperand node = operand; node != null; node = getLeftMember(node)) {
+            spine.add(node);
+        }
+
+        if (spine.size() <= MAX_SPINE_DEPTH) {
+            return;
+        }
+
+        if (hoisted == null) {
+            hoisted = new IdentityHashMap<>();
+        }
+
+        for (int i = spine.size() - 1 - MAX_SPINE_DEPTH; i > 0; i -= MAX_SPINE_DEPTH) {
+            val node = spine.get(i);
+            val type = node.getType();
+
+            if (type == null) {
+                continue;
+            }
+
+            compile0(new RootOperandOrigin(), node);
+            asmMethodCompiler.endConcat();
+
+            hoisted.put(node, store(type));
+        }
+    }
+
+    private Local store(final Type type) {
+        val local = new HoistedLocal(nextLocal, type);
+        asmMethodCompiler.visitVarInsn(type.getOpcode(ISTORE), local.getIndex());
+
+        nextLocal += type.getSize();
+
+        return local;
+    }
+
+    /**
+     * Вычисляет общие подвыражения заранее и сохраняет в локальные переменные. Подвыражения
+     * вычисляются от вложенных к внешним, поэтому внешнее уже использует локальные переменные вложенных.
+     */
+    private void hoistCommonSubexpressions(final TypedOperand operand) {
+        val subexpressions = Subexpressions.find(operand, TypedOperandStructure.INSTANCE);
+
+        val candidates = findCandidates(subexpressions);
+
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        if (hoisted == null) {
+            hoisted = new IdentityHashMap<>();
+        }
+
+        for (val id : candidates) {
+            val node = subexpressions.getNode(id);
+
+            // сам узел ещё не в hoisted, поэтому компилируется, а не загружается
+            val actualOrigin = this.actualOrigin;
+            this.actualOrigin = new RootOperandOrigin();
+            node.accept(this);
+            this.actualOrigin = actualOrigin;
+
+            asmMethodCompiler.endConcat();
+
+            val local = store(node.getType());
+
+            for (val occurrence : subexpressions.getOccurrences(id)) {
+                hoisted.put(occurrence, local);
+            }
+        }
+    }
+
+    private static List<Integer> findCandidates(final Subexpressions<TypedOperand> subexpressions) {
+        val candidates = new ArrayList<Integer>();
+
+        // высота поддерева, в котором вынесенные подвыражения считаются листьями
+        val size = subexpressions.size();
+        val heights = new int[size];
+        val hoisted = new boolean[size];
+
+        for (int id = 0; id < size; id++) {
+            val left = subexpressions.getLeftMember(id);
+            val right = subexpressions.getRightMember(id);
+
+            if (left == -1) {
+                heights[id] = 1;
+                continue;
+            }
+
+            heights[id] = 1 + Math.max(hoisted[left] ? 1 : heights[left],
+                    right == -1 ? 0 : hoisted[right] ? 1 : heights[right]);
+
+            if (!subexpressions.isCommon(id) || heights[id] > MAX_SPINE_DEPTH
+                    || subexpressions.getNode(id).getType() == null) {
+                continue;
+            }
+
+            hoisted[id] = true;
+            candidates.add(id);
+        }
+
+        return candidates;
     }
 
     @Override
@@ -111,11 +288,88 @@ public final class SimpleOperandCompiler implements OperandCompiler, TypedOperan
 
         this.actualOrigin = origin;
 
-        operand.accept(this);
+        val local = hoisted != null ? hoisted.get(operand) : null;
+
+        if (local != null) {
+            visitReference(local);
+        } else {
+            operand.accept(this);
+        }
 
         this.actualOrigin = actualOrigin;
     }
 
+    /**
+     * Структура типизированных операндов для поиска общих подвыражений. Чистым считается узел,
+     * который не выбрасывает исключений, поэтому его можно вычислить заранее.
+     */
+    private static final class TypedOperandStructure implements Subexpressions.Structure<TypedOperand> {
+
+        static final TypedOperandStructure INSTANCE = new TypedOperandStructure();
+
+        @Override
+        public TypedOperand getLeftMember(final @NotNull TypedOperand node) {
+            return SimpleOperandCompiler.getLeftMember(node);
+        }
+
+        @Override
+        public TypedOperand getRightMember(final @NotNull TypedOperand node) {
+            return node instanceof TypedOperandBinary ? ((TypedOperandBinary) node).getRightMember() : null;
+        }
+
+        @Override
+        public @NotNull Object getOperator(final @NotNull TypedOperand node) {
+            return node instanceof TypedOperandBinary
+                    ? ((TypedOperandBinary) node).getOperator()
+                    : ((TypedOperandUnary) node).getOperator();
+        }
+
+        @Override
+        public boolean isPure(final @NotNull TypedOperand node) {
+            if (node instanceof TypedOperandBinary) {
+                return !isIntegralDivision((TypedOperandBinary) node);
+            }
+
+            if (node instanceof TypedOperandUnary) {
+                return true;
+            }
+
+            if (node instanceof TypedOperandConstant) {
+                return ((TypedOperandConstant) node).getValue() != null;
+            }
+
+            if (node instanceof TypedOperandReference) {
+                // объекты могут быть null, а примитивы - нет
+                val type = node.getType();
+
+                return type != null && type.getSort() != Type.OBJECT && type.getSort() != Type.ARRAY;
+            }
+
+            return false;
+        }
+
+        private static boolean isIntegralDivision(final TypedOperandBinary binary) {
+            val operator = binary.getOperator();
+
+            if (!(operator instanceof AsmOperatorArithmetic)) {
+                return false;
+            }
+
+            val opcode = ((AsmOperatorArithmetic) operator).getOpcode();
+            val type = binary.getType();
+
+            return (opcode == IDIV || opcode == IREM)
+                    && (type == null || type.getSort() != Type.FLOAT && type.getSort() != Type.DOUBLE);
+        }
+
+    }
+
+    @Value
+    private static class HoistedLocal implements Local {
+        int index;
+        Type type;
+    }
+
     private static final class RootOperandOrigin implements OperandOrigin {
         @Getter
         @Setter
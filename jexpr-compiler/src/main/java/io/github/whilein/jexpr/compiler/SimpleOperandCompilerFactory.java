@@ -25,4 +25,9 @@ public class SimpleOperandCompilerFactory implements OperandCompilerFactory {
     public @NotNull OperandCompiler create(@NotNull MethodVisitor mv) {
         return new SimpleOperandCompiler(mv);
     }
+
+    @Override
+    public @NotNull OperandCompiler create(@NotNull MethodVisitor mv, int firstFreeLocal) {
+        return new SimpleOperandCompiler(mv, firstFreeLocal);
+    }
 }
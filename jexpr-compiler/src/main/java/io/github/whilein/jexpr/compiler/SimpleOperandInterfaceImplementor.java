@@ -157,7 +157,7 @@ public final class SimpleOperandInterfaceImplementor<T> implements OperandInterf
 
         val classLoader = new OpenClassLoader(this.classLoader);
 
-        val cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        val cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
 
         cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC,
                 typeName, null,
@@ -229,7 +229,7 @@ public final class SimpleOperandInterfaceImplementor<T> implements OperandInterf
 
             val typedOperand = operand.apply(toTypedOperandMapperFactory.create(localMap));
 
-            val expressionCompiler = operandCompilerFactory.create(mv);
+            val expressionCompiler = operandCompilerFactory.create(mv, local);
             expressionCompiler.compile(typedOperand);
 
             val returnType = Type.getType(this.returnType);
@@ -17,22 +17,28 @@
 package io.github.whilein.jexpr.compiler.operand;
 
 import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandConstant;
+import io.github.whilein.jexpr.api.token.operand.OperandMapper;
 import io.github.whilein.jexpr.api.token.operand.OperandVariable;
 import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
 import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
 import io.github.whilein.jexpr.compiler.local.LocalMap;
 import io.github.whilein.jexpr.compiler.operand.type.TypedOperands;
 import io.github.whilein.jexpr.compiler.operator.AsmBinaryOperator;
+import io.github.whilein.jexpr.compiler.operator.AsmOperator;
 import io.github.whilein.jexpr.compiler.operator.AsmOperatorRegistry;
 import io.github.whilein.jexpr.compiler.operator.AsmUnaryOperator;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+
 @FieldDefaults(level = AccessLevel.PROTECTED, makeFinal = true)
 @RequiredArgsConstructor
 public class SimpleToTypedOperandMapper implements ToTypedOperandMapper {
@@ -44,39 +50,136 @@ public class SimpleToTypedOperandMapper implements ToTypedOperandMapper {
     @Getter
     LocalMap localMap;
 
-    @Override
-    public TypedOperand mapUnary(@NotNull OperandVariable left, @NotNull UnaryOperator op) {
-        val asmOperator = unaryOperatorRegistry.get(op.getClass());
+    /**
+     * Глубина рекурсии {@link #mapBinary(Operand, Operand, BinaryOperator)} и {@link #mapUnary(OperandVariable, UnaryOperator)}.
+     */
+    @NonFinal
+    private int depth;
 
-        if (asmOperator == null) {
-            throw new IllegalArgumentException("Got unknown unary operator: " + op);
-        }
+    /**
+     * Глубина, после которой рекурсивное преобразование переключается на явный стек.
+     */
+    private static final int MAX_RECURSION_DEPTH = 256;
+
+    private static final int INITIAL_STACK_SIZE = 32;
 
-        val typedMember = left.apply(this);
+    @Override
+    public TypedOperand mapUnary(@NotNull OperandVariable left, @NotNull UnaryOperator op) {
+        val asmOperator = getUnaryOperator(op);
 
         return TypedOperands.unary(
-                (TypedOperandVariable) typedMember,
+                (TypedOperandVariable) map(left),
                 asmOperator
         );
     }
 
-
     @Override
     public TypedOperand mapBinary(@NotNull Operand left, @NotNull Operand right, @NotNull BinaryOperator op) {
+        val asmOperator = getBinaryOperator(op);
+
+        return TypedOperands.binary(
+                map(left),
+                map(right),
+                asmOperator
+        );
+    }
+
+    private AsmUnaryOperator getUnaryOperator(final UnaryOperator op) {
+        val asmOperator = unaryOperatorRegistry.get(op.getClass());
+
+        if (asmOperator == null) {
+            throw new IllegalArgumentException("Got unknown unary operator: " + op);
+        }
+
+        return asmOperator;
+    }
+
+    private AsmBinaryOperator getBinaryOperator(final BinaryOperator op) {
         val asmOperator = binaryOperatorRegistry.get(op.getClass());
 
         if (asmOperator == null) {
             throw new IllegalArgumentException("Got unknown binary operator: " + op);
         }
 
-        val typedLeft = left.apply(this);
-        val typedRight = right.apply(this);
+        return asmOperator;
+    }
 
-        return TypedOperands.binary(
-                typedLeft,
-                typedRight,
-                asmOperator
-        );
+    private TypedOperand map(final Operand operand) {
+        if (depth == MAX_RECURSION_DEPTH) {
+            return mapIterative(operand);
+        }
+
+        depth++;
+
+        try {
+            return operand.apply(this);
+        } finally {
+            depth--;
+        }
+    }
+
+    /**
+     * Преобразовать операнд без рекурсии, чтобы не переполнить стек на длинных цепочках вроде
+     * {@code a + b + c + ...}. Вложенные бинарные и унарные операнды обходятся явным стеком,
+     * а распознаются через {@link Descender}, чтобы не проверять каждый лист через {@code instanceof}.
+     */
+    private TypedOperand mapIterative(final Operand root) {
+        val descender = new Descender();
+
+        // правые члены узлов на пути от корня (null у унарных), их asm-операторы
+        // и уже преобразованные левые члены
+        Operand[] rights = new Operand[INITIAL_STACK_SIZE];
+        AsmOperator<?>[] operators = new AsmOperator<?>[INITIAL_STACK_SIZE];
+        TypedOperand[] typedLefts = new TypedOperand[INITIAL_STACK_SIZE];
+        int size = 0;
+
+        Operand current = root;
+
+        while (true) {
+            TypedOperand result;
+
+            // спускаемся по левой ветви до листа
+            while ((result = current.apply(descender)) == null) {
+                if (size == rights.length) {
+                    rights = Arrays.copyOf(rights, size * 2);
+                    operators = Arrays.copyOf(operators, size * 2);
+                    typedLefts = Arrays.copyOf(typedLefts, size * 2);
+                }
+
+                rights[size] = descender.right;
+                operators[size++] = descender.operator;
+
+                current = descender.left;
+            }
+
+            // поднимаемся, пока не встретим бинарный узел, у которого ещё не преобразован правый член
+            while (true) {
+                if (size == 0) {
+                    return result;
+                }
+
+                val right = rights[size - 1];
+                val operator = operators[size - 1];
+
+                if (right != null) {
+                    val typedLeft = typedLefts[size - 1];
+
+                    if (typedLeft == null) {
+                        typedLefts[size - 1] = result;
+                        current = right;
+                        break;
+                    }
+
+                    result = TypedOperands.binary(typedLeft, result, (AsmBinaryOperator) operator);
+                    typedLefts[size - 1] = null;
+                } else {
+                    result = TypedOperands.unary((TypedOperandVariable) result, (AsmUnaryOperator) operator);
+                }
+
+                rights[--size] = null;
+                operators[size] = null;
+            }
+        }
     }
 
     @Override
@@ -123,4 +226,84 @@ public class SimpleToTypedOperandMapper implements ToTypedOperandMapper {
         return TypedOperands.constantString(value);
     }
 
+    /**
+     * Преобразует листья как {@link SimpleToTypedOperandMapper}, а для бинарных и унарных операндов
+     * возвращает {@code null} и запоминает их члены.
+     */
+    private final class Descender implements OperandMapper<TypedOperand> {
+
+        Operand left, right;
+        AsmOperator<?> operator;
+
+        @Override
+        public TypedOperand mapBinary(@NotNull Operand left, @NotNull Operand right, @NotNull BinaryOperator op) {
+            this.operator = getBinaryOperator(op);
+            this.left = left;
+            this.right = right;
+
+            return null;
+        }
+
+        @Override
+        public TypedOperand mapUnary(@NotNull OperandVariable left, @NotNull UnaryOperator op) {
+            this.operator = getUnaryOperator(op);
+            this.left = left;
+            this.right = null;
+
+            return null;
+        }
+
+        @Override
+        public TypedOperand mapUnary(@NotNull OperandConstant member, @NotNull UnaryOperator op) {
+            throw new UnsupportedOperationException("Cannot compile " + op.getValue() + member
+                    + ", operator is not applicable to constant");
+        }
+
+        @Override
+        public TypedOperand mapConstant(Object object) {
+            return SimpleToTypedOperandMapper.this.mapConstant(object);
+        }
+
+        @Override
+        public TypedOperand mapReference(@NotNull String value) {
+            return SimpleToTypedOperandMapper.this.mapReference(value);
+        }
+
+        @Override
+        public TypedOperand mapObject(@Nullable Object value) {
+            return SimpleToTypedOperandMapper.this.mapObject(value);
+        }
+
+        @Override
+        public TypedOperand mapInt(int value) {
+            return SimpleToTypedOperandMapper.this.mapInt(value);
+        }
+
+        @Override
+        public TypedOperand mapFloat(float value) {
+            return SimpleToTypedOperandMapper.this.mapFloat(value);
+        }
+
+        @Override
+        public TypedOperand mapLong(long value) {
+            return SimpleToTypedOperandMapper.this.mapLong(value);
+        }
+
+        @Override
+        public TypedOperand mapDouble(double value) {
+            return SimpleToTypedOperandMapper.this.mapDouble(value);
+        }
+
+        @Override
+        public TypedOperand mapBoolean(boolean value) {
+            return SimpleToTypedOperandMapper.this.mapBoolean(value);
+        }
+
+        @Override
+        public TypedOperand mapString(@NotNull String value) {
+            return SimpleToTypedOperandMapper.this.mapString(value);
+        }
+
+    }
+
 }
@@ -22,6 +22,7 @@ import io.github.whilein.jexpr.compiler.OperandOrigin;
 import io.github.whilein.jexpr.compiler.StackLazyOperand;
 import io.github.whilein.jexpr.compiler.operator.AbstractAsmBinaryOperator;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.experimental.FieldDefaults;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -33,6 +34,7 @@ import org.objectweb.asm.Type;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public final class AsmOperatorArithmetic extends AbstractAsmBinaryOperator {
 
+    @Getter
     int opcode;
 
     public AsmOperatorArithmetic(Class<? extends BinaryOperator> operatorType, int opcode) {
@@ -18,14 +18,24 @@ package io.github.whilein.jexpr.compiler;
 
 import io.github.whilein.jexpr.DefaultJexpr;
 import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.compiler.operand.SimpleToTypedOperandMapperFactory;
+import io.github.whilein.jexpr.compiler.operator.DefaultAsmBinaryOperatorRegistry;
+import io.github.whilein.jexpr.compiler.operator.DefaultAsmUnaryOperatorRegistry;
 import lombok.val;
+import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 
 import java.util.function.BinaryOperator;
 import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author whilein
@@ -70,4 +80,132 @@ final class OperandInterfaceImplementorTests {
         assertEquals(-30, operator.applyAsInt(10, -40));
     }
 
+    @Test
+    void testLogical() {
+        val predicate = jexprCompiler.implementInterface(IntPredicate.class)
+                .name(0, "a")
+                .compile(jexpr.parse("a > 0 && a < 10 || a == -5"));
+
+        for (int a = -12; a <= 12; a++) {
+            assertEquals(a > 0 && a < 10 || a == -5, predicate.test(a), String.valueOf(a));
+        }
+    }
+
+    @Test
+    void testDeepExpression() {
+        val expression = new StringBuilder("a");
+
+        for (int i = 1; i < 20_000; i++) {
+            expression.append(i % 2 == 0 ? " + a" : " - b");
+        }
+
+        val operator = jexprCompiler.implementInterface(IntBinaryOperator.class)
+                .name(0, "a")
+                .name(1, "b")
+                .compile(jexpr.parse(expression.toString()));
+
+        assertEquals(10_000 * 3 - 10_000 * 2, operator.applyAsInt(3, 2));
+    }
+
+    @Test
+    void testDeepConcatenation() {
+        val expression = new StringBuilder("a");
+        val expected = new StringBuilder("x");
+
+        for (int i = 1; i < 3_000; i++) {
+            expression.append(" + ").append(i % 10);
+            expected.append(i % 10);
+        }
+
+        @SuppressWarnings("unchecked")
+        val operator = (UnaryOperator<String>) jexprCompiler.implementInterface(UnaryOperator.class)
+                .parameter(0, "a", String.class)
+                .returnType(String.class)
+                .compile(jexpr.parse(expression.toString()));
+
+        assertEquals(expected.toString(), operator.apply("x"));
+    }
+
+    @Test
+    void testCommonSubexpressions() {
+        val predicate = jexprCompiler.implementInterface(IntPredicate.class)
+                .name(0, "a")
+                .compile(jexpr.parse("(a * a - 7) > 0 && (a * a - 7) < 100 || -(a * a - 7) == 3"));
+
+        for (int a = -12; a <= 12; a++) {
+            val expected = (a * a - 7) > 0 && (a * a - 7) < 100 || -(a * a - 7) == 3;
+            assertEquals(expected, predicate.test(a), String.valueOf(a));
+        }
+    }
+
+    @Test
+    void testCommonDivisionIsNotHoisted() {
+        val predicate = jexprCompiler.implementInterface(IntPredicate.class)
+                .name(0, "a")
+                .compile(jexpr.parse("a != 0 && 10 / a + 10 / a > 1"));
+
+        assertFalse(predicate.test(0));
+        assertTrue(predicate.test(3));
+    }
+
+    @Test
+    void testCommonSubexpressionComputedOnce() {
+        val counter = new int[1];
+        val operator = compileCountingMultiplications("(a * b + 1) * (a * b + 1) - (a * b + 1)", counter);
+
+        // a * b и внешнее умножение
+        assertEquals(2, counter[0]);
+        assertEquals(7 * 7 - 7, operator.applyAsInt(2, 3));
+    }
+
+    @Test
+    void testCommonSubexpressionAfterManyDistinct() {
+        // больше 128 различных подвыражений перед общим
+        val expression = new StringBuilder();
+        int expected = 0;
+
+        for (int i = 0; i < 150; i++) {
+            expression.append("(a + ").append(i).append(") + ");
+            expected += 2 + i;
+        }
+
+        expression.append("a * b + a * b");
+        expected += 2 * 2 * 3;
+
+        val counter = new int[1];
+        val operator = compileCountingMultiplications(expression.toString(), counter);
+
+        assertEquals(1, counter[0]);
+        assertEquals(expected, operator.applyAsInt(2, 3));
+    }
+
+    private static IntBinaryOperator compileCountingMultiplications(final String expression, final int[] counter) {
+        val compilerFactory = new SimpleOperandCompilerFactory() {
+            @Override
+            public @NotNull OperandCompiler create(final @NotNull MethodVisitor mv, final int firstFreeLocal) {
+                return super.create(new MethodVisitor(Opcodes.ASM9, mv) {
+                    @Override
+                    public void visitInsn(final int opcode) {
+                        if (opcode == Opcodes.IMUL) {
+                            counter[0]++;
+                        }
+
+                        super.visitInsn(opcode);
+                    }
+                }, firstFreeLocal);
+            }
+        };
+
+        val toTypedOperandMapperFactory = new SimpleToTypedOperandMapperFactory(
+                new DefaultAsmBinaryOperatorRegistry(),
+                new DefaultAsmUnaryOperatorRegistry()
+        );
+
+        return new SimpleOperandInterfaceImplementor<>(IntBinaryOperator.class,
+                toTypedOperandMapperFactory, compilerFactory)
+                .name(0, "a")
+                .name(1, "b")
+                .compile(jexpr.parse(expression));
+    }
+
 }
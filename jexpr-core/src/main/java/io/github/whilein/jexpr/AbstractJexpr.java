@@ -16,14 +16,23 @@
 
 package io.github.whilein.jexpr;
 
+import io.github.whilein.jexpr.api.BulkParseResult;
 import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.ParseError;
+import io.github.whilein.jexpr.api.ParseErrorHandler;
+import io.github.whilein.jexpr.api.ParsedExpression;
+import io.github.whilein.jexpr.api.ValidationResult;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
+import io.github.whilein.jexpr.api.exception.SyntaxException;
 import io.github.whilein.jexpr.api.keyword.KeywordRegistry;
-import io.github.whilein.jexpr.api.token.SelectableTokenParser;
 import io.github.whilein.jexpr.api.token.operand.Operand;
 import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.api.token.operand.OperandParserFactory;
 import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
 import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
 import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import io.github.whilein.jexpr.token.AbstractTokenParser;
+import io.github.whilein.jexpr.token.SyntaxErrorMode;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -33,8 +42,20 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 @Getter
 @FieldDefaults(level = AccessLevel.PROTECTED, makeFinal = true)
@@ -44,38 +65,106 @@ public abstract class AbstractJexpr implements Jexpr {
     OperatorRegistry<UnaryOperator> unaryOperatorRegistry;
     KeywordRegistry keywordRegistry;
 
-    OperandParser operandParser;
+    OperandParserFactory operandParserFactory;
+
+    /**
+     * Парсеры потоков, которые выполняют {@link #parseAll(List, ForkJoinPool)}.
+     */
+    @Getter(AccessLevel.NONE)
+    ThreadLocal<OperandParser> bulkOperandParser;
+
+    /**
+     * Парсеры потоков, которые выполняют {@link #validate(String)}, не создают сообщений и стектрейсов ошибок.
+     */
+    @Getter(AccessLevel.NONE)
+    ThreadLocal<OperandParser> validationOperandParser;
+
+    private static final int BUFFER_SIZE = 8192;
 
     protected AbstractJexpr(
             OperatorRegistry<BinaryOperator> binaryOperatorRegistry,
             OperatorRegistry<UnaryOperator> unaryOperatorRegistry,
             KeywordRegistry keywordRegistry,
-            List<SelectableTokenParser> parsers
+            OperandParserFactory operandParserFactory
     ) {
         this.binaryOperatorRegistry = binaryOperatorRegistry;
         this.unaryOperatorRegistry = unaryOperatorRegistry;
         this.keywordRegistry = keywordRegistry;
-        this.operandParser = DefaultOperandParser.create(parsers);
+        this.operandParserFactory = operandParserFactory;
+        this.bulkOperandParser = ThreadLocal.withInitial(operandParserFactory::create);
+        this.validationOperandParser = ThreadLocal.withInitial(() -> createValidationParser(operandParserFactory));
+    }
+
+    private static OperandParser createValidationParser(final OperandParserFactory operandParserFactory) {
+        val parser = operandParserFactory.create();
+
+        if (parser instanceof AbstractTokenParser) {
+            ((AbstractTokenParser) parser).setSyntaxErrorMode(SyntaxErrorMode.SILENT);
+        }
+
+        return parser;
     }
 
     @Override
     public @NotNull Operand parse(final @NotNull String value) {
-        return parse(new StringIn(value));
+        return parse(value, 0, value.length());
+    }
+
+    @Override
+    public @NotNull Operand parse(final @NotNull CharSequence value, final int start, final int end) {
+        if (start < 0 || end > value.length() || start > end) {
+            throw new IndexOutOfBoundsException("start = " + start + ", end = " + end
+                    + ", length = " + value.length());
+        }
+
+        return parse(new CharSequenceIn(value, start, end), end - start);
     }
 
     @Override
     public @NotNull Operand parse(final byte @NotNull [] value) {
-        return parse(new ByteArrayIn(value));
+        return parse(ByteBuffer.wrap(value));
+    }
+
+    @Override
+    public @NotNull Operand parse(final byte @NotNull [] value, final int offset, final int length) {
+        return parse(ByteBuffer.wrap(value, offset, length));
+    }
+
+    @Override
+    public @NotNull Operand parse(final @NotNull ByteBuffer buffer) {
+        // позиция переданного буфера не меняется
+        val in = buffer.duplicate();
+
+        return parse(new ByteBufferIn(in, in.position()), in.remaining());
+    }
+
+    private <E extends Throwable> Operand parse(final In<E> in, final int length) throws E {
+        return parse(getOperandParser(), in, length);
+    }
+
+    private <E extends Throwable> Operand parse(final In<E> in, final char[] buffer) throws E {
+        return parse(getOperandParser(), in, buffer);
     }
 
-    private <E extends Throwable> Operand parse(final In<E> in) throws E {
-        val parser = getOperandParser();
+    private static <E extends Throwable> Operand parse(
+            final OperandParser parser,
+            final In<E> in,
+            final int length
+    ) throws E {
+        // суррогатная пара должна помещаться в буфер целиком
+        return parse(parser, in, new char[Math.max(2, Math.min(length, BUFFER_SIZE))]);
+    }
 
+    private static <E extends Throwable> Operand parse(
+            final OperandParser parser,
+            final In<E> in,
+            final char[] buffer
+    ) throws E {
         try {
             int n;
 
-            while ((n = in.read()) != -1) {
-                parser.update(n);
+            while ((n = in.read(buffer)) != -1) {
+                parser.update(buffer, 0, n);
             }
 
             return parser.doFinal();
@@ -89,7 +178,10 @@ public abstract class AbstractJexpr implements Jexpr {
     @Override
     public @NotNull Operand parse(final @NotNull InputStream is) {
         try {
-            return parse(new StreamIn(is));
+            return parse(new ReaderIn(new InputStreamReader(is, StandardCharsets.UTF_8.newDecoder())),
+                    new char[BUFFER_SIZE]);
+        } catch (final CharacterCodingException e) {
+            throw new SyntaxException("Malformed UTF-8 input", e);
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
@@ -98,61 +190,280 @@ public abstract class AbstractJexpr implements Jexpr {
     @Override
     public @NotNull Operand parse(final @NotNull Reader reader) {
         try {
-            return parse(new ReaderIn(reader));
+            return parse(new ReaderIn(reader), new char[BUFFER_SIZE]);
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private interface In<E extends Throwable> {
+    @Override
+    public @NotNull ValidationResult validate(final @NotNull String value) {
+        val parser = validationOperandParser.get();
+
+        // всё выражение одним массивом, чтобы позиции токенов совпадали с позициями в строке
+        val chars = value.toCharArray();
+
+        if (parser instanceof AbstractOperandParser) {
+            ((AbstractOperandParser) parser).resetErrorOffset();
+        }
+
+        try {
+            parser.update(chars, 0, chars.length);
+            parser.doFinal();
+
+            return ValidationResult.valid();
+        } catch (final SyntaxException e) {
+            val code = e.getCode() != null ? e.getCode() : SyntaxErrorCode.INVALID_SYNTAX;
+            val offset = code == SyntaxErrorCode.UNEXPECTED_EOF ? chars.length : getErrorOffset(parser);
+
+            parser.reset();
+
+            return new ValidationResult(code, offset, e.getExpected());
+        } catch (final RuntimeException e) {
+            // OperatorException или ошибка свёртки констант, например, ArithmeticException у 1 / 0
+            val offset = getErrorOffset(parser);
+
+            parser.reset();
+
+            return new ValidationResult(SyntaxErrorCode.INAPPLICABLE_OPERATOR, offset, null);
+        }
+    }
+
+    private static int getErrorOffset(final OperandParser parser) {
+        return parser instanceof AbstractOperandParser
+                ? Math.max(0, ((AbstractOperandParser) parser).getErrorOffset())
+                : 0;
+    }
+
+    @Override
+    public @NotNull ParsedExpression parseSpanned(final @NotNull String value) {
+        return SpannedExpressionParser.parse(getOperandParser(), value);
+    }
+
+    @Override
+    public @NotNull ParsedExpression reparse(
+            final @NotNull ParsedExpression previous,
+            final int offset,
+            final int removedLength,
+            final @NotNull String insertedText
+    ) {
+        return SpannedExpressionParser.reparse(getOperandParser(), previous, offset, removedLength, insertedText);
+    }
+
+    @Override
+    public @NotNull Iterator<@NotNull Operand> parseAll(
+            final @NotNull Reader reader,
+            final char delimiter,
+            final @NotNull ParseErrorHandler errorHandler
+    ) {
+        return new OperandIterator<>(new ReaderIn(reader), new char[BUFFER_SIZE],
+                operandParserFactory.create(), delimiter, errorHandler);
+    }
+
+    @Override
+    public @NotNull Iterator<@NotNull Operand> parseAll(
+            final @NotNull InputStream stream,
+            final char delimiter,
+            final @NotNull ParseErrorHandler errorHandler
+    ) {
+        return parseAll(new InputStreamReader(stream, StandardCharsets.UTF_8.newDecoder()),
+                delimiter, errorHandler);
+    }
+
+    @Override
+    public @NotNull Iterator<@NotNull Operand> parseAll(
+            final @NotNull ByteBuffer buffer,
+            final char delimiter,
+            final @NotNull ParseErrorHandler errorHandler
+    ) {
+        val in = buffer.duplicate();
+
+        return new OperandIterator<>(new ByteBufferIn(in, in.position()), new char[BUFFER_SIZE],
+                operandParserFactory.create(), delimiter, errorHandler);
+    }
+
+    @Override
+    public @NotNull BulkParseResult parseAll(final @NotNull List<@NotNull String> values) {
+        return parseAll(values, ForkJoinPool.commonPool());
+    }
+
+    @Override
+    public @NotNull BulkParseResult parseAll(
+            final @NotNull List<@NotNull String> values,
+            final @NotNull ForkJoinPool pool
+    ) {
+        val size = values.size();
+
+        val operands = new Operand[size];
+        val exceptions = new SyntaxException[size];
 
-        int read() throws E;
+        // примерно по 4 задачи на поток, чтобы потоки не простаивали на неравных по длине выражениях
+        val threshold = Math.max(1, size / (pool.getParallelism() * 4));
 
+        pool.invoke(new ParseAllTask(values, operands, exceptions, 0, size, threshold));
+
+        val errors = new ArrayList<ParseError>();
+
+        for (int i = 0; i < size; i++) {
+            val exception = exceptions[i];
+
+            if (exception != null) {
+                errors.add(new ParseError(i, 0, exception));
+            }
+        }
+
+        return new BulkParseResult(
+                Collections.unmodifiableList(Arrays.asList(operands)),
+                Collections.unmodifiableList(errors)
+        );
     }
 
     @RequiredArgsConstructor
-    private static final class StreamIn implements In<IOException> {
-        final InputStream is;
+    private final class ParseAllTask extends RecursiveAction {
+
+        final List<String> values;
+
+        final Operand[] operands;
+
+        final SyntaxException[] exceptions;
+
+        final int from, to;
+
+        final int threshold;
 
         @Override
-        public int read() throws IOException {
-            return is.read();
+        protected void compute() {
+            if (to - from <= threshold) {
+                val parser = bulkOperandParser.get();
+
+                for (int i = from; i < to; i++) {
+                    val value = values.get(i);
+
+                    try {
+                        operands[i] = parse(parser, new CharSequenceIn(value, 0, value.length()), value.length());
+                    } catch (final SyntaxException e) {
+                        exceptions[i] = e;
+                    } catch (final RuntimeException e) {
+                        // OperatorException или ошибка свёртки констант, например, ArithmeticException у 1 / 0
+                        exceptions[i] = new SyntaxException(e.getMessage(), SyntaxErrorCode.INAPPLICABLE_OPERATOR,
+                                null, e, true);
+                    }
+                }
+
+                return;
+            }
+
+            val middle = (from + to) >>> 1;
+
+            invokeAll(
+                    new ParseAllTask(values, operands, exceptions, from, middle, threshold),
+                    new ParseAllTask(values, operands, exceptions, middle, to, threshold)
+            );
         }
     }
 
+    interface In<E extends Throwable> {
+
+        /**
+         * Прочитать следующую порцию символов в буфер.
+         *
+         * @param buffer буфер
+         * @return количество прочитанных символов или {@code -1}, если данные закончились
+         */
+        int read(char[] buffer) throws E;
+
+    }
+
     @RequiredArgsConstructor
-    private static final class ReaderIn implements In<IOException> {
+    static final class ReaderIn implements In<IOException> {
         final Reader reader;
 
         @Override
-        public int read() throws IOException {
-            return reader.read();
+        public int read(final char[] buffer) throws IOException {
+            return reader.read(buffer);
         }
     }
 
-    @RequiredArgsConstructor
-    private static final class ByteArrayIn implements In<RuntimeException> {
+    static final class ByteBufferIn implements In<RuntimeException> {
 
-        final byte[] bytes;
+        final ByteBuffer buffer;
 
-        int position;
+        final int start;
+
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+        boolean completed;
+
+        ByteBufferIn(final ByteBuffer buffer, final int start) {
+            this.buffer = buffer;
+            this.start = start;
+        }
 
         @Override
-        public int read() throws RuntimeException {
-            return position == bytes.length ? -1 : bytes[position++];
+        public int read(final char[] chars) throws RuntimeException {
+            if (completed) {
+                return -1;
+            }
+
+            val out = CharBuffer.wrap(chars);
+            val result = decoder.decode(buffer, out, true);
+
+            if (result.isError()) {
+                throw new SyntaxException("Malformed UTF-8 input at byte " + (buffer.position() - start));
+            }
+
+            if (result.isUnderflow()) {
+                // весь ввод декодирован, у UTF-8 нет состояния, которое нужно сбрасывать
+                completed = true;
+            }
+
+            val n = out.position();
+
+            return n == 0 && completed ? -1 : n;
         }
     }
 
-    @RequiredArgsConstructor
-    private static final class StringIn implements In<RuntimeException> {
+    static final class CharSequenceIn implements In<RuntimeException> {
+
+        final CharSequence text;
 
-        final String text;
+        final int end;
 
         int position;
 
+        CharSequenceIn(final CharSequence text, final int start, final int end) {
+            this.text = text;
+            this.position = start;
+            this.end = end;
+        }
+
         @Override
-        public int read() throws RuntimeException {
-            return position == text.length() ? -1 : text.charAt(position++);
+        public int read(final char[] buffer) throws RuntimeException {
+            val n = Math.min(buffer.length, end - position);
+
+            if (n == 0) {
+                return -1;
+            }
+
+            val text = this.text;
+            val from = position;
+            val to = from + n;
+
+            if (text instanceof String) {
+                ((String) text).getChars(from, to, buffer, 0);
+            } else if (text instanceof StringBuilder) {
+                ((StringBuilder) text).getChars(from, to, buffer, 0);
+            } else if (text instanceof StringBuffer) {
+                ((StringBuffer) text).getChars(from, to, buffer, 0);
+            } else {
+                for (int i = from; i < to; i++) {
+                    buffer[i - from] = text.charAt(i);
+                }
+            }
+
+            position = to;
+
+            return n;
         }
     }
 
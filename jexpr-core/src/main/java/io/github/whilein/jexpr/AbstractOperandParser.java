@@ -16,6 +16,8 @@
 
 package io.github.whilein.jexpr;
 
+import io.github.whilein.jexpr.api.exception.ExpectedToken;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
 import io.github.whilein.jexpr.api.exception.SyntaxException;
 import io.github.whilein.jexpr.api.token.SelectableTokenParser;
 import io.github.whilein.jexpr.api.token.TokenVisitor;
@@ -25,15 +27,15 @@ import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
 import io.github.whilein.jexpr.api.token.operator.Operator;
 import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
 import io.github.whilein.jexpr.token.AbstractTokenParser;
+import io.github.whilein.jexpr.token.ParserLimits;
+import io.github.whilein.jexpr.token.SyntaxErrorMode;
 import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -41,21 +43,44 @@ import java.util.Map;
  * @author whilein
  */
 @FieldDefaults(level = AccessLevel.PROTECTED, makeFinal = true)
-@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 public abstract class AbstractOperandParser extends AbstractTokenParser
         implements OperandParser, TokenVisitor {
 
     @NonFinal
     BinaryOperator binaryOperator;
 
-    Deque<UnaryOperator> unaryOperators = new ArrayDeque<>();
+    /**
+     * Унарные операторы перед следующим операндом, в порядке появления.
+     */
+    @NonFinal
+    UnaryOperator[] unaryOperators = new UnaryOperator[4];
 
-    Deque<Operator> operatorStack = new ArrayDeque<>();
+    @NonFinal
+    int unaryOperatorCount;
 
-    Deque<Operand> operandStack = new ArrayDeque<>();
+    @NonFinal
+    Operator[] operatorStack = new Operator[16];
+
+    @NonFinal
+    int operatorStackSize;
+
+    @NonFinal
+    Operand[] operandStack = new Operand[16];
+
+    @NonFinal
+    int operandStackSize;
 
     List<SelectableTokenParser> parsers;
 
+    TokenParserDispatchTable dispatchTable;
+
+    /**
+     * Парсер выражения в скобках следующего уровня вложенности, переиспользуется для всех скобок
+     * этого уровня.
+     */
+    @NonFinal
+    NestedOperandParser nestedParser;
+
     @NonFinal
     SelectableTokenParser activeParser;
 
@@ -65,6 +90,55 @@ public abstract class AbstractOperandParser extends AbstractTokenParser
     @NonFinal
     Operator previousOperator;
 
+    /**
+     * Позиция начала последнего токена в массиве, который обрабатывается {@link #process(char[], int, int)},
+     * или {@code -1}. Используется только для определения позиции ошибки.
+     */
+    @NonFinal
+    int tokenOffset = -1;
+
+    /**
+     * Парсер всего выражения, в нём считаются символы и узлы для {@link ParserLimits}.
+     */
+    AbstractOperandParser root;
+
+    /**
+     * Глубина вложенности скобок, {@code 0} у парсера всего выражения.
+     */
+    int depth;
+
+    @NonFinal
+    long inputLength;
+
+    @NonFinal
+    int nodeCount;
+
+    /**
+     * Число узлов, учтённых до последнего сброса, см. {@link #carryNodeCount(int)}.
+     */
+    @NonFinal
+    int lastNodeCount;
+
+    protected AbstractOperandParser(final List<SelectableTokenParser> parsers) {
+        this(parsers, new TokenParserDispatchTable(parsers));
+    }
+
+    AbstractOperandParser(final List<SelectableTokenParser> parsers, final TokenParserDispatchTable dispatchTable) {
+        this(parsers, dispatchTable, null, 0);
+    }
+
+    AbstractOperandParser(
+            final List<SelectableTokenParser> parsers,
+            final TokenParserDispatchTable dispatchTable,
+            final AbstractOperandParser root,
+            final int depth
+    ) {
+        this.parsers = parsers;
+        this.dispatchTable = dispatchTable;
+        this.root = root != null ? root : this;
+        this.depth = depth;
+    }
+
     @Override
     protected void writeSyntaxReport(final Map<String, Object> map) {
         map.put("activeParser", activeParser);
@@ -76,41 +150,83 @@ public abstract class AbstractOperandParser extends AbstractTokenParser
     @Override
     public void visitUnaryOperator(final @NotNull UnaryOperator unaryOperator) {
         if (binaryOperator != null && !binaryOperator.isUnaryExpected(unaryOperator)) {
-            throw new SyntaxException("Unexpected " + unaryOperator + " after " + binaryOperator);
+            throw syntaxError(SyntaxErrorCode.UNEXPECTED_OPERATOR, ExpectedToken.OPERAND,
+                    "Unexpected " + unaryOperator + " after ", binaryOperator);
+        }
+
+        countNode();
+
+        if (unaryOperatorCount == unaryOperators.length) {
+            unaryOperators = Arrays.copyOf(unaryOperators, unaryOperatorCount * 2);
         }
 
-        this.unaryOperators.add(unaryOperator);
+        this.unaryOperators[unaryOperatorCount++] = unaryOperator;
         this.previousOperator = unaryOperator;
     }
 
     @Override
     public void visitBinaryOperator(final @NotNull BinaryOperator binaryOperator) {
         if (this.binaryOperator != null) {
-            throw invalidSyntax("Unexpected operator got: " + binaryOperator);
+            throw syntaxError(SyntaxErrorCode.UNEXPECTED_OPERATOR, ExpectedToken.OPERAND,
+                    "Unexpected operator got: ", binaryOperator);
         }
 
+        countNode();
+
         this.binaryOperator = binaryOperator;
         this.previousOperator = binaryOperator;
     }
 
+    private void countNode() {
+        val maxNodeCount = getLimits().getMaxNodeCount();
+
+        if (++root.nodeCount > maxNodeCount) {
+            throw limitExceeded("Expression has more operands and operators than ", maxNodeCount);
+        }
+    }
+
+    /**
+     * Начать разбор с уже учтёнными узлами, например, узлами скобок, которые были разобраны отдельно.
+     * После {@link #doFinal()} общее число узлов можно получить из {@link #lastNodeCount}.
+     *
+     * @param nodeCount число уже учтённых узлов
+     */
+    void carryNodeCount(final int nodeCount) {
+        this.nodeCount = nodeCount;
+    }
+
+    private void countInput(final int length) {
+        val maxInputLength = getLimits().getMaxInputLength();
+
+        if ((inputLength += length) > maxInputLength) {
+            throw limitExceeded("Expression is longer than ", maxInputLength);
+        }
+    }
+
     @Override
     public void visitOperand(final @NotNull Operand operand) {
         val binaryOperator = this.binaryOperator;
 
         if (previousOperand != null) {
             if (binaryOperator == null) {
-                throw new SyntaxException("Unexpected operand got: " + operand);
+                throw syntaxError(SyntaxErrorCode.UNEXPECTED_OPERAND, ExpectedToken.OPERATOR,
+                        "Unexpected operand got: ", operand);
             }
 
             addOperator(binaryOperator);
         }
 
-        Operator unary;
+        countNode();
+
+        val unaryOperators = this.unaryOperators;
 
-        while ((unary = unaryOperators.poll()) != null) {
-            operatorStack.push(unary);
+        for (int i = 0, j = unaryOperatorCount; i < j; i++) {
+            pushOperator(unaryOperators[i]);
+            unaryOperators[i] = null;
         }
 
+        unaryOperatorCount = 0;
+
         addMember(operand);
 
         this.previousOperator = null;
@@ -118,22 +234,24 @@ public abstract class AbstractOperandParser extends AbstractTokenParser
     }
 
     private void solve(final int minOperator) {
-        Operator operator;
+        val operatorStack = this.operatorStack;
+
+        while (operatorStackSize != 0) {
+            val operator = operatorStack[operatorStackSize - 1];
 
-        while ((operator = operatorStack.peekFirst()) != null) {
             if (minOperator > operator.getPresence()) {
                 break;
             }
 
-            operatorStack.removeFirst();
+            operatorStack[--operatorStackSize] = null;
 
             if (operator instanceof BinaryOperator) {
-                val right = operandStack.pop();
-                val left = operandStack.pop();
+                val right = popOperand();
+                val left = popOperand();
 
                 addMember(left.apply(right, (BinaryOperator) operator));
             } else if (operator instanceof UnaryOperator) {
-                addMember(operandStack.pop().apply((UnaryOperator) operator));
+                addMember(popOperand().apply((UnaryOperator) operator));
             }
         }
     }
@@ -141,16 +259,40 @@ public abstract class AbstractOperandParser extends AbstractTokenParser
     private void addOperator(final Operator operator) {
         solve(operator.getPresence());
 
-        operatorStack.push(operator);
+        pushOperator(operator);
+    }
+
+    private void pushOperator(final Operator operator) {
+        if (operatorStackSize == operatorStack.length) {
+            operatorStack = Arrays.copyOf(operatorStack, operatorStackSize * 2);
+        }
+
+        operatorStack[operatorStackSize++] = operator;
+    }
+
+    private Operand popOperand() {
+        val operand = operandStack[--operandStackSize];
+        operandStack[operandStackSize] = null;
+
+        return operand;
     }
 
     private void addMember(final Operand operand) {
         previousOperand = operand;
-        operandStack.push(operand);
+
+        if (operandStackSize == operandStack.length) {
+            operandStack = Arrays.copyOf(operandStack, operandStackSize * 2);
+        }
+
+        operandStack[operandStackSize++] = operand;
     }
 
     @Override
     public void update(final int ch) throws SyntaxException {
+        if (root == this) {
+            countInput(1);
+        }
+
         SelectableTokenParser activeParser = this.activeParser;
 
         if (activeParser != null && !activeParser.shouldStaySelected(ch)) {
@@ -169,22 +311,165 @@ public abstract class AbstractOperandParser extends AbstractTokenParser
         activeParser.update(ch);
     }
 
+    @Override
+    public void update(final char @NotNull [] chars, final int offset, final int length) throws SyntaxException {
+        if (root == this) {
+            countInput(length);
+        }
+
+        process(chars, offset, offset + length);
+    }
+
+    /**
+     * Обработать символы, пока парсер не завершён. Последовательности символов обрабатываются выбранным
+     * парсером токена целиком, пробелы пропускаются без выбора парсера.
+     *
+     * @param chars    массив символов
+     * @param position начало последовательности
+     * @param end      конец последовательности
+     * @return позиция первого необработанного символа
+     */
+    protected final int process(final char[] chars, int position, final int end) throws SyntaxException {
+        while (position < end && !isCompleted()) {
+            SelectableTokenParser activeParser = this.activeParser;
+
+            if (activeParser != null) {
+                position += activeParser.consume(chars, position, end - position);
+
+                if (position == end) {
+                    break;
+                }
+
+                activeParser.doFinal(this);
+                this.activeParser = null;
+            }
+
+            while (position < end && isControl(chars[position])) {
+                position++;
+            }
+
+            if (position == end) {
+                break;
+            }
+
+            tokenOffset = position;
+
+            val ch = chars[position++];
+
+            if (shouldIgnore(ch)) {
+                continue;
+            }
+
+            this.activeParser = activeParser = initActiveParser(ch);
+            activeParser.update(ch);
+        }
+
+        return position;
+    }
+
+    @Override
+    public boolean isTokenContinuedBy(final int ch) {
+        val activeParser = this.activeParser;
+
+        if (activeParser == null) {
+            return false;
+        }
+
+        return activeParser instanceof OperandParser
+                ? ((OperandParser) activeParser).isTokenContinuedBy(ch)
+                : activeParser.shouldStaySelected(ch);
+    }
+
+    protected boolean isCompleted() {
+        return false;
+    }
+
     protected boolean shouldIgnore(final int ch) {
         return isControl(ch);
     }
 
     private SelectableTokenParser initActiveParser(final int ch) {
+        val parser = dispatchTable.select(ch, previousOperand, previousOperator);
+
+        if (parser != null) {
+            return parser;
+        }
+
+        if (ch == '(') {
+            NestedOperandParser nestedParser;
+
+            if ((nestedParser = this.nestedParser) == null) {
+                val limits = getLimits();
+
+                // каждый уровень скобок создаётся один раз, поэтому проверять глубину нужно только здесь
+                if (depth >= limits.getMaxNestingDepth()) {
+                    throw limitExceeded("Brackets are nested deeper than ", limits.getMaxNestingDepth());
+                }
+
+                this.nestedParser = nestedParser = new NestedOperandParser(parsers, dispatchTable, root, depth + 1);
+                nestedParser.setSyntaxErrorMode(getSyntaxErrorMode());
+                nestedParser.setLimits(limits);
+            }
+
+            return nestedParser;
+        }
+
+        throw unexpected(ch, previousOperand == null || binaryOperator != null
+                ? ExpectedToken.OPERAND
+                : ExpectedToken.OPERATOR);
+    }
+
+    @Override
+    public void setSyntaxErrorMode(final @NotNull SyntaxErrorMode syntaxErrorMode) {
+        super.setSyntaxErrorMode(syntaxErrorMode);
+
         for (val parser : parsers) {
-            if (parser.shouldSelect(ch, previousOperand, previousOperator)) {
-                return parser;
+            if (parser instanceof AbstractTokenParser) {
+                ((AbstractTokenParser) parser).setSyntaxErrorMode(syntaxErrorMode);
             }
         }
 
-        if (ch == '(') {
-            return new NestedOperandParser(parsers);
+        if (nestedParser != null) {
+            nestedParser.setSyntaxErrorMode(syntaxErrorMode);
+        }
+    }
+
+    @Override
+    public void setLimits(final @NotNull ParserLimits limits) {
+        super.setLimits(limits);
+
+        for (val parser : parsers) {
+            if (parser instanceof AbstractTokenParser) {
+                ((AbstractTokenParser) parser).setLimits(limits);
+            }
+        }
+
+        // вложенные парсеры будут созданы заново с проверкой глубины
+        nestedParser = null;
+    }
+
+    /**
+     * Позиция начала токена, в котором произошла последняя ошибка, с учётом вложенных скобок.
+     * Имеет смысл, только если выражение было передано одним массивом в {@link #update(char[], int, int)}.
+     *
+     * @return позиция токена или {@code -1}
+     */
+    int getErrorOffset() {
+        val activeParser = this.activeParser;
+
+        if (activeParser instanceof AbstractOperandParser) {
+            val offset = ((AbstractOperandParser) activeParser).getErrorOffset();
+
+            if (offset != -1) {
+                return offset;
+            }
         }
 
-        throw new SyntaxException("Unexpected character " + (char) ch);
+        return tokenOffset;
+    }
+
+    void resetErrorOffset() {
+        tokenOffset = -1;
     }
 
     @Override
@@ -194,11 +479,24 @@ public abstract class AbstractOperandParser extends AbstractTokenParser
 
     @Override
     public void reset() {
-        parsers.forEach(SelectableTokenParser::reset);
+        // остальные парсеры токенов сбрасывают своё состояние сами в doFinal
+        if (activeParser != null) {
+            activeParser.reset();
+        }
+
+        Arrays.fill(unaryOperators, 0, unaryOperatorCount, null);
+        Arrays.fill(operandStack, 0, operandStackSize, null);
+        Arrays.fill(operatorStack, 0, operatorStackSize, null);
 
-        unaryOperators.clear();
-        operandStack.clear();
-        operatorStack.clear();
+        unaryOperatorCount = 0;
+        operandStackSize = 0;
+        operatorStackSize = 0;
+
+        if (root == this) {
+            inputLength = 0;
+            lastNodeCount = nodeCount;
+            nodeCount = 0;
+        }
 
         activeParser = null;
         binaryOperator = null;
@@ -217,17 +515,17 @@ public abstract class AbstractOperandParser extends AbstractTokenParser
                 this.activeParser = null;
             }
 
-            if (binaryOperator != null || !unaryOperators.isEmpty()) {
-                throw invalidSyntax("Unexpected EOF");
+            if (binaryOperator != null || unaryOperatorCount != 0) {
+                throw syntaxError(SyntaxErrorCode.UNEXPECTED_EOF, ExpectedToken.OPERAND, "Unexpected EOF");
             }
 
             solve(-1);
 
-            if (operandStack.size() != 1) {
-                throw invalidSyntax("No operands on stack");
+            if (operandStackSize != 1) {
+                throw syntaxError(SyntaxErrorCode.EMPTY_EXPRESSION, ExpectedToken.OPERAND, "No operands on stack");
             }
 
-            return operandStack.pop();
+            return popOperand();
         } finally {
             reset();
         }
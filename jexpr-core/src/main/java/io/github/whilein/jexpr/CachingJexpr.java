@@ -0,0 +1,204 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.BulkParseResult;
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.ParseErrorHandler;
+import io.github.whilein.jexpr.api.ParsedExpression;
+import io.github.whilein.jexpr.api.ValidationResult;
+import io.github.whilein.jexpr.api.keyword.KeywordRegistry;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.api.token.operand.OperandParserFactory;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import io.github.whilein.jexpr.util.CacheStats;
+import io.github.whilein.jexpr.util.LruCache;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Jexpr decorator which caches parsed operands by source text. Operands are immutable,
+ * so the same instance is returned for every parse of the same text.
+ * <p>
+ * Only {@link #parse(String)} is cached, other sources are passed to the delegate as is.
+ * Thread-safety of the decorator is the thread-safety of the delegate, use {@link ConcurrentJexpr}
+ * to share it between threads. After changing registries call {@link #invalidateAll()},
+ * cached operands are not re-parsed automatically.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CachingJexpr implements Jexpr {
+
+    Jexpr delegate;
+
+    LruCache<String, Operand> cache;
+
+    public static @NotNull CachingJexpr create(final @NotNull Jexpr delegate, final int maximumSize) {
+        return new CachingJexpr(delegate, LruCache.create(maximumSize));
+    }
+
+    public static @NotNull CachingJexpr create(final int maximumSize) {
+        return create(ConcurrentJexpr.create(), maximumSize);
+    }
+
+    public @NotNull CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public @NotNull OperatorRegistry<@NotNull BinaryOperator> getBinaryOperatorRegistry() {
+        return delegate.getBinaryOperatorRegistry();
+    }
+
+    @Override
+    public @NotNull OperatorRegistry<@NotNull UnaryOperator> getUnaryOperatorRegistry() {
+        return delegate.getUnaryOperatorRegistry();
+    }
+
+    @Override
+    public @NotNull KeywordRegistry getKeywordRegistry() {
+        return delegate.getKeywordRegistry();
+    }
+
+    @Override
+    public @NotNull OperandParser getOperandParser() {
+        return delegate.getOperandParser();
+    }
+
+    @Override
+    public @NotNull OperandParserFactory getOperandParserFactory() {
+        return delegate.getOperandParserFactory();
+    }
+
+    @Override
+    public @NotNull Operand parse(final @NotNull String value) {
+        return cache.get(value, delegate::parse);
+    }
+
+    @Override
+    public @NotNull Operand parse(final @NotNull CharSequence value, final int start, final int end) {
+        return delegate.parse(value, start, end);
+    }
+
+    @Override
+    public @NotNull Operand parse(final byte @NotNull [] value) {
+        return delegate.parse(value);
+    }
+
+    @Override
+    public @NotNull Operand parse(final byte @NotNull [] value, final int offset, final int length) {
+        return delegate.parse(value, offset, length);
+    }
+
+    @Override
+    public @NotNull Operand parse(final @NotNull ByteBuffer buffer) {
+        return delegate.parse(buffer);
+    }
+
+    @Override
+    public @NotNull Operand parse(final @NotNull InputStream stream) {
+        return delegate.parse(stream);
+    }
+
+    @Override
+    public @NotNull Operand parse(final @NotNull Reader reader) {
+        return delegate.parse(reader);
+    }
+
+    @Override
+    public @NotNull ValidationResult validate(final @NotNull String value) {
+        return delegate.validate(value);
+    }
+
+    @Override
+    public @NotNull ParsedExpression parseSpanned(final @NotNull String value) {
+        return delegate.parseSpanned(value);
+    }
+
+    @Override
+    public @NotNull ParsedExpression reparse(
+            final @NotNull ParsedExpression previous,
+            final int offset,
+            final int removedLength,
+            final @NotNull String insertedText
+    ) {
+        return delegate.reparse(previous, offset, removedLength, insertedText);
+    }
+
+    @Override
+    public @NotNull Iterator<@NotNull Operand> parseAll(
+            final @NotNull Reader reader,
+            final char delimiter,
+            final @NotNull ParseErrorHandler errorHandler
+    ) {
+        return delegate.parseAll(reader, delimiter, errorHandler);
+    }
+
+    @Override
+    public @NotNull Iterator<@NotNull Operand> parseAll(
+            final @NotNull InputStream stream,
+            final char delimiter,
+            final @NotNull ParseErrorHandler errorHandler
+    ) {
+        return delegate.parseAll(stream, delimiter, errorHandler);
+    }
+
+    @Override
+    public @NotNull Iterator<@NotNull Operand> parseAll(
+            final @NotNull ByteBuffer buffer,
+            final char delimiter,
+            final @NotNull ParseErrorHandler errorHandler
+    ) {
+        return delegate.parseAll(buffer, delimiter, errorHandler);
+    }
+
+    @Override
+    public @NotNull BulkParseResult parseAll(final @NotNull List<@NotNull String> values) {
+        return delegate.parseAll(values);
+    }
+
+    @Override
+    public @NotNull BulkParseResult parseAll(
+            final @NotNull List<@NotNull String> values,
+            final @NotNull ForkJoinPool pool
+    ) {
+        return delegate.parseAll(values, pool);
+    }
+
+}
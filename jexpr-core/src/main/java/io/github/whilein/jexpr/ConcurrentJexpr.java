@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.keyword.KeywordRegistry;
+import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.api.token.operand.OperandParserFactory;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import io.github.whilein.jexpr.keyword.DefaultKeywordRegistry;
+import io.github.whilein.jexpr.token.ParserLimits;
+import io.github.whilein.jexpr.token.SyntaxErrorMode;
+import io.github.whilein.jexpr.token.operator.DefaultBinaryOperatorRegistry;
+import io.github.whilein.jexpr.token.operator.DefaultUnaryOperatorRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Jexpr which can be shared between threads. Each thread parses with its own operand parser,
+ * created lazily by {@link OperandParserFactory}, while registries are shared.
+ * <p>
+ * Registries are read without synchronization, so they must be fully configured before
+ * instance is published to other threads.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class ConcurrentJexpr extends AbstractJexpr {
+
+    ThreadLocal<OperandParser> operandParser;
+
+    private ConcurrentJexpr(
+            OperatorRegistry<BinaryOperator> binaryOperatorRegistry,
+            OperatorRegistry<UnaryOperator> unaryOperatorRegistry,
+            KeywordRegistry keywordRegistry,
+            OperandParserFactory operandParserFactory
+    ) {
+        super(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry, operandParserFactory);
+
+        this.operandParser = ThreadLocal.withInitial(operandParserFactory::create);
+    }
+
+    @Override
+    public @NotNull OperandParser getOperandParser() {
+        return operandParser.get();
+    }
+
+    public static @NotNull Jexpr create() {
+        return create(SyntaxErrorMode.DETAILED);
+    }
+
+    /**
+     * Create jexpr, which reports syntax errors of {@code parse} methods as specified.
+     *
+     * @param syntaxErrorMode syntax error mode, e.g. {@link SyntaxErrorMode#STACKLESS}
+     * @return new jexpr
+     */
+    public static @NotNull Jexpr create(final @NotNull SyntaxErrorMode syntaxErrorMode) {
+        return create(syntaxErrorMode, ParserLimits.unlimited());
+    }
+
+    /**
+     * Create jexpr, which rejects expressions exceeding limits.
+     *
+     * @param limits limits of parsed expressions, e.g. {@link ParserLimits#defaults()}
+     * @return new jexpr
+     */
+    public static @NotNull Jexpr create(final @NotNull ParserLimits limits) {
+        return create(SyntaxErrorMode.DETAILED, limits);
+    }
+
+    public static @NotNull Jexpr create(
+            final @NotNull SyntaxErrorMode syntaxErrorMode,
+            final @NotNull ParserLimits limits
+    ) {
+        val binaryOperatorRegistry = new DefaultBinaryOperatorRegistry();
+        val unaryOperatorRegistry = new DefaultUnaryOperatorRegistry();
+        val keywordRegistry = new DefaultKeywordRegistry();
+
+        return new ConcurrentJexpr(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry,
+                new DefaultOperandParserFactory(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry,
+                        syntaxErrorMode, limits));
+    }
+
+}
@@ -18,46 +18,80 @@ package io.github.whilein.jexpr;
 
 import io.github.whilein.jexpr.api.Jexpr;
 import io.github.whilein.jexpr.api.keyword.KeywordRegistry;
-import io.github.whilein.jexpr.api.token.SelectableTokenParser;
+import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.api.token.operand.OperandParserFactory;
 import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
 import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
 import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
-import io.github.whilein.jexpr.io.ByteArrayOutput;
 import io.github.whilein.jexpr.keyword.DefaultKeywordRegistry;
-import io.github.whilein.jexpr.token.*;
+import io.github.whilein.jexpr.token.ParserLimits;
+import io.github.whilein.jexpr.token.SyntaxErrorMode;
 import io.github.whilein.jexpr.token.operator.DefaultBinaryOperatorRegistry;
 import io.github.whilein.jexpr.token.operator.DefaultUnaryOperatorRegistry;
+import lombok.Getter;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
-import java.util.List;
-
+/**
+ * Jexpr with a single operand parser. Instances are not thread-safe, see {@link ConcurrentJexpr}
+ * if the same instance should be shared between threads.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public final class DefaultJexpr extends AbstractJexpr {
 
+    @Getter
+    OperandParser operandParser;
+
     private DefaultJexpr(
             OperatorRegistry<BinaryOperator> binaryOperatorRegistry,
             OperatorRegistry<UnaryOperator> unaryOperatorRegistry,
             KeywordRegistry keywordRegistry,
-            List<SelectableTokenParser> parsers
+            OperandParserFactory operandParserFactory
     ) {
-        super(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry, parsers);
+        super(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry, operandParserFactory);
+
+        this.operandParser = operandParserFactory.create();
     }
 
     public static @NotNull Jexpr create() {
-        val buffer = new ByteArrayOutput(8192);
+        return create(SyntaxErrorMode.DETAILED);
+    }
 
+    /**
+     * Create jexpr, which reports syntax errors of {@code parse} methods as specified.
+     *
+     * @param syntaxErrorMode syntax error mode, e.g. {@link SyntaxErrorMode#STACKLESS}
+     * @return new jexpr
+     */
+    public static @NotNull Jexpr create(final @NotNull SyntaxErrorMode syntaxErrorMode) {
+        return create(syntaxErrorMode, ParserLimits.unlimited());
+    }
+
+    /**
+     * Create jexpr, which rejects expressions exceeding limits.
+     *
+     * @param limits limits of parsed expressions, e.g. {@link ParserLimits#defaults()}
+     * @return new jexpr
+     */
+    public static @NotNull Jexpr create(final @NotNull ParserLimits limits) {
+        return create(SyntaxErrorMode.DETAILED, limits);
+    }
+
+    public static @NotNull Jexpr create(
+            final @NotNull SyntaxErrorMode syntaxErrorMode,
+            final @NotNull ParserLimits limits
+    ) {
         val binaryOperatorRegistry = new DefaultBinaryOperatorRegistry();
         val unaryOperatorRegistry = new DefaultUnaryOperatorRegistry();
         val keywordRegistry = new DefaultKeywordRegistry();
 
-        return new DefaultJexpr(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry, Arrays.asList(
-                new NumberTokenParser(buffer),
-                new StringTokenParser(buffer),
-                new UnaryOperatorTokenParser(unaryOperatorRegistry),
-                new BinaryOperatorTokenParser(binaryOperatorRegistry),
-                new ReferenceTokenParser(keywordRegistry, buffer)
-        ));
+        return new DefaultJexpr(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry,
+                new DefaultOperandParserFactory(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry,
+                        syntaxErrorMode, limits));
     }
 
 
@@ -19,6 +19,9 @@ package io.github.whilein.jexpr;
 import io.github.whilein.jexpr.api.exception.SyntaxException;
 import io.github.whilein.jexpr.api.token.SelectableTokenParser;
 import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.token.ParserLimits;
+import io.github.whilein.jexpr.token.SyntaxErrorMode;
+import lombok.val;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -42,4 +45,23 @@ public class DefaultOperandParser extends AbstractOperandParser {
         return new DefaultOperandParser(new ArrayList<>(parsers));
     }
 
+    public static @NotNull OperandParser create(
+            final @NotNull List<@NotNull SelectableTokenParser> parsers,
+            final @NotNull SyntaxErrorMode syntaxErrorMode
+    ) {
+        return create(parsers, syntaxErrorMode, ParserLimits.unlimited());
+    }
+
+    public static @NotNull OperandParser create(
+            final @NotNull List<@NotNull SelectableTokenParser> parsers,
+            final @NotNull SyntaxErrorMode syntaxErrorMode,
+            final @NotNull ParserLimits limits
+    ) {
+        val parser = new DefaultOperandParser(new ArrayList<>(parsers));
+        parser.setSyntaxErrorMode(syntaxErrorMode);
+        parser.setLimits(limits);
+
+        return parser;
+    }
+
 }
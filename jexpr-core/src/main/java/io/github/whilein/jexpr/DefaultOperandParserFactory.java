@@ -0,0 +1,114 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.keyword.KeywordRegistry;
+import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.api.token.operand.OperandParserFactory;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import io.github.whilein.jexpr.io.ByteArrayOutput;
+import io.github.whilein.jexpr.io.CharArrayOutput;
+import io.github.whilein.jexpr.token.BinaryOperatorTokenParser;
+import io.github.whilein.jexpr.token.NumberTokenParser;
+import io.github.whilein.jexpr.token.ParserLimits;
+import io.github.whilein.jexpr.token.ReferenceTokenParser;
+import io.github.whilein.jexpr.token.StringTokenParser;
+import io.github.whilein.jexpr.token.SymbolTable;
+import io.github.whilein.jexpr.token.SyntaxErrorMode;
+import io.github.whilein.jexpr.token.UnaryOperatorTokenParser;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Creates operand parsers with the default set of token parsers. Registries and the symbol table
+ * are shared between all created parsers, while buffers and parser state are not.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class DefaultOperandParserFactory implements OperandParserFactory {
+
+    OperatorRegistry<BinaryOperator> binaryOperatorRegistry;
+    OperatorRegistry<UnaryOperator> unaryOperatorRegistry;
+    KeywordRegistry keywordRegistry;
+
+    /**
+     * Имена ссылок, общие для всех созданных парсеров.
+     */
+    SymbolTable symbolTable = SymbolTable.create();
+
+    SyntaxErrorMode syntaxErrorMode;
+
+    ParserLimits limits;
+
+    public DefaultOperandParserFactory(
+            final OperatorRegistry<BinaryOperator> binaryOperatorRegistry,
+            final OperatorRegistry<UnaryOperator> unaryOperatorRegistry,
+            final KeywordRegistry keywordRegistry
+    ) {
+        this(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry, SyntaxErrorMode.DETAILED);
+    }
+
+    public DefaultOperandParserFactory(
+            final OperatorRegistry<BinaryOperator> binaryOperatorRegistry,
+            final OperatorRegistry<UnaryOperator> unaryOperatorRegistry,
+            final KeywordRegistry keywordRegistry,
+            final SyntaxErrorMode syntaxErrorMode
+    ) {
+        this(binaryOperatorRegistry, unaryOperatorRegistry, keywordRegistry, syntaxErrorMode,
+                ParserLimits.unlimited());
+    }
+
+    /**
+     * @param syntaxErrorMode how created parsers report syntax errors, e.g. {@link SyntaxErrorMode#STACKLESS}
+     *                        if invalid input is expected often
+     * @param limits          limits of parsed expressions, e.g. {@link ParserLimits#defaults()} for untrusted input
+     */
+    public DefaultOperandParserFactory(
+            final OperatorRegistry<BinaryOperator> binaryOperatorRegistry,
+            final OperatorRegistry<UnaryOperator> unaryOperatorRegistry,
+            final KeywordRegistry keywordRegistry,
+            final SyntaxErrorMode syntaxErrorMode,
+            final ParserLimits limits
+    ) {
+        this.binaryOperatorRegistry = binaryOperatorRegistry;
+        this.unaryOperatorRegistry = unaryOperatorRegistry;
+        this.keywordRegistry = keywordRegistry;
+        this.syntaxErrorMode = syntaxErrorMode;
+        this.limits = limits;
+    }
+
+    @Override
+    public @NotNull OperandParser create() {
+        val buffer = new ByteArrayOutput(8192);
+
+        return DefaultOperandParser.create(Arrays.asList(
+                new NumberTokenParser(buffer),
+                new StringTokenParser(new CharArrayOutput(8192)),
+                new UnaryOperatorTokenParser(unaryOperatorRegistry),
+                new BinaryOperatorTokenParser(binaryOperatorRegistry),
+                new ReferenceTokenParser(keywordRegistry, buffer, symbolTable)
+        ), syntaxErrorMode, limits);
+    }
+
+}
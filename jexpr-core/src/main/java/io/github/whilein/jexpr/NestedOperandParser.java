@@ -16,6 +16,8 @@
 
 package io.github.whilein.jexpr;
 
+import io.github.whilein.jexpr.api.exception.ExpectedToken;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
 import io.github.whilein.jexpr.api.exception.SyntaxException;
 import io.github.whilein.jexpr.api.token.SelectableTokenParser;
 import io.github.whilein.jexpr.api.token.operand.Operand;
@@ -40,6 +42,15 @@ public final class NestedOperandParser
         super(parsers);
     }
 
+    NestedOperandParser(
+            final List<SelectableTokenParser> parsers,
+            final TokenParserDispatchTable dispatchTable,
+            final AbstractOperandParser root,
+            final int depth
+    ) {
+        super(parsers, dispatchTable, root, depth);
+    }
+
     @Override
     protected boolean shouldIgnore(final int ch) {
         final boolean shouldIgnore;
@@ -58,6 +69,7 @@ public final class NestedOperandParser
     public void update(final int ch) throws SyntaxException {
         if (state == STATE_LEADING_BRACKET) {
             state = STATE_CONTENT;
+            tokenOffset = -1;
 
             // ignoring leading bracket
             return;
@@ -66,6 +78,16 @@ public final class NestedOperandParser
         super.update(ch);
     }
 
+    @Override
+    public int consume(final char @NotNull [] chars, final int offset, final int length) throws SyntaxException {
+        return process(chars, offset, offset + length) - offset;
+    }
+
+    @Override
+    protected boolean isCompleted() {
+        return state == STATE_FINAL_BRACKET;
+    }
+
     @Override
     public boolean shouldStaySelected(final int ch) {
         return state != STATE_FINAL_BRACKET;
@@ -78,10 +100,17 @@ public final class NestedOperandParser
         return ch == '(';
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+
+        state = STATE_LEADING_BRACKET;
+    }
+
     @Override
     public @NotNull Operand doFinal() {
         if (state != STATE_FINAL_BRACKET) {
-            throw invalidSyntax("Unexpected EOF");
+            throw syntaxError(SyntaxErrorCode.UNEXPECTED_EOF, ExpectedToken.CLOSING_BRACKET, "Unexpected EOF");
         }
 
         try {
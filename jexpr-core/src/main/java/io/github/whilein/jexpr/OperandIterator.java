@@ -0,0 +1,260 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.ParseError;
+import io.github.whilein.jexpr.api.ParseErrorHandler;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
+import io.github.whilein.jexpr.api.exception.SyntaxException;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.CharacterCodingException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over expressions separated by delimiter. Input is read in chunks, so memory usage
+ * does not depend on the number of expressions.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class OperandIterator<E extends Throwable> implements Iterator<Operand> {
+
+    AbstractJexpr.In<E> in;
+
+    char[] buffer;
+
+    OperandParser parser;
+
+    char delimiter;
+
+    ParseErrorHandler errorHandler;
+
+    @NonFinal
+    int position, limit;
+
+    /**
+     * Смещение начала буфера во входных данных.
+     */
+    @NonFinal
+    long bufferOffset;
+
+    /**
+     * Смещение текущего выражения во входных данных.
+     */
+    @NonFinal
+    long expressionOffset;
+
+    @NonFinal
+    int index;
+
+    @NonFinal
+    boolean blank = true;
+
+    /**
+     * Выражение не удалось разобрать, символы пропускаются до следующего разделителя.
+     */
+    @NonFinal
+    boolean skipping;
+
+    @NonFinal
+    boolean eof;
+
+    @NonFinal
+    Operand next;
+
+    OperandIterator(
+            final AbstractJexpr.In<E> in,
+            final char[] buffer,
+            final OperandParser parser,
+            final char delimiter,
+            final ParseErrorHandler errorHandler
+    ) {
+        this.in = in;
+        this.buffer = buffer;
+        this.parser = parser;
+        this.delimiter = delimiter;
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (position == limit) {
+                if (eof) {
+                    if (!skipping) {
+                        completeExpression();
+                    }
+
+                    return next != null;
+                }
+
+                bufferOffset += limit;
+                position = limit = 0;
+
+                val n = read();
+
+                if (n == -1) {
+                    eof = true;
+                } else {
+                    limit = n;
+                }
+
+                continue;
+            }
+
+            val delimiterPosition = indexOfDelimiter();
+            val end = delimiterPosition == -1 ? limit : delimiterPosition;
+
+            if (skipping) {
+                if (delimiterPosition == -1) {
+                    position = limit;
+                } else {
+                    position = delimiterPosition + 1;
+                    skipping = false;
+                }
+
+                continue;
+            }
+
+            if (blank) {
+                skipBlank(end);
+            }
+
+            try {
+                parser.update(buffer, position, end - position);
+            } catch (final RuntimeException e) {
+                fail(e);
+
+                skipping = true;
+                position = end;
+
+                continue;
+            }
+
+            if (delimiterPosition == -1) {
+                position = limit;
+                continue;
+            }
+
+            position = delimiterPosition + 1;
+
+            if (!blank && parser.isTokenContinuedBy(delimiter)) {
+                try {
+                    parser.update(delimiter);
+                } catch (final RuntimeException e) {
+                    fail(e);
+
+                    skipping = true;
+                }
+
+                continue;
+            }
+
+            completeExpression();
+        }
+
+        return true;
+    }
+
+    @Override
+    public Operand next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        val next = this.next;
+        this.next = null;
+
+        return next;
+    }
+
+    private int read() {
+        try {
+            return in.read(buffer);
+        } catch (final RuntimeException | Error e) {
+            throw e;
+        } catch (final Throwable e) {
+            if (e instanceof CharacterCodingException) {
+                throw new SyntaxException("Malformed UTF-8 input", e);
+            }
+
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int indexOfDelimiter() {
+        val buffer = this.buffer;
+        val delimiter = this.delimiter;
+
+        for (int i = position, j = limit; i < j; i++) {
+            if (buffer[i] == delimiter) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void skipBlank(final int end) {
+        val buffer = this.buffer;
+
+        for (int i = position; i < end; i++) {
+            if (buffer[i] > 32) {
+                blank = false;
+                expressionOffset = bufferOffset + i;
+                return;
+            }
+        }
+    }
+
+    private void completeExpression() {
+        if (blank) {
+            return;
+        }
+
+        try {
+            next = parser.doFinal();
+            index++;
+        } catch (final RuntimeException e) {
+            fail(e);
+        } finally {
+            blank = true;
+        }
+    }
+
+    private void fail(final RuntimeException e) {
+        parser.reset();
+
+        // OperatorException или ошибка свёртки констант, например, ArithmeticException у 1 / 0
+        val exception = e instanceof SyntaxException
+                ? (SyntaxException) e
+                : new SyntaxException(e.getMessage(), SyntaxErrorCode.INAPPLICABLE_OPERATOR, null, e, true);
+
+        errorHandler.handle(new ParseError(index++, expressionOffset, exception));
+
+        blank = true;
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.ParsedExpression;
+import io.github.whilein.jexpr.api.SourceSpan;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Выражение с деревом скобок, см. {@link SpannedExpressionParser}.
+ *
+ * @author whilein
+ */
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+final class SpannedExpression implements ParsedExpression {
+
+    @NotNull String source;
+
+    @Getter(AccessLevel.PACKAGE)
+    @NotNull Node root;
+
+    @Override
+    public @NotNull Operand getOperand() {
+        return root.operand;
+    }
+
+    @Override
+    public @NotNull List<@NotNull SourceSpan> getSpans() {
+        val spans = new ArrayList<SourceSpan>();
+
+        // обход в прямом порядке без рекурсии, дети кладутся в стек с конца
+        val nodes = new ArrayDeque<Node>();
+        val bases = new ArrayDeque<Integer>();
+
+        nodes.push(root);
+        bases.push(0);
+
+        while (!nodes.isEmpty()) {
+            val node = nodes.pop();
+            val start = bases.pop() + node.start;
+
+            spans.add(node.toSpan(start));
+
+            for (int i = node.children.length - 1; i >= 0; i--) {
+                nodes.push(node.children[i]);
+                bases.push(start);
+            }
+        }
+
+        return Collections.unmodifiableList(spans);
+    }
+
+    @Override
+    public @Nullable SourceSpan findSpan(final int index) {
+        if (index < 0 || index >= source.length()) {
+            return null;
+        }
+
+        Node node = root;
+        int start = 0;
+
+        for (Node child; (child = node.findChild(index - start)) != null; ) {
+            start += child.start;
+            node = child;
+        }
+
+        return node.toSpan(start);
+    }
+
+    /**
+     * Узел дерева скобок. Начало узла хранится относительно начала родителя, поэтому после правки
+     * узлы внутри других узлов не нужно пересоздавать.
+     */
+    @FieldDefaults(level = AccessLevel.PACKAGE, makeFinal = true)
+    @RequiredArgsConstructor
+    static final class Node {
+
+        static final Node[] NO_CHILDREN = new Node[0];
+
+        /**
+         * Начало узла относительно начала родителя.
+         */
+        int start;
+
+        int length;
+
+        /**
+         * Вложенные скобки в порядке начала.
+         */
+        Node[] children;
+
+        Operand operand;
+
+        /**
+         * Число операндов и операторов узла вместе со скобками, см. {@link io.github.whilein.jexpr.token.ParserLimits}.
+         */
+        int nodeCount;
+
+        Node withStart(final int start) {
+            return start == this.start ? this : new Node(start, length, children, operand, nodeCount);
+        }
+
+        SourceSpan toSpan(final int absoluteStart) {
+            return new SourceSpan(absoluteStart, absoluteStart + length, operand);
+        }
+
+        /**
+         * Найти индекс последней вложенной скобки, которая начинается до {@code index}.
+         *
+         * @param index индекс относительно начала узла
+         * @return индекс в {@link #children} или {@code -1}
+         */
+        int findChildBefore(final int index) {
+            int low = 0, high = children.length - 1;
+
+            while (low <= high) {
+                val middle = (low + high) >>> 1;
+
+                if (children[middle].start < index) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            return high;
+        }
+
+        @Nullable Node findChild(final int index) {
+            val child = findChildBefore(index + 1);
+
+            if (child == -1) {
+                return null;
+            }
+
+            val node = children[child];
+
+            return index < node.start + node.length ? node : null;
+        }
+
+    }
+
+}
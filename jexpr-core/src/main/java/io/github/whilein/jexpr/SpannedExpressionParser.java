@@ -0,0 +1,509 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.SpannedExpression.Node;
+import io.github.whilein.jexpr.api.ParsedExpression;
+import io.github.whilein.jexpr.api.token.TokenVisitor;
+import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.token.AbstractTokenParser;
+import io.github.whilein.jexpr.token.ParserLimits;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Парсер выражений с деревом скобок. Каждая пара скобок разбирается отдельно, а её операнд
+ * передаётся парсеру родительских скобок как готовый токен, поэтому после правки достаточно
+ * заново разобрать только самые внутренние скобки, в которых находится правка, и собрать
+ * операнды родительских скобок из операндов детей.
+ * <p>
+ * Скобки ищутся с учётом строковых литералов. Если скобки не сходятся или разбор по скобкам
+ * не удался, выражение разбирается целиком, чтобы ошибка была такой же, как и у обычного разбора:
+ * вложенные скобки разбираются раньше остальной части выражения, поэтому их ошибка может
+ * отличаться от той, которую обычный разбор находит первой.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class SpannedExpressionParser {
+
+    OperandParser parser;
+
+    /**
+     * Парсер как посетитель токенов, через него передаются операнды вложенных скобок.
+     */
+    TokenVisitor visitor;
+
+    String source;
+
+    char[] buffer = new char[1024];
+
+    /**
+     * Позиция, на которой остановился {@link #scan(int, int, int, boolean)}.
+     */
+    @NonFinal
+    int position;
+
+    /**
+     * Узел, в котором была правка, его вложенные скобки вне правки переиспользуются.
+     */
+    @NonFinal
+    Node reusable;
+
+    @NonFinal
+    int editStart, editOldEnd, editNewEnd;
+
+    /**
+     * Парсер, который считает узлы для {@link ParserLimits}, или {@code null}.
+     */
+    AbstractOperandParser counter;
+
+    ParserLimits limits;
+
+    /**
+     * Число скобок вокруг узла, в котором ищутся скобки.
+     */
+    @NonFinal
+    int depth;
+
+    private SpannedExpressionParser(final OperandParser parser, final String source) {
+        this.parser = parser;
+        this.visitor = parser instanceof TokenVisitor ? (TokenVisitor) parser : null;
+        this.counter = parser instanceof AbstractOperandParser ? (AbstractOperandParser) parser : null;
+        this.limits = getLimits(parser);
+        this.source = source;
+    }
+
+    private static ParserLimits getLimits(final OperandParser parser) {
+        return parser instanceof AbstractTokenParser
+                ? ((AbstractTokenParser) parser).getLimits()
+                : ParserLimits.unlimited();
+    }
+
+    static @NotNull ParsedExpression parse(final @NotNull OperandParser parser, final @NotNull String source) {
+        val spannedParser = new SpannedExpressionParser(parser, source);
+        val length = source.length();
+
+        // слишком длинное выражение разбирается целиком, чтобы получить ту же ошибку, что и у обычного разбора
+        if (spannedParser.visitor != null && length <= spannedParser.limits.getMaxInputLength()) {
+            try {
+                val children = spannedParser.scan(0, length, 0, false);
+
+                if (children != null && spannedParser.position == length) {
+                    return new SpannedExpression(source, spannedParser.evaluate(0, length, 0, length, 0, children));
+                }
+            } catch (final RuntimeException e) {
+                // ошибку сообщает разбор целиком
+            }
+        }
+
+        return parseWhole(parser, source);
+    }
+
+    /**
+     * Разобрать выражение целиком, как при обычном разборе, без дерева скобок.
+     */
+    private static ParsedExpression parseWhole(final OperandParser parser, final String source) {
+        val length = source.length();
+
+        return new SpannedExpression(source, new SpannedExpressionParser(parser, source)
+                .evaluate(0, length, 0, length, 0, Node.NO_CHILDREN));
+    }
+
+    static @NotNull ParsedExpression reparse(
+            final @NotNull OperandParser parser,
+            final @NotNull ParsedExpression previous,
+            final int offset,
+            final int removedLength,
+            final @NotNull String insertedText
+    ) {
+        val previousSource = previous.getSource();
+        val editEnd = offset + removedLength;
+
+        if (offset < 0 || removedLength < 0 || editEnd > previousSource.length()) {
+            throw new IndexOutOfBoundsException("offset = " + offset + ", removedLength = " + removedLength
+                    + ", length = " + previousSource.length());
+        }
+
+        val source = new StringBuilder(previousSource.length() - removedLength + insertedText.length())
+                .append(previousSource, 0, offset)
+                .append(insertedText)
+                .append(previousSource, editEnd, previousSource.length())
+                .toString();
+
+        if (!(previous instanceof SpannedExpression) || !(parser instanceof TokenVisitor)
+                || source.length() > getLimits(parser).getMaxInputLength()) {
+            return parse(parser, source);
+        }
+
+        val delta = insertedText.length() - removedLength;
+
+        // путь от корня до самых внутренних скобок, внутри которых находится правка
+        Node[] path = new Node[16];
+        int[] bases = new int[16];
+        int[] indices = new int[16];
+        int depth = 0;
+
+        Node node = ((SpannedExpression) previous).getRoot();
+        int base = 0;
+
+        while (true) {
+            val index = node.findChildBefore(offset - base);
+
+            if (index == -1) {
+                break;
+            }
+
+            val child = node.children[index];
+            val childStart = base + child.start;
+
+            // правка не должна задевать закрывающую скобку
+            if (editEnd > childStart + child.length - 1) {
+                break;
+            }
+
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                bases = Arrays.copyOf(bases, depth * 2);
+                indices = Arrays.copyOf(indices, depth * 2);
+            }
+
+            path[depth] = node;
+            bases[depth] = base;
+            indices[depth] = index;
+            depth++;
+
+            node = child;
+            base = childStart;
+        }
+
+        val spannedParser = new SpannedExpressionParser(parser, source);
+        spannedParser.reusable = node;
+        spannedParser.editStart = offset;
+        spannedParser.editOldEnd = editEnd;
+        spannedParser.editNewEnd = offset + insertedText.length();
+        spannedParser.depth = depth;
+
+        val from = depth == 0 ? 0 : base + 1;
+        val to = depth == 0 ? source.length() : base + node.length + delta - 1;
+
+        final Node root;
+
+        try {
+            root = spannedParser.evaluatePath(node, from, to, base, delta, path, bases, indices);
+        } catch (final RuntimeException e) {
+            // ошибку сообщает разбор целиком
+            return parseWhole(parser, source);
+        }
+
+        return root != null ? new SpannedExpression(source, root) : parse(parser, source);
+    }
+
+    /**
+     * Разобрать заново узел с правкой и собрать операнды его родителей.
+     *
+     * @return новый корень или {@code null}, если строковый литерал или скобка в узле не закрыты
+     */
+    private Node evaluatePath(
+            final Node node,
+            final int from,
+            final int to,
+            final int base,
+            final int delta,
+            final Node[] path,
+            final int[] bases,
+            final int[] indices
+    ) {
+        val children = scan(from, to, base, true);
+
+        if (children == null || position != to) {
+            return null;
+        }
+
+        Node current = evaluate(node.start, node.length + delta, from, to, base, children);
+
+        boolean changed = !Objects.equals(current.operand, node.operand);
+
+        for (int i = depth - 1; i >= 0; i--) {
+            val parent = path[i];
+            val parentBase = bases[i];
+            val index = indices[i];
+
+            val parentChildren = parent.children;
+            val newChildren = parentChildren.clone();
+            newChildren[index] = current;
+
+            for (int j = index + 1; j < newChildren.length; j++) {
+                newChildren[j] = parentChildren[j].withStart(parentChildren[j].start + delta);
+            }
+
+            val length = parent.length + delta;
+
+            if (changed) {
+                current = i == 0
+                        ? evaluate(0, length, 0, length, 0, newChildren)
+                        : evaluate(parent.start, length, parentBase + 1, parentBase + length - 1,
+                        parentBase, newChildren);
+
+                changed = !Objects.equals(current.operand, parent.operand);
+            } else {
+                // узлы самого родителя не изменились, поменялось только число узлов в скобках
+                current = new Node(parent.start, length, newChildren, parent.operand,
+                        parent.nodeCount - parentChildren[index].nodeCount + current.nodeCount);
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Найти скобки в {@code [from, to)} и разобрать их. Поиск останавливается на первой
+     * непарной закрывающей скобке, её индекс записывается в {@link #position}.
+     * <p>
+     * Вложенные скобки обходятся без рекурсии, для каждой открытой скобки хранится свой список детей.
+     *
+     * @param from  начало
+     * @param to    конец
+     * @param base  начало узла, которому принадлежат скобки
+     * @param reuse переиспользовать ли скобки из {@link #reusable}
+     * @return найденные скобки или {@code null}, если строковый литерал или скобка не закрыты
+     */
+    private Node[] scan(final int from, final int to, final int base, final boolean reuse) {
+        val source = this.source;
+
+        // уровень 0 - скобки самого узла, остальные - открытые, но ещё не закрытые скобки
+        Node[][] children = new Node[16][];
+        int[] counts = new int[16];
+        int[] bases = new int[16];
+        int depth = 0;
+
+        children[0] = Node.NO_CHILDREN;
+        bases[0] = base;
+
+        int position = from;
+
+        while (true) {
+            if (position == to || source.charAt(position) == ')') {
+                if (depth == 0) {
+                    break;
+                }
+
+                if (position == to) {
+                    return null;
+                }
+
+                val nestedChildren = trim(children[depth], counts[depth]);
+                val start = bases[depth];
+                val end = position + 1;
+
+                children[depth] = null;
+                depth--;
+
+                add(children, counts, depth, evaluate(start - bases[depth], end - start,
+                        start + 1, end - 1, start, nestedChildren));
+
+                position = end;
+
+                continue;
+            }
+
+            val ch = source.charAt(position);
+
+            if (ch == '\'' || ch == '"') {
+                position = skipString(position, to);
+
+                if (position == -1) {
+                    return null;
+                }
+
+                continue;
+            }
+
+            if (ch == '(') {
+                val child = reuse && depth == 0 ? findReusable(position, base) : null;
+
+                if (child != null) {
+                    add(children, counts, 0, child.withStart(position - base));
+                    position += child.length;
+
+                    continue;
+                }
+
+                // слишком глубокие скобки разбираются целиком, чтобы получить ту же ошибку, что и у обычного разбора
+                if (this.depth + depth >= limits.getMaxNestingDepth()) {
+                    return null;
+                }
+
+                if (++depth == children.length) {
+                    children = Arrays.copyOf(children, depth * 2);
+                    counts = Arrays.copyOf(counts, depth * 2);
+                    bases = Arrays.copyOf(bases, depth * 2);
+                }
+
+                children[depth] = Node.NO_CHILDREN;
+                counts[depth] = 0;
+                bases[depth] = position;
+            }
+
+            position++;
+        }
+
+        this.position = position;
+
+        return trim(children[0], counts[0]);
+    }
+
+    private static void add(final Node[][] children, final int[] counts, final int depth, final Node child) {
+        val count = counts[depth];
+
+        if (count == children[depth].length) {
+            children[depth] = Arrays.copyOf(children[depth], Math.max(4, count * 2));
+        }
+
+        children[depth][count] = child;
+        counts[depth] = count + 1;
+    }
+
+    private static Node[] trim(final Node[] children, final int count) {
+        return count == children.length ? children : Arrays.copyOf(children, count);
+    }
+
+    private int skipString(final int start, final int to) {
+        val source = this.source;
+        val quote = source.charAt(start);
+
+        for (int i = start + 1; i < to; i++) {
+            val ch = source.charAt(i);
+
+            if (ch == '\\') {
+                i++;
+            } else if (ch == quote) {
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    private Node findReusable(final int position, final int base) {
+        final int previousPosition;
+
+        if (position < editStart) {
+            previousPosition = position;
+        } else if (position >= editNewEnd) {
+            previousPosition = position - editNewEnd + editOldEnd;
+        } else {
+            return null;
+        }
+
+        val reusable = this.reusable;
+        val relativeStart = previousPosition - base;
+        val index = reusable.findChildBefore(relativeStart + 1);
+
+        if (index == -1) {
+            return null;
+        }
+
+        val child = reusable.children[index];
+
+        if (child.start != relativeStart
+                || previousPosition < editStart && previousPosition + child.length > editStart) {
+            return null;
+        }
+
+        return child;
+    }
+
+    /**
+     * Разобрать узел, скобки которого уже разобраны.
+     *
+     * @param start    начало узла относительно родителя
+     * @param length   длина узла
+     * @param from     начало содержимого
+     * @param to       конец содержимого
+     * @param base     начало узла
+     * @param children скобки узла
+     * @return узел
+     */
+    private Node evaluate(
+            final int start,
+            final int length,
+            final int from,
+            final int to,
+            final int base,
+            final Node[] children
+    ) {
+        val parser = this.parser;
+        val counter = this.counter;
+
+        try {
+            if (counter != null) {
+                // узлы в скобках считаются вместе с узлами родителя, как и при обычном разборе
+                int nodeCount = 0;
+
+                for (val child : children) {
+                    nodeCount += child.nodeCount;
+                }
+
+                counter.carryNodeCount(nodeCount);
+            }
+
+            int position = from;
+
+            for (val child : children) {
+                val childStart = base + child.start;
+
+                feed(position, childStart);
+
+                // завершаем токен перед скобками так же, как это сделала бы открывающая скобка
+                parser.update(' ');
+                visitor.visitOperand(child.operand);
+
+                position = childStart + child.length;
+            }
+
+            feed(position, to);
+
+            val operand = parser.doFinal();
+
+            return new Node(start, length, children, operand, counter != null ? counter.lastNodeCount : 0);
+        } catch (final RuntimeException e) {
+            parser.reset();
+
+            throw e;
+        }
+    }
+
+    private void feed(int from, final int to) {
+        val buffer = this.buffer;
+
+        while (from < to) {
+            val n = Math.min(buffer.length, to - from);
+            source.getChars(from, from + n, buffer, 0);
+
+            parser.update(buffer, 0, n);
+            from += n;
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.token.SelectableTokenParser;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operator.Operator;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Table of token parser candidates for ASCII characters, one per combination of
+ * previous operand and operator nullness. Entries are filled lazily on the first lookup.
+ * <p>
+ * Entry contains indexes of parsers which are not {@link SelectableTokenParser#isSelectionCacheable() cacheable}
+ * and must be asked in order, followed by the inverted index of the first cacheable parser, which
+ * selects the character. Characters outside of ASCII are resolved by linear scan.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class TokenParserDispatchTable {
+
+    private static final int ASCII = 128;
+
+    private static final int[] EMPTY = new int[0];
+
+    SelectableTokenParser[] parsers;
+
+    int[][] candidates = new int[4 * ASCII][];
+
+    TokenParserDispatchTable(final List<SelectableTokenParser> parsers) {
+        this.parsers = parsers.toArray(new SelectableTokenParser[0]);
+    }
+
+    /**
+     * Find parser for the character.
+     *
+     * @param ch           character
+     * @param prevOperand  previous operand
+     * @param prevOperator previous operator
+     * @return selected parser or {@code null}
+     */
+    @Nullable SelectableTokenParser select(
+            final int ch,
+            final @Nullable Operand prevOperand,
+            final @Nullable Operator prevOperator
+    ) {
+        if (ch < 0 || ch >= ASCII) {
+            return scan(ch, prevOperand, prevOperator);
+        }
+
+        val index = (prevOperand != null ? 1 : 0) | (prevOperator != null ? 2 : 0) | ch << 2;
+
+        int[] candidates = this.candidates[index];
+
+        if (candidates == null) {
+            this.candidates[index] = candidates = computeCandidates(ch, prevOperand, prevOperator);
+        }
+
+        for (val candidate : candidates) {
+            if (candidate < 0) {
+                return parsers[~candidate];
+            }
+
+            val parser = parsers[candidate];
+
+            if (parser.shouldSelect(ch, prevOperand, prevOperator)) {
+                return parser;
+            }
+        }
+
+        return null;
+    }
+
+    private SelectableTokenParser scan(
+            final int ch,
+            final Operand prevOperand,
+            final Operator prevOperator
+    ) {
+        for (val parser : parsers) {
+            if (parser.shouldSelect(ch, prevOperand, prevOperator)) {
+                return parser;
+            }
+        }
+
+        return null;
+    }
+
+    private int @NotNull [] computeCandidates(
+            final int ch,
+            final Operand prevOperand,
+            final Operator prevOperator
+    ) {
+        val parsers = this.parsers;
+
+        int[] candidates = EMPTY;
+        int size = 0;
+
+        for (int i = 0; i < parsers.length; i++) {
+            val parser = parsers[i];
+
+            final int candidate;
+
+            if (!parser.isSelectionCacheable()) {
+                candidate = i;
+            } else if (parser.shouldSelect(ch, prevOperand, prevOperator)) {
+                candidate = ~i;
+            } else {
+                continue;
+            }
+
+            if (size == candidates.length) {
+                candidates = Arrays.copyOf(candidates, Math.max(4, size * 2));
+            }
+
+            candidates[size++] = candidate;
+
+            if (candidate < 0) {
+                break;
+            }
+        }
+
+        return size == candidates.length ? candidates : Arrays.copyOf(candidates, size);
+    }
+
+}
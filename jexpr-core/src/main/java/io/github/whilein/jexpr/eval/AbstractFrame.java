@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Values of slots, which are stored in primitive arrays, so neither setting them nor evaluation
+ * allocates. Frame belongs to expression, which created it, and must not be shared between threads.
+ * <p>
+ * Values are converted to types of slots by widening primitive conversion.
+ *
+ * @param <F> type of frame
+ * @author whilein
+ */
+abstract class AbstractFrame<F extends AbstractFrame<F>> {
+
+    final PrimitiveType[] types;
+
+    // место для стека вычисления [0, offset), за ним значения слотов
+    final long[] longs;
+
+    final double[] doubles;
+
+    final int offset;
+
+    AbstractFrame(final PrimitiveType[] types, final int offset) {
+        this.types = types;
+        this.longs = new long[offset + types.length];
+        this.doubles = new double[offset + types.length];
+        this.offset = offset;
+    }
+
+    @SuppressWarnings("unchecked")
+    private F self() {
+        return (F) this;
+    }
+
+    public @NotNull F setBoolean(final int slot, final boolean value) {
+        if (types[slot] != PrimitiveType.BOOLEAN) {
+            throw incompatible(slot, PrimitiveType.BOOLEAN);
+        }
+
+        longs[offset + slot] = value ? 1 : 0;
+
+        return self();
+    }
+
+    public @NotNull F setInt(final int slot, final int value) {
+        switch (types[slot]) {
+            case INT:
+            case LONG:
+                longs[offset + slot] = value;
+                break;
+            case FLOAT:
+                doubles[offset + slot] = (float) value;
+                break;
+            case DOUBLE:
+                doubles[offset + slot] = value;
+                break;
+            default:
+                throw incompatible(slot, PrimitiveType.INT);
+        }
+
+        return self();
+    }
+
+    public @NotNull F setLong(final int slot, final long value) {
+        switch (types[slot]) {
+            case LONG:
+                longs[offset + slot] = value;
+                break;
+            case FLOAT:
+                doubles[offset + slot] = (float) value;
+                break;
+            case DOUBLE:
+                doubles[offset + slot] = value;
+                break;
+            default:
+                throw incompatible(slot, PrimitiveType.LONG);
+        }
+
+        return self();
+    }
+
+    public @NotNull F setFloat(final int slot, final float value) {
+        switch (types[slot]) {
+            case FLOAT:
+            case DOUBLE:
+                doubles[offset + slot] = value;
+                break;
+            default:
+                throw incompatible(slot, PrimitiveType.FLOAT);
+        }
+
+        return self();
+    }
+
+    public @NotNull F setDouble(final int slot, final double value) {
+        if (types[slot] != PrimitiveType.DOUBLE) {
+            throw incompatible(slot, PrimitiveType.DOUBLE);
+        }
+
+        doubles[offset + slot] = value;
+
+        return self();
+    }
+
+    final IllegalArgumentException incompatible(final int slot, final PrimitiveType type) {
+        return new IllegalArgumentException("Cannot set " + type + " value to slot " + slot
+                + " of type " + types[slot]);
+    }
+
+}
@@ -0,0 +1,518 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.api.token.operand.OperandReference;
+import io.github.whilein.jexpr.api.token.operand.OperandUnary;
+import io.github.whilein.jexpr.api.token.operand.Subexpressions;
+import io.github.whilein.jexpr.api.token.operator.BinaryLazyOperator;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import io.github.whilein.jexpr.token.operand.Operands;
+import io.github.whilein.jexpr.token.operator.type.OperatorMemberSelection;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expression, whose references are bound to slots of {@link SlotLayout}. Evaluation takes slot values
+ * by index, so it neither looks up names nor calls {@link io.github.whilein.jexpr.api.token.operand.OperandVariableResolver}.
+ * Result of evaluation is the same as of {@link Operand#solve} with the same values.
+ * <p>
+ * Structurally equal subexpressions, e.g. {@code a * b + c} in {@code a * b + c > 0 && a * b + c < 100},
+ * are evaluated once per evaluation: the first evaluated one is stored in a temporary slot, others
+ * take its result. Subexpression, which is skipped by {@code &&} or {@code ||}, is not evaluated.
+ * <p>
+ * Bound expression is immutable and can be evaluated concurrently, each thread evaluates
+ * on its own reusable scratch stack.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BoundExpression {
+
+    // инструкция - код операции в младших битах и аргумент в старших
+    private static final int CONSTANT = 0;
+    private static final int SLOT = 1;
+    private static final int BINARY = 2;
+    private static final int UNARY = 3;
+    // за инструкцией следует адрес перехода, если левый член предсказывает результат
+    private static final int LAZY = 4;
+    // за инструкцией следует адрес после подвыражения, если оно уже вычислено во временный слот
+    private static final int CACHED = 5;
+    private static final int STORE = 6;
+
+    private static final int OPCODE_BITS = 3;
+    private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    @Getter
+    Operand operand;
+
+    @Getter
+    SlotLayout layout;
+
+    int[] code;
+
+    Object[] arguments;
+
+    int maxStack;
+
+    int temporaryCount;
+
+    /**
+     * Bind references of operand to slots in order of their first occurrence.
+     *
+     * @param operand operand
+     * @return bound expression
+     */
+    public static @NotNull BoundExpression bind(final @NotNull Operand operand) {
+        return new Binder(null).bind(operand);
+    }
+
+    /**
+     * Bind references of operand to slots of layout.
+     *
+     * @param operand operand
+     * @param layout  layout
+     * @return bound expression
+     * @throws IllegalArgumentException if operand has a reference, which is not in layout
+     */
+    public static @NotNull BoundExpression bind(final @NotNull Operand operand, final @NotNull SlotLayout layout) {
+        return new Binder(layout).bind(operand);
+    }
+
+    /**
+     * Get slot of reference.
+     *
+     * @param name name of reference
+     * @return slot or {@code -1}, if there is no such reference
+     */
+    public int getSlot(final @NotNull String name) {
+        return layout.getSlot(name);
+    }
+
+    /**
+     * Evaluate expression. Values are converted to operands as by {@link Operands#constant(Object)}.
+     *
+     * @param values values of slots
+     * @return result
+     */
+    public @NotNull Operand evaluate(final Object @NotNull [] values) {
+        checkSlots(values.length);
+
+        return run(values, null, null, null);
+    }
+
+    public @NotNull Operand evaluate(final int @NotNull [] values) {
+        checkSlots(values.length);
+
+        return run(null, values, null, null);
+    }
+
+    public @NotNull Operand evaluate(final long @NotNull [] values) {
+        checkSlots(values.length);
+
+        return run(null, null, values, null);
+    }
+
+    public @NotNull Operand evaluate(final double @NotNull [] values) {
+        checkSlots(values.length);
+
+        return run(null, null, null, values);
+    }
+
+    private void checkSlots(final int length) {
+        if (length < layout.size()) {
+            throw new IllegalArgumentException("Expected " + layout.size() + " slot values, got " + length);
+        }
+    }
+
+    private Operand run(
+            final Object[] objects,
+            final int[] ints,
+            final long[] longs,
+            final double[] doubles
+    ) {
+        val scratch = SCRATCH.get();
+
+        // стек вычисления, за ним значения слотов, которые переводятся в операнды при первом чтении,
+        // и временные слоты общих подвыражений
+        val stackLength = maxStack;
+        val temporaryOffset = stackLength + layout.size();
+        val stack = scratch.take(temporaryOffset + temporaryCount);
+
+        try {
+            val code = this.code;
+            val arguments = this.arguments;
+
+            int size = 0;
+
+            for (int pc = 0; pc < code.length; pc++) {
+                val instruction = code[pc];
+                val argument = instruction >>> OPCODE_BITS;
+
+                switch (instruction & OPCODE_MASK) {
+                    case CONSTANT: {
+                        stack[size++] = (Operand) arguments[argument];
+                        break;
+                    }
+                    case SLOT: {
+                        Operand value = stack[stackLength + argument];
+
+                        if (value == null) {
+                            if (objects != null) {
+                                value = Operands.constant(objects[argument]);
+                            } else if (ints != null) {
+                                value = Operands.constantInt(ints[argument]);
+                            } else if (longs != null) {
+                                value = Operands.constantLong(longs[argument]);
+                            } else {
+                                value = Operands.constantDouble(doubles[argument]);
+                            }
+
+                            stack[stackLength + argument] = value;
+                        }
+
+                        stack[size++] = value;
+                        break;
+                    }
+                    case BINARY: {
+                        val right = stack[--size];
+                        stack[size - 1] = stack[size - 1].apply(right, (BinaryOperator) arguments[argument]);
+                        break;
+                    }
+                    case UNARY: {
+                        stack[size - 1] = stack[size - 1].apply((UnaryOperator) arguments[argument]);
+                        break;
+                    }
+                    case LAZY: {
+                        val operator = (BinaryLazyOperator) arguments[argument];
+                        val left = stack[size - 1];
+
+                        pc++;
+
+                        if (left.isPredicable(operator)) {
+                            stack[size - 1] = left.getPredictedResult(operator);
+                            pc = code[pc] - 1;
+                        }
+                        break;
+                    }
+                    case CACHED: {
+                        val cached = stack[temporaryOffset + argument];
+
+                        pc++;
+
+                        if (cached != null) {
+                            stack[size++] = cached;
+                            pc = code[pc] - 1;
+                        }
+                        break;
+                    }
+                    case STORE: {
+                        stack[temporaryOffset + argument] = stack[size - 1];
+                        break;
+                    }
+                }
+            }
+
+            return stack[0];
+        } finally {
+            scratch.release(stack, temporaryOffset + temporaryCount);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return operand.toString();
+    }
+
+    /**
+     * Стек вычисления, который переиспользуется потоком. Пока стек занят, вложенное
+     * вычисление в том же потоке получит новый.
+     */
+    private static final class Scratch {
+
+        Operand[] stack = new Operand[16];
+
+        Operand[] take(final int size) {
+            val stack = this.stack;
+            this.stack = null;
+
+            return stack != null && stack.length >= size
+                    ? stack
+                    : new Operand[Math.max(size, 16)];
+        }
+
+        void release(final Operand[] stack, final int size) {
+            // не держим промежуточные результаты
+            Arrays.fill(stack, 0, size, null);
+
+            this.stack = stack;
+        }
+
+    }
+
+    /**
+     * Переводит дерево операндов в постфиксный код без рекурсии, чтобы не переполнить стек
+     * на длинных цепочках.
+     */
+    private static final class Binder {
+
+        final SlotLayout layout;
+
+        final Map<String, Integer> slots = new LinkedHashMap<>();
+
+        final List<Object> arguments = new ArrayList<>();
+
+        int[] code = new int[32];
+        int length;
+
+        int stackSize;
+        int maxStack;
+
+        Subexpressions<Operand> subexpressions;
+
+        // временный слот каждого номера подвыражения или -1
+        int[] temporaries;
+
+        int temporaryCount;
+
+        Binder(final SlotLayout layout) {
+            this.layout = layout;
+        }
+
+        BoundExpression bind(final Operand root) {
+            subexpressions = Subexpressions.find(root, OperandStructure.INSTANCE);
+            assignTemporaries();
+
+            // узлы на пути от корня, их состояние, адрес перехода ленивого оператора
+            // и адрес перехода за общее подвыражение
+            Operand[] nodes = new Operand[32];
+            int[] states = new int[32];
+            int[] jumps = new int[32];
+            int[] cacheJumps = new int[32];
+            int size = 0;
+
+            nodes[size++] = root;
+
+            while (size != 0) {
+                val top = size - 1;
+                val node = nodes[top];
+                val state = states[top];
+
+                if (state == 0) {
+                    val temporary = getTemporary(node);
+
+                    if (temporary != -1) {
+                        emit(CACHED, temporary);
+                        cacheJumps[top] = length;
+                        emit(0);
+                    } else {
+                        cacheJumps[top] = -1;
+                    }
+                }
+
+                Operand child = null;
+
+                if (node instanceof OperandBinary) {
+                    val binary = (OperandBinary) node;
+                    val operator = binary.getOperator();
+
+                    if (state == 0) {
+                        child = binary.getLeftMember();
+                    } else if (state == 1) {
+                        if (operator instanceof BinaryLazyOperator) {
+                            emit(LAZY, argument(operator));
+                            jumps[top] = length;
+                            emit(0);
+                        } else {
+                            jumps[top] = -1;
+                        }
+
+                        child = binary.getRightMember();
+                    } else {
+                        emit(BINARY, argument(operator));
+                        stackSize--;
+
+                        if (jumps[top] != -1) {
+                            code[jumps[top]] = length;
+                        }
+                    }
+                } else if (node instanceof OperandUnary) {
+                    val unary = (OperandUnary) node;
+
+                    if (state == 0) {
+                        child = unary.getMember();
+                    } else {
+                        emit(UNARY, argument(unary.getOperator()));
+                    }
+                } else if (node instanceof OperandReference) {
+                    emit(SLOT, slot(((OperandReference) node).getValue()));
+                    push();
+                } else if (node.isConstant()) {
+                    emit(CONSTANT, argument(node));
+                    push();
+                } else {
+                    throw new IllegalArgumentException("Cannot bind operand: " + node);
+                }
+
+                if (child != null) {
+                    states[top] = state + 1;
+
+                    if (size == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, size * 2);
+                        states = Arrays.copyOf(states, size * 2);
+                        jumps = Arrays.copyOf(jumps, size * 2);
+                        cacheJumps = Arrays.copyOf(cacheJumps, size * 2);
+                    }
+
+                    nodes[size] = child;
+                    states[size] = 0;
+                    size++;
+                } else {
+                    if (cacheJumps[top] != -1) {
+                        emit(STORE, getTemporary(node));
+                        code[cacheJumps[top]] = length;
+                    }
+
+                    nodes[--size] = null;
+                }
+            }
+
+            val layout = this.layout != null
+                    ? this.layout
+                    : SlotLayout.of(slots.keySet().toArray(new String[0]));
+
+            return new BoundExpression(root, layout, Arrays.copyOf(code, length), arguments.toArray(), maxStack,
+                    temporaryCount);
+        }
+
+        private void assignTemporaries() {
+            temporaries = new int[subexpressions.size()];
+
+            for (int id = 0; id < temporaries.length; id++) {
+                temporaries[id] = subexpressions.isCommon(id) ? temporaryCount++ : -1;
+            }
+        }
+
+        private int getTemporary(final Operand operand) {
+            return temporaryCount != 0 ? temporaries[subexpressions.getId(operand)] : -1;
+        }
+
+        private int slot(final String name) {
+            if (layout != null) {
+                val slot = layout.getSlot(name);
+
+                if (slot == -1) {
+                    throw new IllegalArgumentException("Unknown reference: " + name);
+                }
+
+                return slot;
+            }
+
+            val slot = slots.get(name);
+
+            if (slot != null) {
+                return slot;
+            }
+
+            val newSlot = slots.size();
+            slots.put(name, newSlot);
+
+            return newSlot;
+        }
+
+        private int argument(final Object argument) {
+            arguments.add(argument);
+
+            return arguments.size() - 1;
+        }
+
+        private void push() {
+            if (++stackSize > maxStack) {
+                maxStack = stackSize;
+            }
+        }
+
+        private void emit(final int opcode, final int argument) {
+            emit(opcode | argument << OPCODE_BITS);
+        }
+
+        private void emit(final int value) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+
+            code[length++] = value;
+        }
+
+    }
+
+    /**
+     * Структура операндов для поиска общих подвыражений. Выбор члена объекта не считается
+     * чистым, т.к. значение члена может меняться между вхождениями.
+     */
+    private static final class OperandStructure implements Subexpressions.Structure<Operand> {
+
+        static final OperandStructure INSTANCE = new OperandStructure();
+
+        @Override
+        public Operand getLeftMember(final @NotNull Operand node) {
+            if (node instanceof OperandBinary) {
+                return ((OperandBinary) node).getLeftMember();
+            } else if (node instanceof OperandUnary) {
+                return ((OperandUnary) node).getMember();
+            } else {
+                return null;
+            }
+        }
+
+        @Override
+        public Operand getRightMember(final @NotNull Operand node) {
+            return node instanceof OperandBinary ? ((OperandBinary) node).getRightMember() : null;
+        }
+
+        @Override
+        public @NotNull Object getOperator(final @NotNull Operand node) {
+            return node instanceof OperandBinary
+                    ? ((OperandBinary) node).getOperator()
+                    : ((OperandUnary) node).getOperator();
+        }
+
+        @Override
+        public boolean isPure(final @NotNull Operand node) {
+            return !(node instanceof OperandBinary)
+                    || !(((OperandBinary) node).getOperator() instanceof OperatorMemberSelection);
+        }
+
+    }
+
+}
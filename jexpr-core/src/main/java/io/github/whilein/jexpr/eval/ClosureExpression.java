@@ -0,0 +1,744 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.api.token.operand.OperandConstant;
+import io.github.whilein.jexpr.api.token.operand.OperandReference;
+import io.github.whilein.jexpr.api.token.operand.OperandUnary;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.Operator;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import io.github.whilein.jexpr.eval.ClosureNodes.BooleanNode;
+import io.github.whilein.jexpr.eval.ClosureNodes.DoubleNode;
+import io.github.whilein.jexpr.eval.ClosureNodes.FloatNode;
+import io.github.whilein.jexpr.eval.ClosureNodes.IntNode;
+import io.github.whilein.jexpr.eval.ClosureNodes.LongNode;
+import io.github.whilein.jexpr.eval.ClosureNodes.Step;
+import io.github.whilein.jexpr.eval.ClosureNodes.StringNode;
+import io.github.whilein.jexpr.token.operator.type.OperatorAnd;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseAnd;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseComplement;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseLeftShift;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseOr;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseRightShift;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseUnsignedRightShift;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseXor;
+import io.github.whilein.jexpr.token.operator.type.OperatorDivide;
+import io.github.whilein.jexpr.token.operator.type.OperatorEquals;
+import io.github.whilein.jexpr.token.operator.type.OperatorGreater;
+import io.github.whilein.jexpr.token.operator.type.OperatorLess;
+import io.github.whilein.jexpr.token.operator.type.OperatorMinus;
+import io.github.whilein.jexpr.token.operator.type.OperatorMultiply;
+import io.github.whilein.jexpr.token.operator.type.OperatorNegate;
+import io.github.whilein.jexpr.token.operator.type.OperatorNotEquals;
+import io.github.whilein.jexpr.token.operator.type.OperatorOr;
+import io.github.whilein.jexpr.token.operator.type.OperatorPlus;
+import io.github.whilein.jexpr.token.operator.type.OperatorRemainder;
+import io.github.whilein.jexpr.token.operator.type.OperatorStrictGreater;
+import io.github.whilein.jexpr.token.operator.type.OperatorStrictLess;
+import io.github.whilein.jexpr.token.operator.type.OperatorUnaryMinus;
+import io.github.whilein.jexpr.token.operator.type.OperatorUnaryPlus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expression, which is compiled into a tree of small type-specialized nodes, e.g. int addition or
+ * double comparison. Unlike {@link Operand#solve}, nodes neither dispatch on types of operands nor wrap
+ * intermediate results into operands, and unlike generated classes, compilation does not define
+ * a class per expression, so it is cheap enough to compile every expression.
+ * <p>
+ * Slots have any of {@link PrimitiveType types}, including {@link PrimitiveType#STRING strings}.
+ * Operators follow the same type promotion rules as their implementations for {@link Operand#solve}.
+ * Expression is immutable and can be evaluated concurrently with different frames.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class ClosureExpression {
+
+    /**
+     * Высота дерева узлов, после которой поддерево вычисляется заранее во временный слот,
+     * чтобы рекурсия узлов не переполнила стек на длинных цепочках.
+     */
+    private static final int MAX_NODE_DEPTH = 256;
+
+    @Getter
+    Operand operand;
+
+    @Getter
+    SlotLayout layout;
+
+    PrimitiveType[] slotTypes;
+
+    PrimitiveType type;
+
+    Step[] steps;
+
+    int temporaries;
+
+    BooleanNode booleanRoot;
+
+    IntNode intRoot;
+
+    LongNode longRoot;
+
+    DoubleNode doubleRoot;
+
+    StringNode stringRoot;
+
+    private ClosureExpression(
+            final Operand operand,
+            final SlotLayout layout,
+            final PrimitiveType[] slotTypes,
+            final Object root,
+            final PrimitiveType type,
+            final Step[] steps,
+            final int temporaries
+    ) {
+        this.operand = operand;
+        this.layout = layout;
+        this.slotTypes = slotTypes;
+        this.type = type;
+        this.steps = steps;
+        this.temporaries = temporaries;
+
+        // корни для каждого способа вычисления, с расширением типа результата
+        this.booleanRoot = type == PrimitiveType.BOOLEAN ? (BooleanNode) root : null;
+        this.intRoot = type == PrimitiveType.INT ? (IntNode) root : null;
+        this.longRoot = type.isIntegral() ? (LongNode) ClosureNodes.convert(root, type, PrimitiveType.LONG) : null;
+        this.doubleRoot = type.isNumeric() ? (DoubleNode) ClosureNodes.convert(root, type, PrimitiveType.DOUBLE) : null;
+        this.stringRoot = type == PrimitiveType.STRING ? (StringNode) root : null;
+    }
+
+    /**
+     * Compile operand, whose references are all of the same type. References are bound to slots
+     * in order of their first occurrence.
+     *
+     * @param operand operand
+     * @param type    type of references
+     * @return compiled expression
+     * @throws IllegalArgumentException if operand cannot be compiled
+     */
+    public static @NotNull ClosureExpression compile(
+            final @NotNull Operand operand,
+            final @NotNull PrimitiveType type
+    ) {
+        return new Compiler(null, null, type).compile(operand);
+    }
+
+    /**
+     * Compile operand, whose references are bound to slots of layout.
+     *
+     * @param operand operand
+     * @param layout  layout
+     * @param types   types of slots
+     * @return compiled expression
+     * @throws IllegalArgumentException if operand has a reference, which is not in layout,
+     *                                  or if operand cannot be compiled
+     */
+    public static @NotNull ClosureExpression compile(
+            final @NotNull Operand operand,
+            final @NotNull SlotLayout layout,
+            final @NotNull PrimitiveType @NotNull ... types
+    ) {
+        if (types.length != layout.size()) {
+            throw new IllegalArgumentException("Expected " + layout.size() + " slot types, got " + types.length);
+        }
+
+        return new Compiler(layout, types.clone(), null).compile(operand);
+    }
+
+    /**
+     * Get type of evaluation result.
+     *
+     * @return type of result
+     */
+    public @NotNull PrimitiveType getType() {
+        return type;
+    }
+
+    public @NotNull PrimitiveType getSlotType(final int slot) {
+        return slotTypes[slot];
+    }
+
+    /**
+     * Get slot of reference.
+     *
+     * @param name name of reference
+     * @return slot or {@code -1}, if there is no such reference
+     */
+    public int getSlot(final @NotNull String name) {
+        return layout.getSlot(name);
+    }
+
+    /**
+     * Create frame for evaluation of this expression. Frame should be created once per thread
+     * and reused.
+     *
+     * @return new frame
+     */
+    public @NotNull ClosureFrame newFrame() {
+        return new ClosureFrame(this, slotTypes, temporaries);
+    }
+
+    /**
+     * Evaluate boolean expression.
+     *
+     * @param frame values of slots
+     * @return result
+     * @throws IllegalStateException if type of expression is not boolean
+     */
+    public boolean evalBoolean(final @NotNull ClosureFrame frame) {
+        checkType(booleanRoot, PrimitiveType.BOOLEAN);
+        prepare(frame);
+
+        return booleanRoot.eval(frame);
+    }
+
+    /**
+     * Evaluate int expression.
+     *
+     * @param frame values of slots
+     * @return result
+     * @throws IllegalStateException if type of expression is not int
+     */
+    public int evalInt(final @NotNull ClosureFrame frame) {
+        checkType(intRoot, PrimitiveType.INT);
+        prepare(frame);
+
+        return intRoot.eval(frame);
+    }
+
+    /**
+     * Evaluate int or long expression.
+     *
+     * @param frame values of slots
+     * @return result
+     * @throws IllegalStateException if type of expression is not int or long
+     */
+    public long evalLong(final @NotNull ClosureFrame frame) {
+        checkType(longRoot, PrimitiveType.LONG);
+        prepare(frame);
+
+        return longRoot.eval(frame);
+    }
+
+    /**
+     * Evaluate numeric expression.
+     *
+     * @param frame values of slots
+     * @return result
+     * @throws IllegalStateException if type of expression is not numeric
+     */
+    public double evalDouble(final @NotNull ClosureFrame frame) {
+        checkType(doubleRoot, PrimitiveType.DOUBLE);
+        prepare(frame);
+
+        return doubleRoot.eval(frame);
+    }
+
+    /**
+     * Evaluate string expression.
+     *
+     * @param frame values of slots
+     * @return result
+     * @throws IllegalStateException if type of expression is not string
+     */
+    public @Nullable String evalString(final @NotNull ClosureFrame frame) {
+        checkType(stringRoot, PrimitiveType.STRING);
+        prepare(frame);
+
+        return stringRoot.eval(frame);
+    }
+
+    /**
+     * Evaluate expression of any type.
+     *
+     * @param frame values of slots
+     * @return boxed result
+     */
+    public @Nullable Object evaluate(final @NotNull ClosureFrame frame) {
+        switch (type) {
+            case BOOLEAN:
+                return evalBoolean(frame);
+            case INT:
+                return evalInt(frame);
+            case LONG:
+                return evalLong(frame);
+            case FLOAT:
+                return (float) evalDouble(frame);
+            case DOUBLE:
+                return evalDouble(frame);
+            default:
+                return evalString(frame);
+        }
+    }
+
+    private void checkType(final Object root, final PrimitiveType expected) {
+        if (root == null) {
+            throw new IllegalStateException("Cannot evaluate " + type + " expression as " + expected);
+        }
+    }
+
+    private void prepare(final ClosureFrame frame) {
+        if (frame.expression != this) {
+            throw new IllegalArgumentException("Frame belongs to another expression");
+        }
+
+        // вынесенные поддеревья вычисляются от самых глубоких
+        for (val step : steps) {
+            step.run(frame);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return operand.toString();
+    }
+
+    /**
+     * Выводит типы узлов и строит дерево без рекурсии. Поддеревья выше {@link #MAX_NODE_DEPTH}
+     * выносятся во временные слоты, кроме правых членов {@code &&} и {@code ||}, т.к. их
+     * нельзя вычислять заранее.
+     */
+    private static final class Compiler {
+
+        final SlotLayout layout;
+
+        final PrimitiveType[] slotTypes;
+
+        // тип всех ссылок, если раскладка строится автоматически
+        final PrimitiveType referenceType;
+
+        final Map<String, Integer> slots = new LinkedHashMap<>();
+
+        final List<Step> steps = new ArrayList<>();
+
+        int temporaries;
+
+        // построенные узлы, их типы и высоты
+        Object[] values = new Object[16];
+        PrimitiveType[] types = new PrimitiveType[16];
+        int[] heights = new int[16];
+        int size;
+
+        // количество ленивых правых членов, внутри которых находится текущий узел
+        int lazyDepth;
+
+        Compiler(final SlotLayout layout, final PrimitiveType[] slotTypes, final PrimitiveType referenceType) {
+            this.layout = layout;
+            this.slotTypes = slotTypes;
+            this.referenceType = referenceType;
+        }
+
+        ClosureExpression compile(final Operand root) {
+            // узлы на пути от корня и их состояние
+            Operand[] nodes = new Operand[32];
+            int[] states = new int[32];
+            int size = 0;
+
+            nodes[size++] = root;
+
+            while (size != 0) {
+                val top = size - 1;
+                val node = nodes[top];
+                val state = states[top];
+
+                Operand child = null;
+
+                if (node instanceof OperandBinary) {
+                    val binary = (OperandBinary) node;
+                    val operator = binary.getOperator();
+                    val lazy = operator instanceof OperatorAnd || operator instanceof OperatorOr;
+
+                    if (state == 0) {
+                        child = binary.getLeftMember();
+                    } else if (state == 1) {
+                        if (lazy) {
+                            if (types[this.size - 1] != PrimitiveType.BOOLEAN) {
+                                throw inapplicable(operator, types[this.size - 1]);
+                            }
+
+                            lazyDepth++;
+                        }
+
+                        child = binary.getRightMember();
+                    } else if (lazy) {
+                        lazyDepth--;
+                        lazy(operator);
+                    } else {
+                        binary(operator);
+                    }
+                } else if (node instanceof OperandUnary) {
+                    val unary = (OperandUnary) node;
+
+                    if (state == 0) {
+                        child = unary.getMember();
+                    } else {
+                        unary(unary.getOperator());
+                    }
+                } else if (node instanceof OperandReference) {
+                    reference(((OperandReference) node).getValue());
+                } else if (node instanceof OperandConstant) {
+                    constant((OperandConstant) node);
+                } else {
+                    throw new IllegalArgumentException("Cannot compile operand: " + node);
+                }
+
+                if (child != null) {
+                    states[top] = state + 1;
+
+                    if (size == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, size * 2);
+                        states = Arrays.copyOf(states, size * 2);
+                    }
+
+                    nodes[size] = child;
+                    states[size] = 0;
+                    size++;
+                } else {
+                    nodes[--size] = null;
+                }
+            }
+
+            SlotLayout layout = this.layout;
+            PrimitiveType[] slotTypes = this.slotTypes;
+
+            if (layout == null) {
+                layout = SlotLayout.of(slots.keySet().toArray(new String[0]));
+                slotTypes = new PrimitiveType[layout.size()];
+                Arrays.fill(slotTypes, referenceType);
+            }
+
+            return new ClosureExpression(root, layout, slotTypes, values[0], types[0],
+                    steps.toArray(new Step[0]), temporaries);
+        }
+
+        private void lazy(final BinaryOperator operator) {
+            val right = types[size - 1];
+
+            if (right != PrimitiveType.BOOLEAN) {
+                throw inapplicable(operator, PrimitiveType.BOOLEAN, right);
+            }
+
+            val rightNode = (BooleanNode) values[--size];
+            val leftNode = (BooleanNode) values[size - 1];
+            val height = Math.max(heights[size - 1], heights[size]) + 1;
+
+            size--;
+            push(operator instanceof OperatorAnd
+                    ? ClosureNodes.and(leftNode, rightNode)
+                    : ClosureNodes.or(leftNode, rightNode), PrimitiveType.BOOLEAN, height);
+        }
+
+        private void binary(final BinaryOperator operator) {
+            if (operator instanceof OperatorPlus) {
+                if (types[size - 1] == PrimitiveType.STRING || types[size - 2] == PrimitiveType.STRING) {
+                    concat();
+                } else {
+                    arithmetic(ClosureNodes.ADD, operator);
+                }
+            } else if (operator instanceof OperatorMinus) {
+                arithmetic(ClosureNodes.SUB, operator);
+            } else if (operator instanceof OperatorMultiply) {
+                arithmetic(ClosureNodes.MUL, operator);
+            } else if (operator instanceof OperatorDivide) {
+                arithmetic(ClosureNodes.DIV, operator);
+            } else if (operator instanceof OperatorRemainder) {
+                arithmetic(ClosureNodes.REM, operator);
+            } else if (operator instanceof OperatorBitwiseAnd) {
+                bitwise(ClosureNodes.AND, operator);
+            } else if (operator instanceof OperatorBitwiseOr) {
+                bitwise(ClosureNodes.OR, operator);
+            } else if (operator instanceof OperatorBitwiseXor) {
+                bitwise(ClosureNodes.XOR, operator);
+            } else if (operator instanceof OperatorBitwiseLeftShift) {
+                shift(ClosureNodes.SHL, operator);
+            } else if (operator instanceof OperatorBitwiseRightShift) {
+                shift(ClosureNodes.SHR, operator);
+            } else if (operator instanceof OperatorBitwiseUnsignedRightShift) {
+                shift(ClosureNodes.USHR, operator);
+            } else if (operator instanceof OperatorEquals) {
+                equality(ClosureNodes.EQ, operator);
+            } else if (operator instanceof OperatorNotEquals) {
+                equality(ClosureNodes.NE, operator);
+            } else if (operator instanceof OperatorStrictLess) {
+                comparison(ClosureNodes.LT, operator);
+            } else if (operator instanceof OperatorLess) {
+                comparison(ClosureNodes.LE, operator);
+            } else if (operator instanceof OperatorStrictGreater) {
+                comparison(ClosureNodes.GT, operator);
+            } else if (operator instanceof OperatorGreater) {
+                comparison(ClosureNodes.GE, operator);
+            } else {
+                throw new IllegalArgumentException("Unsupported operator: " + operator.getValue());
+            }
+        }
+
+        private void concat() {
+            convertMembers(PrimitiveType.STRING);
+
+            val right = (StringNode) values[--size];
+            val left = (StringNode) values[size - 1];
+            val height = Math.max(heights[size - 1], heights[size]) + 1;
+
+            size--;
+            push(ClosureNodes.concat(left, right), PrimitiveType.STRING, height);
+        }
+
+        private void arithmetic(final int operation, final BinaryOperator operator) {
+            val left = types[size - 2];
+            val right = types[size - 1];
+
+            if (!left.isNumeric() || !right.isNumeric()) {
+                throw inapplicable(operator, left, right);
+            }
+
+            val type = PrimitiveType.promote(left, right);
+            convertMembers(type);
+            combine(ClosureNodes.arithmetic(operation, type, values[size - 2], values[size - 1]), type);
+        }
+
+        private void bitwise(final int operation, final BinaryOperator operator) {
+            val left = types[size - 2];
+            val right = types[size - 1];
+
+            final PrimitiveType type;
+
+            if (left == PrimitiveType.BOOLEAN && right == PrimitiveType.BOOLEAN) {
+                type = PrimitiveType.BOOLEAN;
+            } else if (left.isIntegral() && right.isIntegral()) {
+                type = PrimitiveType.promote(left, right);
+                convertMembers(type);
+            } else {
+                throw inapplicable(operator, left, right);
+            }
+
+            combine(ClosureNodes.bitwise(operation, type, values[size - 2], values[size - 1]), type);
+        }
+
+        private void shift(final int operation, final BinaryOperator operator) {
+            val left = types[size - 2];
+            val right = types[size - 1];
+
+            if (!left.isIntegral() || !right.isIntegral()) {
+                throw inapplicable(operator, left, right);
+            }
+
+            // тип результата - тип левого члена, от правого берутся только младшие биты
+            convertMember(size - 1, PrimitiveType.INT);
+            combine(ClosureNodes.shift(operation, left, values[size - 2], (IntNode) values[size - 1]), left);
+        }
+
+        private void equality(final int comparison, final BinaryOperator operator) {
+            val left = types[size - 2];
+            val right = types[size - 1];
+
+            if (left == right && (left == PrimitiveType.BOOLEAN || left == PrimitiveType.STRING)) {
+                combine(ClosureNodes.comparison(comparison, left, values[size - 2], values[size - 1]),
+                        PrimitiveType.BOOLEAN);
+            } else {
+                comparison(comparison, operator);
+            }
+        }
+
+        private void comparison(final int comparison, final BinaryOperator operator) {
+            val left = types[size - 2];
+            val right = types[size - 1];
+
+            if (!left.isNumeric() || !right.isNumeric()) {
+                throw inapplicable(operator, left, right);
+            }
+
+            val type = PrimitiveType.promote(left, right);
+            convertMembers(type);
+            combine(ClosureNodes.comparison(comparison, type, values[size - 2], values[size - 1]),
+                    PrimitiveType.BOOLEAN);
+        }
+
+        private void unary(final UnaryOperator operator) {
+            val type = types[size - 1];
+            val member = values[size - 1];
+
+            final Object node;
+
+            if (operator instanceof OperatorNegate) {
+                if (type != PrimitiveType.BOOLEAN) {
+                    throw inapplicable(operator, type);
+                }
+
+                node = ClosureNodes.not((BooleanNode) member);
+            } else if (operator instanceof OperatorBitwiseComplement) {
+                if (!type.isIntegral()) {
+                    throw inapplicable(operator, type);
+                }
+
+                node = ClosureNodes.complement(type, member);
+            } else if (operator instanceof OperatorUnaryMinus) {
+                if (!type.isNumeric()) {
+                    throw inapplicable(operator, type);
+                }
+
+                node = ClosureNodes.negate(type, member);
+            } else if (operator instanceof OperatorUnaryPlus) {
+                if (!type.isNumeric()) {
+                    throw inapplicable(operator, type);
+                }
+
+                return;
+            } else {
+                throw new IllegalArgumentException("Unsupported operator: " + operator.getValue());
+            }
+
+            val height = heights[--size] + 1;
+            push(node, type, height);
+        }
+
+        private void convertMembers(final PrimitiveType type) {
+            convertMember(size - 2, type);
+            convertMember(size - 1, type);
+        }
+
+        private void convertMember(final int index, final PrimitiveType type) {
+            if (types[index] != type) {
+                values[index] = ClosureNodes.convert(values[index], types[index], type);
+                types[index] = type;
+                heights[index]++;
+            }
+        }
+
+        /**
+         * Заменяет два верхних узла их комбинацией.
+         */
+        private void combine(final Object node, final PrimitiveType type) {
+            val height = Math.max(heights[size - 2], heights[size - 1]) + 1;
+
+            size -= 2;
+            push(node, type, height);
+        }
+
+        private void reference(final String name) {
+            final int slot;
+            final PrimitiveType type;
+
+            if (layout != null) {
+                slot = layout.getSlot(name);
+
+                if (slot == -1) {
+                    throw new IllegalArgumentException("Unknown reference: " + name);
+                }
+
+                type = slotTypes[slot];
+            } else {
+                val existing = slots.get(name);
+
+                if (existing != null) {
+                    slot = existing;
+                } else {
+                    slot = slots.size();
+                    slots.put(name, slot);
+                }
+
+                type = referenceType;
+            }
+
+            push(ClosureNodes.load(type, slot), type, 1);
+        }
+
+        private void constant(final OperandConstant constant) {
+            val value = constant.getValue();
+
+            switch (constant.getKind()) {
+                case BOOLEAN:
+                    push(ClosureNodes.constant((boolean) (Boolean) value), PrimitiveType.BOOLEAN, 1);
+                    break;
+                case INT:
+                    push(ClosureNodes.constant(((Number) value).intValue()), PrimitiveType.INT, 1);
+                    break;
+                case LONG:
+                    push(ClosureNodes.constant(((Number) value).longValue()), PrimitiveType.LONG, 1);
+                    break;
+                case FLOAT:
+                    push(ClosureNodes.constant(((Number) value).floatValue()), PrimitiveType.FLOAT, 1);
+                    break;
+                case DOUBLE:
+                    push(ClosureNodes.constant(((Number) value).doubleValue()), PrimitiveType.DOUBLE, 1);
+                    break;
+                case STRING:
+                    push(ClosureNodes.constant((String) value), PrimitiveType.STRING, 1);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Cannot compile operand: " + constant);
+            }
+        }
+
+        private void push(final Object node, final PrimitiveType type, final int height) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+                heights = Arrays.copyOf(heights, size * 2);
+            }
+
+            if (height >= MAX_NODE_DEPTH && lazyDepth == 0) {
+                hoist(node, type);
+            } else {
+                values[size] = node;
+                heights[size] = height;
+            }
+
+            types[size] = type;
+            size++;
+        }
+
+        private void hoist(final Object node, final PrimitiveType type) {
+            steps.add(ClosureNodes.store(type, node, temporaries));
+
+            values[size] = ClosureNodes.loadTemporary(type, temporaries);
+            heights[size] = 1;
+
+            temporaries++;
+        }
+
+        private static IllegalArgumentException inapplicable(
+                final BinaryOperator operator,
+                final PrimitiveType left,
+                final PrimitiveType right
+        ) {
+            return new IllegalArgumentException("Operator " + operator.getValue() + " cannot be applied to "
+                    + left + " and " + right);
+        }
+
+        private static IllegalArgumentException inapplicable(final Operator operator, final PrimitiveType member) {
+            return new IllegalArgumentException("Operator " + operator.getValue() + " cannot be applied to "
+                    + member);
+        }
+
+    }
+
+}
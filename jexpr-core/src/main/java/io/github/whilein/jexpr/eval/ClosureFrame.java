@@ -0,0 +1,64 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reusable values of slots of {@link ClosureExpression}. Primitive values are stored
+ * in primitive arrays, so setting them does not box.
+ * <p>
+ * Frame belongs to expression, which created it, and must not be shared between threads.
+ * Values are converted to types of slots by widening primitive conversion.
+ *
+ * @author whilein
+ */
+public final class ClosureFrame extends AbstractFrame<ClosureFrame> {
+
+    final ClosureExpression expression;
+
+    final Object[] objects;
+
+    // значения вынесенных узлов
+    final long[] temporaryLongs;
+
+    final double[] temporaryDoubles;
+
+    final Object[] temporaryObjects;
+
+    ClosureFrame(final ClosureExpression expression, final PrimitiveType[] types, final int temporaries) {
+        super(types, 0);
+
+        this.expression = expression;
+        this.objects = new Object[types.length];
+        this.temporaryLongs = new long[temporaries];
+        this.temporaryDoubles = new double[temporaries];
+        this.temporaryObjects = new Object[temporaries];
+    }
+
+    public @NotNull ClosureFrame setString(final int slot, final @Nullable String value) {
+        if (types[slot] != PrimitiveType.STRING) {
+            throw incompatible(slot, PrimitiveType.STRING);
+        }
+
+        objects[slot] = value;
+
+        return this;
+    }
+
+}
@@ -0,0 +1,525 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Objects;
+
+/**
+ * Узлы {@link ClosureExpression}. Каждая лямбда здесь - отдельный финальный класс, поэтому
+ * вызовы внутри узла одного вида видят одни и те же классы дочерних узлов, а JIT
+ * может их встроить.
+ *
+ * @author whilein
+ */
+@UtilityClass
+class ClosureNodes {
+
+    final int ADD = 0;
+    final int SUB = 1;
+    final int MUL = 2;
+    final int DIV = 3;
+    final int REM = 4;
+
+    final int AND = 0;
+    final int OR = 1;
+    final int XOR = 2;
+
+    final int SHL = 0;
+    final int SHR = 1;
+    final int USHR = 2;
+
+    final int EQ = 0;
+    final int NE = 1;
+    final int LT = 2;
+    final int LE = 3;
+    final int GT = 4;
+    final int GE = 5;
+
+    interface BooleanNode {
+        boolean eval(ClosureFrame frame);
+    }
+
+    interface IntNode {
+        int eval(ClosureFrame frame);
+    }
+
+    interface LongNode {
+        long eval(ClosureFrame frame);
+    }
+
+    interface FloatNode {
+        float eval(ClosureFrame frame);
+    }
+
+    interface DoubleNode {
+        double eval(ClosureFrame frame);
+    }
+
+    interface StringNode {
+        String eval(ClosureFrame frame);
+    }
+
+    /**
+     * Вычисление вынесенного узла во временный слот кадра.
+     */
+    interface Step {
+        void run(ClosureFrame frame);
+    }
+
+    Object load(final PrimitiveType type, final int index) {
+        switch (type) {
+            case BOOLEAN:
+                return (BooleanNode) frame -> frame.longs[index] != 0;
+            case INT:
+                return (IntNode) frame -> (int) frame.longs[index];
+            case LONG:
+                return (LongNode) frame -> frame.longs[index];
+            case FLOAT:
+                return (FloatNode) frame -> (float) frame.doubles[index];
+            case DOUBLE:
+                return (DoubleNode) frame -> frame.doubles[index];
+            default:
+                return (StringNode) frame -> (String) frame.objects[index];
+        }
+    }
+
+    Object loadTemporary(final PrimitiveType type, final int index) {
+        switch (type) {
+            case BOOLEAN:
+                return (BooleanNode) frame -> frame.temporaryLongs[index] != 0;
+            case INT:
+                return (IntNode) frame -> (int) frame.temporaryLongs[index];
+            case LONG:
+                return (LongNode) frame -> frame.temporaryLongs[index];
+            case FLOAT:
+                return (FloatNode) frame -> (float) frame.temporaryDoubles[index];
+            case DOUBLE:
+                return (DoubleNode) frame -> frame.temporaryDoubles[index];
+            default:
+                return (StringNode) frame -> (String) frame.temporaryObjects[index];
+        }
+    }
+
+    Step store(final PrimitiveType type, final Object node, final int index) {
+        switch (type) {
+            case BOOLEAN: {
+                final BooleanNode value = (BooleanNode) node;
+                return frame -> frame.temporaryLongs[index] = value.eval(frame) ? 1 : 0;
+            }
+            case INT: {
+                final IntNode value = (IntNode) node;
+                return frame -> frame.temporaryLongs[index] = value.eval(frame);
+            }
+            case LONG: {
+                final LongNode value = (LongNode) node;
+                return frame -> frame.temporaryLongs[index] = value.eval(frame);
+            }
+            case FLOAT: {
+                final FloatNode value = (FloatNode) node;
+                return frame -> frame.temporaryDoubles[index] = value.eval(frame);
+            }
+            case DOUBLE: {
+                final DoubleNode value = (DoubleNode) node;
+                return frame -> frame.temporaryDoubles[index] = value.eval(frame);
+            }
+            default: {
+                final StringNode value = (StringNode) node;
+                return frame -> frame.temporaryObjects[index] = value.eval(frame);
+            }
+        }
+    }
+
+    BooleanNode constant(final boolean value) {
+        return value ? frame -> true : frame -> false;
+    }
+
+    IntNode constant(final int value) {
+        return frame -> value;
+    }
+
+    LongNode constant(final long value) {
+        return frame -> value;
+    }
+
+    FloatNode constant(final float value) {
+        return frame -> value;
+    }
+
+    DoubleNode constant(final double value) {
+        return frame -> value;
+    }
+
+    StringNode constant(final String value) {
+        return frame -> value;
+    }
+
+    /**
+     * Расширяющее преобразование числа или преобразование в строку для конкатенации.
+     */
+    Object convert(final Object node, final PrimitiveType from, final PrimitiveType to) {
+        if (from == to) {
+            return node;
+        }
+
+        if (to == PrimitiveType.STRING) {
+            switch (from) {
+                case BOOLEAN: {
+                    final BooleanNode value = (BooleanNode) node;
+                    return (StringNode) frame -> String.valueOf(value.eval(frame));
+                }
+                case INT: {
+                    final IntNode value = (IntNode) node;
+                    return (StringNode) frame -> String.valueOf(value.eval(frame));
+                }
+                case LONG: {
+                    final LongNode value = (LongNode) node;
+                    return (StringNode) frame -> String.valueOf(value.eval(frame));
+                }
+                case FLOAT: {
+                    final FloatNode value = (FloatNode) node;
+                    return (StringNode) frame -> String.valueOf(value.eval(frame));
+                }
+                default: {
+                    final DoubleNode value = (DoubleNode) node;
+                    return (StringNode) frame -> String.valueOf(value.eval(frame));
+                }
+            }
+        }
+
+        switch (from) {
+            case INT: {
+                final IntNode value = (IntNode) node;
+
+                switch (to) {
+                    case LONG:
+                        return (LongNode) frame -> value.eval(frame);
+                    case FLOAT:
+                        return (FloatNode) frame -> value.eval(frame);
+                    default:
+                        return (DoubleNode) frame -> value.eval(frame);
+                }
+            }
+            case LONG: {
+                final LongNode value = (LongNode) node;
+
+                switch (to) {
+                    case INT:
+                        // только для количества бит сдвига, от которого берутся младшие биты
+                        return (IntNode) frame -> (int) value.eval(frame);
+                    case FLOAT:
+                        return (FloatNode) frame -> value.eval(frame);
+                    default:
+                        return (DoubleNode) frame -> value.eval(frame);
+                }
+            }
+            default: {
+                final FloatNode value = (FloatNode) node;
+                return (DoubleNode) frame -> value.eval(frame);
+            }
+        }
+    }
+
+    Object arithmetic(final int operation, final PrimitiveType type, final Object left, final Object right) {
+        switch (type) {
+            case INT:
+                return arithmetic(operation, (IntNode) left, (IntNode) right);
+            case LONG:
+                return arithmetic(operation, (LongNode) left, (LongNode) right);
+            case FLOAT:
+                return arithmetic(operation, (FloatNode) left, (FloatNode) right);
+            default:
+                return arithmetic(operation, (DoubleNode) left, (DoubleNode) right);
+        }
+    }
+
+    private IntNode arithmetic(final int operation, final IntNode left, final IntNode right) {
+        switch (operation) {
+            case ADD:
+                return frame -> left.eval(frame) + right.eval(frame);
+            case SUB:
+                return frame -> left.eval(frame) - right.eval(frame);
+            case MUL:
+                return frame -> left.eval(frame) * right.eval(frame);
+            case DIV:
+                return frame -> left.eval(frame) / right.eval(frame);
+            default:
+                return frame -> left.eval(frame) % right.eval(frame);
+        }
+    }
+
+    private LongNode arithmetic(final int operation, final LongNode left, final LongNode right) {
+        switch (operation) {
+            case ADD:
+                return frame -> left.eval(frame) + right.eval(frame);
+            case SUB:
+                return frame -> left.eval(frame) - right.eval(frame);
+            case MUL:
+                return frame -> left.eval(frame) * right.eval(frame);
+            case DIV:
+                return frame -> left.eval(frame) / right.eval(frame);
+            default:
+                return frame -> left.eval(frame) % right.eval(frame);
+        }
+    }
+
+    private FloatNode arithmetic(final int operation, final FloatNode left, final FloatNode right) {
+        switch (operation) {
+            case ADD:
+                return frame -> left.eval(frame) + right.eval(frame);
+            case SUB:
+                return frame -> left.eval(frame) - right.eval(frame);
+            case MUL:
+                return frame -> left.eval(frame) * right.eval(frame);
+            case DIV:
+                return frame -> left.eval(frame) / right.eval(frame);
+            default:
+                return frame -> left.eval(frame) % right.eval(frame);
+        }
+    }
+
+    private DoubleNode arithmetic(final int operation, final DoubleNode left, final DoubleNode right) {
+        switch (operation) {
+            case ADD:
+                return frame -> left.eval(frame) + right.eval(frame);
+            case SUB:
+                return frame -> left.eval(frame) - right.eval(frame);
+            case MUL:
+                return frame -> left.eval(frame) * right.eval(frame);
+            case DIV:
+                return frame -> left.eval(frame) / right.eval(frame);
+            default:
+                return frame -> left.eval(frame) % right.eval(frame);
+        }
+    }
+
+    StringNode concat(final StringNode left, final StringNode right) {
+        return frame -> left.eval(frame) + right.eval(frame);
+    }
+
+    Object bitwise(final int operation, final PrimitiveType type, final Object left, final Object right) {
+        switch (type) {
+            case BOOLEAN:
+                return bitwise(operation, (BooleanNode) left, (BooleanNode) right);
+            case INT:
+                return bitwise(operation, (IntNode) left, (IntNode) right);
+            default:
+                return bitwise(operation, (LongNode) left, (LongNode) right);
+        }
+    }
+
+    private BooleanNode bitwise(final int operation, final BooleanNode left, final BooleanNode right) {
+        switch (operation) {
+            case AND:
+                return frame -> left.eval(frame) & right.eval(frame);
+            case OR:
+                return frame -> left.eval(frame) | right.eval(frame);
+            default:
+                return frame -> left.eval(frame) ^ right.eval(frame);
+        }
+    }
+
+    private IntNode bitwise(final int operation, final IntNode left, final IntNode right) {
+        switch (operation) {
+            case AND:
+                return frame -> left.eval(frame) & right.eval(frame);
+            case OR:
+                return frame -> left.eval(frame) | right.eval(frame);
+            default:
+                return frame -> left.eval(frame) ^ right.eval(frame);
+        }
+    }
+
+    private LongNode bitwise(final int operation, final LongNode left, final LongNode right) {
+        switch (operation) {
+            case AND:
+                return frame -> left.eval(frame) & right.eval(frame);
+            case OR:
+                return frame -> left.eval(frame) | right.eval(frame);
+            default:
+                return frame -> left.eval(frame) ^ right.eval(frame);
+        }
+    }
+
+    Object shift(final int operation, final PrimitiveType type, final Object left, final IntNode right) {
+        if (type == PrimitiveType.INT) {
+            final IntNode value = (IntNode) left;
+
+            switch (operation) {
+                case SHL:
+                    return (IntNode) frame -> value.eval(frame) << right.eval(frame);
+                case SHR:
+                    return (IntNode) frame -> value.eval(frame) >> right.eval(frame);
+                default:
+                    return (IntNode) frame -> value.eval(frame) >>> right.eval(frame);
+            }
+        }
+
+        final LongNode value = (LongNode) left;
+
+        switch (operation) {
+            case SHL:
+                return (LongNode) frame -> value.eval(frame) << right.eval(frame);
+            case SHR:
+                return (LongNode) frame -> value.eval(frame) >> right.eval(frame);
+            default:
+                return (LongNode) frame -> value.eval(frame) >>> right.eval(frame);
+        }
+    }
+
+    BooleanNode comparison(final int comparison, final PrimitiveType type, final Object left, final Object right) {
+        switch (type) {
+            case BOOLEAN:
+                return comparison(comparison, (BooleanNode) left, (BooleanNode) right);
+            case INT:
+                return comparison(comparison, (IntNode) left, (IntNode) right);
+            case LONG:
+                return comparison(comparison, (LongNode) left, (LongNode) right);
+            case FLOAT:
+                return comparison(comparison, (FloatNode) left, (FloatNode) right);
+            case DOUBLE:
+                return comparison(comparison, (DoubleNode) left, (DoubleNode) right);
+            default:
+                return comparison(comparison, (StringNode) left, (StringNode) right);
+        }
+    }
+
+    private BooleanNode comparison(final int comparison, final BooleanNode left, final BooleanNode right) {
+        return comparison == EQ
+                ? frame -> left.eval(frame) == right.eval(frame)
+                : frame -> left.eval(frame) != right.eval(frame);
+    }
+
+    private BooleanNode comparison(final int comparison, final StringNode left, final StringNode right) {
+        return comparison == EQ
+                ? frame -> Objects.equals(left.eval(frame), right.eval(frame))
+                : frame -> !Objects.equals(left.eval(frame), right.eval(frame));
+    }
+
+    private BooleanNode comparison(final int comparison, final IntNode left, final IntNode right) {
+        switch (comparison) {
+            case EQ:
+                return frame -> left.eval(frame) == right.eval(frame);
+            case NE:
+                return frame -> left.eval(frame) != right.eval(frame);
+            case LT:
+                return frame -> left.eval(frame) < right.eval(frame);
+            case LE:
+                return frame -> left.eval(frame) <= right.eval(frame);
+            case GT:
+                return frame -> left.eval(frame) > right.eval(frame);
+            default:
+                return frame -> left.eval(frame) >= right.eval(frame);
+        }
+    }
+
+    private BooleanNode comparison(final int comparison, final LongNode left, final LongNode right) {
+        switch (comparison) {
+            case EQ:
+                return frame -> left.eval(frame) == right.eval(frame);
+            case NE:
+                return frame -> left.eval(frame) != right.eval(frame);
+            case LT:
+                return frame -> left.eval(frame) < right.eval(frame);
+            case LE:
+                return frame -> left.eval(frame) <= right.eval(frame);
+            case GT:
+                return frame -> left.eval(frame) > right.eval(frame);
+            default:
+                return frame -> left.eval(frame) >= right.eval(frame);
+        }
+    }
+
+    private BooleanNode comparison(final int comparison, final FloatNode left, final FloatNode right) {
+        switch (comparison) {
+            case EQ:
+                return frame -> left.eval(frame) == right.eval(frame);
+            case NE:
+                return frame -> left.eval(frame) != right.eval(frame);
+            case LT:
+                return frame -> left.eval(frame) < right.eval(frame);
+            case LE:
+                return frame -> left.eval(frame) <= right.eval(frame);
+            case GT:
+                return frame -> left.eval(frame) > right.eval(frame);
+            default:
+                return frame -> left.eval(frame) >= right.eval(frame);
+        }
+    }
+
+    private BooleanNode comparison(final int comparison, final DoubleNode left, final DoubleNode right) {
+        switch (comparison) {
+            case EQ:
+                return frame -> left.eval(frame) == right.eval(frame);
+            case NE:
+                return frame -> left.eval(frame) != right.eval(frame);
+            case LT:
+                return frame -> left.eval(frame) < right.eval(frame);
+            case LE:
+                return frame -> left.eval(frame) <= right.eval(frame);
+            case GT:
+                return frame -> left.eval(frame) > right.eval(frame);
+            default:
+                return frame -> left.eval(frame) >= right.eval(frame);
+        }
+    }
+
+    BooleanNode and(final BooleanNode left, final BooleanNode right) {
+        return frame -> left.eval(frame) && right.eval(frame);
+    }
+
+    BooleanNode or(final BooleanNode left, final BooleanNode right) {
+        return frame -> left.eval(frame) || right.eval(frame);
+    }
+
+    BooleanNode not(final BooleanNode member) {
+        return frame -> !member.eval(frame);
+    }
+
+    Object negate(final PrimitiveType type, final Object member) {
+        switch (type) {
+            case INT: {
+                final IntNode value = (IntNode) member;
+                return (IntNode) frame -> -value.eval(frame);
+            }
+            case LONG: {
+                final LongNode value = (LongNode) member;
+                return (LongNode) frame -> -value.eval(frame);
+            }
+            case FLOAT: {
+                final FloatNode value = (FloatNode) member;
+                return (FloatNode) frame -> -value.eval(frame);
+            }
+            default: {
+                final DoubleNode value = (DoubleNode) member;
+                return (DoubleNode) frame -> -value.eval(frame);
+            }
+        }
+    }
+
+    Object complement(final PrimitiveType type, final Object member) {
+        if (type == PrimitiveType.INT) {
+            final IntNode value = (IntNode) member;
+            return (IntNode) frame -> ~value.eval(frame);
+        }
+
+        final LongNode value = (LongNode) member;
+        return (LongNode) frame -> ~value.eval(frame);
+    }
+
+}
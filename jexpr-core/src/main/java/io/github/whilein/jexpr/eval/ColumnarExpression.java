@@ -0,0 +1,889 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+import static io.github.whilein.jexpr.eval.PrimitiveExpression.*;
+
+/**
+ * Expression, which is evaluated over columns of values. Each variable is a column, i.e. an array
+ * with value of every row, and each operator is applied to a whole vector of rows at once, so the cost
+ * of interpretation is paid once per vector instead of once per row.
+ * <p>
+ * Expression is analyzed the same way as {@link PrimitiveExpression}, so it supports the same operators
+ * with the same type promotion rules, and every row gets the same result as evaluation of this row
+ * alone, including {@link ArithmeticException} on integer division by zero, which is thrown only if
+ * the division is not skipped by {@code &&} or {@code ||}.
+ * <p>
+ * Column of slot must be an array of its type: {@code boolean[]}, {@code int[]}, {@code long[]},
+ * {@code float[]} or {@code double[]}. Expression is immutable and can be evaluated concurrently.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ColumnarExpression {
+
+    /**
+     * Количество строк, которые обрабатываются одной инструкцией. Промежуточные векторы
+     * такого размера остаются в кэше процессора.
+     */
+    private static final int VECTOR_SIZE = 1024;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    PrimitiveExpression expression;
+
+    /**
+     * Analyze operand, whose references are all of the same type. References are bound to slots
+     * in order of their first occurrence.
+     *
+     * @param operand operand
+     * @param type    type of references
+     * @return analyzed expression
+     * @throws IllegalArgumentException if operand cannot be evaluated in primitives
+     */
+    public static @NotNull ColumnarExpression analyze(
+            final @NotNull Operand operand,
+            final @NotNull PrimitiveType type
+    ) {
+        return new ColumnarExpression(PrimitiveExpression.analyze(operand, type));
+    }
+
+    /**
+     * Analyze operand, whose references are bound to slots of layout.
+     *
+     * @param operand operand
+     * @param layout  layout
+     * @param types   types of slots
+     * @return analyzed expression
+     * @throws IllegalArgumentException if operand has a reference, which is not in layout,
+     *                                  or if operand cannot be evaluated in primitives
+     */
+    public static @NotNull ColumnarExpression analyze(
+            final @NotNull Operand operand,
+            final @NotNull SlotLayout layout,
+            final @NotNull PrimitiveType @NotNull ... types
+    ) {
+        return new ColumnarExpression(PrimitiveExpression.analyze(operand, layout, types));
+    }
+
+    public @NotNull Operand getOperand() {
+        return expression.getOperand();
+    }
+
+    public @NotNull SlotLayout getLayout() {
+        return expression.getLayout();
+    }
+
+    /**
+     * Get type of evaluation result.
+     *
+     * @return type of result
+     */
+    public @NotNull PrimitiveType getType() {
+        return expression.getType();
+    }
+
+    /**
+     * Get slot of reference.
+     *
+     * @param name name of reference
+     * @return slot or {@code -1}, if there is no such reference
+     */
+    public int getSlot(final @NotNull String name) {
+        return expression.getSlot(name);
+    }
+
+    /**
+     * Evaluate boolean expression for each row.
+     *
+     * @param columns columns of slots
+     * @param rows    number of rows
+     * @param output  column of results
+     * @throws IllegalStateException    if type of expression is not boolean
+     * @throws IllegalArgumentException if columns do not match types of slots or are too short
+     */
+    public void evalBoolean(final Object @NotNull [] columns, final int rows, final boolean @NotNull [] output) {
+        checkType(getType() == PrimitiveType.BOOLEAN, PrimitiveType.BOOLEAN);
+        run(columns, rows, output, output.length);
+    }
+
+    /**
+     * Evaluate int expression for each row.
+     *
+     * @param columns columns of slots
+     * @param rows    number of rows
+     * @param output  column of results
+     * @throws IllegalStateException    if type of expression is not int
+     * @throws IllegalArgumentException if columns do not match types of slots or are too short
+     */
+    public void evalInt(final Object @NotNull [] columns, final int rows, final int @NotNull [] output) {
+        checkType(getType() == PrimitiveType.INT, PrimitiveType.INT);
+        run(columns, rows, output, output.length);
+    }
+
+    /**
+     * Evaluate int or long expression for each row.
+     *
+     * @param columns columns of slots
+     * @param rows    number of rows
+     * @param output  column of results
+     * @throws IllegalStateException    if type of expression is not int or long
+     * @throws IllegalArgumentException if columns do not match types of slots or are too short
+     */
+    public void evalLong(final Object @NotNull [] columns, final int rows, final long @NotNull [] output) {
+        checkType(getType().isIntegral(), PrimitiveType.LONG);
+        run(columns, rows, output, output.length);
+    }
+
+    /**
+     * Evaluate numeric expression for each row.
+     *
+     * @param columns columns of slots
+     * @param rows    number of rows
+     * @param output  column of results
+     * @throws IllegalStateException    if type of expression is boolean
+     * @throws IllegalArgumentException if columns do not match types of slots or are too short
+     */
+    public void evalDouble(final Object @NotNull [] columns, final int rows, final double @NotNull [] output) {
+        checkType(getType().isNumeric(), PrimitiveType.DOUBLE);
+        run(columns, rows, output, output.length);
+    }
+
+    private void checkType(final boolean compatible, final PrimitiveType expected) {
+        if (!compatible) {
+            throw new IllegalStateException("Cannot evaluate " + getType() + " expression as " + expected);
+        }
+    }
+
+    private void checkColumns(final Object[] columns, final int rows, final int outputLength) {
+        val slotTypes = expression.slotTypes;
+
+        if (rows < 0) {
+            throw new IllegalArgumentException("Negative number of rows: " + rows);
+        }
+
+        if (columns.length < slotTypes.length) {
+            throw new IllegalArgumentException("Expected " + slotTypes.length + " columns, got " + columns.length);
+        }
+
+        if (outputLength < rows) {
+            throw new IllegalArgumentException("Output has " + outputLength + " rows, expected " + rows);
+        }
+
+        for (int slot = 0; slot < slotTypes.length; slot++) {
+            val column = columns[slot];
+
+            final int length;
+
+            switch (slotTypes[slot]) {
+                case BOOLEAN:
+                    length = column instanceof boolean[] ? ((boolean[]) column).length : -1;
+                    break;
+                case INT:
+                    length = column instanceof int[] ? ((int[]) column).length : -1;
+                    break;
+                case LONG:
+                    length = column instanceof long[] ? ((long[]) column).length : -1;
+                    break;
+                case FLOAT:
+                    length = column instanceof float[] ? ((float[]) column).length : -1;
+                    break;
+                default:
+                    length = column instanceof double[] ? ((double[]) column).length : -1;
+                    break;
+            }
+
+            if (length == -1) {
+                throw new IllegalArgumentException("Column " + slot + " must be " + slotTypes[slot]
+                        + " array, got " + (column == null ? "null" : column.getClass().getSimpleName()));
+            }
+
+            if (length < rows) {
+                throw new IllegalArgumentException("Column " + slot + " has " + length
+                        + " rows, expected " + rows);
+            }
+        }
+    }
+
+    private void run(final Object[] columns, final int rows, final Object output, final int outputLength) {
+        checkColumns(columns, rows, outputLength);
+
+        val scratch = SCRATCH.get();
+        val vectors = scratch.take();
+
+        try {
+            PrimitiveFrame frame = null;
+
+            for (int offset = 0; offset < rows; offset += VECTOR_SIZE) {
+                val length = Math.min(VECTOR_SIZE, rows - offset);
+
+                try {
+                    runVector(vectors, columns, offset, length);
+                } catch (final ArithmeticException e) {
+                    // деление на ноль могло быть в строке, где его пропускает && или ||,
+                    // поэтому такой вектор вычисляется построчно
+                    if (frame == null) {
+                        frame = expression.newFrame();
+                    }
+
+                    runRows(vectors, frame, columns, offset, length);
+                }
+
+                store(vectors, output, offset, length);
+            }
+        } finally {
+            scratch.release(vectors);
+        }
+    }
+
+    private void store(final Vectors vectors, final Object output, final int offset, final int length) {
+        val type = getType();
+
+        if (output instanceof double[]) {
+            if (type.isFloating()) {
+                System.arraycopy(vectors.doubles[0], 0, output, offset, length);
+            } else {
+                val result = vectors.longs[0];
+                val doubles = (double[]) output;
+
+                for (int i = 0; i < length; i++) {
+                    doubles[offset + i] = result[i];
+                }
+            }
+        } else if (output instanceof long[]) {
+            System.arraycopy(vectors.longs[0], 0, output, offset, length);
+        } else if (output instanceof int[]) {
+            val result = vectors.longs[0];
+            val ints = (int[]) output;
+
+            for (int i = 0; i < length; i++) {
+                ints[offset + i] = (int) result[i];
+            }
+        } else {
+            val result = vectors.longs[0];
+            val booleans = (boolean[]) output;
+
+            for (int i = 0; i < length; i++) {
+                booleans[offset + i] = result[i] != 0;
+            }
+        }
+    }
+
+    private void runRows(
+            final Vectors vectors,
+            final PrimitiveFrame frame,
+            final Object[] columns,
+            final int offset,
+            final int length
+    ) {
+        val slotTypes = expression.slotTypes;
+        val floating = getType().isFloating();
+
+        val longs = vectors.vector(0, false);
+        val doubles = vectors.vector(0, true);
+
+        for (int i = 0; i < length; i++) {
+            val row = offset + i;
+
+            for (int slot = 0; slot < slotTypes.length; slot++) {
+                switch (slotTypes[slot]) {
+                    case BOOLEAN:
+                        frame.setBoolean(slot, ((boolean[]) columns[slot])[row]);
+                        break;
+                    case INT:
+                        frame.setInt(slot, ((int[]) columns[slot])[row]);
+                        break;
+                    case LONG:
+                        frame.setLong(slot, ((long[]) columns[slot])[row]);
+                        break;
+                    case FLOAT:
+                        frame.setFloat(slot, ((float[]) columns[slot])[row]);
+                        break;
+                    default:
+                        frame.setDouble(slot, ((double[]) columns[slot])[row]);
+                        break;
+                }
+            }
+
+            expression.run(frame);
+
+            if (floating) {
+                ((double[]) doubles)[i] = frame.doubles[0];
+            } else {
+                ((long[]) longs)[i] = frame.longs[0];
+            }
+        }
+    }
+
+    private void runVector(final Vectors vectors, final Object[] columns, final int offset, final int length) {
+        val code = expression.code;
+        val longConstants = expression.longConstants;
+        val doubleConstants = expression.doubleConstants;
+
+        // адреса переходов и коды ленивых операторов, у которых левый член
+        // не определил результат во всех строках
+        int[] pendingTargets = vectors.pendingTargets;
+        int[] pendingOpcodes = vectors.pendingOpcodes;
+        int pending = 0;
+
+        int size = 0;
+
+        for (int pc = 0; ; pc++) {
+            while (pending != 0 && pendingTargets[pending - 1] == pc) {
+                // результат - левый член там, где он определяет результат, иначе правый
+                val left = vectors.longs[size - 2];
+                val right = vectors.longs[--size];
+
+                if (pendingOpcodes[--pending] == JUMP_IF_FALSE) {
+                    for (int i = 0; i < length; i++) {
+                        left[i] &= right[i];
+                    }
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        left[i] |= right[i];
+                    }
+                }
+            }
+
+            if (pc == code.length) {
+                break;
+            }
+
+            val instruction = code[pc];
+            val argument = instruction >>> OPCODE_BITS;
+            val opcode = instruction & OPCODE_MASK;
+
+            switch (opcode) {
+                case LOAD_LONG: {
+                    val vector = (long[]) vectors.vector(size++, false);
+                    val column = columns[argument];
+
+                    if (column instanceof long[]) {
+                        System.arraycopy(column, offset, vector, 0, length);
+                    } else if (column instanceof int[]) {
+                        val ints = (int[]) column;
+
+                        for (int i = 0; i < length; i++) {
+                            vector[i] = ints[offset + i];
+                        }
+                    } else {
+                        val booleans = (boolean[]) column;
+
+                        for (int i = 0; i < length; i++) {
+                            vector[i] = booleans[offset + i] ? 1 : 0;
+                        }
+                    }
+                    break;
+                }
+                case LOAD_DOUBLE: {
+                    val vector = (double[]) vectors.vector(size++, true);
+                    val column = columns[argument];
+
+                    if (column instanceof double[]) {
+                        System.arraycopy(column, offset, vector, 0, length);
+                    } else {
+                        val floats = (float[]) column;
+
+                        for (int i = 0; i < length; i++) {
+                            vector[i] = floats[offset + i];
+                        }
+                    }
+                    break;
+                }
+                case CONST_LONG:
+                    Arrays.fill((long[]) vectors.vector(size++, false), 0, length, longConstants[argument]);
+                    break;
+                case CONST_DOUBLE:
+                    Arrays.fill((double[]) vectors.vector(size++, true), 0, length, doubleConstants[argument]);
+                    break;
+                case TO_FLOAT: {
+                    val index = size - 1 - argument;
+                    val from = vectors.longs[index];
+                    val to = (double[]) vectors.vector(index, true);
+
+                    for (int i = 0; i < length; i++) {
+                        to[i] = (float) from[i];
+                    }
+                    break;
+                }
+                case TO_DOUBLE: {
+                    val index = size - 1 - argument;
+                    val from = vectors.longs[index];
+                    val to = (double[]) vectors.vector(index, true);
+
+                    for (int i = 0; i < length; i++) {
+                        to[i] = (double) from[i];
+                    }
+                    break;
+                }
+                case JUMP_IF_FALSE:
+                case JUMP_IF_TRUE: {
+                    val target = code[++pc];
+                    val left = vectors.longs[size - 1];
+
+                    // результат определён, если левый член false для && или true для ||
+                    val decisive = opcode == JUMP_IF_FALSE ? 0 : 1;
+
+                    int decided = 0;
+
+                    for (int i = 0; i < length; i++) {
+                        if (left[i] == decisive) {
+                            decided++;
+                        }
+                    }
+
+                    if (decided == length) {
+                        pc = target - 1;
+                    } else if (decided == 0) {
+                        size--;
+                    } else {
+                        if (pending == pendingTargets.length) {
+                            pendingTargets = vectors.pendingTargets = Arrays.copyOf(pendingTargets, pending * 2);
+                            pendingOpcodes = vectors.pendingOpcodes = Arrays.copyOf(pendingOpcodes, pending * 2);
+                        }
+
+                        pendingTargets[pending] = target;
+                        pendingOpcodes[pending] = opcode;
+                        pending++;
+                    }
+                    break;
+                }
+                default:
+                    size = apply(vectors, opcode, size, length);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Применяет операцию к векторам на вершине стека.
+     *
+     * @return новый размер стека
+     */
+    private static int apply(final Vectors vectors, final int opcode, final int size, final int length) {
+        val top = size - 1;
+
+        switch (opcode) {
+            case INT_NEG: {
+                val a = vectors.longs[top];
+
+                for (int i = 0; i < length; i++) {
+                    a[i] = -(int) a[i];
+                }
+
+                return size;
+            }
+            case LONG_NEG: {
+                val a = vectors.longs[top];
+
+                for (int i = 0; i < length; i++) {
+                    a[i] = -a[i];
+                }
+
+                return size;
+            }
+            case DOUBLE_NEG: {
+                val a = vectors.doubles[top];
+
+                for (int i = 0; i < length; i++) {
+                    a[i] = -a[i];
+                }
+
+                return size;
+            }
+            case NOT: {
+                val a = vectors.longs[top];
+
+                for (int i = 0; i < length; i++) {
+                    a[i] ^= 1;
+                }
+
+                return size;
+            }
+            case COMPLEMENT: {
+                val a = vectors.longs[top];
+
+                for (int i = 0; i < length; i++) {
+                    a[i] = ~a[i];
+                }
+
+                return size;
+            }
+        }
+
+        // остальные операции бинарные: результат на месте левого члена
+        val left = top - 1;
+
+        if (opcode >= DOUBLE_EQ) {
+            compareDoubles(vectors.doubles[left], vectors.doubles[top], vectors.vector(left, false),
+                    opcode - DOUBLE_EQ, length);
+        } else if (opcode >= LONG_EQ) {
+            compareLongs(vectors.longs[left], vectors.longs[top], opcode - LONG_EQ, length);
+        } else if (opcode >= AND) {
+            integral(vectors.longs[left], vectors.longs[top], opcode, length);
+        } else {
+            // арифметика: тип чередуется int, long, float, double
+            val type = (opcode - ADD) % 4;
+            val operation = opcode - type;
+
+            if (type == 0) {
+                intArithmetic(vectors.longs[left], vectors.longs[top], operation, length);
+            } else if (type == 1) {
+                longArithmetic(vectors.longs[left], vectors.longs[top], operation, length);
+            } else {
+                doubleArithmetic(vectors.doubles[left], vectors.doubles[top], operation, type == 2, length);
+            }
+        }
+
+        return size - 1;
+    }
+
+    private static void intArithmetic(final long[] a, final long[] b, final int operation, final int length) {
+        switch (operation) {
+            case ADD:
+                for (int i = 0; i < length; i++) {
+                    a[i] = (int) a[i] + (int) b[i];
+                }
+                break;
+            case SUB:
+                for (int i = 0; i < length; i++) {
+                    a[i] = (int) a[i] - (int) b[i];
+                }
+                break;
+            case MUL:
+                for (int i = 0; i < length; i++) {
+                    a[i] = (int) a[i] * (int) b[i];
+                }
+                break;
+            case DIV:
+                for (int i = 0; i < length; i++) {
+                    a[i] = (int) a[i] / (int) b[i];
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    a[i] = (int) a[i] % (int) b[i];
+                }
+                break;
+        }
+    }
+
+    private static void longArithmetic(final long[] a, final long[] b, final int operation, final int length) {
+        switch (operation) {
+            case ADD:
+                for (int i = 0; i < length; i++) {
+                    a[i] += b[i];
+                }
+                break;
+            case SUB:
+                for (int i = 0; i < length; i++) {
+                    a[i] -= b[i];
+                }
+                break;
+            case MUL:
+                for (int i = 0; i < length; i++) {
+                    a[i] *= b[i];
+                }
+                break;
+            case DIV:
+                for (int i = 0; i < length; i++) {
+                    a[i] /= b[i];
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    a[i] %= b[i];
+                }
+                break;
+        }
+    }
+
+    private static void doubleArithmetic(
+            final double[] a,
+            final double[] b,
+            final int operation,
+            final boolean floats,
+            final int length
+    ) {
+        if (floats) {
+            // float точно представим в double, результат округляется до float
+            switch (operation) {
+                case ADD:
+                    for (int i = 0; i < length; i++) {
+                        a[i] = (float) a[i] + (float) b[i];
+                    }
+                    break;
+                case SUB:
+                    for (int i = 0; i < length; i++) {
+                        a[i] = (float) a[i] - (float) b[i];
+                    }
+                    break;
+                case MUL:
+                    for (int i = 0; i < length; i++) {
+                        a[i] = (float) a[i] * (float) b[i];
+                    }
+                    break;
+                case DIV:
+                    for (int i = 0; i < length; i++) {
+                        a[i] = (float) a[i] / (float) b[i];
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < length; i++) {
+                        a[i] = (float) a[i] % (float) b[i];
+                    }
+                    break;
+            }
+
+            return;
+        }
+
+        switch (operation) {
+            case ADD:
+                for (int i = 0; i < length; i++) {
+                    a[i] += b[i];
+                }
+                break;
+            case SUB:
+                for (int i = 0; i < length; i++) {
+                    a[i] -= b[i];
+                }
+                break;
+            case MUL:
+                for (int i = 0; i < length; i++) {
+                    a[i] *= b[i];
+                }
+                break;
+            case DIV:
+                for (int i = 0; i < length; i++) {
+                    a[i] /= b[i];
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    a[i] %= b[i];
+                }
+                break;
+        }
+    }
+
+    private static void integral(final long[] a, final long[] b, final int opcode, final int length) {
+        switch (opcode) {
+            case AND:
+                for (int i = 0; i < length; i++) {
+                    a[i] &= b[i];
+                }
+                break;
+            case OR:
+                for (int i = 0; i < length; i++) {
+                    a[i] |= b[i];
+                }
+                break;
+            case XOR:
+                for (int i = 0; i < length; i++) {
+                    a[i] ^= b[i];
+                }
+                break;
+            case SHL:
+                for (int i = 0; i < length; i++) {
+                    a[i] = (int) a[i] << b[i];
+                }
+                break;
+            case SHL + 1:
+                for (int i = 0; i < length; i++) {
+                    a[i] <<= b[i];
+                }
+                break;
+            case SHR:
+                for (int i = 0; i < length; i++) {
+                    a[i] = (int) a[i] >> b[i];
+                }
+                break;
+            case SHR + 1:
+                for (int i = 0; i < length; i++) {
+                    a[i] >>= b[i];
+                }
+                break;
+            case USHR:
+                for (int i = 0; i < length; i++) {
+                    a[i] = (int) a[i] >>> b[i];
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    a[i] >>>= b[i];
+                }
+                break;
+        }
+    }
+
+    private static void compareLongs(final long[] a, final long[] b, final int comparison, final int length) {
+        switch (comparison) {
+            case EQ:
+                for (int i = 0; i < length; i++) {
+                    a[i] = a[i] == b[i] ? 1 : 0;
+                }
+                break;
+            case NE:
+                for (int i = 0; i < length; i++) {
+                    a[i] = a[i] != b[i] ? 1 : 0;
+                }
+                break;
+            case LT:
+                for (int i = 0; i < length; i++) {
+                    a[i] = a[i] < b[i] ? 1 : 0;
+                }
+                break;
+            case LE:
+                for (int i = 0; i < length; i++) {
+                    a[i] = a[i] <= b[i] ? 1 : 0;
+                }
+                break;
+            case GT:
+                for (int i = 0; i < length; i++) {
+                    a[i] = a[i] > b[i] ? 1 : 0;
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    a[i] = a[i] >= b[i] ? 1 : 0;
+                }
+                break;
+        }
+    }
+
+    private static void compareDoubles(
+            final double[] a,
+            final double[] b,
+            final Object result,
+            final int comparison,
+            final int length
+    ) {
+        val r = (long[]) result;
+
+        switch (comparison) {
+            case EQ:
+                for (int i = 0; i < length; i++) {
+                    r[i] = a[i] == b[i] ? 1 : 0;
+                }
+                break;
+            case NE:
+                for (int i = 0; i < length; i++) {
+                    r[i] = a[i] != b[i] ? 1 : 0;
+                }
+                break;
+            case LT:
+                for (int i = 0; i < length; i++) {
+                    r[i] = a[i] < b[i] ? 1 : 0;
+                }
+                break;
+            case LE:
+                for (int i = 0; i < length; i++) {
+                    r[i] = a[i] <= b[i] ? 1 : 0;
+                }
+                break;
+            case GT:
+                for (int i = 0; i < length; i++) {
+                    r[i] = a[i] > b[i] ? 1 : 0;
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    r[i] = a[i] >= b[i] ? 1 : 0;
+                }
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression.toString();
+    }
+
+    /**
+     * Векторы стека вычисления. Позиция стека хранит либо long[], либо double[] в зависимости
+     * от типа значения, оба массива создаются при первом обращении.
+     */
+    private static final class Vectors {
+
+        long[][] longs = new long[8][];
+
+        double[][] doubles = new double[8][];
+
+        int[] pendingTargets = new int[8];
+
+        int[] pendingOpcodes = new int[8];
+
+        Object vector(final int index, final boolean floating) {
+            if (index >= longs.length) {
+                longs = Arrays.copyOf(longs, Math.max(index + 1, longs.length * 2));
+                doubles = Arrays.copyOf(doubles, longs.length);
+            }
+
+            if (floating) {
+                double[] vector = doubles[index];
+
+                if (vector == null) {
+                    doubles[index] = vector = new double[VECTOR_SIZE];
+                }
+
+                return vector;
+            }
+
+            long[] vector = longs[index];
+
+            if (vector == null) {
+                longs[index] = vector = new long[VECTOR_SIZE];
+            }
+
+            return vector;
+        }
+
+    }
+
+    /**
+     * Векторы, которые переиспользуются потоком. Пока они заняты, вложенное
+     * вычисление в том же потоке получит новые.
+     */
+    private static final class Scratch {
+
+        Vectors vectors = new Vectors();
+
+        Vectors take() {
+            val vectors = this.vectors;
+            this.vectors = null;
+
+            return vectors != null ? vectors : new Vectors();
+        }
+
+        void release(final Vectors vectors) {
+            this.vectors = vectors;
+        }
+
+    }
+
+}
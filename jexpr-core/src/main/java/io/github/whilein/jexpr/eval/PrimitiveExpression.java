@@ -0,0 +1,968 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.api.token.operand.OperandConstant;
+import io.github.whilein.jexpr.api.token.operand.OperandReference;
+import io.github.whilein.jexpr.api.token.operand.OperandUnary;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.Operator;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import io.github.whilein.jexpr.token.operator.type.OperatorAnd;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseAnd;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseComplement;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseLeftShift;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseOr;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseRightShift;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseUnsignedRightShift;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseXor;
+import io.github.whilein.jexpr.token.operator.type.OperatorDivide;
+import io.github.whilein.jexpr.token.operator.type.OperatorEquals;
+import io.github.whilein.jexpr.token.operator.type.OperatorGreater;
+import io.github.whilein.jexpr.token.operator.type.OperatorLess;
+import io.github.whilein.jexpr.token.operator.type.OperatorMinus;
+import io.github.whilein.jexpr.token.operator.type.OperatorMultiply;
+import io.github.whilein.jexpr.token.operator.type.OperatorNegate;
+import io.github.whilein.jexpr.token.operator.type.OperatorNotEquals;
+import io.github.whilein.jexpr.token.operator.type.OperatorOr;
+import io.github.whilein.jexpr.token.operator.type.OperatorPlus;
+import io.github.whilein.jexpr.token.operator.type.OperatorRemainder;
+import io.github.whilein.jexpr.token.operator.type.OperatorStrictGreater;
+import io.github.whilein.jexpr.token.operator.type.OperatorStrictLess;
+import io.github.whilein.jexpr.token.operator.type.OperatorUnaryMinus;
+import io.github.whilein.jexpr.token.operator.type.OperatorUnaryPlus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.PackagePrivate;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Expression, which is analyzed for primitive types of slots and evaluated without boxing.
+ * Unlike {@link Operand#solve}, intermediate results are not wrapped into operands, so evaluation
+ * does not allocate at all. Operators follow the same type promotion rules as their
+ * implementations for {@link Operand#solve}.
+ * <p>
+ * Only numeric and boolean constants, references and standard operators on them are supported.
+ * Expression is immutable and can be evaluated concurrently with different frames.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PrimitiveExpression {
+
+    // инструкция - код операции в младших битах и аргумент в старших,
+    // тот же код по столбцам выполняет ColumnarExpression
+    static final int LOAD_LONG = 0;
+    static final int LOAD_DOUBLE = 1;
+    static final int CONST_LONG = 2;
+    static final int CONST_DOUBLE = 3;
+
+    // аргумент - глубина значения в стеке
+    static final int TO_FLOAT = 4;
+    static final int TO_DOUBLE = 5;
+
+    // арифметика для int, long, float и double подряд
+    static final int ADD = 6;
+    static final int SUB = 10;
+    static final int MUL = 14;
+    static final int DIV = 18;
+    static final int REM = 22;
+
+    // int и long хранятся в long[] с расширением знака, поэтому побитовые операции и
+    // сравнения у них общие, а float точно представим в double
+    static final int INT_NEG = 26;
+    static final int LONG_NEG = 27;
+    static final int DOUBLE_NEG = 28;
+
+    static final int AND = 29;
+    static final int OR = 30;
+    static final int XOR = 31;
+    static final int NOT = 32;
+    static final int COMPLEMENT = 33;
+
+    // сдвиги для int и long подряд
+    static final int SHL = 34;
+    static final int SHR = 36;
+    static final int USHR = 38;
+
+    // сравнения EQ, NE, LT, LE, GT, GE сначала для long[], затем для double[]
+    static final int LONG_EQ = 40;
+    static final int DOUBLE_EQ = 46;
+
+    static final int EQ = 0;
+    static final int NE = 1;
+    static final int LT = 2;
+    static final int LE = 3;
+    static final int GT = 4;
+    static final int GE = 5;
+
+    // за инструкцией следует адрес перехода, если левый член предсказывает результат
+    static final int JUMP_IF_FALSE = 52;
+    static final int JUMP_IF_TRUE = 53;
+
+    static final int OPCODE_BITS = 6;
+    static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    @Getter
+    Operand operand;
+
+    @Getter
+    SlotLayout layout;
+
+    @PackagePrivate
+    PrimitiveType[] slotTypes;
+
+    /**
+     * Type of evaluation result.
+     */
+    @Getter
+    PrimitiveType type;
+
+    @PackagePrivate
+    int[] code;
+
+    @PackagePrivate
+    long[] longConstants;
+
+    @PackagePrivate
+    double[] doubleConstants;
+
+    @PackagePrivate
+    int maxStack;
+
+    /**
+     * Analyze operand, whose references are all of the same type. References are bound to slots
+     * in order of their first occurrence.
+     *
+     * @param operand operand
+     * @param type    type of references
+     * @return analyzed expression
+     * @throws IllegalArgumentException if operand cannot be evaluated in primitives
+     */
+    public static @NotNull PrimitiveExpression analyze(
+            final @NotNull Operand operand,
+            final @NotNull PrimitiveType type
+    ) {
+        return new Analyzer(null, null, type).analyze(operand);
+    }
+
+    /**
+     * Analyze operand, whose references are bound to slots of layout.
+     *
+     * @param operand operand
+     * @param layout  layout
+     * @param types   types of slots
+     * @return analyzed expression
+     * @throws IllegalArgumentException if operand has a reference, which is not in layout,
+     *                                  or if operand cannot be evaluated in primitives
+     */
+    public static @NotNull PrimitiveExpression analyze(
+            final @NotNull Operand operand,
+            final @NotNull SlotLayout layout,
+            final @NotNull PrimitiveType @NotNull ... types
+    ) {
+        if (types.length != layout.size()) {
+            throw new IllegalArgumentException("Expected " + layout.size() + " slot types, got " + types.length);
+        }
+
+        return new Analyzer(layout, types.clone(), null).analyze(operand);
+    }
+
+    /**
+     * Get slot of reference.
+     *
+     * @param name name of reference
+     * @return slot or {@code -1}, if there is no such reference
+     */
+    public int getSlot(final @NotNull String name) {
+        return layout.getSlot(name);
+    }
+
+    public @NotNull PrimitiveType getSlotType(final int slot) {
+        return slotTypes[slot];
+    }
+
+    /**
+     * Create frame for evaluation of this expression. Frame should be created once per thread
+     * and reused.
+     *
+     * @return new frame
+     */
+    public @NotNull PrimitiveFrame newFrame() {
+        return new PrimitiveFrame(this, slotTypes, maxStack);
+    }
+
+    /**
+     * Evaluate boolean expression.
+     *
+     * @param frame values of slots
+     * @return result
+     * @throws IllegalStateException if type of expression is not boolean
+     */
+    public boolean evalBoolean(final @NotNull PrimitiveFrame frame) {
+        checkType(type == PrimitiveType.BOOLEAN, PrimitiveType.BOOLEAN);
+
+        return run(frame).longs[0] != 0;
+    }
+
+    /**
+     * Evaluate int expression.
+     *
+     * @param frame values of slots
+     * @return result
+     * @throws IllegalStateException if type of expression is not int
+     */
+    public int evalInt(final @NotNull PrimitiveFrame frame) {
+        checkType(type == PrimitiveType.INT, PrimitiveType.INT);
+
+        return (int) run(frame).longs[0];
+    }
+
+    /**
+     * Evaluate int or long expression.
+     *
+     * @param frame values of slots
+     * @return result
+     * @throws IllegalStateException if type of expression is not int or long
+     */
+    public long evalLong(final @NotNull PrimitiveFrame frame) {
+        checkType(type.isIntegral(), PrimitiveType.LONG);
+
+        return run(frame).longs[0];
+    }
+
+    /**
+     * Evaluate numeric expression.
+     *
+     * @param frame values of slots
+     * @return result
+     * @throws IllegalStateException if type of expression is boolean
+     */
+    public double evalDouble(final @NotNull PrimitiveFrame frame) {
+        checkType(type.isNumeric(), PrimitiveType.DOUBLE);
+
+        return type.isFloating()
+                ? run(frame).doubles[0]
+                : run(frame).longs[0];
+    }
+
+    private void checkType(final boolean compatible, final PrimitiveType expected) {
+        if (!compatible) {
+            throw new IllegalStateException("Cannot evaluate " + type + " expression as " + expected);
+        }
+    }
+
+    PrimitiveFrame run(final PrimitiveFrame frame) {
+        if (frame.expression != this) {
+            throw new IllegalArgumentException("Frame belongs to another expression");
+        }
+
+        val code = this.code;
+        val longs = frame.longs;
+        val doubles = frame.doubles;
+        val offset = frame.offset;
+
+        int size = 0;
+
+        for (int pc = 0; pc < code.length; pc++) {
+            val instruction = code[pc];
+            val argument = instruction >>> OPCODE_BITS;
+
+            switch (instruction & OPCODE_MASK) {
+                case LOAD_LONG:
+                    longs[size++] = longs[offset + argument];
+                    break;
+                case LOAD_DOUBLE:
+                    doubles[size++] = doubles[offset + argument];
+                    break;
+                case CONST_LONG:
+                    longs[size++] = longConstants[argument];
+                    break;
+                case CONST_DOUBLE:
+                    doubles[size++] = doubleConstants[argument];
+                    break;
+                case TO_FLOAT: {
+                    val index = size - 1 - argument;
+                    doubles[index] = (float) longs[index];
+                    break;
+                }
+                case TO_DOUBLE: {
+                    val index = size - 1 - argument;
+                    doubles[index] = (double) longs[index];
+                    break;
+                }
+                case ADD:
+                    size--;
+                    longs[size - 1] = (int) longs[size - 1] + (int) longs[size];
+                    break;
+                case ADD + 1:
+                    size--;
+                    longs[size - 1] = longs[size - 1] + longs[size];
+                    break;
+                case ADD + 2:
+                    size--;
+                    doubles[size - 1] = (float) doubles[size - 1] + (float) doubles[size];
+                    break;
+                case ADD + 3:
+                    size--;
+                    doubles[size - 1] = doubles[size - 1] + doubles[size];
+                    break;
+                case SUB:
+                    size--;
+                    longs[size - 1] = (int) longs[size - 1] - (int) longs[size];
+                    break;
+                case SUB + 1:
+                    size--;
+                    longs[size - 1] = longs[size - 1] - longs[size];
+                    break;
+                case SUB + 2:
+                    size--;
+                    doubles[size - 1] = (float) doubles[size - 1] - (float) doubles[size];
+                    break;
+                case SUB + 3:
+                    size--;
+                    doubles[size - 1] = doubles[size - 1] - doubles[size];
+                    break;
+                case MUL:
+                    size--;
+                    longs[size - 1] = (int) longs[size - 1] * (int) longs[size];
+                    break;
+                case MUL + 1:
+                    size--;
+                    longs[size - 1] = longs[size - 1] * longs[size];
+                    break;
+                case MUL + 2:
+                    size--;
+                    doubles[size - 1] = (float) doubles[size - 1] * (float) doubles[size];
+                    break;
+                case MUL + 3:
+                    size--;
+                    doubles[size - 1] = doubles[size - 1] * doubles[size];
+                    break;
+                case DIV:
+                    size--;
+                    longs[size - 1] = (int) longs[size - 1] / (int) longs[size];
+                    break;
+                case DIV + 1:
+                    size--;
+                    longs[size - 1] = longs[size - 1] / longs[size];
+                    break;
+                case DIV + 2:
+                    size--;
+                    doubles[size - 1] = (float) doubles[size - 1] / (float) doubles[size];
+                    break;
+                case DIV + 3:
+                    size--;
+                    doubles[size - 1] = doubles[size - 1] / doubles[size];
+                    break;
+                case REM:
+                    size--;
+                    longs[size - 1] = (int) longs[size - 1] % (int) longs[size];
+                    break;
+                case REM + 1:
+                    size--;
+                    longs[size - 1] = longs[size - 1] % longs[size];
+                    break;
+                case REM + 2:
+                    size--;
+                    doubles[size - 1] = (float) doubles[size - 1] % (float) doubles[size];
+                    break;
+                case REM + 3:
+                    size--;
+                    doubles[size - 1] = doubles[size - 1] % doubles[size];
+                    break;
+                case INT_NEG:
+                    longs[size - 1] = -(int) longs[size - 1];
+                    break;
+                case LONG_NEG:
+                    longs[size - 1] = -longs[size - 1];
+                    break;
+                case DOUBLE_NEG:
+                    doubles[size - 1] = -doubles[size - 1];
+                    break;
+                case AND:
+                    size--;
+                    longs[size - 1] = longs[size - 1] & longs[size];
+                    break;
+                case OR:
+                    size--;
+                    longs[size - 1] = longs[size - 1] | longs[size];
+                    break;
+                case XOR:
+                    size--;
+                    longs[size - 1] = longs[size - 1] ^ longs[size];
+                    break;
+                case NOT:
+                    longs[size - 1] = longs[size - 1] ^ 1;
+                    break;
+                case COMPLEMENT:
+                    longs[size - 1] = ~longs[size - 1];
+                    break;
+                case SHL:
+                    size--;
+                    longs[size - 1] = (int) longs[size - 1] << longs[size];
+                    break;
+                case SHL + 1:
+                    size--;
+                    longs[size - 1] = longs[size - 1] << longs[size];
+                    break;
+                case SHR:
+                    size--;
+                    longs[size - 1] = (int) longs[size - 1] >> longs[size];
+                    break;
+                case SHR + 1:
+                    size--;
+                    longs[size - 1] = longs[size - 1] >> longs[size];
+                    break;
+                case USHR:
+                    size--;
+                    longs[size - 1] = (int) longs[size - 1] >>> longs[size];
+                    break;
+                case USHR + 1:
+                    size--;
+                    longs[size - 1] = longs[size - 1] >>> longs[size];
+                    break;
+                case LONG_EQ + EQ:
+                    size--;
+                    longs[size - 1] = longs[size - 1] == longs[size] ? 1 : 0;
+                    break;
+                case LONG_EQ + NE:
+                    size--;
+                    longs[size - 1] = longs[size - 1] != longs[size] ? 1 : 0;
+                    break;
+                case LONG_EQ + LT:
+                    size--;
+                    longs[size - 1] = longs[size - 1] < longs[size] ? 1 : 0;
+                    break;
+                case LONG_EQ + LE:
+                    size--;
+                    longs[size - 1] = longs[size - 1] <= longs[size] ? 1 : 0;
+                    break;
+                case LONG_EQ + GT:
+                    size--;
+                    longs[size - 1] = longs[size - 1] > longs[size] ? 1 : 0;
+                    break;
+                case LONG_EQ + GE:
+                    size--;
+                    longs[size - 1] = longs[size - 1] >= longs[size] ? 1 : 0;
+                    break;
+                case DOUBLE_EQ + EQ:
+                    size--;
+                    longs[size - 1] = doubles[size - 1] == doubles[size] ? 1 : 0;
+                    break;
+                case DOUBLE_EQ + NE:
+                    size--;
+                    longs[size - 1] = doubles[size - 1] != doubles[size] ? 1 : 0;
+                    break;
+                case DOUBLE_EQ + LT:
+                    size--;
+                    longs[size - 1] = doubles[size - 1] < doubles[size] ? 1 : 0;
+                    break;
+                case DOUBLE_EQ + LE:
+                    size--;
+                    longs[size - 1] = doubles[size - 1] <= doubles[size] ? 1 : 0;
+                    break;
+                case DOUBLE_EQ + GT:
+                    size--;
+                    longs[size - 1] = doubles[size - 1] > doubles[size] ? 1 : 0;
+                    break;
+                case DOUBLE_EQ + GE:
+                    size--;
+                    longs[size - 1] = doubles[size - 1] >= doubles[size] ? 1 : 0;
+                    break;
+                case JUMP_IF_FALSE:
+                    pc++;
+
+                    if (longs[size - 1] == 0) {
+                        pc = code[pc] - 1;
+                    } else {
+                        size--;
+                    }
+                    break;
+                case JUMP_IF_TRUE:
+                    pc++;
+
+                    if (longs[size - 1] != 0) {
+                        pc = code[pc] - 1;
+                    } else {
+                        size--;
+                    }
+                    break;
+            }
+        }
+
+        return frame;
+    }
+
+    @Override
+    public String toString() {
+        return operand.toString();
+    }
+
+    /**
+     * Выводит типы узлов и переводит дерево операндов в постфиксный код без рекурсии,
+     * чтобы не переполнить стек на длинных цепочках.
+     */
+    private static final class Analyzer {
+
+        final SlotLayout layout;
+
+        final PrimitiveType[] slotTypes;
+
+        // тип всех ссылок, если раскладка строится автоматически
+        final PrimitiveType referenceType;
+
+        final Map<String, Integer> slots = new LinkedHashMap<>();
+
+        long[] longConstants = new long[8];
+        int longConstantCount;
+
+        double[] doubleConstants = new double[8];
+        int doubleConstantCount;
+
+        int[] code = new int[32];
+        int length;
+
+        // типы значений на стеке вычисления
+        PrimitiveType[] stack = new PrimitiveType[16];
+        int stackSize;
+        int maxStack;
+
+        Analyzer(
+                final SlotLayout layout,
+                final PrimitiveType[] slotTypes,
+                final PrimitiveType referenceType
+        ) {
+            if (referenceType == PrimitiveType.STRING
+                    || slotTypes != null && Arrays.asList(slotTypes).contains(PrimitiveType.STRING)) {
+                throw new IllegalArgumentException("Strings cannot be evaluated in primitives");
+            }
+
+            this.layout = layout;
+            this.slotTypes = slotTypes;
+            this.referenceType = referenceType;
+        }
+
+        PrimitiveExpression analyze(final Operand root) {
+            // узлы на пути от корня, их состояние и адрес перехода ленивого оператора
+            Operand[] nodes = new Operand[32];
+            int[] states = new int[32];
+            int[] jumps = new int[32];
+            int size = 0;
+
+            nodes[size++] = root;
+
+            while (size != 0) {
+                val top = size - 1;
+                val node = nodes[top];
+                val state = states[top];
+
+                Operand child = null;
+
+                if (node instanceof OperandBinary) {
+                    val binary = (OperandBinary) node;
+                    val operator = binary.getOperator();
+
+                    if (state == 0) {
+                        child = binary.getLeftMember();
+                    } else if (state == 1) {
+                        if (operator instanceof OperatorAnd || operator instanceof OperatorOr) {
+                            val left = pop();
+
+                            if (left != PrimitiveType.BOOLEAN) {
+                                throw inapplicable(operator, left);
+                            }
+
+                            emit(operator instanceof OperatorAnd ? JUMP_IF_FALSE : JUMP_IF_TRUE, 0);
+                            jumps[top] = length;
+                            emit(0);
+                        } else {
+                            jumps[top] = -1;
+                        }
+
+                        child = binary.getRightMember();
+                    } else if (jumps[top] != -1) {
+                        if (peek() != PrimitiveType.BOOLEAN) {
+                            throw inapplicable(operator, peek());
+                        }
+
+                        code[jumps[top]] = length;
+                    } else {
+                        binary(operator);
+                    }
+                } else if (node instanceof OperandUnary) {
+                    val unary = (OperandUnary) node;
+
+                    if (state == 0) {
+                        child = unary.getMember();
+                    } else {
+                        unary(unary.getOperator());
+                    }
+                } else if (node instanceof OperandReference) {
+                    reference(((OperandReference) node).getValue());
+                } else if (node instanceof OperandConstant) {
+                    constant((OperandConstant) node);
+                } else {
+                    throw new IllegalArgumentException("Cannot analyze operand: " + node);
+                }
+
+                if (child != null) {
+                    states[top] = state + 1;
+
+                    if (size == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, size * 2);
+                        states = Arrays.copyOf(states, size * 2);
+                        jumps = Arrays.copyOf(jumps, size * 2);
+                    }
+
+                    nodes[size] = child;
+                    states[size] = 0;
+                    size++;
+                } else {
+                    nodes[--size] = null;
+                }
+            }
+
+            SlotLayout layout = this.layout;
+            PrimitiveType[] slotTypes = this.slotTypes;
+
+            if (layout == null) {
+                layout = SlotLayout.of(slots.keySet().toArray(new String[0]));
+                slotTypes = new PrimitiveType[layout.size()];
+                Arrays.fill(slotTypes, referenceType);
+            }
+
+            return new PrimitiveExpression(root, layout, slotTypes, pop(),
+                    Arrays.copyOf(code, length),
+                    Arrays.copyOf(longConstants, longConstantCount),
+                    Arrays.copyOf(doubleConstants, doubleConstantCount),
+                    maxStack);
+        }
+
+        private void binary(final BinaryOperator operator) {
+            val right = pop();
+            val left = pop();
+
+            if (operator instanceof OperatorPlus) {
+                arithmetic(ADD, operator, left, right);
+            } else if (operator instanceof OperatorMinus) {
+                arithmetic(SUB, operator, left, right);
+            } else if (operator instanceof OperatorMultiply) {
+                arithmetic(MUL, operator, left, right);
+            } else if (operator instanceof OperatorDivide) {
+                arithmetic(DIV, operator, left, right);
+            } else if (operator instanceof OperatorRemainder) {
+                arithmetic(REM, operator, left, right);
+            } else if (operator instanceof OperatorBitwiseAnd) {
+                bitwise(AND, operator, left, right);
+            } else if (operator instanceof OperatorBitwiseOr) {
+                bitwise(OR, operator, left, right);
+            } else if (operator instanceof OperatorBitwiseXor) {
+                bitwise(XOR, operator, left, right);
+            } else if (operator instanceof OperatorBitwiseLeftShift) {
+                shift(SHL, operator, left, right);
+            } else if (operator instanceof OperatorBitwiseRightShift) {
+                shift(SHR, operator, left, right);
+            } else if (operator instanceof OperatorBitwiseUnsignedRightShift) {
+                shift(USHR, operator, left, right);
+            } else if (operator instanceof OperatorEquals) {
+                equality(EQ, operator, left, right);
+            } else if (operator instanceof OperatorNotEquals) {
+                equality(NE, operator, left, right);
+            } else if (operator instanceof OperatorStrictLess) {
+                comparison(LT, operator, left, right);
+            } else if (operator instanceof OperatorLess) {
+                comparison(LE, operator, left, right);
+            } else if (operator instanceof OperatorStrictGreater) {
+                comparison(GT, operator, left, right);
+            } else if (operator instanceof OperatorGreater) {
+                comparison(GE, operator, left, right);
+            } else {
+                throw new IllegalArgumentException("Unsupported operator: " + operator.getValue());
+            }
+        }
+
+        private void arithmetic(
+                final int opcode,
+                final BinaryOperator operator,
+                final PrimitiveType left,
+                final PrimitiveType right
+        ) {
+            if (!left.isNumeric() || !right.isNumeric()) {
+                throw inapplicable(operator, left, right);
+            }
+
+            val type = promote(left, right);
+            emit(opcode + type.ordinal() - PrimitiveType.INT.ordinal());
+            push(type);
+        }
+
+        private void bitwise(
+                final int opcode,
+                final BinaryOperator operator,
+                final PrimitiveType left,
+                final PrimitiveType right
+        ) {
+            if (left == PrimitiveType.BOOLEAN && right == PrimitiveType.BOOLEAN) {
+                emit(opcode);
+                push(PrimitiveType.BOOLEAN);
+            } else if (left.isIntegral() && right.isIntegral()) {
+                // int уже расширен до long, преобразование не нужно
+                emit(opcode);
+                push(left == PrimitiveType.LONG ? left : right);
+            } else {
+                throw inapplicable(operator, left, right);
+            }
+        }
+
+        private void shift(
+                final int opcode,
+                final BinaryOperator operator,
+                final PrimitiveType left,
+                final PrimitiveType right
+        ) {
+            if (!left.isIntegral() || !right.isIntegral()) {
+                throw inapplicable(operator, left, right);
+            }
+
+            // тип результата - тип левого члена, от правого берутся только младшие биты
+            emit(left == PrimitiveType.INT ? opcode : opcode + 1);
+            push(left);
+        }
+
+        private void equality(
+                final int comparison,
+                final BinaryOperator operator,
+                final PrimitiveType left,
+                final PrimitiveType right
+        ) {
+            if (left == PrimitiveType.BOOLEAN && right == PrimitiveType.BOOLEAN) {
+                emit(LONG_EQ + comparison);
+                push(PrimitiveType.BOOLEAN);
+            } else {
+                comparison(comparison, operator, left, right);
+            }
+        }
+
+        private void comparison(
+                final int comparison,
+                final BinaryOperator operator,
+                final PrimitiveType left,
+                final PrimitiveType right
+        ) {
+            if (!left.isNumeric() || !right.isNumeric()) {
+                throw inapplicable(operator, left, right);
+            }
+
+            val type = promote(left, right);
+            emit((type.isFloating() ? DOUBLE_EQ : LONG_EQ) + comparison);
+            push(PrimitiveType.BOOLEAN);
+        }
+
+        private void unary(final UnaryOperator operator) {
+            val member = pop();
+
+            if (operator instanceof OperatorNegate) {
+                if (member != PrimitiveType.BOOLEAN) {
+                    throw inapplicable(operator, member);
+                }
+
+                emit(NOT);
+            } else if (operator instanceof OperatorBitwiseComplement) {
+                if (!member.isIntegral()) {
+                    throw inapplicable(operator, member);
+                }
+
+                emit(COMPLEMENT);
+            } else if (operator instanceof OperatorUnaryMinus) {
+                if (!member.isNumeric()) {
+                    throw inapplicable(operator, member);
+                }
+
+                emit(member == PrimitiveType.INT ? INT_NEG
+                        : member == PrimitiveType.LONG ? LONG_NEG
+                        : DOUBLE_NEG);
+            } else if (operator instanceof OperatorUnaryPlus) {
+                if (!member.isNumeric()) {
+                    throw inapplicable(operator, member);
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported operator: " + operator.getValue());
+            }
+
+            push(member);
+        }
+
+        /**
+         * Приводит оба члена к общему типу по правилам расширения Java.
+         */
+        private PrimitiveType promote(final PrimitiveType left, final PrimitiveType right) {
+            val type = PrimitiveType.promote(left, right);
+
+            convert(left, type, 1);
+            convert(right, type, 0);
+
+            return type;
+        }
+
+        private void convert(final PrimitiveType from, final PrimitiveType to, final int depth) {
+            // int хранится расширенным до long, а float точно представим в double
+            if (from.isIntegral() && to.isFloating()) {
+                emit(to == PrimitiveType.FLOAT ? TO_FLOAT : TO_DOUBLE, depth);
+            }
+        }
+
+        private void reference(final String name) {
+            final int slot;
+            final PrimitiveType type;
+
+            if (layout != null) {
+                slot = layout.getSlot(name);
+
+                if (slot == -1) {
+                    throw new IllegalArgumentException("Unknown reference: " + name);
+                }
+
+                type = slotTypes[slot];
+            } else {
+                val existing = slots.get(name);
+
+                if (existing != null) {
+                    slot = existing;
+                } else {
+                    slot = slots.size();
+                    slots.put(name, slot);
+                }
+
+                type = referenceType;
+            }
+
+            emit(type.isFloating() ? LOAD_DOUBLE : LOAD_LONG, slot);
+            push(type);
+        }
+
+        private void constant(final OperandConstant constant) {
+            val value = constant.getValue();
+
+            switch (constant.getKind()) {
+                case BOOLEAN:
+                    emit(CONST_LONG, longConstant((Boolean) value ? 1 : 0));
+                    push(PrimitiveType.BOOLEAN);
+                    break;
+                case INT:
+                    emit(CONST_LONG, longConstant(((Number) value).intValue()));
+                    push(PrimitiveType.INT);
+                    break;
+                case LONG:
+                    emit(CONST_LONG, longConstant(((Number) value).longValue()));
+                    push(PrimitiveType.LONG);
+                    break;
+                case FLOAT:
+                    emit(CONST_DOUBLE, doubleConstant(((Number) value).floatValue()));
+                    push(PrimitiveType.FLOAT);
+                    break;
+                case DOUBLE:
+                    emit(CONST_DOUBLE, doubleConstant(((Number) value).doubleValue()));
+                    push(PrimitiveType.DOUBLE);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Cannot analyze operand: " + constant);
+            }
+        }
+
+        private int longConstant(final long value) {
+            if (longConstantCount == longConstants.length) {
+                longConstants = Arrays.copyOf(longConstants, longConstantCount * 2);
+            }
+
+            longConstants[longConstantCount] = value;
+
+            return longConstantCount++;
+        }
+
+        private int doubleConstant(final double value) {
+            if (doubleConstantCount == doubleConstants.length) {
+                doubleConstants = Arrays.copyOf(doubleConstants, doubleConstantCount * 2);
+            }
+
+            doubleConstants[doubleConstantCount] = value;
+
+            return doubleConstantCount++;
+        }
+
+        private static IllegalArgumentException inapplicable(
+                final BinaryOperator operator,
+                final PrimitiveType left,
+                final PrimitiveType right
+        ) {
+            return new IllegalArgumentException("Operator " + operator.getValue()
+                    + " cannot be applied to " + left + " and " + right);
+        }
+
+        private static IllegalArgumentException inapplicable(
+                final Operator operator,
+                final PrimitiveType member
+        ) {
+            return new IllegalArgumentException("Operator " + operator.getValue()
+                    + " cannot be applied to " + member);
+        }
+
+        private PrimitiveType peek() {
+            return stack[stackSize - 1];
+        }
+
+        private PrimitiveType pop() {
+            return stack[--stackSize];
+        }
+
+        private void push(final PrimitiveType type) {
+            if (stackSize == stack.length) {
+                stack = Arrays.copyOf(stack, stackSize * 2);
+            }
+
+            stack[stackSize++] = type;
+
+            if (stackSize > maxStack) {
+                maxStack = stackSize;
+            }
+        }
+
+        private void emit(final int opcode, final int argument) {
+            emit(opcode | argument << OPCODE_BITS);
+        }
+
+        private void emit(final int value) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+
+            code[length++] = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+/**
+ * Reusable values of slots and evaluation stack of {@link PrimitiveExpression}. Values are stored
+ * in primitive arrays, so neither setting them nor evaluation allocates.
+ * <p>
+ * Frame belongs to expression, which created it, and must not be shared between threads.
+ * Values are converted to types of slots by widening primitive conversion.
+ *
+ * @author whilein
+ */
+public final class PrimitiveFrame extends AbstractFrame<PrimitiveFrame> {
+
+    final PrimitiveExpression expression;
+
+    PrimitiveFrame(
+            final PrimitiveExpression expression,
+            final PrimitiveType[] types,
+            final int maxStack
+    ) {
+        super(types, maxStack);
+
+        this.expression = expression;
+    }
+
+}
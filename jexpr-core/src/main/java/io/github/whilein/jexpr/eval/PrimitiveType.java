@@ -0,0 +1,54 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+/**
+ * Type of value in {@link PrimitiveExpression}, {@link ColumnarExpression} and {@link ClosureExpression}.
+ * Numeric types are declared in order of binary numeric promotion.
+ *
+ * @author whilein
+ */
+public enum PrimitiveType {
+
+    BOOLEAN, INT, LONG, FLOAT, DOUBLE,
+
+    /**
+     * {@link String}, which is supported only by {@link ClosureExpression}.
+     */
+    STRING;
+
+    boolean isNumeric() {
+        return this != BOOLEAN && this != STRING;
+    }
+
+    boolean isIntegral() {
+        return this == INT || this == LONG;
+    }
+
+    // float и double хранятся в double[], остальные в long[]
+    boolean isFloating() {
+        return this == FLOAT || this == DOUBLE;
+    }
+
+    /**
+     * Тип результата двуместной числовой операции.
+     */
+    static PrimitiveType promote(final PrimitiveType left, final PrimitiveType right) {
+        return left.compareTo(right) >= 0 ? left : right;
+    }
+
+}
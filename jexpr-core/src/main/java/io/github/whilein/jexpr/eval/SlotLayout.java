@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapping of reference names to slot indices of {@link BoundExpression}.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SlotLayout {
+
+    String[] names;
+
+    Map<String, Integer> slots;
+
+    /**
+     * Create layout, where {@code i}-th name is bound to slot {@code i}.
+     *
+     * @param names names of references
+     * @return layout
+     * @throws IllegalArgumentException if names are not unique
+     */
+    public static @NotNull SlotLayout of(final @NotNull String @NotNull ... names) {
+        val slots = new HashMap<String, Integer>(names.length * 2);
+
+        for (int i = 0; i < names.length; i++) {
+            if (slots.put(names[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate slot name: " + names[i]);
+            }
+        }
+
+        return new SlotLayout(names.clone(), slots);
+    }
+
+    /**
+     * Get slot of reference.
+     *
+     * @param name name of reference
+     * @return slot or {@code -1}, if there is no such reference
+     */
+    public int getSlot(final @NotNull String name) {
+        val slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public @NotNull String getName(final int slot) {
+        return names[slot];
+    }
+
+    public @NotNull List<@NotNull String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public String toString() {
+        return "SlotLayout" + Arrays.toString(names);
+    }
+
+}
@@ -0,0 +1,325 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.api.token.operand.OperandUnary;
+import io.github.whilein.jexpr.api.token.operand.OperandVariableResolver;
+import io.github.whilein.jexpr.api.token.operator.BinaryLazyOperator;
+import io.github.whilein.jexpr.token.operand.Operands;
+import io.github.whilein.jexpr.util.CacheStats;
+import io.github.whilein.jexpr.util.LruCache;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache of expressions specialized for values of fixed variables, e.g. configuration, which rarely
+ * changes, while other variables change on every evaluation.
+ * <p>
+ * Specialization is the residual operand, i.e. the operand solved with fixed variables replaced by their
+ * values and other variables left as references, so everything which depends only on fixed variables
+ * is folded once. Residual operand may be compiled, e.g. by {@link BoundExpression#bind} or
+ * {@link ClosureExpression#compile}, then compiled form is cached as well.
+ * <p>
+ * Specializations are keyed by values of fixed variables and evicted when cache exceeds its maximum size.
+ * Cache is thread-safe.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SpecializationCache<T> {
+
+    @Getter
+    Operand operand;
+
+    @Getter
+    List<String> fixedNames;
+
+    Map<String, Integer> fixedIndices;
+
+    Function<? super Operand, ? extends T> compiler;
+
+    LruCache<Key, Specialization<T>> cache;
+
+    /**
+     * Create cache of residual operands.
+     *
+     * @param operand     operand
+     * @param fixedNames  names of fixed variables, order of their values in {@link #get(Object...)}
+     * @param maximumSize maximum number of specializations
+     * @return new cache
+     */
+    public static @NotNull SpecializationCache<Operand> create(
+            final @NotNull Operand operand,
+            final @NotNull List<@NotNull String> fixedNames,
+            final int maximumSize
+    ) {
+        return create(operand, fixedNames, Function.identity(), maximumSize);
+    }
+
+    /**
+     * Create cache of compiled residual operands.
+     *
+     * @param operand     operand
+     * @param fixedNames  names of fixed variables, order of their values in {@link #get(Object...)}
+     * @param compiler    compiler of residual operand
+     * @param maximumSize maximum number of specializations
+     * @return new cache
+     */
+    public static <T> @NotNull SpecializationCache<T> create(
+            final @NotNull Operand operand,
+            final @NotNull List<@NotNull String> fixedNames,
+            final @NotNull Function<? super @NotNull Operand, ? extends @NotNull T> compiler,
+            final int maximumSize
+    ) {
+        val fixedIndices = new HashMap<String, Integer>();
+
+        for (int i = 0; i < fixedNames.size(); i++) {
+            if (fixedIndices.put(fixedNames.get(i), i) != null) {
+                throw new IllegalArgumentException("Duplicate fixed variable: " + fixedNames.get(i));
+            }
+        }
+
+        return new SpecializationCache<>(operand, Collections.unmodifiableList(new ArrayList<>(fixedNames)),
+                fixedIndices, compiler, LruCache.create(maximumSize));
+    }
+
+    /**
+     * Get specialization for values of fixed variables, specializing operand on cache miss.
+     *
+     * @param values values of fixed variables in order of {@link #getFixedNames()}
+     * @return specialization
+     * @throws IllegalArgumentException if number of values does not match number of fixed variables
+     */
+    public @NotNull Specialization<T> get(final @Nullable Object @NotNull ... values) {
+        if (values.length != fixedNames.size()) {
+            throw new IllegalArgumentException("Expected " + fixedNames.size() + " values, got " + values.length);
+        }
+
+        return cache.get(new Key(values.clone()), this::specialize);
+    }
+
+    /**
+     * Get specialization for values of fixed variables, specializing operand on cache miss.
+     *
+     * @param values values of fixed variables by their names
+     * @return specialization
+     * @throws IllegalArgumentException if value of some fixed variable is missing
+     */
+    public @NotNull Specialization<T> get(final @NotNull Map<@NotNull String, ?> values) {
+        val array = new Object[fixedNames.size()];
+
+        for (int i = 0; i < array.length; i++) {
+            val name = fixedNames.get(i);
+
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("Missing value of fixed variable: " + name);
+            }
+
+            array[i] = values.get(name);
+        }
+
+        return cache.get(new Key(array), this::specialize);
+    }
+
+    private Specialization<T> specialize(final Key key) {
+        val constants = new Operand[key.values.length];
+
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = Operands.constant(key.values[i]);
+        }
+
+        val residual = fold(operand, name -> {
+            val index = fixedIndices.get(name);
+
+            // нефиксированные переменные остаются ссылками и разрешаются при вычислении
+            return index != null ? constants[index] : Operands.reference(name);
+        });
+
+        return new Specialization<>(residual, compiler.apply(residual));
+    }
+
+    /**
+     * Решить операнд, как {@link Operand#solve}, но операция над константами, которая
+     * выбрасывает исключение, например {@code 1 / 0} или {@code !0}, остаётся в остаточном операнде. Она может быть
+     * в правом члене {@code &&} или {@code ||}, который не вычисляется при значениях остальных
+     * переменных, а иначе исключение выбросится при вычислении, как и без специализации.
+     */
+    private static Operand fold(final Operand root, final OperandVariableResolver resolver) {
+        // узлы на пути от корня, их состояние и решённые члены
+        Operand[] nodes = new Operand[32];
+        int[] states = new int[32];
+        Operand[] results = new Operand[32];
+        int size = 0;
+        int resultSize = 0;
+
+        nodes[size++] = root;
+
+        while (size != 0) {
+            val top = size - 1;
+            val node = nodes[top];
+            val state = states[top];
+
+            Operand child = null;
+            Operand result = null;
+
+            if (node instanceof OperandBinary) {
+                val binary = (OperandBinary) node;
+                val operator = binary.getOperator();
+
+                if (state == 0) {
+                    child = binary.getLeftMember();
+                } else if (state == 1) {
+                    val left = results[resultSize - 1];
+
+                    if (operator instanceof BinaryLazyOperator
+                            && left.isPredicable((BinaryLazyOperator) operator)) {
+                        results[--resultSize] = null;
+                        result = left.getPredictedResult((BinaryLazyOperator) operator);
+                    } else {
+                        child = binary.getRightMember();
+                    }
+                } else {
+                    val right = results[--resultSize];
+                    val left = results[--resultSize];
+                    results[resultSize] = results[resultSize + 1] = null;
+
+                    try {
+                        result = left.apply(right, operator);
+                    } catch (final RuntimeException e) {
+                        result = Operands.deferredBinary(left, right, operator);
+                    }
+                }
+            } else if (node instanceof OperandUnary) {
+                val unary = (OperandUnary) node;
+
+                if (state == 0) {
+                    child = unary.getMember();
+                } else {
+                    val member = results[--resultSize];
+                    results[resultSize] = null;
+
+                    try {
+                        result = member.apply(unary.getOperator());
+                    } catch (final RuntimeException e) {
+                        result = Operands.deferredUnary(member, unary.getOperator());
+                    }
+                }
+            } else {
+                result = node.solve(resolver);
+            }
+
+            if (child != null) {
+                states[top] = state + 1;
+
+                if (size == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, size * 2);
+                    states = Arrays.copyOf(states, size * 2);
+                }
+
+                nodes[size] = child;
+                states[size] = 0;
+                size++;
+            } else {
+                nodes[--size] = null;
+
+                if (resultSize == results.length) {
+                    results = Arrays.copyOf(results, resultSize * 2);
+                }
+
+                results[resultSize++] = result;
+            }
+        }
+
+        return results[0];
+    }
+
+    public @NotNull CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Operand specialized for values of fixed variables.
+     */
+    @Value
+    public static class Specialization<T> {
+
+        /**
+         * Residual operand, which references only variables that are not fixed.
+         */
+        @NotNull Operand residual;
+
+        /**
+         * Compiled residual operand, or the residual operand itself, if cache has no compiler.
+         */
+        @NotNull T compiled;
+
+    }
+
+    /**
+     * Значения фиксированных переменных. Сравниваются через equals, поэтому
+     * {@code 1} и {@code 1L} - разные ключи, как и их остаточные выражения.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class Key {
+
+        Object[] values;
+
+        int hash;
+
+        Key(final Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj == this || obj instanceof Key && Arrays.equals(values, ((Key) obj).values);
+        }
+
+    }
+
+}
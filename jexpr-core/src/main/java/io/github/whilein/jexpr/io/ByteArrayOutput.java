@@ -36,8 +36,19 @@ public final class ByteArrayOutput {
     @Getter
     int position;
 
+    /**
+     * Старший суррогат, ожидающий младшего, см. {@link #putUtf8(int)}.
+     */
+    char highSurrogate;
+
+    /**
+     * Вместимость, до которой буфер сжимается в {@link #reset()} после слишком длинных данных.
+     */
+    final int capacity;
+
     public ByteArrayOutput(final int capacity) {
         this.array = new byte[capacity];
+        this.capacity = capacity;
     }
 
     public ByteArrayOutput() {
@@ -45,19 +56,123 @@ public final class ByteArrayOutput {
     }
 
     public void reset() {
+        if (array.length > capacity) {
+            array = new byte[capacity];
+        }
+
         position = 0;
+        highSurrogate = 0;
     }
 
     public @NotNull String getString() {
+        flushHighSurrogate();
+
         return new String(array, 0, position, StandardCharsets.UTF_8);
     }
 
     public byte @NotNull [] getBytes() {
+        flushHighSurrogate();
+
         return Arrays.copyOf(array, position);
     }
 
     public boolean isEmpty() {
-        return position == 0;
+        return position == 0 && highSurrogate == 0;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > array.length) {
+            array = Arrays.copyOf(array, Math.max(array.length * 2, capacity));
+        }
+    }
+
+    /**
+     * Дописать ожидающий младшего старший суррогат, чтобы {@link #array()} содержал все записанные символы.
+     */
+    public void flush() {
+        flushHighSurrogate();
+    }
+
+    private void flushHighSurrogate() {
+        val highSurrogate = this.highSurrogate;
+
+        if (highSurrogate != 0) {
+            this.highSurrogate = 0;
+
+            // одиночный суррогат, при декодировании будет заменён на U+FFFD
+            putCodePoint(highSurrogate);
+        }
+    }
+
+    /**
+     * Записать символ в кодировке UTF-8. Суррогатная пара, записанная двумя вызовами,
+     * кодируется как один code point.
+     *
+     * @param ch символ
+     */
+    public void putUtf8(final int ch) {
+        if (highSurrogate != 0) {
+            if (Character.isLowSurrogate((char) ch)) {
+                putCodePoint(Character.toCodePoint(highSurrogate, (char) ch));
+                highSurrogate = 0;
+                return;
+            }
+
+            flushHighSurrogate();
+        }
+
+        if (Character.isHighSurrogate((char) ch)) {
+            highSurrogate = (char) ch;
+            return;
+        }
+
+        putCodePoint(ch);
+    }
+
+    public void putUtf8(final char @NotNull [] chars, final int offset, final int length) {
+        ensureCapacity(position + length);
+
+        val array = this.array;
+
+        for (int i = offset, j = offset + length; i < j; i++) {
+            val ch = chars[i];
+
+            if (ch < 0x80 && highSurrogate == 0) {
+                // вместимости хватает, т.к. на каждый символ ASCII записывается ровно один байт
+                array[position++] = (byte) ch;
+            } else {
+                // запись многобайтовых символов может пересоздать массив, дальше идём медленным путём
+                for (; i < j; i++) {
+                    putUtf8(chars[i]);
+                }
+
+                return;
+            }
+        }
+    }
+
+    private void putCodePoint(final int codePoint) {
+        if (codePoint < 0x80) {
+            put(codePoint);
+        } else if (codePoint < 0x800) {
+            ensureCapacity(position + 2);
+
+            array[position++] = (byte) (0xC0 | (codePoint >> 6));
+            array[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            ensureCapacity(position + 3);
+
+            array[position++] = (byte) (0xE0 | (codePoint >> 12));
+            array[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            array[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            ensureCapacity(position + 4);
+
+            array[position++] = (byte) (0xF0 | (codePoint >> 18));
+            array[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            array[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            array[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
     }
 
     public void put(final int value) {
@@ -70,4 +185,17 @@ public final class ByteArrayOutput {
         array[position] = (byte) value;
     }
 
+    public void put(final char @NotNull [] chars, final int offset, final int length) {
+        val position = this.position;
+        val newPosition = position + length;
+
+        ensureCapacity(newPosition);
+
+        for (int i = 0; i < length; i++) {
+            array[position + i] = (byte) chars[offset + i];
+        }
+
+        this.position = newPosition;
+    }
+
 }
@@ -0,0 +1,96 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.io;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Буфер символов, в отличие от {@link ByteArrayOutput} хранит символы как есть, без перекодирования.
+ *
+ * @author whilein
+ */
+@Accessors(fluent = true)
+public final class CharArrayOutput {
+
+    @Getter
+    char[] array;
+
+    @Getter
+    int position;
+
+    /**
+     * Вместимость, до которой буфер сжимается в {@link #reset()} после слишком длинных данных.
+     */
+    final int capacity;
+
+    public CharArrayOutput(final int capacity) {
+        this.array = new char[capacity];
+        this.capacity = capacity;
+    }
+
+    public CharArrayOutput() {
+        this(8192);
+    }
+
+    public void reset() {
+        if (array.length > capacity) {
+            array = new char[capacity];
+        }
+
+        position = 0;
+    }
+
+    public @NotNull String getString() {
+        return new String(array, 0, position);
+    }
+
+    public boolean isEmpty() {
+        return position == 0;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > array.length) {
+            array = Arrays.copyOf(array, Math.max(array.length * 2, capacity));
+        }
+    }
+
+    public void put(final int ch) {
+        val position = this.position++;
+
+        if (position >= array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+
+        array[position] = (char) ch;
+    }
+
+    public void put(final char @NotNull [] chars, final int offset, final int length) {
+        val newPosition = position + length;
+
+        ensureCapacity(newPosition);
+
+        System.arraycopy(chars, offset, array, position, length);
+
+        this.position = newPosition;
+    }
+
+}
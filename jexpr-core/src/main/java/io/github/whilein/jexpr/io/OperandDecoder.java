@@ -0,0 +1,413 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.io;
+
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.exception.SyntaxException;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandVariable;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.Operator;
+import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads operands written by {@link OperandEncoder}. Operators are resolved by value
+ * in the given registries, so operands can be read by other versions of application
+ * as long as operators with the same values are registered.
+ * <p>
+ * Malformed or truncated data is reported with {@link SyntaxException}.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class OperandDecoder {
+
+    ByteBuffer in;
+
+    OperatorRegistry<BinaryOperator> binaryOperatorRegistry;
+
+    OperatorRegistry<UnaryOperator> unaryOperatorRegistry;
+
+    List<String> strings = new ArrayList<>();
+
+    /**
+     * Ссылки по номеру строки, одинаковые имена дают один и тот же операнд.
+     */
+    @NonFinal
+    Operand[] references = new Operand[16];
+
+    List<BinaryOperator> binaryOperators = new ArrayList<>();
+
+    List<UnaryOperator> unaryOperators = new ArrayList<>();
+
+    @NonFinal
+    byte[] scratch = new byte[64];
+
+    @NonFinal
+    char[] chars = new char[64];
+
+    /**
+     * Узлы, у которых ещё не прочитаны члены, и уже прочитанные левые члены бинарных узлов.
+     */
+    @NonFinal
+    Operator[] pendingOperators = new Operator[32];
+
+    @NonFinal
+    Operand[] pendingLefts = new Operand[32];
+
+    private OperandDecoder(
+            final ByteBuffer in,
+            final OperatorRegistry<BinaryOperator> binaryOperatorRegistry,
+            final OperatorRegistry<UnaryOperator> unaryOperatorRegistry
+    ) {
+        this.in = in;
+        this.binaryOperatorRegistry = binaryOperatorRegistry;
+        this.unaryOperatorRegistry = unaryOperatorRegistry;
+    }
+
+    /**
+     * Create decoder of remaining bytes of buffer. Position of the buffer is not changed.
+     *
+     * @param buffer                 encoded operands
+     * @param binaryOperatorRegistry registry of binary operators
+     * @param unaryOperatorRegistry  registry of unary operators
+     * @return decoder
+     * @throws SyntaxException if header is invalid
+     */
+    public static @NotNull OperandDecoder create(
+            final @NotNull ByteBuffer buffer,
+            final @NotNull OperatorRegistry<BinaryOperator> binaryOperatorRegistry,
+            final @NotNull OperatorRegistry<UnaryOperator> unaryOperatorRegistry
+    ) {
+        val decoder = new OperandDecoder(buffer.slice(), binaryOperatorRegistry, unaryOperatorRegistry);
+        decoder.readHeader();
+
+        return decoder;
+    }
+
+    public static @NotNull OperandDecoder create(final @NotNull ByteBuffer buffer, final @NotNull Jexpr jexpr) {
+        return create(buffer, jexpr.getBinaryOperatorRegistry(), jexpr.getUnaryOperatorRegistry());
+    }
+
+    public static @NotNull OperandDecoder create(final byte @NotNull [] bytes, final @NotNull Jexpr jexpr) {
+        return create(ByteBuffer.wrap(bytes), jexpr);
+    }
+
+    public boolean hasNext() {
+        return in.hasRemaining();
+    }
+
+    /**
+     * Read next operand.
+     *
+     * @return operand
+     * @throws SyntaxException if data is malformed or operator is not registered
+     */
+    public @NotNull Operand read() {
+        try {
+            return readOperand();
+        } catch (final BufferUnderflowException e) {
+            throw new SyntaxException("Unexpected end of operand data", e);
+        }
+    }
+
+    private void readHeader() {
+        final int version;
+
+        try {
+            if (in.order(ByteOrder.LITTLE_ENDIAN).getInt() != OperandFormat.MAGIC) {
+                throw new SyntaxException("Not an operand data");
+            }
+
+            version = readVarInt();
+        } catch (final BufferUnderflowException e) {
+            throw new SyntaxException("Not an operand data", e);
+        }
+
+        if (version != OperandFormat.VERSION) {
+            throw new SyntaxException("Unsupported operand data version " + version);
+        }
+    }
+
+    /**
+     * Узлы записаны в прямом порядке обхода, поэтому составные узлы откладываются в стек,
+     * пока не будут прочитаны их члены. Так глубина дерева не ограничена стеком потока.
+     */
+    private Operand readOperand() {
+        int size = 0;
+
+        while (true) {
+            val tag = in.get();
+
+            if (tag == OperandFormat.BINARY || tag == OperandFormat.UNARY) {
+                val operator = tag == OperandFormat.BINARY
+                        ? readOperator(binaryOperators, binaryOperatorRegistry)
+                        : readOperator(unaryOperators, unaryOperatorRegistry);
+
+                if (size == pendingOperators.length) {
+                    pendingOperators = Arrays.copyOf(pendingOperators, size * 2);
+                    pendingLefts = Arrays.copyOf(pendingLefts, size * 2);
+                }
+
+                // после ошибки в стеке могли остаться члены прошлого операнда
+                pendingLefts[size] = null;
+                pendingOperators[size++] = operator;
+
+                continue;
+            }
+
+            Operand result = readLeaf(tag);
+
+            // собираем узлы, у которых прочитаны все члены
+            while (true) {
+                if (size == 0) {
+                    return result;
+                }
+
+                val operator = pendingOperators[size - 1];
+
+                if (operator instanceof UnaryOperator) {
+                    // унарный узел над константой записывается, только если он отложен
+                    result = result instanceof OperandVariable
+                            ? Operands.unary((OperandVariable) result, (UnaryOperator) operator)
+                            : Operands.deferredUnary(result, (UnaryOperator) operator);
+                } else {
+                    val left = pendingLefts[size - 1];
+
+                    if (left == null) {
+                        pendingLefts[size - 1] = result;
+                        break;
+                    }
+
+                    // бинарный узел над константами записывается, только если он отложен
+                    result = left.isConstant() && result.isConstant()
+                            ? Operands.deferredBinary(left, result, (BinaryOperator) operator)
+                            : Operands.binary(left, result, (BinaryOperator) operator);
+                    pendingLefts[size - 1] = null;
+                }
+
+                pendingOperators[--size] = null;
+            }
+        }
+    }
+
+    private Operand readLeaf(final byte tag) {
+        switch (tag) {
+            case OperandFormat.NULL:
+                return Operands.constantNull();
+            case OperandFormat.TRUE:
+                return Operands.constantTrue();
+            case OperandFormat.FALSE:
+                return Operands.constantFalse();
+            case OperandFormat.INT: {
+                val value = readVarInt();
+                return Operands.constantInt((value >>> 1) ^ -(value & 1));
+            }
+            case OperandFormat.LONG: {
+                val value = readVarLong();
+                return Operands.constantLong((value >>> 1) ^ -(value & 1));
+            }
+            case OperandFormat.FLOAT:
+                return Operands.constantFloat(in.getFloat());
+            case OperandFormat.DOUBLE:
+                return Operands.constantDouble(in.getDouble());
+            case OperandFormat.STRING:
+                return Operands.constantString(strings.get(readString()));
+            case OperandFormat.REFERENCE:
+                return readReference();
+            default:
+                throw new SyntaxException("Unknown operand type " + tag + " at " + (in.position() - 1));
+        }
+    }
+
+    private Operand readReference() {
+        val index = readString();
+
+        if (index >= references.length) {
+            references = Arrays.copyOf(references, Math.max(references.length * 2, index + 1));
+        }
+
+        Operand reference = references[index];
+
+        if (reference == null) {
+            references[index] = reference = Operands.reference(strings.get(index));
+        }
+
+        return reference;
+    }
+
+    /**
+     * @return номер строки в {@link #strings}
+     */
+    private int readString() {
+        val index = readVarInt();
+
+        if (index == OperandFormat.NEW_ENTRY) {
+            strings.add(readUtf8());
+
+            return strings.size() - 1;
+        }
+
+        if (index < 0 || index > strings.size()) {
+            throw new SyntaxException("Unknown string #" + index);
+        }
+
+        return index - 1;
+    }
+
+    private <T extends Operator> T readOperator(
+            final List<T> operators,
+            final OperatorRegistry<T> registry
+    ) {
+        val index = readVarInt();
+
+        if (index == OperandFormat.NEW_ENTRY) {
+            val value = readUtf8();
+            val operator = registry.get(value);
+
+            if (operator == null) {
+                throw new SyntaxException("Unknown operator " + value);
+            }
+
+            operators.add(operator);
+
+            return operator;
+        }
+
+        if (index < 0 || index > operators.size()) {
+            throw new SyntaxException("Unknown operator #" + index);
+        }
+
+        return operators.get(index - 1);
+    }
+
+    private String readUtf8() {
+        val length = readVarInt();
+
+        if (length < 0 || length > in.remaining()) {
+            throw new SyntaxException("Invalid string length " + length);
+        }
+
+        final byte[] bytes;
+        final int offset;
+
+        if (in.hasArray()) {
+            bytes = in.array();
+            offset = in.arrayOffset() + in.position();
+
+            // Buffer.position(int), т.к. ByteBuffer.position(int) появился только в Java 9
+            ((Buffer) in).position(in.position() + length);
+        } else {
+            byte[] scratch = this.scratch;
+
+            if (scratch.length < length) {
+                this.scratch = scratch = new byte[Math.max(scratch.length * 2, length)];
+            }
+
+            in.get(scratch, 0, length);
+
+            bytes = scratch;
+            offset = 0;
+        }
+
+        return decodeModifiedUtf8(bytes, offset, length);
+    }
+
+    /**
+     * Декодировать модифицированный UTF-8, как у {@link java.io.DataInput#readUTF()}: каждый
+     * {@code char} записан отдельно, поэтому одиночные суррогаты сохраняются.
+     */
+    private String decodeModifiedUtf8(final byte[] bytes, final int offset, final int length) {
+        char[] chars = this.chars;
+
+        if (chars.length < length) {
+            this.chars = chars = new char[Math.max(chars.length * 2, length)];
+        }
+
+        int count = 0;
+
+        for (int i = offset, end = offset + length; i < end; ) {
+            val b = bytes[i++];
+
+            if (b >= 0) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0 && i < end) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | continuation(bytes[i++]));
+            } else if ((b & 0xF0) == 0xE0 && i + 1 < end) {
+                chars[count++] = (char) ((b & 0x0F) << 12 | continuation(bytes[i++]) << 6 | continuation(bytes[i++]));
+            } else {
+                throw new SyntaxException("Malformed string");
+            }
+        }
+
+        return new String(chars, 0, count);
+    }
+
+    private static int continuation(final byte b) {
+        if ((b & 0xC0) != 0x80) {
+            throw new SyntaxException("Malformed string");
+        }
+
+        return b & 0x3F;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            val b = in.get();
+            value |= (b & 0x7F) << shift;
+
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw new SyntaxException("Malformed varint at " + in.position());
+    }
+
+    private long readVarLong() {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            val b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw new SyntaxException("Malformed varint at " + in.position());
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.io;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.api.token.operand.OperandUnary;
+import io.github.whilein.jexpr.api.token.operand.OperandVariable;
+import io.github.whilein.jexpr.api.token.operand.OperandVisitor;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.Operator;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes operands in compact binary format, which can be read by {@link OperandDecoder}
+ * without lexing. Strings, references and operators are written once per encoder,
+ * so many operands should be written with the same encoder.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class OperandEncoder implements OperandVisitor {
+
+    ByteArrayOutput out;
+
+    Map<String, Integer> strings = new HashMap<>();
+
+    Map<Operator, Integer> binaryOperators = new HashMap<>();
+
+    Map<Operator, Integer> unaryOperators = new HashMap<>();
+
+    @NonFinal
+    Operand[] stack = new Operand[32];
+
+    private OperandEncoder(final ByteArrayOutput out) {
+        this.out = out;
+    }
+
+    public static @NotNull OperandEncoder create() {
+        val encoder = new OperandEncoder(new ByteArrayOutput(1024));
+        encoder.writeFixedInt(OperandFormat.MAGIC);
+        encoder.writeVarInt(OperandFormat.VERSION);
+
+        return encoder;
+    }
+
+    /**
+     * Write operand. Constant objects other than {@code null} are not supported.
+     *
+     * @param operand operand
+     */
+    public void write(final @NotNull Operand operand) {
+        // прямой порядок обхода с явным стеком, глубина дерева не ограничена стеком потока
+        Operand[] stack = this.stack;
+        int size = 0;
+
+        stack[size++] = operand;
+
+        while (size != 0) {
+            val node = stack[--size];
+            stack[size] = null;
+
+            if (node instanceof OperandBinary) {
+                val binary = (OperandBinary) node;
+                writeBinary(binary.getOperator());
+
+                if (size + 2 > stack.length) {
+                    this.stack = stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+
+                stack[size++] = binary.getRightMember();
+                stack[size++] = binary.getLeftMember();
+            } else if (node instanceof OperandUnary) {
+                val unary = (OperandUnary) node;
+                writeUnary(unary.getOperator());
+
+                if (size == stack.length) {
+                    this.stack = stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+
+                stack[size++] = unary.getMember();
+            } else {
+                node.accept(this);
+            }
+        }
+    }
+
+    public int size() {
+        return out.position();
+    }
+
+    public byte @NotNull [] toByteArray() {
+        return out.getBytes();
+    }
+
+    public void writeTo(final @NotNull OutputStream stream) throws IOException {
+        stream.write(out.array(), 0, out.position());
+    }
+
+    @Override
+    public void visitInt(final int value) {
+        out.put(OperandFormat.INT);
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    @Override
+    public void visitLong(final long value) {
+        out.put(OperandFormat.LONG);
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    @Override
+    public void visitFloat(final float value) {
+        out.put(OperandFormat.FLOAT);
+        writeFixedInt(Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public void visitDouble(final double value) {
+        out.put(OperandFormat.DOUBLE);
+
+        val bits = Double.doubleToRawLongBits(value);
+        writeFixedInt((int) bits);
+        writeFixedInt((int) (bits >>> 32));
+    }
+
+    @Override
+    public void visitBoolean(final boolean value) {
+        out.put(value ? OperandFormat.TRUE : OperandFormat.FALSE);
+    }
+
+    @Override
+    public void visitString(final @NotNull String value) {
+        out.put(OperandFormat.STRING);
+        writeString(value);
+    }
+
+    @Override
+    public void visitReference(final @NotNull String value) {
+        out.put(OperandFormat.REFERENCE);
+        writeString(value);
+    }
+
+    @Override
+    public void visitObject(final @Nullable Object value) {
+        if (value != null) {
+            throw new IllegalArgumentException("Cannot encode constant object " + value);
+        }
+
+        out.put(OperandFormat.NULL);
+    }
+
+    @Override
+    public void visitBinary(final @NotNull Operand left, final @NotNull Operand right, final @NotNull BinaryOperator op) {
+        writeBinary(op);
+        write(left);
+        write(right);
+    }
+
+    @Override
+    public void visitUnary(final @NotNull OperandVariable left, final @NotNull UnaryOperator op) {
+        writeUnary(op);
+        write(left);
+    }
+
+    private void writeBinary(final BinaryOperator operator) {
+        out.put(OperandFormat.BINARY);
+        writeOperator(binaryOperators, operator);
+    }
+
+    private void writeUnary(final UnaryOperator operator) {
+        out.put(OperandFormat.UNARY);
+        writeOperator(unaryOperators, operator);
+    }
+
+    private void writeOperator(final Map<Operator, Integer> operators, final Operator operator) {
+        val index = operators.get(operator);
+
+        if (index != null) {
+            writeVarInt(index);
+        } else {
+            operators.put(operator, operators.size() + 1);
+
+            writeVarInt(OperandFormat.NEW_ENTRY);
+            writeUtf8(operator.getValue());
+        }
+    }
+
+    private void writeString(final String value) {
+        val index = strings.get(value);
+
+        if (index != null) {
+            writeVarInt(index);
+        } else {
+            strings.put(value, strings.size() + 1);
+
+            writeVarInt(OperandFormat.NEW_ENTRY);
+            writeUtf8(value);
+        }
+    }
+
+    /**
+     * Записать строку в модифицированном UTF-8, как {@link java.io.DataOutput#writeUTF(String)}:
+     * каждый {@code char} записывается отдельно, поэтому одиночные суррогаты сохраняются.
+     */
+    private void writeUtf8(final String value) {
+        val length = value.length();
+
+        int bytes = length;
+
+        for (int i = 0; i < length; i++) {
+            val ch = value.charAt(i);
+
+            if (ch == 0 || ch >= 0x80) {
+                bytes += ch >= 0x800 ? 2 : 1;
+            }
+        }
+
+        writeVarInt(bytes);
+
+        for (int i = 0; i < length; i++) {
+            val ch = value.charAt(i);
+
+            if (ch != 0 && ch < 0x80) {
+                out.put(ch);
+            } else if (ch < 0x800) {
+                out.put(0xC0 | ch >> 6);
+                out.put(0x80 | ch & 0x3F);
+            } else {
+                out.put(0xE0 | ch >> 12);
+                out.put(0x80 | ch >> 6 & 0x3F);
+                out.put(0x80 | ch & 0x3F);
+            }
+        }
+    }
+
+    private void writeFixedInt(final int value) {
+        out.put(value);
+        out.put(value >>> 8);
+        out.put(value >>> 16);
+        out.put(value >>> 24);
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.put(value);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.put((int) value);
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.io;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Бинарный формат операндов, см. {@link OperandEncoder} и {@link OperandDecoder}.
+ * <p>
+ * Данные начинаются с заголовка {@code JXPR} и версии, за ним идут операнды в прямом порядке обхода:
+ * байт типа узла, затем его содержимое. Числа записываются как varint (знаковые через zigzag),
+ * {@code float} и {@code double} как биты в little-endian. Строки, имена ссылок и операторы
+ * записываются полностью только при первом упоминании, дальше по номеру в таблице.
+ * Строки записываются как длина в байтах и байты в модифицированном UTF-8.
+ * Операторы хранятся по {@link io.github.whilein.jexpr.api.token.operator.Operator#getValue() значению},
+ * которое не меняется между версиями реестров.
+ *
+ * @author whilein
+ */
+@UtilityClass
+class OperandFormat {
+
+    final int MAGIC = 'J' | 'X' << 8 | 'P' << 16 | 'R' << 24;
+
+    final int VERSION = 1;
+
+    final int NULL = 0,
+            TRUE = 1,
+            FALSE = 2,
+            INT = 3,
+            LONG = 4,
+            FLOAT = 5,
+            DOUBLE = 6,
+            STRING = 7,
+            REFERENCE = 8,
+            BINARY = 9,
+            UNARY = 10;
+
+    /**
+     * Номер в таблице, означающий, что значение записано сразу после номера.
+     */
+    final int NEW_ENTRY = 0;
+
+}
@@ -16,6 +16,8 @@
 
 package io.github.whilein.jexpr.token;
 
+import io.github.whilein.jexpr.api.exception.ExpectedToken;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
 import io.github.whilein.jexpr.api.exception.SyntaxException;
 import io.github.whilein.jexpr.api.token.SelectableTokenParser;
 import io.github.whilein.jexpr.api.token.TokenVisitor;
@@ -23,7 +25,6 @@ import io.github.whilein.jexpr.api.token.operator.Operator;
 import io.github.whilein.jexpr.api.token.operator.OperatorMatcher;
 import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
 import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.val;
@@ -36,16 +37,22 @@ import java.util.stream.Collectors;
  * @author whilein
  */
 @FieldDefaults(level = AccessLevel.PROTECTED, makeFinal = true)
-@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 public abstract class AbstractOperatorTokenParser<T extends Operator>
         extends AbstractTokenParser
         implements SelectableTokenParser {
 
     OperatorRegistry<T> operatorRegistry;
 
-    @NonFinal
     OperatorMatcher<T> operatorMatcher;
 
+    @NonFinal
+    boolean matching;
+
+    protected AbstractOperatorTokenParser(final OperatorRegistry<T> operatorRegistry) {
+        this.operatorRegistry = operatorRegistry;
+        this.operatorMatcher = operatorRegistry.createMatcher();
+    }
+
     @Override
     protected void writeSyntaxReport(final Map<String, Object> map) {
         map.put("operatorMatcher", operatorMatcher);
@@ -53,15 +60,12 @@ public abstract class AbstractOperatorTokenParser<T extends Operator>
 
     @Override
     public boolean shouldStaySelected(final int ch) {
-        return operatorMatcher == null || operatorMatcher.hasNext(ch);
+        return !matching || operatorMatcher.hasNext(ch);
     }
 
     @Override
     public void update(final int ch) throws SyntaxException {
-        if (operatorMatcher == null) {
-            operatorMatcher = operatorRegistry.matchOperator(ch);
-        }
-
+        matching = true;
         operatorMatcher.next(ch);
     }
 
@@ -74,9 +78,12 @@ public abstract class AbstractOperatorTokenParser<T extends Operator>
             val result = operatorMatcher.getMatchedResult();
 
             if (result == null) {
-                throw invalidSyntax("Unknown operator got, do you mean: " + operatorMatcher.getProbablyResults().stream()
-                        .map(Operator::getValue)
-                        .collect(Collectors.joining("', '", "'", "'")) + "?");
+                throw syntaxError(SyntaxErrorCode.UNKNOWN_OPERATOR, ExpectedToken.OPERATOR,
+                        getSyntaxErrorMode() == SyntaxErrorMode.SILENT
+                                ? null
+                                : "Unknown operator got, do you mean: " + operatorMatcher.getProbablyResults().stream()
+                                .map(Operator::getValue)
+                                .collect(Collectors.joining("', '", "'", "'")) + "?");
             }
 
             doVisit(tokenVisitor, result);
@@ -87,6 +94,7 @@ public abstract class AbstractOperatorTokenParser<T extends Operator>
 
     @Override
     public void reset() {
-        operatorMatcher = null;
+        matching = false;
+        operatorMatcher.reset();
     }
 }
@@ -16,9 +16,12 @@
 
 package io.github.whilein.jexpr.token;
 
+import io.github.whilein.jexpr.api.exception.ExpectedToken;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
 import io.github.whilein.jexpr.api.exception.SyntaxException;
 import io.github.whilein.jexpr.api.token.TokenParser;
 import lombok.val;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -28,8 +31,46 @@ import java.util.Map;
  */
 public abstract class AbstractTokenParser implements TokenParser {
 
+    private SyntaxErrorMode syntaxErrorMode = SyntaxErrorMode.DETAILED;
+
+    private ParserLimits limits = ParserLimits.unlimited();
+
     protected abstract void writeSyntaxReport(Map<String, Object> map);
 
+    public @NotNull SyntaxErrorMode getSyntaxErrorMode() {
+        return syntaxErrorMode;
+    }
+
+    public void setSyntaxErrorMode(final @NotNull SyntaxErrorMode syntaxErrorMode) {
+        this.syntaxErrorMode = syntaxErrorMode;
+    }
+
+    public @NotNull ParserLimits getLimits() {
+        return limits;
+    }
+
+    public void setLimits(final @NotNull ParserLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Проверить длину литерала, например, перед тем как дописать его в буфер.
+     *
+     * @param length длина литерала
+     * @throws SyntaxException если длина превышает {@link ParserLimits#getMaxLiteralLength()}
+     */
+    protected final void checkLiteralLength(final int length) {
+        val maxLiteralLength = limits.getMaxLiteralLength();
+
+        if (length > maxLiteralLength) {
+            throw limitExceeded("Literal is longer than ", maxLiteralLength);
+        }
+    }
+
+    protected final SyntaxException limitExceeded(final String message, final long limit) {
+        return syntaxError(SyntaxErrorCode.LIMIT_EXCEEDED, null, message, limit);
+    }
+
     private String createSyntaxReport() {
         val map = new LinkedHashMap<String, Object>();
 
@@ -39,7 +80,17 @@ public abstract class AbstractTokenParser implements TokenParser {
     }
 
     protected final SyntaxException unexpected(final int ch) {
-        return invalidSyntax("Unexpected character '" + (char) ch + "'");
+        return unexpected(ch, null);
+    }
+
+    protected final SyntaxException unexpected(final int ch, final ExpectedToken expected) {
+        return unexpected(SyntaxErrorCode.UNEXPECTED_CHARACTER, ch, expected);
+    }
+
+    protected final SyntaxException unexpected(final SyntaxErrorCode code, final int ch, final ExpectedToken expected) {
+        return syntaxError(code, expected, syntaxErrorMode == SyntaxErrorMode.SILENT
+                ? null
+                : "Unexpected character '" + (char) ch + "'");
     }
 
     protected final SyntaxException invalidSyntax(final String message) {
@@ -47,6 +98,54 @@ public abstract class AbstractTokenParser implements TokenParser {
     }
 
     protected final SyntaxException invalidSyntax(final String message, final Throwable cause) {
-        return new SyntaxException(message + " " + createSyntaxReport(), cause);
+        return syntaxError(SyntaxErrorCode.INVALID_SYNTAX, null, message, null, cause);
     }
+
+    protected final SyntaxException syntaxError(
+            final SyntaxErrorCode code,
+            final ExpectedToken expected,
+            final String message
+    ) {
+        return syntaxError(code, expected, message, null, null);
+    }
+
+    protected final SyntaxException syntaxError(
+            final SyntaxErrorCode code,
+            final ExpectedToken expected,
+            final String message,
+            final Object detail
+    ) {
+        return syntaxError(code, expected, message, detail, null);
+    }
+
+    /**
+     * Создать исключение в соответствии с {@link #getSyntaxErrorMode()}. Сообщение собирается
+     * из {@code message} и {@code detail} только если оно нужно.
+     *
+     * @param code     вид ошибки
+     * @param expected ожидаемый токен
+     * @param message  сообщение
+     * @param detail   подробности, дописываются к сообщению
+     * @param cause    причина
+     * @return исключение
+     */
+    protected final SyntaxException syntaxError(
+            final SyntaxErrorCode code,
+            final ExpectedToken expected,
+            final String message,
+            final Object detail,
+            final Throwable cause
+    ) {
+        switch (syntaxErrorMode) {
+            case SILENT:
+                return new SyntaxException(null, code, expected, cause, false);
+            case STACKLESS:
+                return new SyntaxException(detail != null ? message + detail : message,
+                        code, expected, cause, false);
+            default:
+                return new SyntaxException((detail != null ? message + detail : message)
+                        + " " + createSyntaxReport(), code, expected, cause, true);
+        }
+    }
+
 }
@@ -16,6 +16,8 @@
 
 package io.github.whilein.jexpr.token;
 
+import io.github.whilein.jexpr.api.exception.ExpectedToken;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
 import io.github.whilein.jexpr.api.token.SelectableTokenParser;
 import io.github.whilein.jexpr.api.token.TokenVisitor;
 import io.github.whilein.jexpr.api.token.operand.Operand;
@@ -87,6 +89,11 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
                 || (ch == '-' || ch == '+') && hasExponent && (character == 'e' || character == 'E'));
     }
 
+    @Override
+    public boolean isSelectionCacheable() {
+        return true;
+    }
+
     @Override
     public boolean shouldSelect(
             final int ch,
@@ -98,6 +105,7 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
 
     @Override
     public void reset() {
+        buffer.reset();
         type = TYPE_INT;
         radix = RADIX_UNKNOWN;
         state = STATE_DETERMINE_RADIX_0;
@@ -121,7 +129,8 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
         // число с плавающей точкой
         if (ch == '.') {
             if (isReal()) {
-                throw invalidSyntax("got unexpected '.' but number is real");
+                throw syntaxError(SyntaxErrorCode.INVALID_NUMBER, ExpectedToken.DIGIT,
+                        "got unexpected '.' but number is real");
             }
 
             setReal(TYPE_DOUBLE);
@@ -130,7 +139,8 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
             bypass = true;
         } else if (isReal() && (ch == 'e' || ch == 'E')) {
             if (hasExponent) {
-                throw invalidSyntax("got unexpected '<exp>' but number already has exponent");
+                throw syntaxError(SyntaxErrorCode.INVALID_NUMBER, ExpectedToken.DIGIT,
+                        "got unexpected '<exp>' but number already has exponent");
             }
 
             bypass = hasExponent = true;
@@ -177,7 +187,7 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
                     setRadix(RADIX_OCTAL);
                     return;
                 default:
-                    throw unexpected(ch);
+                    throw unexpected(SyntaxErrorCode.INVALID_NUMBER, ch, ExpectedToken.DIGIT);
             }
         }
 
@@ -188,7 +198,8 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
 
             if (!isValidNumber(ch)) {
                 if (radix != 8 || (ch != '8' && ch != '9')) {
-                    throw invalidSyntax("Character " + (char) ch + " not in radix " + radix);
+                    throw syntaxError(SyntaxErrorCode.INVALID_NUMBER, ExpectedToken.DIGIT,
+                            "Character " + (char) ch + " not in radix ", radix);
                 }
 
                 // поскольку может быть число 09.9, мы разрешаем через костыль такие числа
@@ -197,9 +208,52 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
             }
         }
 
+        checkLiteralLength(buffer.position() + 1);
         buffer.put(ch);
     }
 
+    @Override
+    public int consume(final char @NotNull [] chars, final int offset, final int length) {
+        int position = offset;
+
+        for (final int end = offset + length; position < end; ) {
+            if (state == STATE_CONSUME && radix >= RADIX_DECIMAL && !completed) {
+                // в десятичной и шестнадцатеричной системах цифры просто добавляются в буфер
+                val start = position;
+
+                while (position < end && isDigit(chars[position])) {
+                    position++;
+                }
+
+                val digits = position - start;
+
+                if (digits != 0) {
+                    prevCharacter = digits == 1 ? character : chars[position - 2];
+                    character = chars[position - 1];
+
+                    checkLiteralLength(buffer.position() + digits);
+                    buffer.put(chars, start, digits);
+                    continue;
+                }
+            }
+
+            val ch = chars[position];
+
+            if (!shouldStaySelected(ch)) {
+                break;
+            }
+
+            update(ch);
+            position++;
+        }
+
+        return position - offset;
+    }
+
+    private static boolean isDigit(final int ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
     private boolean tryEnding(final int ch) {
         if (isRealRadix()) {
             val realEnding = getRealEnding(ch);
@@ -218,7 +272,7 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
         if (type != TYPE_INT) {
             // была обработана точка, значит число с плавающей точкой
             // оно не может быть лонгом
-            throw invalidSyntax("Cannot read long from floating-point number");
+            throw syntaxError(SyntaxErrorCode.INVALID_NUMBER, null, "Cannot read long from floating-point number");
         }
 
         if (state == STATE_DETERMINE_RADIX_1) {
@@ -290,11 +344,172 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
         }
     }
 
+    /**
+     * Разобрать число из буфера без создания строки.
+     *
+     * @return число или {@code null}, если число нужно разбирать через {@link #createNumber(String, int, int)}
+     */
+    private static Operand decodeNumber(final byte[] bytes, final int length, final int type, final int radix) {
+        switch (type) {
+            default:
+            case TYPE_INT: {
+                val value = decodeInteger(bytes, length, radix, Integer.MAX_VALUE);
+                return value == -1 ? null : Operands.constantInt((int) value);
+            }
+            case TYPE_LONG: {
+                val value = decodeInteger(bytes, length, radix, Long.MAX_VALUE);
+                return value == -1 ? null : Operands.constantLong(value);
+            }
+            case TYPE_DOUBLE: {
+                val value = decodeReal(bytes, length, MAX_EXACT_DOUBLE_SIGNIFICAND, DOUBLE_POWERS_OF_TEN.length - 1);
+                return Double.isNaN(value) ? null : Operands.constantDouble(value);
+            }
+            case TYPE_FLOAT: {
+                val value = decodeReal(bytes, length, MAX_EXACT_FLOAT_SIGNIFICAND, FLOAT_POWERS_OF_TEN.length - 1);
+                return Double.isNaN(value) ? null : Operands.constantFloat((float) value);
+            }
+        }
+    }
+
+    /**
+     * @return неотрицательное число или {@code -1}, если в числе есть неверные символы или оно больше {@code max}
+     */
+    private static long decodeInteger(final byte[] bytes, final int length, final int radix, final long max) {
+        if (length == 0) {
+            return -1;
+        }
+
+        long value = 0;
+
+        for (int i = 0; i < length; i++) {
+            val digit = Character.digit(bytes[i], radix);
+
+            if (digit < 0 || value > (max - digit) / radix) {
+                return -1;
+            }
+
+            value = value * radix + digit;
+        }
+
+        return value;
+    }
+
+    private static final long MAX_EXACT_DOUBLE_SIGNIFICAND = 1L << 53;
+    private static final long MAX_EXACT_FLOAT_SIGNIFICAND = 1L << 24;
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /**
+     * Быстрый путь Клингера: если мантисса и степень десяти точно представимы, то результат
+     * одного умножения или деления округляется правильно.
+     *
+     * @return число или {@link Double#NaN}, если быстрый путь неприменим
+     */
+    private static double decodeReal(
+            final byte[] bytes,
+            final int length,
+            final long maxSignificand,
+            final int maxPower
+    ) {
+        long significand = 0;
+        int exponent = 0;
+        int digits = 0;
+
+        int i = 0;
+        boolean point = false;
+
+        for (; i < length; i++) {
+            val ch = bytes[i];
+
+            if (ch == '.') {
+                if (point) return Double.NaN;
+
+                point = true;
+            } else if (ch >= '0' && ch <= '9') {
+                if (significand > (maxSignificand - (ch - '0')) / 10) {
+                    return Double.NaN;
+                }
+
+                significand = significand * 10 + (ch - '0');
+                digits++;
+
+                if (point) exponent--;
+            } else {
+                break;
+            }
+        }
+
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        if (i < length) {
+            if (bytes[i] != 'e' && bytes[i] != 'E' || ++i == length) {
+                return Double.NaN;
+            }
+
+            val negative = bytes[i] == '-';
+
+            if (negative || bytes[i] == '+') {
+                i++;
+            }
+
+            if (i == length) {
+                return Double.NaN;
+            }
+
+            int explicitExponent = 0;
+
+            for (; i < length; i++) {
+                val ch = bytes[i];
+
+                if (ch < '0' || ch > '9' || explicitExponent > 1000) {
+                    return Double.NaN;
+                }
+
+                explicitExponent = explicitExponent * 10 + (ch - '0');
+            }
+
+            exponent += negative ? -explicitExponent : explicitExponent;
+        }
+
+        if (significand == 0) {
+            return 0;
+        }
+
+        if (exponent < -maxPower || exponent > maxPower) {
+            return Double.NaN;
+        }
+
+        if (maxSignificand == MAX_EXACT_FLOAT_SIGNIFICAND) {
+            // для float считаем во float, иначе результат округлится дважды
+            val value = (float) significand;
+
+            return exponent >= 0
+                    ? value * FLOAT_POWERS_OF_TEN[exponent]
+                    : value / FLOAT_POWERS_OF_TEN[-exponent];
+        }
+
+        val value = (double) significand;
+
+        return exponent >= 0
+                ? value * DOUBLE_POWERS_OF_TEN[exponent]
+                : value / DOUBLE_POWERS_OF_TEN[-exponent];
+    }
+
     @Override
     public void doFinal(final @NotNull TokenVisitor tokenVisitor) {
         try {
             if (illegalOctalNumber) {
-                throw invalidSyntax("Invalid octal number (leading zero?)");
+                throw syntaxError(SyntaxErrorCode.INVALID_NUMBER, ExpectedToken.DIGIT,
+                        "Invalid octal number (leading zero?)");
             }
 
             final Operand number;
@@ -302,13 +517,22 @@ public final class NumberTokenParser extends AbstractTokenParser implements Sele
             if (state == STATE_DETERMINE_RADIX_1) {
                 number = Operands.constantInt(0);
             } else {
-                val text = buffer.getString();
-                buffer.reset();
-
-                try {
-                    number = createNumber(text, type, radix);
-                } catch (final NumberFormatException nfe) {
-                    throw invalidSyntax("Cannot parse number", nfe);
+                val decoded = decodeNumber(buffer.array(), buffer.position(), type, radix);
+
+                if (decoded != null) {
+                    buffer.reset();
+
+                    number = decoded;
+                } else {
+                    // сложные случаи, например, мантисса длиннее 2^53, разбираем через JDK
+                    val text = buffer.getString();
+                    buffer.reset();
+
+                    try {
+                        number = createNumber(text, type, radix);
+                    } catch (final NumberFormatException nfe) {
+                        throw syntaxError(SyntaxErrorCode.INVALID_NUMBER, null, "Cannot parse number", null, nfe);
+                    }
                 }
             }
 
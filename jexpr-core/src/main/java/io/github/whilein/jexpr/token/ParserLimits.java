@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.token;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.With;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Limits of parsed input, parsers reject expressions which exceed any of them with
+ * {@link io.github.whilein.jexpr.api.exception.SyntaxErrorCode#LIMIT_EXCEEDED}.
+ *
+ * @author whilein
+ */
+@Value
+@With
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ParserLimits {
+
+    private static final ParserLimits UNLIMITED = new ParserLimits(
+            Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private static final ParserLimits DEFAULTS = new ParserLimits(
+            1 << 20, 256, 1 << 16, 1 << 16);
+
+    /**
+     * Maximum number of characters of expression.
+     */
+    long maxInputLength;
+
+    /**
+     * Maximum depth of nested brackets.
+     */
+    int maxNestingDepth;
+
+    /**
+     * Maximum length of single number, string or reference token.
+     */
+    int maxLiteralLength;
+
+    /**
+     * Maximum number of operands and operators of expression.
+     */
+    int maxNodeCount;
+
+    public static @NotNull ParserLimits unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Limits suitable for untrusted input: 1M characters, 256 levels of brackets,
+     * 64K characters of single literal and 64K operands and operators.
+     *
+     * @return default limits
+     */
+    public static @NotNull ParserLimits defaults() {
+        return DEFAULTS;
+    }
+
+}
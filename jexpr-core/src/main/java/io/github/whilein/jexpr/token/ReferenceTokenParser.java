@@ -19,10 +19,10 @@ package io.github.whilein.jexpr.token;
 import io.github.whilein.jexpr.api.keyword.KeywordRegistry;
 import io.github.whilein.jexpr.api.token.TokenVisitor;
 import io.github.whilein.jexpr.io.ByteArrayOutput;
-import io.github.whilein.jexpr.token.operand.Operands;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
 
@@ -39,6 +39,18 @@ public final class ReferenceTokenParser extends AbstractSelectableTokenParser {
 
     ByteArrayOutput buffer;
 
+    SymbolTable symbolTable;
+
+    /**
+     * Длина имени в символах, в буфере имя хранится в UTF-8.
+     */
+    @NonFinal
+    int length;
+
+    public ReferenceTokenParser(final KeywordRegistry keywordRegistry, final ByteArrayOutput buffer) {
+        this(keywordRegistry, buffer, SymbolTable.create());
+    }
+
     private static boolean isValidReferenceNameCharacter(final int ch) {
         return ch == '_' || ch == '$' || ch > 47
                 && (ch < 58 || ch > 63) && (ch < 91 || ch > 96) && (ch < 123 || ch > 127);
@@ -49,6 +61,11 @@ public final class ReferenceTokenParser extends AbstractSelectableTokenParser {
         return isValidReferenceNameCharacter(ch);
     }
 
+    @Override
+    public boolean isSelectionCacheable() {
+        return true;
+    }
+
     @Override
     protected boolean shouldSelect(final int ch) {
         return isValidReferenceNameCharacter(ch);
@@ -57,22 +74,42 @@ public final class ReferenceTokenParser extends AbstractSelectableTokenParser {
     @Override
     public void reset() {
         buffer.reset();
+        length = 0;
     }
 
     @Override
     public void update(final int ch) {
-        buffer.put(ch);
+        checkLiteralLength(++length);
+        buffer.putUtf8(ch);
+    }
+
+    @Override
+    public int consume(final char @NotNull [] chars, final int offset, final int length) {
+        int position = offset;
+
+        for (final int end = offset + length; position < end; position++) {
+            if (!isValidReferenceNameCharacter(chars[position])) {
+                break;
+            }
+        }
+
+        val consumed = position - offset;
+
+        checkLiteralLength(this.length += consumed);
+        buffer.putUtf8(chars, offset, consumed);
+
+        return consumed;
     }
 
     @Override
     public void doFinal(final @NotNull TokenVisitor tokenVisitor) {
         try {
-            val reference = buffer.getString();
+            val symbol = symbolTable.get(buffer);
 
-            val keyword = keywordRegistry.get(reference);
+            val keyword = keywordRegistry.get(symbol.getName());
 
             tokenVisitor.visitOperand(keyword == null
-                    ? Operands.reference(reference)
+                    ? symbol.getReference()
                     : keyword.getOperandValue());
         } finally {
             reset();
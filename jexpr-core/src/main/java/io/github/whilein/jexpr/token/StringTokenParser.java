@@ -16,9 +16,11 @@
 
 package io.github.whilein.jexpr.token;
 
+import io.github.whilein.jexpr.api.exception.ExpectedToken;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
 import io.github.whilein.jexpr.api.exception.SyntaxException;
 import io.github.whilein.jexpr.api.token.TokenVisitor;
-import io.github.whilein.jexpr.io.ByteArrayOutput;
+import io.github.whilein.jexpr.io.CharArrayOutput;
 import io.github.whilein.jexpr.token.operand.Operands;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -27,7 +29,6 @@ import lombok.experimental.NonFinal;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -53,9 +54,6 @@ public final class StringTokenParser extends AbstractSelectableTokenParser {
     @NonFinal
     int unicode;
 
-    @NonFinal
-    char highSurrogate;
-
     @NonFinal
     int unicodeSize;
 
@@ -65,7 +63,14 @@ public final class StringTokenParser extends AbstractSelectableTokenParser {
     @NonFinal
     int unicodeRadix;
 
-    ByteArrayOutput buffer;
+    CharArrayOutput buffer;
+
+    /**
+     * Строка, целиком прочитанная из одной порции символов в {@link #consume(char[], int, int)},
+     * в этом случае она не копируется в буфер.
+     */
+    @NonFinal
+    String value;
 
     @Override
     protected void writeSyntaxReport(final Map<String, Object> map) {
@@ -86,6 +91,11 @@ public final class StringTokenParser extends AbstractSelectableTokenParser {
         return state != STATE_FINISH_QUOTE;
     }
 
+    @Override
+    public boolean isSelectionCacheable() {
+        return true;
+    }
+
     @Override
     public boolean shouldSelect(final int ch) {
         return ch == '\'' || ch == '\"';
@@ -98,7 +108,7 @@ public final class StringTokenParser extends AbstractSelectableTokenParser {
 
     private void completeUnicode(final int ch) {
         if (unicodeMinSize > unicodeSize) {
-            throw invalidSyntax(ch == 0
+            throw syntaxError(SyntaxErrorCode.INVALID_STRING, ExpectedToken.ESCAPE_SEQUENCE, ch == 0
                     ? "Unexpected end of unicode escape notation"
                     : "Unexpected character: " + (char) ch);
         }
@@ -110,20 +120,7 @@ public final class StringTokenParser extends AbstractSelectableTokenParser {
         unicode = 0;
         unicodeRadix = 0;
 
-        if (Character.isHighSurrogate(unicodeCharacter)) {
-            highSurrogate = unicodeCharacter;
-            return;
-        } else if (Character.isLowSurrogate(unicodeCharacter)) {
-            if (Character.isSurrogatePair(highSurrogate, unicodeCharacter)) {
-                val codePoint = Character.toCodePoint(highSurrogate, unicodeCharacter);
-                highSurrogate = 0;
-
-                put(new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8));
-                return;
-            }
-        }
-
-        put(getBytes(unicodeCharacter));
+        put(unicodeCharacter);
 
         if (ch != 0) {
             update(ch);
@@ -133,6 +130,7 @@ public final class StringTokenParser extends AbstractSelectableTokenParser {
     @Override
     public void reset() {
         buffer.reset();
+        value = null;
         state = STATE_LEADING_QUOTE;
         quoteCharacter = 0;
     }
@@ -185,7 +183,7 @@ public final class StringTokenParser extends AbstractSelectableTokenParser {
                         put('\b');
                         break;
                     default:
-                        throw unexpected(ch);
+                        throw unexpected(SyntaxErrorCode.INVALID_STRING, ch, ExpectedToken.ESCAPE_SEQUENCE);
                 }
 
                 state = STATE_CONTENT;
@@ -217,6 +215,42 @@ public final class StringTokenParser extends AbstractSelectableTokenParser {
         put(ch);
     }
 
+    @Override
+    public int consume(final char @NotNull [] chars, final int offset, final int length) throws SyntaxException {
+        int position = offset;
+
+        for (final int end = offset + length; position < end && state != STATE_FINISH_QUOTE; ) {
+            if (state == STATE_CONTENT) {
+                val start = position;
+
+                for (; position < end; position++) {
+                    val ch = chars[position];
+
+                    if (ch == '\\' || ch == quoteCharacter) {
+                        break;
+                    }
+                }
+
+                if (position != start) {
+                    checkLiteralLength(buffer.position() + position - start);
+
+                    if (position != end && chars[position] == quoteCharacter && buffer.isEmpty()) {
+                        // строка без экранирования целиком в этой порции, копировать в буфер незачем
+                        value = new String(chars, start, position - start);
+                    } else {
+                        buffer.put(chars, start, position - start);
+                    }
+
+                    continue;
+                }
+            }
+
+            update(chars[position++]);
+        }
+
+        return position - offset;
+    }
+
     private void addUnicode(final int ch) {
         val digit = Character.digit((char) ch, unicodeRadix);
 
@@ -241,38 +275,17 @@ public final class StringTokenParser extends AbstractSelectableTokenParser {
         this.unicodeSize = 0;
     }
 
-    private void put(final byte[] bytes) {
-        flushHighSurrogate();
-
-        for (val b : bytes) {
-            buffer.put(b);
-        }
-    }
-
-
-    private static byte[] getBytes(final char ch) {
-        return Character.toString(ch).getBytes(StandardCharsets.UTF_8);
-    }
-
-    private void flushHighSurrogate() {
-        if (highSurrogate != 0) {
-            for (val b : getBytes(highSurrogate)) {
-                buffer.put(b);
-            }
-
-            highSurrogate = 0;
-        }
-    }
-
     private void put(final int ch) {
-        flushHighSurrogate();
+        checkLiteralLength(buffer.position() + 1);
         buffer.put(ch);
     }
 
     @Override
     public void doFinal(final @NotNull TokenVisitor tokenVisitor) throws SyntaxException {
         try {
-            tokenVisitor.visitOperand(Operands.constantString(buffer.getString()));
+            val value = this.value;
+
+            tokenVisitor.visitOperand(Operands.constantString(value != null ? value : buffer.getString()));
         } finally {
             reset();
         }
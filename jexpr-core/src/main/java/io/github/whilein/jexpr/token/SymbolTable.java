@@ -0,0 +1,223 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.token;
+
+import io.github.whilein.jexpr.api.token.operand.OperandReference;
+import io.github.whilein.jexpr.io.ByteArrayOutput;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Таблица имён, общая для всех парсеров одного {@link io.github.whilein.jexpr.api.Jexpr}.
+ * Находит имя по байтам из буфера парсера без создания {@link String} и возвращает
+ * одни и те же экземпляры имени и операнда-ссылки для одинаковых имён.
+ * <p>
+ * Поиск выполняется без блокировок, добавление новых имён синхронизировано. После
+ * {@code maxSize} имён новые имена больше не запоминаются, чтобы произвольный ввод
+ * не мог бесконечно наращивать таблицу.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class SymbolTable {
+
+    private static final int DEFAULT_MAX_SIZE = 65536;
+
+    int maxSize;
+
+    @NonFinal
+    volatile Symbol[] symbols = new Symbol[64];
+
+    @NonFinal
+    int size;
+
+    private SymbolTable(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static @NotNull SymbolTable create() {
+        return new SymbolTable(DEFAULT_MAX_SIZE);
+    }
+
+    public static @NotNull SymbolTable create(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize = " + maxSize);
+        }
+
+        return new SymbolTable(maxSize);
+    }
+
+    /**
+     * Найти или добавить имя, записанное в буфер в кодировке UTF-8.
+     *
+     * @param buffer буфер с именем
+     * @return имя и соответствующий ему операнд-ссылка
+     */
+    public @NotNull Symbol get(final @NotNull ByteArrayOutput buffer) {
+        buffer.flush();
+
+        val bytes = buffer.array();
+        val length = buffer.position();
+        val hash = hash(bytes, length);
+
+        val symbol = find(symbols, bytes, length, hash);
+
+        return symbol != null ? symbol : add(bytes, length, hash);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private synchronized Symbol add(final byte[] bytes, final int length, final int hash) {
+        Symbol[] symbols = this.symbols;
+        val existing = find(symbols, bytes, length, hash);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        val symbol = new Symbol(hash, Arrays.copyOf(bytes, length),
+                new String(bytes, 0, length, StandardCharsets.UTF_8));
+
+        if (size >= maxSize) {
+            return symbol;
+        }
+
+        if ((size + 1) * 2 > symbols.length) {
+            symbols = rehash(symbols);
+        }
+
+        insert(symbols, symbol);
+        size++;
+
+        // публикуем таблицу после записи, Symbol неизменяем и может быть прочитан без синхронизации
+        this.symbols = symbols;
+
+        return symbol;
+    }
+
+    private static Symbol[] rehash(final Symbol[] symbols) {
+        val result = new Symbol[symbols.length * 2];
+
+        for (val symbol : symbols) {
+            if (symbol != null) {
+                insert(result, symbol);
+            }
+        }
+
+        return result;
+    }
+
+    private static void insert(final Symbol[] symbols, final Symbol symbol) {
+        val mask = symbols.length - 1;
+
+        int index = symbol.hash & mask;
+
+        while (symbols[index] != null) {
+            index = (index + 1) & mask;
+        }
+
+        symbols[index] = symbol;
+    }
+
+    private static Symbol find(final Symbol[] symbols, final byte[] bytes, final int length, final int hash) {
+        val mask = symbols.length - 1;
+
+        for (int index = hash & mask; ; index = (index + 1) & mask) {
+            val symbol = symbols[index];
+
+            if (symbol == null) {
+                return null;
+            }
+
+            if (symbol.hash == hash && symbol.matches(bytes, length)) {
+                return symbol;
+            }
+        }
+    }
+
+    private static int hash(final byte[] bytes, final int length) {
+        int hash = 0;
+
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+
+        // перемешиваем биты, т.к. индекс берётся из младших битов
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Запись таблицы имён.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class Symbol {
+
+        int hash;
+
+        byte[] bytes;
+
+        String name;
+
+        OperandReference reference;
+
+        private Symbol(final int hash, final byte[] bytes, final String name) {
+            this(hash, bytes, name, Operands.reference(name));
+        }
+
+        public @NotNull String getName() {
+            return name;
+        }
+
+        public @NotNull OperandReference getReference() {
+            return reference;
+        }
+
+        private boolean matches(final byte[] bytes, final int length) {
+            val symbolBytes = this.bytes;
+
+            if (symbolBytes.length != length) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (symbolBytes[i] != bytes[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+    }
+
+}
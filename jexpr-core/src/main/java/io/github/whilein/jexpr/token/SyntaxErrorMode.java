@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.token;
+
+/**
+ * How token parsers create {@link io.github.whilein.jexpr.api.exception.SyntaxException}.
+ *
+ * @author whilein
+ */
+public enum SyntaxErrorMode {
+
+    /**
+     * Message with report of parser state and stack trace.
+     */
+    DETAILED,
+
+    /**
+     * Message without report of parser state and without stack trace.
+     */
+    STACKLESS,
+
+    /**
+     * Only error code and expected token, without message and stack trace. Used for validation.
+     */
+    SILENT
+
+}
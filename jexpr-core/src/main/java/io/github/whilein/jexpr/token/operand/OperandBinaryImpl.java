@@ -17,13 +17,10 @@
 package io.github.whilein.jexpr.token.operand;
 
 import io.github.whilein.jexpr.api.token.operand.*;
-import io.github.whilein.jexpr.api.token.operator.BinaryLazyOperator;
 import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
 import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import lombok.val;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -31,12 +28,38 @@ import org.jetbrains.annotations.NotNull;
  */
 @Getter
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
-@RequiredArgsConstructor
 final class OperandBinaryImpl extends OperandBase implements OperandBinary {
 
     Operand leftMember, rightMember;
     BinaryOperator operator;
 
+    /**
+     * Хэш дерева считается один раз, т.к. хэши детей тоже уже посчитаны.
+     */
+    @Getter(AccessLevel.NONE)
+    int hash;
+
+    OperandBinaryImpl(final Operand leftMember, final Operand rightMember, final BinaryOperator operator) {
+        this.leftMember = leftMember;
+        this.rightMember = rightMember;
+        this.operator = operator;
+        this.hash = hash(leftMember, rightMember, operator);
+    }
+
+    static int hash(final Operand leftMember, final Operand rightMember, final BinaryOperator operator) {
+        return (31 * leftMember.hashCode() + rightMember.hashCode()) * 31 + operator.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj == this || obj instanceof OperandBinaryImpl && OperandTraversal.equals(this, (Operand) obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     @Override
     public <T> @NotNull T apply(@NotNull OperandMapper<T> mapper) {
         return mapper.mapBinary(leftMember, rightMember, operator);
@@ -49,42 +72,12 @@ final class OperandBinaryImpl extends OperandBase implements OperandBinary {
 
     @Override
     public void print(final @NotNull StringBuilder out) {
-        val presence = operator.getPresence();
-
-        if (leftMember instanceof OperandBinary
-                && ((OperandBinary) leftMember).getOperator().getPresence() <= presence) {
-            out.append('(');
-            leftMember.print(out);
-            out.append(')');
-        } else {
-            leftMember.print(out);
-        }
-
-        out.append(' ').append(operator.getValue()).append(' ');
-
-        if (rightMember instanceof OperandBinary
-                && ((OperandBinary) rightMember).getOperator().getPresence() <= presence) {
-            out.append('(');
-            rightMember.print(out);
-            out.append(')');
-        } else {
-            rightMember.print(out);
-        }
+        OperandTraversal.print(this, out);
     }
 
     @Override
     public @NotNull Operand solve(final @NotNull OperandVariableResolver resolver) {
-        val solvedLeft = leftMember.solve(resolver);
-
-        if (operator instanceof BinaryLazyOperator) {
-            val lazyOperator = (BinaryLazyOperator) operator;
-
-            if (solvedLeft.isPredicable(lazyOperator)) {
-                return solvedLeft.getPredictedResult(lazyOperator);
-            }
-        }
-
-        return solvedLeft.apply(rightMember.solve(resolver), operator);
+        return OperandTraversal.solve(this, resolver);
     }
 
 }
@@ -21,6 +21,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.val;
 
+import java.util.Objects;
+
 /**
  * @author whilein
  */
@@ -41,12 +43,12 @@ abstract class OperandDelegate<T> extends OperandBase {
         if (obj == null || obj.getClass() != this.getClass()) return false;
 
         val that = (OperandDelegate<?>) obj;
-        return delegatedValue.equals(that.delegatedValue);
+        return Objects.equals(delegatedValue, that.delegatedValue);
     }
 
     @Override
     public int hashCode() {
-        return delegatedValue.hashCode();
+        return Objects.hashCode(delegatedValue);
     }
 
 
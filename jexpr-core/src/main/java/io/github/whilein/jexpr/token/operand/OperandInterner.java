@@ -0,0 +1,334 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.token.operand;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.api.token.operand.OperandUnary;
+import io.github.whilein.jexpr.api.token.operand.OperandVariable;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * Hash-consing factory of operands: structurally equal operands created or interned through
+ * the same interner are the same instance, so they can be compared by identity.
+ * <p>
+ * Interned operands are held weakly, unused ones are removed from the interner by garbage collector.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class OperandInterner {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final int INITIAL_STACK_SIZE = 32;
+
+    ReferenceQueue<Operand> queue = new ReferenceQueue<>();
+
+    @NonFinal
+    Entry[] table = new Entry[INITIAL_CAPACITY];
+
+    @NonFinal
+    int size;
+
+    private OperandInterner() {
+    }
+
+    public static @NotNull OperandInterner create() {
+        return new OperandInterner();
+    }
+
+    /**
+     * Get canonical instance of operand, all its members are interned too.
+     *
+     * @param operand operand
+     * @return canonical operand, which is structurally equal to given one
+     */
+    public @NotNull Operand intern(final @NotNull Operand operand) {
+        // узлы на пути от корня, количество уже интернированных членов и стек интернированных членов
+        Operand[] nodes = new Operand[INITIAL_STACK_SIZE];
+        int[] states = new int[INITIAL_STACK_SIZE];
+        Operand[] results = new Operand[INITIAL_STACK_SIZE];
+        int size = 0;
+        int resultSize = 0;
+
+        nodes[size++] = operand;
+
+        while (size != 0) {
+            val top = size - 1;
+            val node = nodes[top];
+            val state = states[top];
+
+            Operand child = null;
+            Operand result = null;
+
+            if (node instanceof OperandBinary) {
+                val binary = (OperandBinary) node;
+
+                if (state == 0) {
+                    child = binary.getLeftMember();
+                } else if (state == 1) {
+                    child = binary.getRightMember();
+                } else {
+                    val right = results[--resultSize];
+                    val left = results[--resultSize];
+                    results[resultSize] = results[resultSize + 1] = null;
+
+                    result = binary(left, right, binary.getOperator(), node);
+                }
+            } else if (node instanceof OperandUnary) {
+                val unary = (OperandUnary) node;
+
+                if (state == 0) {
+                    child = unary.getMember();
+                } else {
+                    val member = results[--resultSize];
+                    results[resultSize] = null;
+
+                    result = unary(member, unary.getOperator(), node);
+                }
+            } else {
+                result = leaf(node);
+            }
+
+            if (child != null) {
+                states[top] = state + 1;
+
+                if (size == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, size * 2);
+                    states = Arrays.copyOf(states, size * 2);
+                }
+
+                nodes[size] = child;
+                states[size] = 0;
+                size++;
+            } else {
+                nodes[--size] = null;
+
+                if (resultSize == results.length) {
+                    results = Arrays.copyOf(results, resultSize * 2);
+                }
+
+                results[resultSize++] = result;
+            }
+        }
+
+        return results[0];
+    }
+
+    /**
+     * Get canonical binary operand of interned members.
+     *
+     * @see Operands#binary(Operand, Operand, BinaryOperator)
+     */
+    public @NotNull Operand binary(
+            final @NotNull Operand left,
+            final @NotNull Operand right,
+            final @NotNull BinaryOperator operator
+    ) {
+        return binary(left, right, operator, null);
+    }
+
+    /**
+     * Get canonical unary operand of interned member.
+     *
+     * @see Operands#unary(OperandVariable, UnaryOperator)
+     */
+    public @NotNull Operand unary(final @NotNull OperandVariable member, final @NotNull UnaryOperator operator) {
+        return unary(member, operator, null);
+    }
+
+    public synchronized int size() {
+        expungeStaleEntries();
+
+        return size;
+    }
+
+    private synchronized Operand binary(
+            final Operand left,
+            final Operand right,
+            final BinaryOperator operator,
+            final Operand candidate
+    ) {
+        expungeStaleEntries();
+
+        val hash = OperandBinaryImpl.hash(left, right, operator);
+        val table = this.table;
+
+        for (Entry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+            if (entry.hash != hash) continue;
+
+            val operand = entry.get();
+
+            if (operand instanceof OperandBinary) {
+                val binary = (OperandBinary) operand;
+
+                if (binary.getLeftMember() == left && binary.getRightMember() == right
+                        && binary.getOperator() == operator) {
+                    return operand;
+                }
+            }
+        }
+
+        return add(hash, isCandidate(candidate, hash) && ((OperandBinary) candidate).getLeftMember() == left
+                && ((OperandBinary) candidate).getRightMember() == right
+                ? candidate
+                : Operands.binary(left, right, operator));
+    }
+
+    private synchronized Operand unary(
+            final Operand member,
+            final UnaryOperator operator,
+            final Operand candidate
+    ) {
+        expungeStaleEntries();
+
+        val hash = OperandUnaryImpl.hash(member, operator);
+        val table = this.table;
+
+        for (Entry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+            if (entry.hash != hash) continue;
+
+            val operand = entry.get();
+
+            if (operand instanceof OperandUnary) {
+                val unary = (OperandUnary) operand;
+
+                if (unary.getMember() == member && unary.getOperator() == operator) {
+                    return operand;
+                }
+            }
+        }
+
+        return add(hash, isCandidate(candidate, hash) && ((OperandUnary) candidate).getMember() == member
+                ? candidate
+                : member instanceof OperandVariable
+                ? Operands.unary((OperandVariable) member, operator)
+                : Operands.deferredUnary(member, operator));
+    }
+
+    private synchronized Operand leaf(final Operand operand) {
+        expungeStaleEntries();
+
+        val hash = operand.hashCode();
+        val table = this.table;
+
+        for (Entry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+            if (entry.hash != hash) continue;
+
+            val interned = entry.get();
+
+            if (interned != null && interned.equals(operand)) {
+                return interned;
+            }
+        }
+
+        return add(hash, operand);
+    }
+
+    /**
+     * Можно ли добавить сам операнд вместо нового, если у него уже канонические члены.
+     */
+    private static boolean isCandidate(final Operand candidate, final int hash) {
+        return candidate != null && candidate.hashCode() == hash;
+    }
+
+    private Operand add(final int hash, final Operand operand) {
+        if (size >= table.length * 3 / 4) {
+            resize();
+        }
+
+        val table = this.table;
+        val index = hash & (table.length - 1);
+
+        table[index] = new Entry(operand, hash, table[index], queue);
+        size++;
+
+        return operand;
+    }
+
+    private void resize() {
+        val oldTable = this.table;
+        val newTable = new Entry[oldTable.length * 2];
+
+        for (Entry entry : oldTable) {
+            while (entry != null) {
+                val next = entry.next;
+                val index = entry.hash & (newTable.length - 1);
+
+                entry.next = newTable[index];
+                newTable[index] = entry;
+
+                entry = next;
+            }
+        }
+
+        this.table = newTable;
+    }
+
+    private void expungeStaleEntries() {
+        Object stale;
+
+        while ((stale = queue.poll()) != null) {
+            val entry = (Entry) stale;
+            val table = this.table;
+            val index = entry.hash & (table.length - 1);
+
+            Entry previous = null;
+
+            for (Entry current = table[index]; current != null; previous = current, current = current.next) {
+                if (current == entry) {
+                    if (previous == null) {
+                        table[index] = current.next;
+                    } else {
+                        previous.next = current.next;
+                    }
+
+                    size--;
+                    break;
+                }
+            }
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class Entry extends WeakReference<Operand> {
+
+        final int hash;
+
+        Entry next;
+
+        Entry(final Operand operand, final int hash, final Entry next, final ReferenceQueue<Operand> queue) {
+            super(operand, queue);
+
+            this.hash = hash;
+            this.next = next;
+        }
+
+    }
+
+}
@@ -0,0 +1,707 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.token.operand;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.api.token.operand.OperandConstant;
+import io.github.whilein.jexpr.api.token.operand.OperandReference;
+import io.github.whilein.jexpr.api.token.operand.OperandUnary;
+import io.github.whilein.jexpr.api.token.operand.OperandVariable;
+import io.github.whilein.jexpr.api.token.operator.BinaryLazyOperator;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
+import io.github.whilein.jexpr.token.operator.type.OperatorAnd;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseAnd;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseComplement;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseLeftShift;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseOr;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseRightShift;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseUnsignedRightShift;
+import io.github.whilein.jexpr.token.operator.type.OperatorBitwiseXor;
+import io.github.whilein.jexpr.token.operator.type.OperatorDivide;
+import io.github.whilein.jexpr.token.operator.type.OperatorEquals;
+import io.github.whilein.jexpr.token.operator.type.OperatorGreater;
+import io.github.whilein.jexpr.token.operator.type.OperatorLess;
+import io.github.whilein.jexpr.token.operator.type.OperatorMinus;
+import io.github.whilein.jexpr.token.operator.type.OperatorMultiply;
+import io.github.whilein.jexpr.token.operator.type.OperatorNegate;
+import io.github.whilein.jexpr.token.operator.type.OperatorNotEquals;
+import io.github.whilein.jexpr.token.operator.type.OperatorOr;
+import io.github.whilein.jexpr.token.operator.type.OperatorPlus;
+import io.github.whilein.jexpr.token.operator.type.OperatorRemainder;
+import io.github.whilein.jexpr.token.operator.type.OperatorStrictGreater;
+import io.github.whilein.jexpr.token.operator.type.OperatorStrictLess;
+import io.github.whilein.jexpr.token.operator.type.OperatorUnaryMinus;
+import io.github.whilein.jexpr.token.operator.type.OperatorUnaryPlus;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Algebraic simplification of operands, which keeps the result of {@link Operand#solve} unchanged.
+ * <p>
+ * Constant folding of {@code solve} requires both members of a node to be constants, simplifier also:
+ * <ul>
+ *     <li>reassociates integer constants, e.g. {@code x + 1 + 2} to {@code x + 3};</li>
+ *     <li>removes identity operands, e.g. {@code x * 1}, {@code x - 0}, {@code b && true};</li>
+ *     <li>replaces nodes with annihilator operands by constants, e.g. {@code x * 0} and {@code b || true},
+ *     if the removed member cannot throw;</li>
+ *     <li>removes double negation, e.g. {@code !!b}, {@code -(-x)} and {@code ~~x}.</li>
+ * </ul>
+ * Each rewrite requires the types of members to be known: types of constants are known, types of references
+ * are given to {@link #create(Function)}. Floating point operations are never reassociated, strings are never
+ * concatenated in a different order, and rewrites never change the type of a node, e.g. {@code x + 0L} stays
+ * as is, if {@code x} is int.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class OperandSimplifier {
+
+    private static final int INITIAL_STACK_SIZE = 32;
+
+    // типы узлов: тип, который имел бы результат solve, если он не выбросит исключение
+    private static final int UNKNOWN = 0;
+    private static final int BOOLEAN = 1;
+    private static final int INT = 2;
+    private static final int LONG = 3;
+    private static final int FLOAT = 4;
+    private static final int DOUBLE = 5;
+    private static final int STRING = 6;
+
+    private static final int TYPE_MASK = 7;
+
+    /**
+     * Флаг узла, вычисление которого не может выбросить исключение. Такой узел можно
+     * не вычислять, если результат определяется другим членом.
+     */
+    private static final int SAFE = 8;
+
+    Function<? super String, ? extends @Nullable Class<?>> referenceTypes;
+
+    /**
+     * Create simplifier, which does not know types of references. Only nodes, whose members are constants
+     * or nodes with known result type, e.g. comparisons, are simplified.
+     *
+     * @return new simplifier
+     */
+    public static @NotNull OperandSimplifier create() {
+        return new OperandSimplifier(reference -> null);
+    }
+
+    /**
+     * Create simplifier with types of references. Type is either primitive or boxed {@code boolean},
+     * {@code int}, {@code long}, {@code float} or {@code double}, or {@link String}, other types
+     * and {@code null} mean that type is unknown.
+     *
+     * @param referenceTypes types of references
+     * @return new simplifier
+     */
+    public static @NotNull OperandSimplifier create(
+            final @NotNull Function<? super @NotNull String, ? extends @Nullable Class<?>> referenceTypes
+    ) {
+        return new OperandSimplifier(referenceTypes);
+    }
+
+    /**
+     * Simplify operand.
+     *
+     * @param operand operand
+     * @return simplified operand and number of removed nodes
+     */
+    public @NotNull Result simplify(final @NotNull Operand operand) {
+        return new Simplification().run(operand);
+    }
+
+    private static boolean isNumeric(final int type) {
+        return type >= INT && type <= DOUBLE;
+    }
+
+    private static boolean isIntegral(final int type) {
+        return type == INT || type == LONG;
+    }
+
+    private static int getType(final Class<?> type) {
+        if (type == boolean.class || type == Boolean.class) return BOOLEAN;
+        if (type == int.class || type == Integer.class) return INT;
+        if (type == long.class || type == Long.class) return LONG;
+        if (type == float.class || type == Float.class) return FLOAT;
+        if (type == double.class || type == Double.class) return DOUBLE;
+        if (type == String.class) return STRING;
+
+        return UNKNOWN;
+    }
+
+    private static int getType(final OperandConstant constant) {
+        switch (constant.getKind()) {
+            case BOOLEAN:
+                return BOOLEAN;
+            case INT:
+                return INT;
+            case LONG:
+                return LONG;
+            case FLOAT:
+                return FLOAT;
+            case DOUBLE:
+                return DOUBLE;
+            case STRING:
+                return STRING;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    /**
+     * Тип результата бинарного оператора, если оператор применим к типам членов,
+     * иначе {@link #UNKNOWN}. Для сравнений и логических операторов результат всегда boolean.
+     */
+    private static int getResultType(final BinaryOperator operator, final int left, final int right) {
+        if (operator instanceof OperatorPlus) {
+            if (left == STRING || right == STRING) return STRING;
+
+            return isNumeric(left) && isNumeric(right) ? Math.max(left, right) : UNKNOWN;
+        }
+
+        if (operator instanceof OperatorMinus || operator instanceof OperatorMultiply
+                || operator instanceof OperatorDivide || operator instanceof OperatorRemainder) {
+            return isNumeric(left) && isNumeric(right) ? Math.max(left, right) : UNKNOWN;
+        }
+
+        if (operator instanceof OperatorBitwiseAnd || operator instanceof OperatorBitwiseOr
+                || operator instanceof OperatorBitwiseXor) {
+            if (left == BOOLEAN && right == BOOLEAN) return BOOLEAN;
+
+            return isIntegral(left) && isIntegral(right) ? Math.max(left, right) : UNKNOWN;
+        }
+
+        if (isShift(operator)) {
+            return isIntegral(left) && isIntegral(right) ? left : UNKNOWN;
+        }
+
+        if (isComparison(operator) || operator instanceof OperatorEquals || operator instanceof OperatorNotEquals
+                || operator instanceof OperatorAnd || operator instanceof OperatorOr) {
+            return BOOLEAN;
+        }
+
+        return UNKNOWN;
+    }
+
+    /**
+     * Может ли вычисление узла с членами без исключений выбросить исключение.
+     */
+    private static boolean isSafe(final BinaryOperator operator, final int left, final int right, final int result) {
+        if (operator instanceof OperatorDivide || operator instanceof OperatorRemainder) {
+            // целочисленное деление на ноль
+            return result == FLOAT || result == DOUBLE;
+        }
+
+        if (isComparison(operator)) {
+            return isNumeric(left) && isNumeric(right);
+        }
+
+        if (operator instanceof OperatorEquals || operator instanceof OperatorNotEquals) {
+            return isNumeric(left) && isNumeric(right) || left != UNKNOWN && left == right;
+        }
+
+        if (operator instanceof OperatorAnd || operator instanceof OperatorOr) {
+            return left == BOOLEAN && right == BOOLEAN;
+        }
+
+        return result != UNKNOWN;
+    }
+
+    private static boolean isShift(final BinaryOperator operator) {
+        return operator instanceof OperatorBitwiseLeftShift || operator instanceof OperatorBitwiseRightShift
+                || operator instanceof OperatorBitwiseUnsignedRightShift;
+    }
+
+    private static boolean isComparison(final BinaryOperator operator) {
+        return operator instanceof OperatorLess || operator instanceof OperatorStrictLess
+                || operator instanceof OperatorGreater || operator instanceof OperatorStrictGreater;
+    }
+
+    private static boolean isIntegralConstant(final Operand operand) {
+        if (!(operand instanceof OperandConstant)) return false;
+
+        val type = getType((OperandConstant) operand);
+
+        return isIntegral(type);
+    }
+
+    private static boolean isIntegralConstant(final Operand operand, final long value) {
+        return isIntegralConstant(operand) && ((Number) operand.getValue()).longValue() == value;
+    }
+
+    private static boolean isNumericConstant(final Operand operand, final double value) {
+        return operand instanceof OperandConstant && isNumeric(getType((OperandConstant) operand))
+                && ((Number) operand.getValue()).doubleValue() == value;
+    }
+
+    private static boolean isPositiveZero(final Operand operand) {
+        return isNumericConstant(operand, 0)
+                && Double.doubleToRawLongBits(((Number) operand.getValue()).doubleValue()) == 0;
+    }
+
+    private static boolean isBooleanConstant(final Operand operand, final boolean value) {
+        return operand instanceof OperandConstant && getType((OperandConstant) operand) == BOOLEAN
+                && (Boolean) operand.getValue() == value;
+    }
+
+    private static Operand integralConstant(final int type, final long value) {
+        return type == INT ? Operands.constantInt((int) value) : Operands.constantLong(value);
+    }
+
+    /**
+     * Количество узлов в дереве операнда.
+     */
+    private static int count(final Operand root) {
+        Operand[] stack = new Operand[INITIAL_STACK_SIZE];
+        int size = 0;
+        int count = 0;
+
+        stack[size++] = root;
+
+        while (size != 0) {
+            val operand = stack[--size];
+            stack[size] = null;
+            count++;
+
+            if (size + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+
+            if (operand instanceof OperandBinary) {
+                stack[size++] = ((OperandBinary) operand).getRightMember();
+                stack[size++] = ((OperandBinary) operand).getLeftMember();
+            } else if (operand instanceof OperandUnary) {
+                stack[size++] = ((OperandUnary) operand).getMember();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Simplified operand.
+     */
+    @Value
+    public static class Result {
+
+        @NotNull Operand operand;
+
+        /**
+         * Number of nodes, which are in the original operand, but not in the simplified one.
+         */
+        int removedNodeCount;
+
+    }
+
+    /**
+     * Один проход упрощения. Узлы обходятся в обратном порядке с явным стеком,
+     * поэтому глубина дерева не ограничена стеком потока.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private final class Simplification {
+
+        // тип и безопасность составных узлов результата
+        final Map<Operand, Integer> infos = new IdentityHashMap<>();
+
+        Operand[] nodes = new Operand[INITIAL_STACK_SIZE];
+
+        boolean[] visited = new boolean[INITIAL_STACK_SIZE];
+
+        Operand[] results = new Operand[INITIAL_STACK_SIZE];
+
+        Result run(final Operand root) {
+            int size = 0;
+            int resultSize = 0;
+            int count = 0;
+
+            nodes[size++] = root;
+
+            while (size != 0) {
+                val node = nodes[size - 1];
+
+                if (!visited[size - 1] && (node instanceof OperandBinary || node instanceof OperandUnary)) {
+                    visited[size - 1] = true;
+
+                    if (size + 2 > nodes.length) {
+                        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                        visited = Arrays.copyOf(visited, nodes.length);
+                    }
+
+                    // правый член кладётся первым, чтобы левый был упрощён раньше
+                    if (node instanceof OperandBinary) {
+                        nodes[size++] = ((OperandBinary) node).getRightMember();
+                        nodes[size++] = ((OperandBinary) node).getLeftMember();
+                    } else {
+                        nodes[size++] = ((OperandUnary) node).getMember();
+                    }
+
+                    continue;
+                }
+
+                visited[--size] = false;
+                nodes[size] = null;
+                count++;
+
+                final Operand result;
+
+                if (node instanceof OperandBinary) {
+                    val binary = (OperandBinary) node;
+                    val right = results[--resultSize];
+                    val left = results[--resultSize];
+
+                    result = simplifyBinary(binary, left, right, binary.getOperator());
+                } else if (node instanceof OperandUnary) {
+                    val unary = (OperandUnary) node;
+
+                    result = simplifyUnary(unary, results[--resultSize], unary.getOperator());
+                } else {
+                    result = node;
+                }
+
+                if (resultSize == results.length) {
+                    results = Arrays.copyOf(results, resultSize * 2);
+                }
+
+                results[resultSize++] = result;
+            }
+
+            val result = results[0];
+
+            return new Result(result, count - count(result));
+        }
+
+        int getInfo(final Operand operand) {
+            if (operand instanceof OperandConstant) {
+                return getType((OperandConstant) operand) | SAFE;
+            }
+
+            if (operand instanceof OperandReference) {
+                val type = getType(referenceTypes.apply(((OperandReference) operand).getValue()));
+
+                return type != UNKNOWN ? type | SAFE : UNKNOWN;
+            }
+
+            val info = infos.get(operand);
+
+            return info != null ? info : UNKNOWN;
+        }
+
+        Operand binary(
+                final @Nullable OperandBinary original,
+                final Operand left,
+                final Operand right,
+                final BinaryOperator operator
+        ) {
+            final Operand result;
+
+            if (left.isConstant() && right.isConstant()) {
+                try {
+                    return left.apply(right, operator);
+                } catch (final RuntimeException e) {
+                    // свёртка выбросит исключение и при вычислении, поэтому узел остаётся
+                    if (original == null) throw e;
+
+                    result = original;
+                }
+            } else if (original != null && original.getLeftMember() == left && original.getRightMember() == right
+                    && original.getOperator() == operator) {
+                result = original;
+            } else {
+                result = Operands.binary(left, right, operator);
+            }
+
+            val leftInfo = getInfo(left);
+            val rightInfo = getInfo(right);
+            val type = getResultType(operator, leftInfo & TYPE_MASK, rightInfo & TYPE_MASK);
+
+            val safe = (leftInfo & rightInfo & SAFE) != 0
+                    && isSafe(operator, leftInfo & TYPE_MASK, rightInfo & TYPE_MASK, type);
+
+            infos.put(result, safe ? type | SAFE : type);
+
+            return result;
+        }
+
+        Operand unary(final @Nullable OperandUnary original, final Operand member, final UnaryOperator operator) {
+            if (member.isConstant()) {
+                try {
+                    return member.apply(operator);
+                } catch (final RuntimeException e) {
+                    if (original == null) throw e;
+
+                    return original;
+                }
+            }
+
+            val result = original != null && original.getMember() == member
+                    ? original
+                    : Operands.unary((OperandVariable) member, operator);
+
+            val memberInfo = getInfo(member);
+            val memberType = memberInfo & TYPE_MASK;
+
+            final int type;
+
+            if (operator instanceof OperatorNegate) {
+                type = memberType == BOOLEAN ? BOOLEAN : UNKNOWN;
+            } else if (operator instanceof OperatorBitwiseComplement) {
+                type = isIntegral(memberType) ? memberType : UNKNOWN;
+            } else if (operator instanceof OperatorUnaryMinus || operator instanceof OperatorUnaryPlus) {
+                type = isNumeric(memberType) ? memberType : UNKNOWN;
+            } else {
+                type = UNKNOWN;
+            }
+
+            infos.put(result, type != UNKNOWN && (memberInfo & SAFE) != 0 ? type | SAFE : type);
+
+            return result;
+        }
+
+        Operand simplifyUnary(final OperandUnary original, final Operand member, final UnaryOperator operator) {
+            if (member instanceof OperandUnary) {
+                val inner = (OperandUnary) member;
+                val innerMember = inner.getMember();
+                val innerType = getInfo(innerMember) & TYPE_MASK;
+
+                // !!b, -(-x) и ~~x
+                if (operator instanceof OperatorNegate && inner.getOperator() instanceof OperatorNegate
+                        && innerType == BOOLEAN
+                        || operator instanceof OperatorUnaryMinus && inner.getOperator() instanceof OperatorUnaryMinus
+                        && isNumeric(innerType)
+                        || operator instanceof OperatorBitwiseComplement
+                        && inner.getOperator() instanceof OperatorBitwiseComplement && isIntegral(innerType)) {
+                    return innerMember;
+                }
+            }
+
+            if (operator instanceof OperatorUnaryPlus && isNumeric(getInfo(member) & TYPE_MASK)) {
+                return member;
+            }
+
+            return unary(original, member, operator);
+        }
+
+        Operand simplifyBinary(
+                final @Nullable OperandBinary original,
+                final Operand left,
+                final Operand right,
+                final BinaryOperator operator
+        ) {
+            if (operator instanceof BinaryLazyOperator && left.isPredicable((BinaryLazyOperator) operator)) {
+                return left.getPredictedResult((BinaryLazyOperator) operator);
+            }
+
+            if (left.isConstant() && right.isConstant()) {
+                return binary(original, left, right, operator);
+            }
+
+            val leftInfo = getInfo(left);
+            val rightInfo = getInfo(right);
+            val leftType = leftInfo & TYPE_MASK;
+            val rightType = rightInfo & TYPE_MASK;
+            val leftSafe = (leftInfo & SAFE) != 0;
+            val rightSafe = (rightInfo & SAFE) != 0;
+
+            val type = getResultType(operator, leftType, rightType);
+
+            if (isIntegral(type)) {
+                val reassociated = reassociate(left, right, operator, type);
+
+                if (reassociated != null) {
+                    return reassociated;
+                }
+            }
+
+            if (operator instanceof OperatorPlus) {
+                if (isIntegral(type)) {
+                    if (leftType == type && isIntegralConstant(right, 0)) return left;
+                    if (rightType == type && isIntegralConstant(left, 0)) return right;
+                }
+            } else if (operator instanceof OperatorMinus) {
+                // x - 0.0 == x и для -0.0, а x + 0.0 - нет
+                if (leftType == type && (isIntegral(type) && isIntegralConstant(right, 0)
+                        || isNumeric(type) && isPositiveZero(right))) {
+                    return left;
+                }
+            } else if (operator instanceof OperatorMultiply) {
+                if (isNumeric(type)) {
+                    if (leftType == type && isNumericConstant(right, 1)) return left;
+                    if (rightType == type && isNumericConstant(left, 1)) return right;
+                }
+
+                // x * 0.0 может быть -0.0 или NaN
+                if (isIntegral(type)) {
+                    if (leftSafe && isIntegralConstant(right, 0)) return integralConstant(type, 0);
+                    if (rightSafe && isIntegralConstant(left, 0)) return integralConstant(type, 0);
+                }
+            } else if (operator instanceof OperatorDivide) {
+                if (isNumeric(type) && leftType == type && isNumericConstant(right, 1)) return left;
+            } else if (operator instanceof OperatorBitwiseAnd) {
+                val result = simplifyBitwise(left, right, type, -1, false);
+                if (result != null) return result;
+            } else if (operator instanceof OperatorBitwiseOr) {
+                val result = simplifyBitwise(left, right, type, 0, true);
+                if (result != null) return result;
+            } else if (operator instanceof OperatorBitwiseXor) {
+                if (isIntegral(type)) {
+                    if (leftType == type && isIntegralConstant(right, 0)) return left;
+                    if (rightType == type && isIntegralConstant(left, 0)) return right;
+                } else if (type == BOOLEAN) {
+                    if (leftType == BOOLEAN && isBooleanConstant(right, false)) return left;
+                    if (rightType == BOOLEAN && isBooleanConstant(left, false)) return right;
+                }
+            } else if (isShift(operator)) {
+                if (isIntegral(type) && isIntegralConstant(right, 0)) return left;
+            } else if (operator instanceof OperatorAnd || operator instanceof OperatorOr) {
+                // у && тождественный член true, у || - false
+                val identity = operator instanceof OperatorAnd;
+
+                if (leftType == BOOLEAN && isBooleanConstant(right, identity)) return left;
+                if (rightType == BOOLEAN && isBooleanConstant(left, identity)) return right;
+                if (leftType == BOOLEAN && leftSafe && isBooleanConstant(right, !identity)) return right;
+            } else if (operator instanceof OperatorEquals || operator instanceof OperatorNotEquals) {
+                val identity = operator instanceof OperatorEquals;
+
+                if (leftType == BOOLEAN && isBooleanConstant(right, identity)) return left;
+                if (rightType == BOOLEAN && isBooleanConstant(left, identity)) return right;
+            }
+
+            return binary(original, left, right, operator);
+        }
+
+        /**
+         * Упрощает {@code &} и {@code |}. Для чисел тождественный член - {@code identity},
+         * поглощающий - его дополнение, для boolean - {@code or} и {@code !or}.
+         */
+        Operand simplifyBitwise(
+                final Operand left,
+                final Operand right,
+                final int type,
+                final long identity,
+                final boolean or
+        ) {
+            val leftInfo = getInfo(left);
+            val rightInfo = getInfo(right);
+            val leftType = leftInfo & TYPE_MASK;
+            val rightType = rightInfo & TYPE_MASK;
+
+            if (isIntegral(type)) {
+                if (leftType == type && isIntegralConstant(right, identity)) return left;
+                if (rightType == type && isIntegralConstant(left, identity)) return right;
+
+                if ((leftInfo & SAFE) != 0 && isIntegralConstant(right, ~identity)
+                        || (rightInfo & SAFE) != 0 && isIntegralConstant(left, ~identity)) {
+                    return integralConstant(type, ~identity);
+                }
+            } else if (type == BOOLEAN) {
+                if (isBooleanConstant(right, !or)) return left;
+                if (isBooleanConstant(left, !or)) return right;
+
+                if ((leftInfo & SAFE) != 0 && isBooleanConstant(right, or)
+                        || (rightInfo & SAFE) != 0 && isBooleanConstant(left, or)) {
+                    return Operands.constantBoolean(or);
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Переносит целочисленные константы: {@code (x op c1) op c2} в {@code x op (c1 op c2)}.
+         * Целочисленная арифметика ассоциативна и по модулю переполнения, поэтому константа
+         * вычисляется в типе узла, а тип {@code x op c1} должен совпадать с ним.
+         */
+        Operand reassociate(final Operand left, final Operand right, final BinaryOperator operator, final int type) {
+            if (!(left instanceof OperandBinary) || !isIntegralConstant(right)
+                    || (getInfo(left) & TYPE_MASK) != type) {
+                return null;
+            }
+
+            val inner = (OperandBinary) left;
+            val innerOperator = inner.getOperator();
+
+            if (!isIntegralConstant(inner.getRightMember()) || inner.getLeftMember().isConstant()) {
+                return null;
+            }
+
+            val x = inner.getLeftMember();
+            val c1 = ((Number) inner.getRightMember().getValue()).longValue();
+            val c2 = ((Number) right.getValue()).longValue();
+
+            final BinaryOperator resultOperator;
+            final long value;
+
+            if (isAdditive(operator) && isAdditive(innerOperator)) {
+                val sum = (innerOperator instanceof OperatorPlus ? c1 : -c1)
+                        + (operator instanceof OperatorPlus ? c2 : -c2);
+
+                val normalized = type == INT ? (int) sum : sum;
+
+                if (innerOperator instanceof OperatorMinus && operator instanceof OperatorMinus) {
+                    // x - c1 - c2 => x - (c1 + c2)
+                    resultOperator = operator;
+                    value = -normalized;
+                } else if (innerOperator instanceof OperatorPlus && operator instanceof OperatorPlus
+                        || normalized >= 0 || normalized == (type == INT ? Integer.MIN_VALUE : Long.MIN_VALUE)) {
+                    resultOperator = innerOperator instanceof OperatorPlus ? innerOperator : operator;
+                    value = normalized;
+                } else {
+                    resultOperator = innerOperator instanceof OperatorMinus ? innerOperator : operator;
+                    value = -normalized;
+                }
+            } else if (operator.getClass() == innerOperator.getClass()) {
+                if (operator instanceof OperatorMultiply) {
+                    value = c1 * c2;
+                } else if (operator instanceof OperatorBitwiseAnd) {
+                    value = c1 & c2;
+                } else if (operator instanceof OperatorBitwiseOr) {
+                    value = c1 | c2;
+                } else if (operator instanceof OperatorBitwiseXor) {
+                    value = c1 ^ c2;
+                } else {
+                    return null;
+                }
+
+                resultOperator = operator;
+            } else {
+                return null;
+            }
+
+            return simplifyBinary(null, x, integralConstant(type, value), resultOperator);
+        }
+
+        boolean isAdditive(final BinaryOperator operator) {
+            return operator instanceof OperatorPlus || operator instanceof OperatorMinus;
+        }
+
+    }
+
+}
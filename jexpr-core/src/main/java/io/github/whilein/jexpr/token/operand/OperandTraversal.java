@@ -0,0 +1,408 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.token.operand;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.api.token.operand.OperandVariableResolver;
+import io.github.whilein.jexpr.api.token.operator.BinaryLazyOperator;
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Обход деревьев операндов без переполнения стека.
+ * <p>
+ * Машинно-сгенерированные выражения вроде {@code a + b + c + ...} строят деревья глубиной
+ * в десятки тысяч узлов. Неглубокие деревья обходятся рекурсивно, т.к. это быстрее всего,
+ * а поддеревья глубже {@link #MAX_RECURSION_DEPTH} - с явным стеком в куче.
+ *
+ * @author whilein
+ */
+@UtilityClass
+class OperandTraversal {
+
+    /**
+     * Глубина, после которой рекурсивный обход переключается на явный стек.
+     */
+    final int MAX_RECURSION_DEPTH = 256;
+
+    private final int INITIAL_STACK_SIZE = 32;
+
+    private final byte PRINT_LEFT_PARENTHESES = 1;
+    private final byte PRINT_RIGHT = 2;
+    private final byte PRINT_RIGHT_PARENTHESES = 4;
+
+    @NotNull Operand solve(final @NotNull Operand operand, final @NotNull OperandVariableResolver resolver) {
+        return solve(operand, resolver, 0);
+    }
+
+    private Operand solve(final Operand operand, final OperandVariableResolver resolver, final int depth) {
+        if (depth == MAX_RECURSION_DEPTH) {
+            return solveIterative(operand, resolver);
+        }
+
+        if (operand instanceof OperandBinaryImpl) {
+            val binary = (OperandBinaryImpl) operand;
+            val operator = binary.getOperator();
+
+            val solvedLeft = solve(binary.getLeftMember(), resolver, depth + 1);
+
+            if (isPredicable(solvedLeft, operator)) {
+                return solvedLeft.getPredictedResult((BinaryLazyOperator) operator);
+            }
+
+            return solvedLeft.apply(solve(binary.getRightMember(), resolver, depth + 1), operator);
+        }
+
+        if (operand instanceof OperandUnaryImpl) {
+            val unary = (OperandUnaryImpl) operand;
+
+            return solve(unary.getMember(), resolver, depth + 1).apply(unary.getOperator());
+        }
+
+        return operand.solve(resolver);
+    }
+
+    private boolean isPredicable(final Operand solvedLeft, final BinaryOperator operator) {
+        return operator instanceof BinaryLazyOperator && solvedLeft.isPredicable((BinaryLazyOperator) operator);
+    }
+
+    private Operand solveIterative(final Operand root, final OperandVariableResolver resolver) {
+        // узлы, которые ждут результат своих членов, и решённые левые члены бинарных узлов
+        Operand[] nodes = new Operand[INITIAL_STACK_SIZE];
+        Operand[] solvedLefts = new Operand[INITIAL_STACK_SIZE];
+        int size = 0;
+
+        Operand current = root;
+
+        while (true) {
+            Operand result;
+
+            // спускаемся по левой ветви до листа
+            while (true) {
+                if (current instanceof OperandBinaryImpl || current instanceof OperandUnaryImpl) {
+                    if (size == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, size * 2);
+                        solvedLefts = Arrays.copyOf(solvedLefts, size * 2);
+                    }
+
+                    nodes[size++] = current;
+
+                    current = current instanceof OperandBinaryImpl
+                            ? ((OperandBinaryImpl) current).getLeftMember()
+                            : ((OperandUnaryImpl) current).getMember();
+                } else {
+                    result = current.solve(resolver);
+                    break;
+                }
+            }
+
+            // поднимаемся, пока не встретим бинарный узел, у которого ещё не решён правый член
+            while (true) {
+                if (size == 0) {
+                    return result;
+                }
+
+                val node = nodes[size - 1];
+
+                if (node instanceof OperandUnaryImpl) {
+                    result = result.apply(((OperandUnaryImpl) node).getOperator());
+                } else {
+                    val binary = (OperandBinaryImpl) node;
+                    val operator = binary.getOperator();
+                    val solvedLeft = solvedLefts[size - 1];
+
+                    if (solvedLeft == null) {
+                        if (isPredicable(result, operator)) {
+                            result = result.getPredictedResult((BinaryLazyOperator) operator);
+                        } else {
+                            solvedLefts[size - 1] = result;
+                            current = binary.getRightMember();
+                            break;
+                        }
+                    } else {
+                        result = solvedLeft.apply(result, operator);
+                        solvedLefts[size - 1] = null;
+                    }
+                }
+
+                nodes[--size] = null;
+            }
+        }
+    }
+
+    boolean equals(final @NotNull Operand left, final @NotNull Operand right) {
+        return equals(left, right, 0);
+    }
+
+    private boolean equals(final Operand left, final Operand right, final int depth) {
+        if (left == right) {
+            return true;
+        }
+
+        if (depth == MAX_RECURSION_DEPTH) {
+            return equalsIterative(left, right);
+        }
+
+        if (left instanceof OperandBinaryImpl) {
+            if (!(right instanceof OperandBinaryImpl)) return false;
+
+            val leftBinary = (OperandBinaryImpl) left;
+            val rightBinary = (OperandBinaryImpl) right;
+
+            return leftBinary.hashCode() == rightBinary.hashCode()
+                    && leftBinary.getOperator() == rightBinary.getOperator()
+                    && equals(leftBinary.getLeftMember(), rightBinary.getLeftMember(), depth + 1)
+                    && equals(leftBinary.getRightMember(), rightBinary.getRightMember(), depth + 1);
+        }
+
+        if (left instanceof OperandUnaryImpl) {
+            if (!(right instanceof OperandUnaryImpl)) return false;
+
+            val leftUnary = (OperandUnaryImpl) left;
+            val rightUnary = (OperandUnaryImpl) right;
+
+            return leftUnary.hashCode() == rightUnary.hashCode()
+                    && leftUnary.getOperator() == rightUnary.getOperator()
+                    && equals(leftUnary.getMember(), rightUnary.getMember(), depth + 1);
+        }
+
+        return left.equals(right);
+    }
+
+    private boolean isComposite(final Operand operand) {
+        return operand instanceof OperandBinaryImpl || operand instanceof OperandUnaryImpl;
+    }
+
+    private boolean equalsIterative(final Operand leftRoot, final Operand rightRoot) {
+        // пары правых членов, которые ещё нужно сравнить, лежат в стеке друг за другом
+        Operand[] stack = new Operand[INITIAL_STACK_SIZE];
+        int size = 0;
+
+        Operand left = leftRoot;
+        Operand right = rightRoot;
+
+        while (true) {
+            // спускаемся по левой ветви, правые члены-листья сравниваем сразу
+            while (left != right) {
+                if (left instanceof OperandBinaryImpl) {
+                    if (!(right instanceof OperandBinaryImpl)) return false;
+
+                    val leftBinary = (OperandBinaryImpl) left;
+                    val rightBinary = (OperandBinaryImpl) right;
+
+                    if (leftBinary.hashCode() != rightBinary.hashCode()
+                            || leftBinary.getOperator() != rightBinary.getOperator()) {
+                        return false;
+                    }
+
+                    val leftRight = leftBinary.getRightMember();
+                    val rightRight = rightBinary.getRightMember();
+
+                    if (isComposite(leftRight)) {
+                        if (size + 2 > stack.length) {
+                            stack = Arrays.copyOf(stack, stack.length * 2);
+                        }
+
+                        stack[size++] = leftRight;
+                        stack[size++] = rightRight;
+                    } else if (!leftRight.equals(rightRight)) {
+                        return false;
+                    }
+
+                    left = leftBinary.getLeftMember();
+                    right = rightBinary.getLeftMember();
+                } else if (left instanceof OperandUnaryImpl) {
+                    if (!(right instanceof OperandUnaryImpl)) return false;
+
+                    val leftUnary = (OperandUnaryImpl) left;
+                    val rightUnary = (OperandUnaryImpl) right;
+
+                    if (leftUnary.hashCode() != rightUnary.hashCode()
+                            || leftUnary.getOperator() != rightUnary.getOperator()) {
+                        return false;
+                    }
+
+                    left = leftUnary.getMember();
+                    right = rightUnary.getMember();
+                } else if (!left.equals(right)) {
+                    return false;
+                } else {
+                    break;
+                }
+            }
+
+            if (size == 0) {
+                return true;
+            }
+
+            right = stack[--size];
+            left = stack[--size];
+        }
+    }
+
+    void print(final @NotNull Operand operand, final @NotNull StringBuilder out) {
+        print(operand, out, 0);
+    }
+
+    private void print(final Operand operand, final StringBuilder out, final int depth) {
+        if (depth == MAX_RECURSION_DEPTH) {
+            printIterative(operand, out);
+            return;
+        }
+
+        if (operand instanceof OperandBinaryImpl) {
+            val binary = (OperandBinaryImpl) operand;
+            val presence = binary.getOperator().getPresence();
+
+            val left = binary.getLeftMember();
+            val right = binary.getRightMember();
+
+            if (needsParentheses(left, presence)) {
+                out.append('(');
+                print(left, out, depth + 1);
+                out.append(')');
+            } else {
+                print(left, out, depth + 1);
+            }
+
+            out.append(' ').append(binary.getOperator().getValue()).append(' ');
+
+            if (needsParentheses(right, presence)) {
+                out.append('(');
+                print(right, out, depth + 1);
+                out.append(')');
+            } else {
+                print(right, out, depth + 1);
+            }
+        } else if (operand instanceof OperandUnaryImpl) {
+            val unary = (OperandUnaryImpl) operand;
+            val member = unary.getMember();
+
+            out.append(unary.getOperator().getValue());
+
+            if (member instanceof OperandBinary) {
+                out.append('(');
+                print(member, out, depth + 1);
+                out.append(')');
+            } else {
+                print(member, out, depth + 1);
+            }
+        } else {
+            operand.print(out);
+        }
+    }
+
+    private boolean needsParentheses(final Operand member, final int presence) {
+        return member instanceof OperandBinary
+                && ((OperandBinary) member).getOperator().getPresence() <= presence;
+    }
+
+    private void printIterative(final Operand root, final StringBuilder out) {
+        // узлы на пути от корня и флаги PRINT_* для каждого из них
+        Operand[] nodes = new Operand[INITIAL_STACK_SIZE];
+        byte[] states = new byte[INITIAL_STACK_SIZE];
+        int size = 0;
+
+        Operand current = root;
+
+        while (true) {
+            // спускаемся по левой ветви до листа
+            while (current instanceof OperandBinaryImpl || current instanceof OperandUnaryImpl) {
+                if (size == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, size * 2);
+                    states = Arrays.copyOf(states, size * 2);
+                }
+
+                byte state = 0;
+
+                if (current instanceof OperandBinaryImpl) {
+                    val binary = (OperandBinaryImpl) current;
+                    val left = binary.getLeftMember();
+
+                    if (needsParentheses(left, binary.getOperator().getPresence())) {
+                        out.append('(');
+                        state = PRINT_LEFT_PARENTHESES;
+                    }
+
+                    nodes[size] = current;
+                    current = left;
+                } else {
+                    val unary = (OperandUnaryImpl) current;
+                    val member = unary.getMember();
+
+                    out.append(unary.getOperator().getValue());
+
+                    if (member instanceof OperandBinary) {
+                        out.append('(');
+                        state = PRINT_LEFT_PARENTHESES;
+                    }
+
+                    nodes[size] = current;
+                    current = member;
+                }
+
+                states[size++] = state;
+            }
+
+            current.print(out);
+
+            // поднимаемся, пока не встретим бинарный узел, у которого ещё не выведен правый член
+            while (true) {
+                if (size == 0) {
+                    return;
+                }
+
+                val node = nodes[size - 1];
+                val state = states[size - 1];
+
+                if ((state & PRINT_RIGHT) == 0) {
+                    if ((state & PRINT_LEFT_PARENTHESES) != 0) {
+                        out.append(')');
+                    }
+
+                    if (node instanceof OperandBinaryImpl) {
+                        val binary = (OperandBinaryImpl) node;
+                        val operator = binary.getOperator();
+
+                        out.append(' ').append(operator.getValue()).append(' ');
+
+                        current = binary.getRightMember();
+
+                        if (needsParentheses(current, operator.getPresence())) {
+                            out.append('(');
+                            states[size - 1] = PRINT_RIGHT | PRINT_RIGHT_PARENTHESES;
+                        } else {
+                            states[size - 1] = PRINT_RIGHT;
+                        }
+
+                        break;
+                    }
+                } else if ((state & PRINT_RIGHT_PARENTHESES) != 0) {
+                    out.append(')');
+                }
+
+                nodes[--size] = null;
+            }
+        }
+    }
+
+}
@@ -20,7 +20,6 @@ import io.github.whilein.jexpr.api.token.operand.*;
 import io.github.whilein.jexpr.api.token.operator.UnaryOperator;
 import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.jetbrains.annotations.NotNull;
 
@@ -29,20 +28,48 @@ import org.jetbrains.annotations.NotNull;
  */
 @Getter
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
-@RequiredArgsConstructor
 final class OperandUnaryImpl extends OperandBase implements OperandUnary {
 
-    OperandVariable member;
+    Operand member;
     UnaryOperator operator;
 
+    @Getter(AccessLevel.NONE)
+    int hash;
+
+    OperandUnaryImpl(final Operand member, final UnaryOperator operator) {
+        this.member = member;
+        this.operator = operator;
+        this.hash = hash(member, operator);
+    }
+
+    static int hash(final Operand member, final UnaryOperator operator) {
+        return member.hashCode() * 31 + operator.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj == this || obj instanceof OperandUnaryImpl && OperandTraversal.equals(this, (Operand) obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     @Override
     public <T> @NotNull T apply(@NotNull OperandMapper<T> mapper) {
-        return mapper.mapUnary(member, operator);
+        return member instanceof OperandVariable
+                ? mapper.mapUnary((OperandVariable) member, operator)
+                : mapper.mapUnary((OperandConstant) member, operator);
     }
 
     @Override
     public void accept(@NotNull OperandVisitor visitor) {
-        visitor.visitUnary(member, operator);
+        if (member instanceof OperandVariable) {
+            visitor.visitUnary((OperandVariable) member, operator);
+        } else {
+            visitor.visitUnary((OperandConstant) member, operator);
+        }
     }
 
     @Override
@@ -52,19 +79,11 @@ final class OperandUnaryImpl extends OperandBase implements OperandUnary {
 
     @Override
     public void print(final @NotNull StringBuilder out) {
-        out.append(operator.getValue());
-
-        if (member instanceof OperandBinary) {
-            out.append('(');
-            member.print(out);
-            out.append(')');
-        } else {
-            member.print(out);
-        }
+        OperandTraversal.print(this, out);
     }
 
     @Override
     public @NotNull Operand solve(final @NotNull OperandVariableResolver resolver) {
-        return member.solve(resolver).apply(operator);
+        return OperandTraversal.solve(this, resolver);
     }
 }
@@ -65,6 +65,36 @@ public class Operands {
         return object == null ? NULL : new OperandObjectImpl(object);
     }
 
+    /**
+     * Wrap a java value into constant operand of matching kind: boxed primitives become numeric
+     * and boolean constants, strings become string constants, operands are returned as is.
+     *
+     * @param value value
+     * @return operand
+     */
+    public @NotNull Operand constant(@Nullable Object value) {
+        // сначала проверяются конечные классы, проверка интерфейса медленнее
+        if (value instanceof Integer) {
+            return constantInt((Integer) value);
+        } else if (value instanceof Double) {
+            return constantDouble((Double) value);
+        } else if (value instanceof Long) {
+            return constantLong((Long) value);
+        } else if (value instanceof Boolean) {
+            return constantBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            return constantString((String) value);
+        } else if (value instanceof Float) {
+            return constantFloat((Float) value);
+        } else if (value instanceof Short || value instanceof Byte) {
+            return constantInt(((Number) value).intValue());
+        } else if (value instanceof Operand) {
+            return (Operand) value;
+        } else {
+            return constantObject(value);
+        }
+    }
+
     public @NotNull OperandConstant constantNull() {
         return constantObject(null);
     }
@@ -93,8 +123,24 @@ public class Operands {
         return new OperandBinaryImpl(left, right, op);
     }
 
+    /**
+     * Create binary node even if both members are constant, e.g. to keep {@code 1 / 0}
+     * in a branch, which may be never evaluated. Such node is folded when it is solved.
+     */
+    public @NotNull OperandBinary deferredBinary(@NotNull Operand left, @NotNull Operand right, @NotNull BinaryOperator op) {
+        return new OperandBinaryImpl(left, right, op);
+    }
+
     public @NotNull OperandUnary unary(@NotNull OperandVariable member, @NotNull UnaryOperator op) {
         return new OperandUnaryImpl(member, op);
     }
 
+    /**
+     * Create unary node even if its member is constant, e.g. to keep {@code !0}
+     * in a branch, which may be never evaluated. Such node is folded when it is solved.
+     */
+    public @NotNull OperandUnary deferredUnary(@NotNull Operand member, @NotNull UnaryOperator op) {
+        return new OperandUnaryImpl(member, op);
+    }
+
 }
@@ -0,0 +1,116 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.token.operator;
+
+import io.github.whilein.jexpr.api.token.operator.Operator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable trie of operator values. Children of each node are stored in a dense array
+ * indexed by character, so transition to the next node costs single array access.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class OperatorTrie<T extends Operator> {
+
+    private static final OperatorTrie<?> EMPTY = new OperatorTrie<>(null, Collections.emptySet(),
+            0, new OperatorTrie[0]);
+
+    /**
+     * Operator which value ends at this node.
+     */
+    @Getter
+    @Nullable T operator;
+
+    /**
+     * Operators which values start with prefix of this node.
+     */
+    @Getter
+    @Unmodifiable @NotNull Set<@NotNull T> operators;
+
+    int childOffset;
+
+    OperatorTrie<T>[] children;
+
+    @SuppressWarnings("unchecked")
+    static <T extends Operator> @NotNull OperatorTrie<T> empty() {
+        return (OperatorTrie<T>) EMPTY;
+    }
+
+    static <T extends Operator> @NotNull OperatorTrie<T> build(final @NotNull Collection<T> operators) {
+        return operators.isEmpty() ? empty() : build(operators, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Operator> OperatorTrie<T> build(final Collection<T> operators, final int depth) {
+        T operator = null;
+
+        val childOperators = new TreeMap<Character, List<T>>();
+
+        for (val item : operators) {
+            val value = item.getValue();
+
+            if (value.length() == depth) {
+                operator = item;
+            } else {
+                childOperators.computeIfAbsent(value.charAt(depth), __ -> new ArrayList<>()).add(item);
+            }
+        }
+
+        final int childOffset;
+        final OperatorTrie<T>[] children;
+
+        if (childOperators.isEmpty()) {
+            childOffset = 0;
+            children = new OperatorTrie[0];
+        } else {
+            childOffset = childOperators.firstKey();
+            children = new OperatorTrie[childOperators.lastKey() - childOffset + 1];
+
+            for (val entry : childOperators.entrySet()) {
+                children[entry.getKey() - childOffset] = build(entry.getValue(), depth + 1);
+            }
+        }
+
+        return new OperatorTrie<>(operator, Collections.unmodifiableSet(new LinkedHashSet<>(operators)),
+                childOffset, children);
+    }
+
+    public @Nullable OperatorTrie<T> child(final int ch) {
+        val index = ch - childOffset;
+
+        return index >= 0 && index < children.length ? children[index] : null;
+    }
+
+}
@@ -22,14 +22,9 @@ import io.github.whilein.jexpr.api.token.operator.OperatorMatcher;
 import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
-import lombok.val;
+import lombok.experimental.NonFinal;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.NavigableMap;
-import java.util.TreeMap;
-
 /**
  * @author whilein
  */
@@ -38,48 +33,47 @@ public class SimpleOperatorRegistry<T extends Operator>
         extends AbstractRegistry<T, String>
         implements OperatorRegistry<T> {
 
-    Map<Integer, NavigableMap<String, T>> firstCharacterOperatorMap = new HashMap<>();
+    /**
+     * Префиксное дерево всех операторов, пересоздаётся при каждом изменении реестра.
+     */
+    @NonFinal
+    volatile OperatorTrie<T> trie = OperatorTrie.empty();
 
     @Override
     protected void onRegister(T item) {
-        firstCharacterOperatorMap.computeIfAbsent(firstCharacter(item), __ -> new TreeMap<>())
-                .put(item.getValue(), item);
+        rebuildTrie();
     }
 
     @Override
     protected void onUnregister(T item) {
-        val firstCharacter = firstCharacter(item);
-
-        val operators = firstCharacterOperatorMap.get(firstCharacter);
-
-        if (operators != null) {
-            operators.remove(item.getValue(), item);
+        rebuildTrie();
+    }
 
-            if (operators.isEmpty()) {
-                firstCharacterOperatorMap.remove(firstCharacter);
-            }
-        }
+    private void rebuildTrie() {
+        trie = OperatorTrie.build(map.values());
     }
 
-    private static int firstCharacter(Operator operator) {
-        return operator.getValue().charAt(0);
+    OperatorTrie<T> getTrie() {
+        return trie;
     }
 
     @Override
     public boolean hasMatcher(final int ch) {
-        return firstCharacterOperatorMap.containsKey(ch);
+        return trie.child(ch) != null;
     }
 
     @Override
-    public @NotNull OperatorMatcher<T> matchOperator(final int ch) {
-        val operators = firstCharacterOperatorMap.get(ch);
+    public @NotNull OperatorMatcher<T> createMatcher() {
+        return new TrieOperatorMatcher<>(this);
+    }
 
-        if (operators == null) {
+    @Override
+    public @NotNull OperatorMatcher<T> matchOperator(final int ch) {
+        if (!hasMatcher(ch)) {
             throw new IllegalStateException("No matchers for " + (char) ch);
         }
 
-        return NavigableMapOperatorMatcher.create(new TreeMap<>(operators));
+        return createMatcher();
     }
 
-
 }
@@ -22,60 +22,62 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
-import lombok.val;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.NavigableMap;
 import java.util.Set;
 
 /**
+ * Cursor over {@link OperatorTrie} of the registry. Matcher takes the current trie of the registry
+ * on the first character, so it sees registry changes after {@link #reset()}.
+ *
  * @author whilein
  */
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
-@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-public final class NavigableMapOperatorMatcher<T extends Operator> implements OperatorMatcher<T> {
+@RequiredArgsConstructor
+final class TrieOperatorMatcher<T extends Operator> implements OperatorMatcher<T> {
 
-    NavigableMap<String, T> operatorMap;
+    SimpleOperatorRegistry<T> registry;
 
+    /**
+     * Текущий узел, {@code null} до первого символа.
+     */
     @NonFinal
-    int position;
+    OperatorTrie<T> node;
+
+    private OperatorTrie<T> current() {
+        final OperatorTrie<T> node;
 
-    public static <T extends Operator> @NotNull OperatorMatcher<T> create(
-            final @NotNull NavigableMap<@NotNull String, T> operatorMap
-    ) {
-        return new NavigableMapOperatorMatcher<>(operatorMap);
+        return (node = this.node) == null ? registry.getTrie() : node;
     }
 
     @Override
     public void next(final int ch) {
-        operatorMap.keySet().removeIf(operator -> operator.length() <= position || operator.charAt(position) != ch);
-        position++;
+        final OperatorTrie<T> child;
+
+        node = (child = current().child(ch)) != null ? child : OperatorTrie.empty();
     }
 
     @Override
     public boolean hasNext(final int ch) {
-        for (val operator : operatorMap.keySet()) {
-            if (position < operator.length() && operator.charAt(position) == ch) {
-                return true;
-            }
-        }
-
-        return false;
+        return current().child(ch) != null;
     }
 
     @Override
     public @NotNull Set<@NotNull T> getProbablyResults() {
-        return Collections.unmodifiableSet(new HashSet<>(operatorMap.values()));
+        return current().getOperators();
     }
 
     @Override
     public @Nullable T getMatchedResult() {
-        val operator = operatorMap.firstEntry().getValue();
+        final OperatorTrie<T> node;
 
-        return operator.getValue().length() != position ? null : operator;
+        return (node = this.node) == null ? null : node.getOperator();
+    }
+
+    @Override
+    public void reset() {
+        node = null;
     }
 
 }
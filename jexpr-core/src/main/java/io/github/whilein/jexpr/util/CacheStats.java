@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.util;
+
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Snapshot of {@link LruCache} statistics.
+ *
+ * @author whilein
+ */
+@Value
+public class CacheStats {
+
+    long hitCount;
+
+    long missCount;
+
+    long evictionCount;
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    public double getHitRate() {
+        val requestCount = getRequestCount();
+
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+}
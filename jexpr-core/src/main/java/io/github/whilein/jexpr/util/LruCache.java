@@ -0,0 +1,187 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.util;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache with least-recently-used eviction. Keys are spread over independently locked
+ * segments, so concurrent lookups of different keys rarely contend.
+ * <p>
+ * Values are loaded outside of locks, so concurrent misses of the same key may load it more than once,
+ * the first stored value wins.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class LruCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    Segment<K, V>[] segments;
+
+    int segmentMask;
+
+    LongAdder hitCount = new LongAdder();
+
+    LongAdder missCount = new LongAdder();
+
+    LongAdder evictionCount = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    private LruCache(final int maximumSize) {
+        int segmentCount = 1;
+
+        // каждый сегмент должен вмещать хотя бы 16 элементов
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 * 16 <= maximumSize) {
+            segmentCount <<= 1;
+        }
+
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+
+        // остаток делится между первыми сегментами, чтобы суммарная вместимость была ровно maximumSize
+        val segmentSize = maximumSize / segmentCount;
+        val remainder = maximumSize % segmentCount;
+
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(i < remainder ? segmentSize + 1 : segmentSize, evictionCount);
+        }
+    }
+
+    public static <K, V> @NotNull LruCache<K, V> create(final int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+
+        return new LruCache<>(maximumSize);
+    }
+
+    private Segment<K, V> segmentFor(final Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+
+        return segments[hash & segmentMask];
+    }
+
+    public @Nullable V getIfPresent(final @NotNull K key) {
+        val segment = segmentFor(key);
+
+        final V value;
+
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+
+        (value != null ? hitCount : missCount).increment();
+
+        return value;
+    }
+
+    public @NotNull V get(final @NotNull K key, final @NotNull Function<? super K, ? extends @NotNull V> loader) {
+        val value = getIfPresent(key);
+
+        if (value != null) {
+            return value;
+        }
+
+        val loaded = loader.apply(key);
+        val segment = segmentFor(key);
+
+        synchronized (segment) {
+            val existing = segment.putIfAbsent(key, loaded);
+
+            return existing != null ? existing : loaded;
+        }
+    }
+
+    public void put(final @NotNull K key, final @NotNull V value) {
+        val segment = segmentFor(key);
+
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public void invalidate(final @NotNull K key) {
+        val segment = segmentFor(key);
+
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (val segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+
+        for (val segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    public @NotNull CacheStats getStats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum());
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        int maximumSize;
+
+        LongAdder evictionCount;
+
+        Segment(final int maximumSize, final LongAdder evictionCount) {
+            super(16, 0.75f, true);
+
+            this.maximumSize = maximumSize;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            if (size() > maximumSize) {
+                evictionCount.increment();
+                return true;
+            }
+
+            return false;
+        }
+
+    }
+
+}
@@ -26,15 +26,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * @author whilein
  */
 final class BinaryOperatorTokenParserTests extends AbstractTokenParserTests {
 
+    SimpleOperatorRegistry<BinaryOperator> registry;
+
     @BeforeEach
     void setup() {
-        val registry = new DefaultBinaryOperatorRegistry();
+        registry = new DefaultBinaryOperatorRegistry();
 
         tokenParser = new BinaryOperatorTokenParser(registry);
         ignoreCannotBeSelected = true;
@@ -148,4 +151,21 @@ final class BinaryOperatorTokenParserTests extends AbstractTokenParserTests {
         testOperator(">>>", "BITWISE_UNSIGNED_RIGHT_SHIFT");
     }
 
-}
\ No newline at end of file
+    @Test
+    void testMatcherReuse() {
+        testOperator(">>>", "BITWISE_UNSIGNED_RIGHT_SHIFT");
+        testOperator("<", "STRICT_LESS");
+        testOperator(">>", "BITWISE_RIGHT_SHIFT");
+    }
+
+    @Test
+    void testUnregister() {
+        registry.unregister("<=");
+
+        assertThrows(IllegalStateException.class, () -> parseOperator("<="));
+
+        tokenParser.reset();
+        testOperator("<<", "BITWISE_LEFT_SHIFT");
+    }
+
+}
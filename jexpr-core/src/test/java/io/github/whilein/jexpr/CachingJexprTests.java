@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.exception.SyntaxException;
+import io.github.whilein.jexpr.util.LruCache;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class CachingJexprTests {
+
+    CachingJexpr jexpr;
+
+    @BeforeEach
+    void setup() {
+        jexpr = CachingJexpr.create(64);
+    }
+
+    @Test
+    void testSameOperand() {
+        val first = jexpr.parse("a + b * 2");
+        val second = jexpr.parse("a + b * 2");
+
+        assertSame(first, second);
+
+        val stats = jexpr.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    @Test
+    void testFailureNotCached() {
+        assertThrows(SyntaxException.class, () -> jexpr.parse("1 +"));
+        assertThrows(SyntaxException.class, () -> jexpr.parse("1 +"));
+
+        assertEquals(0, jexpr.size());
+        assertEquals(2, jexpr.getStats().getMissCount());
+    }
+
+    @Test
+    void testBounded() {
+        for (int i = 0; i < 1000; i++) {
+            jexpr.parse("x + " + i);
+        }
+
+        assertTrue(jexpr.size() <= 64);
+        assertEquals(1000 - jexpr.size(), jexpr.getStats().getEvictionCount());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvicted() {
+        LruCache<Integer, String> cache = LruCache.create(2);
+
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.getIfPresent(1);
+        cache.put(3, "3");
+
+        assertEquals("1", cache.getIfPresent(1));
+        assertNull(cache.getIfPresent(2));
+        assertEquals("3", cache.getIfPresent(3));
+    }
+
+    @Test
+    void testTotalSizeNeverExceedsMaximum() {
+        for (val maximumSize : new int[]{1, 31, 33, 47, 100, 255, 257, 1000, 1023}) {
+            LruCache<Integer, Integer> cache = LruCache.create(maximumSize);
+
+            for (int i = 0; i < maximumSize * 8; i++) {
+                cache.put(i, i);
+
+                assertTrue(cache.size() <= maximumSize, "maximumSize = " + maximumSize);
+            }
+        }
+    }
+
+}
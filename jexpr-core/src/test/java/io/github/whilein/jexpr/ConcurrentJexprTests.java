@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.Jexpr;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+/**
+ * @author whilein
+ */
+final class ConcurrentJexprTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = ConcurrentJexpr.create();
+    }
+
+    @Test
+    void testParserPerThread() throws Exception {
+        val executor = Executors.newSingleThreadExecutor();
+
+        try {
+            assertNotSame(jexpr.getOperandParser(), executor.submit(jexpr::getOperandParser).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelParse() throws Exception {
+        val threads = 8;
+        val executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            val start = new CountDownLatch(1);
+            val futures = new ArrayList<Future<?>>();
+
+            for (int i = 0; i < threads; i++) {
+                val n = i;
+
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+
+                    for (int j = 0; j < 1000; j++) {
+                        assertEquals(n * j + 1, jexpr.parse("(" + n + " * " + j + ") + 1").getValue());
+                        assertEquals("x + " + j, jexpr.parse("x + " + j).toString());
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (val future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
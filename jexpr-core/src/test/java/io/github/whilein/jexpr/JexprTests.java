@@ -26,9 +26,18 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
@@ -138,4 +147,189 @@ final class JexprTests {
         assertEquals((0xFaL ^ -~0b10) + 009_9.9_9d, parse("(0xFaL ^ -~0b10) + 009_9.9_9d").getValue());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testChunkBoundaries() {
+        val expressions = Arrays.asList(
+                "(0xFaL ^ -~0b10) + 009_9.9_9d",
+                "12345678 * 1_000 - 1.5e+3F",
+                "'some \\u0041\\t\\'string\\'' + \"other\"",
+                "((first.second) + third_variable$) >= 100",
+                "  (  ( 1 ) )  +  ( ( 2 ) )  "
+        );
+
+        for (val expression : expressions) {
+            val expected = parse(expression).toString();
+
+            for (int chunk = 1; chunk <= 4; chunk++) {
+                assertEquals(expected, jexpr.parse(new ChunkedReader(new StringReader(expression), chunk))
+                        .toString(), expression + " (chunk = " + chunk + ")");
+            }
+        }
+    }
+
+    @Test
+    void testLongExpression() {
+        val expression = new StringBuilder("0");
+
+        for (int i = 1; i <= 5000; i++) {
+            expression.append(" + ").append(i);
+        }
+
+        assertEquals(5000 * 5001 / 2, parse(expression.toString()).getValue());
+    }
+
+    @Test
+    void testDeepLeftChain() {
+        val expression = new StringBuilder("x");
+
+        for (int i = 1; i < 50_000; i++) {
+            expression.append(" + x");
+        }
+
+        val text = expression.toString();
+        val operand = parse(text);
+
+        val printed = new StringBuilder();
+
+        for (int i = 2; i < 50_000; i++) {
+            printed.append('(');
+        }
+
+        printed.append("x + x");
+
+        for (int i = 2; i < 50_000; i++) {
+            printed.append(") + x");
+        }
+
+        assertEquals(50_000, operand.solve(new VariablesMap().put("x", 1)).getValue());
+        assertEquals(printed.toString(), operand.toString());
+        assertEquals(operand, parse(text));
+        assertEquals(operand.hashCode(), parse(text).hashCode());
+        assertNotEquals(operand, parse(text + " + 1"));
+    }
+
+    @Test
+    void testDeepLazyChain() {
+        val expression = new StringBuilder("x");
+
+        for (int i = 1; i < 50_000; i++) {
+            expression.append(" && y");
+        }
+
+        val map = new VariablesMap()
+                .put("x", Operands.constantBoolean(false))
+                .put("y", Operands.constantBoolean(true));
+
+        assertEquals(false, parse(expression.toString()).solve(map).getValue());
+        assertEquals(Collections.singletonList("x"), map.getHistory());
+    }
+
+    @Test
+    void testDeepNesting() {
+        val expression = new StringBuilder();
+
+        for (int i = 0; i < 500; i++) {
+            expression.append("(-x + (");
+        }
+
+        expression.append('1');
+
+        for (int i = 0; i < 500; i++) {
+            expression.append("))");
+        }
+
+        val text = expression.toString();
+
+        // скобки переиспользуются, повторный разбор должен давать тот же результат
+        assertEquals(parse(text).toString(), parse(text).toString());
+
+        val printed = new StringBuilder();
+
+        for (int i = 1; i < 500; i++) {
+            printed.append("-x + (");
+        }
+
+        printed.append("-x + 1");
+
+        for (int i = 1; i < 500; i++) {
+            printed.append(')');
+        }
+
+        assertEquals(printed.toString(), parse(text).toString());
+        assertEquals(parse(text), parse(text));
+        assertEquals(1 - 500 * 2, parse(text).solve(new VariablesMap().put("x", 2)).getValue());
+        assertThrows(SyntaxException.class, () -> parse("((1 + (2 *))"));
+        assertEquals(-6, parse("-((1 + (2)) * ((2)))").getValue());
+    }
+
+    @Test
+    void testNonAsciiString() {
+        val expression = "'привет, 🤡' + \"ß\"";
+        val bytes = expression.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("привет, 🤡ß", parse(expression).getValue());
+        assertEquals("привет, 🤡ß", jexpr.parse(bytes).getValue());
+        assertEquals("привет, 🤡ß", jexpr.parse(new ByteArrayInputStream(bytes)).getValue());
+    }
+
+    @Test
+    void testNonAsciiReference() {
+        assertEquals("имя + 1", parse("имя + 1").toString());
+        assertEquals("имя + 1", jexpr.parse("имя + 1".getBytes(StandardCharsets.UTF_8)).toString());
+    }
+
+    @Test
+    void testByteArraySlice() {
+        val bytes = "[[ 'ä' + 1 ]]".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("ä1", jexpr.parse(bytes, 3, bytes.length - 6).getValue());
+    }
+
+    @Test
+    void testByteBuffer() {
+        val bytes = "xx'ä' + 2".getBytes(StandardCharsets.UTF_8);
+
+        val direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip().position(2);
+
+        assertEquals("ä2", jexpr.parse(direct).getValue());
+        assertEquals(2, direct.position());
+
+        val heap = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        assertEquals("ä2", jexpr.parse(heap).getValue());
+    }
+
+    @Test
+    void testMalformedUtf8() {
+        val bytes = new byte[]{'\'', (byte) 0xC3, '\''};
+
+        assertThrows(SyntaxException.class, () -> jexpr.parse(bytes));
+        assertThrows(SyntaxException.class, () -> jexpr.parse(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void testCharSequenceRange() {
+        val text = new StringBuilder("ignored; 2 * (x + 1); ignored");
+
+        assertEquals("2 * (x + 1)", jexpr.parse(text, 9, 20).toString());
+        assertEquals(3, jexpr.parse("(1 + 2) * 2", 0, 7).getValue());
+    }
+
+    private static final class ChunkedReader extends FilterReader {
+
+        final int chunk;
+
+        ChunkedReader(final Reader in, final int chunk) {
+            super(in);
+
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(final char @NotNull [] buffer, final int offset, final int length) throws IOException {
+            return super.read(buffer, offset, Math.min(length, chunk));
+        }
+
+    }
+
+}
@@ -16,12 +16,17 @@
 
 package io.github.whilein.jexpr;
 
+import io.github.whilein.jexpr.api.exception.SyntaxException;
 import io.github.whilein.jexpr.io.ByteArrayOutput;
 import io.github.whilein.jexpr.token.NumberTokenParser;
+import lombok.val;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * @author whilein
@@ -161,4 +166,43 @@ final class NumberTokenParserTests extends AbstractTokenParserTests {
         assertEquals(0b0101, parse("0b0101"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void parseIntBounds() {
+        assertEquals(Integer.MAX_VALUE, parse("2147483647"));
+        assertEquals(0x7fffffff, parse("0x7fffffff"));
+        assertThrows(SyntaxException.class, () -> parse("2147483648"));
+        assertThrows(SyntaxException.class, () -> parse("0xffffffff"));
+    }
+
+    @Test
+    void parseLongBounds() {
+        assertEquals(Long.MAX_VALUE, parse("9223372036854775807L"));
+        assertEquals(0x7fff_ffff_ffff_ffffL, parse("0x7fff_ffff_ffff_ffffL"));
+        assertThrows(SyntaxException.class, () -> parse("9223372036854775808L"));
+    }
+
+    @Test
+    void parseHardDoubles() {
+        assertEquals(0.30000000000000004, parse("0.30000000000000004"));
+        assertEquals(9007199254740993.0, parse("9007199254740993.0"));
+        assertEquals(1e300, parse("1.0e300"));
+        assertEquals(4.9e-324, parse("4.9e-324"));
+        assertEquals(Double.POSITIVE_INFINITY, parse("1.0e999"));
+        assertEquals(16777217f, parse("16777217.0f"));
+        assertEquals(3.4028235e38f, parse("3.4028235e38f"));
+    }
+
+    @Test
+    void parseRandomReals() {
+        val random = new Random(0);
+
+        for (int i = 0; i < 10000; i++) {
+            val text = random.nextInt(100000) + "." + random.nextInt(1000000)
+                    + "e" + (random.nextInt(60) - 30);
+
+            assertEquals(Double.parseDouble(text), parse(text), text);
+            assertEquals(Float.parseFloat(text), parse(text + "f"), text);
+        }
+    }
+
+}
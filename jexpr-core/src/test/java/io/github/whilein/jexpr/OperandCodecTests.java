@@ -0,0 +1,228 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.exception.SyntaxException;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.io.OperandDecoder;
+import io.github.whilein.jexpr.io.OperandEncoder;
+import io.github.whilein.jexpr.token.operand.Operands;
+import io.github.whilein.jexpr.token.operator.DefaultUnaryOperatorRegistry;
+import io.github.whilein.jexpr.token.operator.SimpleOperatorRegistry;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class OperandCodecTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+    }
+
+    private static final String[] EXPRESSIONS = {
+            "a + 1",
+            "-a * (b - 2L) / 3.5 % 1.5f",
+            "!flag && name == \"имя\" || x.y.z >= 1.0e300",
+            "~mask & 0xFF | -2147483647 ^ 9223372036854775807L",
+            "a + 'a' + null + true + false",
+            "(a << 2) >> 3 >>> 4 != -b",
+    };
+
+    @Test
+    void testRoundTrip() {
+        val encoder = OperandEncoder.create();
+
+        for (val expression : EXPRESSIONS) {
+            encoder.write(jexpr.parse(expression));
+        }
+
+        val decoder = OperandDecoder.create(encoder.toByteArray(), jexpr);
+
+        for (val expression : EXPRESSIONS) {
+            assertEquals(jexpr.parse(expression).toString(), decoder.read().toString(), expression);
+        }
+
+        assertFalse(decoder.hasNext());
+    }
+
+    @Test
+    void testConstants() {
+        val values = Arrays.asList(
+                Operands.constantInt(Integer.MIN_VALUE), Operands.constantLong(Long.MIN_VALUE),
+                Operands.constantDouble(Double.NaN), Operands.constantFloat(-0f),
+                Operands.constantString(""), Operands.constantNull()
+        );
+
+        val encoder = OperandEncoder.create();
+        values.forEach(encoder::write);
+
+        val buffer = ByteBuffer.allocateDirect(encoder.size());
+        buffer.put(encoder.toByteArray()).flip();
+
+        val decoder = OperandDecoder.create(buffer, jexpr);
+
+        for (val value : values) {
+            assertEquals(value.getValue(), decoder.read().getValue());
+        }
+
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void testSharedReferences() {
+        val encoder = OperandEncoder.create();
+        encoder.write(jexpr.parse("name + 1"));
+        encoder.write(jexpr.parse("name * 2"));
+
+        val decoder = OperandDecoder.create(encoder.toByteArray(), jexpr);
+
+        assertSame(((OperandBinary) decoder.read()).getLeftMember(),
+                ((OperandBinary) decoder.read()).getLeftMember());
+    }
+
+    @Test
+    void testMalformed() {
+        val encoder = OperandEncoder.create();
+        encoder.write(jexpr.parse("a + b * c"));
+
+        val bytes = encoder.toByteArray();
+
+        assertThrows(SyntaxException.class, () -> OperandDecoder.create(new byte[]{1, 2, 3}, jexpr));
+        assertThrows(SyntaxException.class, () -> OperandDecoder.create(Arrays.copyOf(bytes, bytes.length - 1), jexpr)
+                .read());
+        assertThrows(SyntaxException.class, () -> OperandDecoder.create(ByteBuffer.wrap(bytes),
+                new SimpleOperatorRegistry<>(), new DefaultUnaryOperatorRegistry()).read());
+        assertThrows(IllegalArgumentException.class, () -> encoder.write(Operands.constantObject(new Object())));
+    }
+
+    @Test
+    void testDeferredBinary() {
+        val operand = Operands.deferredBinary(Operands.constantInt(1), Operands.constantInt(0),
+                jexpr.getBinaryOperatorRegistry().get("/"));
+
+        val encoder = OperandEncoder.create();
+        encoder.write(operand);
+
+        assertEquals(operand, OperandDecoder.create(encoder.toByteArray(), jexpr).read());
+    }
+
+    @Test
+    void testDeferredUnary() {
+        val operand = Operands.deferredUnary(Operands.constantInt(0), jexpr.getUnaryOperatorRegistry().get("!"));
+
+        val encoder = OperandEncoder.create();
+        encoder.write(operand);
+
+        assertEquals(operand, OperandDecoder.create(encoder.toByteArray(), jexpr).read());
+    }
+
+    @Test
+    void testMalformedStructure() {
+        // оборванный унарный оператор
+        assertMalformed(10, 0, 1, '-');
+        // ссылка на строку, которой нет в таблице, и отрицательный номер
+        assertMalformed(8, 5);
+        assertMalformed(8, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+        // длина строки больше оставшихся данных
+        assertMalformed(8, 0, 10, 'a');
+        // оборванная последовательность модифицированного UTF-8
+        assertMalformed(8, 0, 2, 0xE0, 0x80);
+        // оборванный бинарный оператор
+        assertMalformed(9, 0, 1, '+', 8, 0, 1, 'a');
+    }
+
+    private static void assertMalformed(final int... operand) {
+        val bytes = new byte[5 + operand.length];
+        bytes[0] = 'J';
+        bytes[1] = 'X';
+        bytes[2] = 'P';
+        bytes[3] = 'R';
+        bytes[4] = 1;
+
+        for (int i = 0; i < operand.length; i++) {
+            bytes[5 + i] = (byte) operand[i];
+        }
+
+        assertThrows(SyntaxException.class, () -> OperandDecoder.create(bytes, jexpr).read());
+    }
+
+    @Test
+    void testLoneSurrogates() {
+        val values = Arrays.asList(
+                Operands.constantString("\uD800x"),
+                Operands.constantString("x\uDC00"),
+                Operands.constantString("\u0000\uD83D\uDE00\u07FF\uFFFF"),
+                Operands.reference("\uDBFF")
+        );
+
+        val encoder = OperandEncoder.create();
+        values.forEach(encoder::write);
+
+        val decoder = OperandDecoder.create(encoder.toByteArray(), jexpr);
+
+        for (val value : values) {
+            assertEquals(value.toString(), decoder.read().toString());
+        }
+    }
+
+    @Test
+    void testDeepOperand() {
+        val plus = jexpr.getBinaryOperatorRegistry().get("+");
+        Operand operand = Operands.reference("x");
+
+        for (int i = 0; i < 100_000; i++) {
+            operand = Operands.binary(Operands.reference("x"), operand, plus);
+        }
+
+        val encoder = OperandEncoder.create();
+        encoder.write(operand);
+        encoder.write(operand);
+
+        val decoder = OperandDecoder.create(encoder.toByteArray(), jexpr);
+
+        for (int i = 0; i < 2; i++) {
+            Operand decoded = decoder.read();
+            int depth = 0;
+
+            while (decoded instanceof OperandBinary) {
+                decoded = ((OperandBinary) decoded).getRightMember();
+                depth++;
+            }
+
+            assertEquals(100_000, depth);
+        }
+
+        assertFalse(decoder.hasNext());
+    }
+
+}
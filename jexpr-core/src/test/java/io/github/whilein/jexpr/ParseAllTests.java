@@ -0,0 +1,200 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.ParseError;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author whilein
+ */
+final class ParseAllTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+    }
+
+    private static List<String> toStrings(final List<Operand> operands) {
+        val result = new ArrayList<String>();
+
+        for (val operand : operands) {
+            result.add(operand != null ? operand.toString() : null);
+        }
+
+        return result;
+    }
+
+    private static List<String> toStrings(final Iterator<Operand> iterator) {
+        val result = new ArrayList<String>();
+
+        while (iterator.hasNext()) {
+            result.add(iterator.next().toString());
+        }
+
+        return result;
+    }
+
+    @Test
+    void testLines() {
+        val errors = new ArrayList<ParseError>();
+        val result = toStrings(jexpr.parseAll(new StringReader("a + 1\n\n  b * 2  \r\n(c)"), '\n', errors::add));
+
+        assertEquals(Arrays.asList("a + 1", "b * 2", "c"), result);
+        assertEquals(0, errors.size());
+    }
+
+    @Test
+    void testDelimiterInString() {
+        val errors = new ArrayList<ParseError>();
+        val result = toStrings(jexpr.parseAll(new StringReader("x == 'a;b'; (y + \";\");"), ';', errors::add));
+
+        assertEquals(Arrays.asList("x == \"a;b\"", "y + \";\""), result);
+        assertEquals(0, errors.size());
+    }
+
+    @Test
+    void testErrorsDoNotAbort() {
+        val errors = new ArrayList<ParseError>();
+        val input = "a + 1; b +; (c; 1 ? 2; d";
+        val result = toStrings(jexpr.parseAll(new StringReader(input), ';', errors::add));
+
+        assertEquals(Arrays.asList("a + 1", "d"), result);
+        assertEquals(3, errors.size());
+
+        assertEquals(1, errors.get(0).getIndex());
+        assertEquals(input.indexOf("b +"), errors.get(0).getOffset());
+
+        assertEquals(2, errors.get(1).getIndex());
+        assertEquals(input.indexOf("(c"), errors.get(1).getOffset());
+
+        assertEquals(3, errors.get(2).getIndex());
+        assertEquals(input.indexOf("1 ?"), errors.get(2).getOffset());
+    }
+
+    @Test
+    void testConstantFoldingFailureDoesNotAbort() {
+        val errors = new ArrayList<ParseError>();
+        val input = "a; 1 / 0; b; (2 % 0) + c; d";
+        val result = toStrings(jexpr.parseAll(new StringReader(input), ';', errors::add));
+
+        assertEquals(Arrays.asList("a", "b", "d"), result);
+        assertEquals(2, errors.size());
+
+        assertEquals(1, errors.get(0).getIndex());
+        assertEquals(input.indexOf("1 /"), errors.get(0).getOffset());
+        assertEquals(SyntaxErrorCode.INAPPLICABLE_OPERATOR, errors.get(0).getException().getCode());
+        assertInstanceOf(ArithmeticException.class, errors.get(0).getException().getCause());
+
+        assertEquals(3, errors.get(1).getIndex());
+        assertEquals(input.indexOf("(2"), errors.get(1).getOffset());
+    }
+
+    @Test
+    void testManyExpressions() {
+        val input = new StringBuilder();
+
+        for (int i = 0; i < 10000; i++) {
+            input.append("x").append(i).append(" + ").append(i).append('\n');
+        }
+
+        val errors = new ArrayList<ParseError>();
+        val bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+
+        val fromStream = toStrings(jexpr.parseAll(new ByteArrayInputStream(bytes), '\n', errors::add));
+        val fromBuffer = toStrings(jexpr.parseAll(ByteBuffer.wrap(bytes), '\n', errors::add));
+
+        assertEquals(10000, fromStream.size());
+        assertEquals("x9999 + 9999", fromStream.get(9999));
+        assertEquals(fromStream, fromBuffer);
+        assertEquals(0, errors.size());
+    }
+
+    @Test
+    void testParallel() {
+        val values = new ArrayList<String>();
+
+        for (int i = 0; i < 5000; i++) {
+            values.add(i % 1000 == 0 ? "x" + i + " +" : "x" + i + " * (" + i + " + 1)");
+        }
+
+        val pool = new ForkJoinPool(4);
+
+        try {
+            val result = jexpr.parseAll(values, pool);
+
+            assertEquals(5000, result.getOperands().size());
+            assertEquals(5, result.getErrors().size());
+
+            for (int i = 0; i < 5000; i++) {
+                if (i % 1000 == 0) {
+                    assertNull(result.getOperands().get(i));
+                    assertEquals(i, result.getErrors().get(i / 1000).getIndex());
+                } else {
+                    assertEquals("x" + i + " * " + (i + 1), result.getOperands().get(i).toString());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelConstantFoldingFailure() {
+        val values = Arrays.asList("x + 1", "1 / 0", "y * 2", "1 % 0 + z", "(a)");
+        val pool = new ForkJoinPool(2);
+
+        try {
+            val result = jexpr.parseAll(values, pool);
+
+            assertEquals(Arrays.asList("x + 1", null, "y * 2", null, "a"), toStrings(result.getOperands()));
+            assertEquals(2, result.getErrors().size());
+
+            for (val error : result.getErrors()) {
+                assertEquals(SyntaxErrorCode.INAPPLICABLE_OPERATOR, error.getException().getCode());
+                assertInstanceOf(ArithmeticException.class, error.getException().getCause());
+            }
+
+            assertEquals(1, result.getErrors().get(0).getIndex());
+            assertEquals(3, result.getErrors().get(1).getIndex());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
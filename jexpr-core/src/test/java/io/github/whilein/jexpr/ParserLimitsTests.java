@@ -0,0 +1,200 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
+import io.github.whilein.jexpr.api.exception.SyntaxException;
+import io.github.whilein.jexpr.io.ByteArrayOutput;
+import io.github.whilein.jexpr.io.CharArrayOutput;
+import io.github.whilein.jexpr.token.ParserLimits;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class ParserLimitsTests {
+
+    private static void assertLimitExceeded(final Executable executable) {
+        val exception = assertThrows(SyntaxException.class, executable);
+
+        assertEquals(SyntaxErrorCode.LIMIT_EXCEEDED, exception.getCode());
+    }
+
+    private static String repeat(final String text, final int count) {
+        val result = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            result.append(text);
+        }
+
+        return result.toString();
+    }
+
+    @Test
+    void testInputLength() {
+        val jexpr = DefaultJexpr.create(ParserLimits.unlimited().withMaxInputLength(10));
+
+        assertEquals(6, jexpr.parse("1 + 2 + 3").getValue());
+        assertLimitExceeded(() -> jexpr.parse("1 + 2 + 3 + 4"));
+        assertLimitExceeded(() -> jexpr.parse(new StringReader("1 + 2 + 3 + 4")));
+        assertEquals(SyntaxErrorCode.LIMIT_EXCEEDED, jexpr.validate("1 + 2 + 3 + 4").getErrorCode());
+        assertEquals(6, jexpr.parse("1 + 2 + 3").getValue());
+    }
+
+    @Test
+    void testNestingDepth() {
+        val jexpr = DefaultJexpr.create(ParserLimits.unlimited().withMaxNestingDepth(3));
+
+        assertEquals(1, jexpr.parse("(((1)))").getValue());
+        assertEquals(3, jexpr.parse("((1) + ((2)))").getValue());
+        assertLimitExceeded(() -> jexpr.parse("((((1))))"));
+        assertEquals(1, jexpr.parse("(((1)))").getValue());
+    }
+
+    @Test
+    void testNestingDepthDefault() {
+        val jexpr = DefaultJexpr.create(ParserLimits.defaults());
+        val depth = ParserLimits.defaults().getMaxNestingDepth();
+
+        assertEquals(1, jexpr.parse(repeat("(", depth) + "1" + repeat(")", depth)).getValue());
+        assertLimitExceeded(() -> jexpr.parse(repeat("(", 100_000) + "1" + repeat(")", 100_000)));
+    }
+
+    @Test
+    void testLiteralLength() {
+        val jexpr = DefaultJexpr.create(ParserLimits.unlimited().withMaxLiteralLength(8));
+
+        assertEquals("12345678", jexpr.parse("'12345678'").getValue());
+        assertEquals("1\t345678", jexpr.parse("'1\\t345678'").getValue());
+        assertEquals(12345678, jexpr.parse("12345678").getValue());
+        assertEquals("abcdefgh", jexpr.parse("abcdefgh").toString());
+
+        assertLimitExceeded(() -> jexpr.parse("'123456789'"));
+        assertLimitExceeded(() -> jexpr.parse("'1\\t3456789'"));
+        assertLimitExceeded(() -> jexpr.parse("123456789"));
+        assertLimitExceeded(() -> jexpr.parse("abcdefghi"));
+        assertLimitExceeded(() -> jexpr.parse(new ChunkedStringReader("'123456789'")));
+    }
+
+    @Test
+    void testNodeCount() {
+        val jexpr = DefaultJexpr.create(ParserLimits.unlimited().withMaxNodeCount(5));
+
+        assertEquals(6, jexpr.parse("1 + 2 + 3").getValue());
+        assertEquals(-3, jexpr.parse("-(1 + 2)").getValue());
+        assertLimitExceeded(() -> jexpr.parse("1 + 2 + 3 + 4"));
+        assertLimitExceeded(() -> jexpr.parse("(1 + 2) + (3 + 4)"));
+        assertEquals(6, jexpr.parse("1 + 2 + 3").getValue());
+    }
+
+    @Test
+    void testReferenceLengthInChars() {
+        val jexpr = DefaultJexpr.create(ParserLimits.unlimited().withMaxLiteralLength(8));
+
+        assertEquals("ääääääää", jexpr.parse("ääääääää").toString());
+        assertEquals("ääääääää", jexpr.parse(new ChunkedStringReader("ääääääää")).toString());
+        assertLimitExceeded(() -> jexpr.parse("äääääääää"));
+    }
+
+    @Test
+    void testSpannedNestingDepth() {
+        val jexpr = DefaultJexpr.create(ParserLimits.defaults());
+        val depth = ParserLimits.defaults().getMaxNestingDepth();
+
+        assertEquals(1, jexpr.parseSpanned(repeat("(", depth) + "1" + repeat(")", depth))
+                .getOperand().getValue());
+        assertLimitExceeded(() -> jexpr.parseSpanned(repeat("(", 1000) + "1" + repeat(")", 1000)));
+        assertLimitExceeded(() -> jexpr.parseSpanned(repeat("(", 100_000) + "1" + repeat(")", 100_000)));
+
+        val previous = jexpr.parseSpanned(repeat("(", depth) + "1" + repeat(")", depth));
+        assertLimitExceeded(() -> jexpr.reparse(previous, depth, 1, "(1)"));
+    }
+
+    @Test
+    void testSpannedNodeCount() {
+        val jexpr = DefaultJexpr.create(ParserLimits.unlimited().withMaxNodeCount(6));
+
+        assertEquals(-3, jexpr.parseSpanned("-(1 + 2)").getOperand().getValue());
+        assertLimitExceeded(() -> jexpr.parseSpanned("(1 + 2) + (3 + 4)"));
+
+        val previous = jexpr.parseSpanned("(1 + 2) + 3");
+        assertEquals(6, previous.getOperand().getValue());
+        assertEquals(8, jexpr.reparse(previous, 10, 1, "5").getOperand().getValue());
+        assertLimitExceeded(() -> jexpr.reparse(previous, 5, 1, "2 + 4"));
+    }
+
+    @Test
+    void testSpannedInputLength() {
+        val jexpr = DefaultJexpr.create(ParserLimits.unlimited().withMaxInputLength(10));
+
+        assertEquals(3, jexpr.parseSpanned("(1) + (2)").getOperand().getValue());
+        assertLimitExceeded(() -> jexpr.parseSpanned("(1) + (2) + 3"));
+    }
+
+    @Test
+    void testConcurrentJexprLimits() {
+        val jexpr = ConcurrentJexpr.create(ParserLimits.unlimited().withMaxNodeCount(3));
+
+        assertEquals(3, jexpr.parse("1 + 2").getValue());
+        assertLimitExceeded(() -> jexpr.parse("1 + 2 + 3"));
+    }
+
+    @Test
+    void testBufferShrink() {
+        val bytes = new ByteArrayOutput(16);
+        val chars = new CharArrayOutput(16);
+
+        for (int i = 0; i < 100; i++) {
+            bytes.put('a');
+            chars.put('a');
+        }
+
+        bytes.reset();
+        chars.reset();
+
+        assertEquals(16, bytes.array().length);
+        assertEquals(16, chars.array().length);
+
+        val jexpr = (Jexpr) DefaultJexpr.create();
+
+        assertEquals(20_000, ((String) jexpr.parse("'" + repeat("a", 20_000) + "'").getValue()).length());
+        assertEquals(20_000, jexpr.parse(repeat("b", 20_000)).toString().length());
+    }
+
+    private static final class ChunkedStringReader extends StringReader {
+
+        ChunkedStringReader(final String text) {
+            super(text);
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) throws IOException {
+            return super.read(buffer, offset, Math.min(length, 3));
+        }
+
+    }
+
+}
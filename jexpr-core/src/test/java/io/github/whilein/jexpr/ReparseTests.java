@@ -0,0 +1,178 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.ParsedExpression;
+import io.github.whilein.jexpr.api.SourceSpan;
+import io.github.whilein.jexpr.api.exception.SyntaxException;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class ReparseTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+    }
+
+    @Test
+    void testSpans() {
+        val expression = jexpr.parseSpanned("(a + 1) * (b - (c)) + ')'");
+
+        assertEquals("(a + 1) * (b - c) + \")\"", expression.getOperand().toString());
+
+        val spans = expression.getSpans();
+        assertEquals(4, spans.size());
+        assertEquals(new SourceSpan(0, 25, expression.getOperand()), spans.get(0));
+        assertEquals(0, spans.get(1).getStart());
+        assertEquals(7, spans.get(1).getEnd());
+        assertEquals("a + 1", spans.get(1).getOperand().toString());
+        assertEquals("c", spans.get(3).getOperand().toString());
+
+        assertEquals(spans.get(3), expression.findSpan(16));
+        assertEquals(spans.get(2), expression.findSpan(18));
+        assertEquals(spans.get(0), expression.findSpan(8));
+        assertNull(expression.findSpan(25));
+    }
+
+    @Test
+    void testReuse() {
+        val previous = jexpr.parseSpanned("(a + 1) * (b - (c + 2)) * (d * 3)");
+        val spans = previous.getSpans();
+
+        val next = jexpr.reparse(previous, 11, 1, "x * y");
+        val nextSpans = next.getSpans();
+
+        assertEquals("(a + 1) * (x * y - (c + 2)) * (d * 3)", next.getSource());
+        assertEquals(jexpr.parse(next.getSource()).toString(), next.getOperand().toString());
+
+        assertSame(spans.get(1).getOperand(), nextSpans.get(1).getOperand());
+        assertSame(spans.get(3).getOperand(), nextSpans.get(3).getOperand());
+        assertSame(spans.get(4).getOperand(), nextSpans.get(4).getOperand());
+        assertEquals(spans.get(3).getStart() + 4, nextSpans.get(3).getStart());
+        assertEquals(spans.get(4).getStart() + 4, nextSpans.get(4).getStart());
+    }
+
+    @Test
+    void testInvalidEdit() {
+        val previous = jexpr.parseSpanned("(a + 1) * b");
+
+        assertThrows(SyntaxException.class, () -> jexpr.reparse(previous, 3, 1, "* *"));
+        assertThrows(SyntaxException.class, () -> jexpr.reparse(previous, 6, 1, ""));
+        assertThrows(IndexOutOfBoundsException.class, () -> jexpr.reparse(previous, 10, 2, ""));
+        assertEquals("(a + 1) * b", jexpr.reparse(previous, 10, 1, "(b)").getOperand().toString());
+    }
+
+    @Test
+    void testSameErrorAsParse() {
+        // обычный разбор находит лишний операнд раньше, чем ошибку во вложенных скобках
+        val error = assertThrows(SyntaxException.class, () -> jexpr.parse("(x1 (+ \"s)(1\")"));
+        val spannedError = assertThrows(SyntaxException.class, () -> jexpr.parseSpanned("(x1 (+ \"s)(1\")"));
+
+        assertEquals(error.getMessage(), spannedError.getMessage());
+
+        val previous = jexpr.parseSpanned("x1 * (\"s)(1\")");
+        val reparseError = assertThrows(SyntaxException.class, () -> jexpr.reparse(previous, 0, 6, "(x1 (+ "));
+
+        assertEquals(error.getMessage(), reparseError.getMessage());
+    }
+
+    @Test
+    void testDeepBrackets() {
+        val depth = 100_000;
+        val text = new StringBuilder();
+
+        for (int i = 0; i < depth; i++) {
+            text.append('(');
+        }
+
+        text.append('x');
+
+        for (int i = 0; i < depth; i++) {
+            text.append(')');
+        }
+
+        val expression = jexpr.parseSpanned(text.toString());
+
+        assertEquals("x", expression.getOperand().toString());
+        assertEquals(depth + 1, expression.getSpans().size());
+        assertEquals("y", jexpr.reparse(expression, depth, 1, "y").getOperand().toString());
+    }
+
+    @Test
+    void testRandomEdits() {
+        val random = new Random(0);
+        val fragments = new String[]{"(", ")", "a", "1", " + ", " * ", "'('", "\")\"", "-", " "};
+
+        ParsedExpression expression = jexpr.parseSpanned("((a + 1) * (b - 2)) + (c * (d + (e)))");
+
+        for (int i = 0; i < 2000; i++) {
+            val source = expression.getSource();
+
+            val offset = random.nextInt(source.length() + 1);
+            val removed = random.nextInt(Math.min(3, source.length() - offset) + 1);
+            val inserted = fragments[random.nextInt(fragments.length)];
+
+            val edited = source.substring(0, offset) + inserted + source.substring(offset + removed);
+
+            try {
+                jexpr.parse(edited);
+            } catch (final RuntimeException e) {
+                val previous = expression;
+
+                assertEquals(e.getMessage(), assertThrows(e.getClass(), () -> jexpr.parseSpanned(edited), edited)
+                        .getMessage(), edited);
+                assertEquals(e.getMessage(), assertThrows(e.getClass(),
+                        () -> jexpr.reparse(previous, offset, removed, inserted), edited).getMessage(), edited);
+                continue;
+            }
+
+            val expected = jexpr.parseSpanned(edited);
+
+            val actual = jexpr.reparse(expression, offset, removed, inserted);
+
+            assertEquals(edited, actual.getSource());
+            assertEquals(expected.getOperand().toString(), actual.getOperand().toString(), edited);
+            assertEquals(expected.getSpans().size(), actual.getSpans().size(), edited);
+
+            for (int j = 0; j < expected.getSpans().size(); j++) {
+                val expectedSpan = expected.getSpans().get(j);
+                val actualSpan = actual.getSpans().get(j);
+
+                assertEquals(expectedSpan.getStart(), actualSpan.getStart(), edited);
+                assertEquals(expectedSpan.getEnd(), actualSpan.getEnd(), edited);
+            }
+
+            expression = actual;
+        }
+    }
+
+}
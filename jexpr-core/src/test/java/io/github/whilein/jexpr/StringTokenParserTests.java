@@ -17,11 +17,15 @@
 package io.github.whilein.jexpr;
 
 import io.github.whilein.jexpr.api.exception.SyntaxException;
-import io.github.whilein.jexpr.io.ByteArrayOutput;
+import io.github.whilein.jexpr.io.CharArrayOutput;
 import io.github.whilein.jexpr.token.StringTokenParser;
+import io.github.whilein.jexpr.token.TokenVisitors;
+import lombok.val;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -33,7 +37,7 @@ final class StringTokenParserTests extends AbstractTokenParserTests {
 
     @BeforeEach
     void setup() {
-        tokenParser = new StringTokenParser(new ByteArrayOutput());
+        tokenParser = new StringTokenParser(new CharArrayOutput());
     }
 
     @Test
@@ -133,4 +137,34 @@ final class StringTokenParserTests extends AbstractTokenParserTests {
         assertEquals("\r", parse("\"\\r\""));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testLoneSurrogate() {
+        assertEquals("\uD83E", parse("\"\\uD83E\""));
+        assertEquals("a\uDD21", parse("\"a\uDD21\""));
+    }
+
+    @Test
+    void testConsume() {
+        assertEquals("Hello world!", consume("\"Hello world!\" + 1"));
+        assertEquals("a\tb\"c", consume("\"a\\tb\\\"c\""));
+
+        val large = new StringBuilder();
+
+        for (int i = 0; i < 10000; i++) {
+            large.append("строка ").append(i);
+        }
+
+        assertEquals(large.toString(), consume("'" + large + "'"));
+    }
+
+    private Object consume(final String value) {
+        val result = new AtomicReference<>();
+        val chars = value.toCharArray();
+
+        tokenParser.consume(chars, 0, chars.length);
+        tokenParser.doFinal(TokenVisitors.interceptOperand(operand -> result.set(operand.getValue())));
+
+        return result.get();
+    }
+
+}
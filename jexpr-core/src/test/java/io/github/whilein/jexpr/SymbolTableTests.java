@@ -0,0 +1,96 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.io.ByteArrayOutput;
+import io.github.whilein.jexpr.token.SymbolTable;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author whilein
+ */
+final class SymbolTableTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = ConcurrentJexpr.create();
+    }
+
+    private static SymbolTable.Symbol get(final SymbolTable table, final String name) {
+        val buffer = new ByteArrayOutput(16);
+        name.chars().forEach(buffer::putUtf8);
+
+        return table.get(buffer);
+    }
+
+    @Test
+    void testSharedReferences() {
+        val first = (OperandBinary) jexpr.parse("foo + bar");
+        val second = (OperandBinary) jexpr.parse("bar + foo");
+
+        assertSame(first.getLeftMember(), second.getRightMember());
+        assertSame(first.getRightMember(), second.getLeftMember());
+    }
+
+    @Test
+    void testKeywords() {
+        assertEquals(true, jexpr.parse("true").getValue());
+        assertEquals("trueish", jexpr.parse("trueish").toString());
+    }
+
+    @Test
+    void testLookup() {
+        val table = SymbolTable.create();
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("name" + i, get(table, "name" + i).getName());
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertSame(get(table, "name" + i), get(table, "name" + i));
+        }
+
+        assertEquals(1000, table.size());
+        assertEquals("имя", get(table, "имя").getName());
+    }
+
+    @Test
+    void testMaxSize() {
+        val table = SymbolTable.create(1);
+
+        assertSame(get(table, "a"), get(table, "a"));
+
+        val b = get(table, "b");
+        assertEquals("b", b.getName());
+        assertNotSame(b, get(table, "b"));
+
+        assertEquals(1, table.size());
+        assertFalse(get(table, "a").getReference().isConstant());
+    }
+
+}
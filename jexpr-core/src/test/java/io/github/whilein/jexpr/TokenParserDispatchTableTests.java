@@ -0,0 +1,141 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.token.SelectableTokenParser;
+import io.github.whilein.jexpr.api.token.TokenVisitor;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandParser;
+import io.github.whilein.jexpr.api.token.operator.Operator;
+import io.github.whilein.jexpr.io.ByteArrayOutput;
+import io.github.whilein.jexpr.keyword.DefaultKeywordRegistry;
+import io.github.whilein.jexpr.token.BinaryOperatorTokenParser;
+import io.github.whilein.jexpr.token.NumberTokenParser;
+import io.github.whilein.jexpr.token.ReferenceTokenParser;
+import io.github.whilein.jexpr.token.operand.Operands;
+import io.github.whilein.jexpr.token.operator.DefaultBinaryOperatorRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author whilein
+ */
+final class TokenParserDispatchTableTests {
+
+    MarkerTokenParser toggled;
+
+    OperandParser parser;
+
+    @BeforeEach
+    void setup() {
+        val buffer = new ByteArrayOutput();
+
+        toggled = new MarkerTokenParser('x', false, -1);
+        toggled.enabled = false;
+
+        parser = DefaultOperandParser.create(Arrays.asList(
+                toggled,
+                new MarkerTokenParser('#', true, 42),
+                new NumberTokenParser(buffer),
+                new BinaryOperatorTokenParser(new DefaultBinaryOperatorRegistry()),
+                new ReferenceTokenParser(new DefaultKeywordRegistry(), buffer)
+        ));
+    }
+
+    private Operand parse(final String value) {
+        val chars = value.toCharArray();
+        parser.update(chars, 0, chars.length);
+
+        return parser.doFinal();
+    }
+
+    @Test
+    void testCacheableParser() {
+        assertEquals(43, parse("# + 1").getValue());
+        assertEquals(84, parse("(#) + (#)").getValue());
+    }
+
+    @Test
+    void testNotCacheableParserAskedEveryTime() {
+        assertEquals("x + 1", parse("x + 1").toString());
+
+        toggled.enabled = true;
+        assertEquals(0, parse("x + 1").getValue());
+
+        toggled.enabled = false;
+        assertEquals("x + 1", parse("x + 1").toString());
+    }
+
+    @RequiredArgsConstructor
+    private static final class MarkerTokenParser implements SelectableTokenParser {
+
+        final char marker;
+
+        final boolean cacheable;
+
+        final int value;
+
+        boolean enabled = true;
+
+        boolean selected;
+
+        @Override
+        public boolean shouldStaySelected(final int ch) {
+            return !selected;
+        }
+
+        @Override
+        public boolean shouldSelect(
+                final int ch,
+                final @Nullable Operand prevOperand,
+                final @Nullable Operator prevOperator
+        ) {
+            return enabled && ch == marker;
+        }
+
+        @Override
+        public boolean isSelectionCacheable() {
+            return cacheable;
+        }
+
+        @Override
+        public void reset() {
+            selected = false;
+        }
+
+        @Override
+        public void update(final int ch) {
+            selected = true;
+        }
+
+        @Override
+        public void doFinal(final @NotNull TokenVisitor tokenVisitor) {
+            reset();
+            tokenVisitor.visitOperand(Operands.constantInt(value));
+        }
+
+    }
+
+}
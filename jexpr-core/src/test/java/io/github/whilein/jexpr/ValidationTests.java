@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr;
+
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.ValidationResult;
+import io.github.whilein.jexpr.api.exception.ExpectedToken;
+import io.github.whilein.jexpr.api.exception.SyntaxErrorCode;
+import io.github.whilein.jexpr.api.exception.SyntaxException;
+import io.github.whilein.jexpr.token.SyntaxErrorMode;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class ValidationTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+    }
+
+    private static void assertInvalid(
+            final String expression,
+            final SyntaxErrorCode code,
+            final int offset,
+            final ExpectedToken expected
+    ) {
+        assertEquals(new ValidationResult(code, offset, expected), jexpr.validate(expression), expression);
+    }
+
+    @Test
+    void testValid() {
+        assertSame(ValidationResult.valid(), jexpr.validate("(x + 1) * -y >= 'text'.length"));
+        assertTrue(jexpr.validate("((1))").isValid());
+    }
+
+    @Test
+    void testInvalid() {
+        assertInvalid("1 + * 2", SyntaxErrorCode.UNEXPECTED_CHARACTER, 4, ExpectedToken.OPERAND);
+        assertInvalid("1 2", SyntaxErrorCode.UNEXPECTED_OPERAND, 2, ExpectedToken.OPERATOR);
+        assertInvalid("1 +", SyntaxErrorCode.UNEXPECTED_EOF, 3, ExpectedToken.OPERAND);
+        assertInvalid("(1 + 2", SyntaxErrorCode.UNEXPECTED_EOF, 6, ExpectedToken.CLOSING_BRACKET);
+        assertInvalid("x + (y * ())", SyntaxErrorCode.EMPTY_EXPRESSION, 10, ExpectedToken.OPERAND);
+        assertInvalid("", SyntaxErrorCode.EMPTY_EXPRESSION, 0, ExpectedToken.OPERAND);
+        assertInvalid("x + 1.2.3", SyntaxErrorCode.INVALID_NUMBER, 4, ExpectedToken.DIGIT);
+        assertInvalid("x + '\\q'", SyntaxErrorCode.INVALID_STRING, 4, ExpectedToken.ESCAPE_SEQUENCE);
+        assertInvalid("x + (y # 1)", SyntaxErrorCode.UNEXPECTED_CHARACTER, 7, ExpectedToken.OPERATOR);
+        assertInvalid("1 - 'text'", SyntaxErrorCode.INAPPLICABLE_OPERATOR, 4, null);
+    }
+
+    @Test
+    void testConstantFoldingFailure() {
+        assertInvalid("1 / 0", SyntaxErrorCode.INAPPLICABLE_OPERATOR, 4, null);
+        assertInvalid("1 % 0", SyntaxErrorCode.INAPPLICABLE_OPERATOR, 4, null);
+        assertInvalid("x + (2 / 0)", SyntaxErrorCode.INAPPLICABLE_OPERATOR, 4, null);
+
+        assertTrue(jexpr.validate("(1 + (2 * 3))").isValid());
+        assertEquals(7, jexpr.parse("(1 + (2 * 3))").getValue());
+    }
+
+    @Test
+    void testValidAfterInvalid() {
+        assertFalse(jexpr.validate("(1 + (2 *))").isValid());
+        assertTrue(jexpr.validate("(1 + (2 * 3))").isValid());
+        assertEquals(7, jexpr.parse("(1 + (2 * 3))").getValue());
+    }
+
+    @Test
+    void testErrorModes() {
+        val detailed = assertThrows(SyntaxException.class, () -> jexpr.parse("1 + * 2"));
+
+        assertEquals(SyntaxErrorCode.UNEXPECTED_CHARACTER, detailed.getCode());
+        assertEquals(ExpectedToken.OPERAND, detailed.getExpected());
+        assertTrue(detailed.getStackTrace().length > 0);
+
+        val stackless = assertThrows(SyntaxException.class,
+                () -> DefaultJexpr.create(SyntaxErrorMode.STACKLESS).parse("1 + * 2"));
+
+        assertEquals(SyntaxErrorCode.UNEXPECTED_CHARACTER, stackless.getCode());
+        assertEquals("Unexpected character '*'", stackless.getMessage());
+        assertEquals(0, stackless.getStackTrace().length);
+    }
+
+}
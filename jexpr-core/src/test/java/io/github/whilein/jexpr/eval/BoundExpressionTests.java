@@ -0,0 +1,197 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.token.operand.Operands;
+import io.github.whilein.jexpr.token.operator.AbstractBinaryOperator;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class BoundExpressionTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+    }
+
+    @Test
+    void testSameAsSolve() {
+        val expressions = Arrays.asList(
+                "(x + y) * 2 - x / 4 > 10 && (y - 1) * (x + 3) < 1000 || -x == y",
+                "x + ' ' + y + name",
+                "!(x > y) || name == 'test'",
+                "~x | y & 0xFF ^ 7",
+                "x * 1.5 + y / 2.0f"
+        );
+
+        val values = new HashMap<String, Object>();
+        values.put("x", 7);
+        values.put("y", 3);
+        values.put("name", "test");
+
+        for (val expression : expressions) {
+            val operand = jexpr.parse(expression);
+            val bound = BoundExpression.bind(operand);
+
+            val slots = new Object[bound.getLayout().size()];
+
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = values.get(bound.getLayout().getName(i));
+            }
+
+            assertEquals(operand.solve(reference -> Operands.constant(values.get(reference))),
+                    bound.evaluate(slots), expression);
+        }
+    }
+
+    @Test
+    void testLayoutOrder() {
+        val bound = BoundExpression.bind(jexpr.parse("b + a * b"));
+
+        assertEquals(Arrays.asList("b", "a"), bound.getLayout().getNames());
+        assertEquals(0, bound.getSlot("b"));
+        assertEquals(-1, bound.getSlot("c"));
+        assertEquals(14, bound.evaluate(new int[]{2, 6}).getValue());
+    }
+
+    @Test
+    void testExplicitLayout() {
+        val layout = SlotLayout.of("unused", "y", "x");
+        val bound = BoundExpression.bind(jexpr.parse("x - y"), layout);
+
+        assertEquals(4L, bound.evaluate(new long[]{0, 3, 7}).getValue());
+        assertEquals(4.5, bound.evaluate(new double[]{0, 3, 7.5}).getValue());
+
+        assertThrows(IllegalArgumentException.class, () -> BoundExpression.bind(jexpr.parse("x + z"), layout));
+        assertThrows(IllegalArgumentException.class, () -> bound.evaluate(new int[]{1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> SlotLayout.of("x", "x"));
+    }
+
+    @Test
+    void testLaziness() {
+        val bound = BoundExpression.bind(jexpr.parse("x && 1 / y > 0 || z"), SlotLayout.of("x", "y", "z"));
+
+        // правая часть && не вычисляется, иначе было бы деление на ноль
+        assertEquals(true, bound.evaluate(new Object[]{false, 0, true}).getValue());
+        assertThrows(ArithmeticException.class, () -> bound.evaluate(new Object[]{true, 0, true}));
+    }
+
+    @Test
+    void testPartialValues() {
+        val bound = BoundExpression.bind(jexpr.parse("x + y"));
+
+        assertEquals("x + 2", bound.evaluate(new Object[]{Operands.reference("x"), 2}).toString());
+    }
+
+    @Test
+    void testCommonSubexpressions() {
+        val expressions = Arrays.asList(
+                "(a * b + c) > 0 && (a * b + c) < 100",
+                "x > 0 && (a * b + c) > 0 || (a * b + c) < -5",
+                "-(a - c) * -(a - c) + (a - c) + a * b",
+                "(a + ' ' + c) + (a + ' ' + c)",
+                "a / x + a / x"
+        );
+
+        val layout = SlotLayout.of("a", "b", "c", "x");
+
+        val values = new int[][]{{3, 4, 5, 1}, {-7, 2, 6, 0}, {10, 10, -20, -3}};
+
+        for (val expression : expressions) {
+            val operand = jexpr.parse(expression);
+            val bound = BoundExpression.bind(operand, layout);
+
+            for (val slots : values) {
+                Object expected;
+
+                try {
+                    expected = operand.solve(name -> Operands.constantInt(slots[layout.getSlot(name)]));
+                } catch (final ArithmeticException e) {
+                    assertThrows(ArithmeticException.class, () -> bound.evaluate(slots), expression);
+                    continue;
+                }
+
+                assertEquals(expected, bound.evaluate(slots), expression + " " + Arrays.toString(slots));
+            }
+        }
+    }
+
+    @Test
+    void testCommonSubexpressionEvaluatedOnce() {
+        val multiply = new CountingMultiply();
+        val plus = ((OperandBinary) jexpr.parse("x + y")).getOperator();
+
+        // (a * b + c) + (a * b + c) из разных, но равных экземпляров
+        val left = Operands.binary(Operands.binary(Operands.reference("a"), Operands.reference("b"), multiply),
+                Operands.reference("c"), plus);
+        val right = Operands.binary(Operands.binary(Operands.reference("a"), Operands.reference("b"), multiply),
+                Operands.reference("c"), plus);
+
+        val bound = BoundExpression.bind(Operands.binary(left, right, plus));
+
+        assertEquals(2 * (3 * 4 + 5), bound.evaluate(new int[]{3, 4, 5}).getValue());
+        assertEquals(1, multiply.count);
+    }
+
+    private static final class CountingMultiply extends AbstractBinaryOperator {
+
+        int count;
+
+        CountingMultiply() {
+            super("*", 0);
+        }
+
+        @Override
+        public @NotNull Operand apply(final int left, final int right) {
+            count++;
+
+            return Operands.constantInt(left * right);
+        }
+
+    }
+
+    @Test
+    void testDeepChain() {
+        val expression = new StringBuilder("x");
+
+        for (int i = 1; i < 50_000; i++) {
+            expression.append(" + x");
+        }
+
+        val bound = BoundExpression.bind(jexpr.parse(expression.toString()));
+
+        assertEquals(100_000, bound.evaluate(new int[]{2}).getValue());
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class ClosureExpressionTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+    }
+
+    @Test
+    void testSameAsSolve() {
+        val expressions = new ArrayList<>(EvaluatorFixture.EXPRESSIONS);
+        expressions.add("s + x + y + f + d + b");
+        expressions.add("x + y + s");
+        expressions.add("s == 'text' || s != 'other' && b");
+        expressions.add("'[' + s + ']' == '[text]'");
+
+        for (val expression : expressions) {
+            val operand = jexpr.parse(expression);
+            val closure = ClosureExpression.compile(operand, EvaluatorFixture.LAYOUT_WITH_STRING,
+                    EvaluatorFixture.TYPES_WITH_STRING);
+            val frame = closure.newFrame();
+
+            for (val values : EvaluatorFixture.VALUES) {
+                EvaluatorFixture.setValues(frame, values).setString(6, (String) values[6]);
+
+                assertEquals(EvaluatorFixture.solve(operand, EvaluatorFixture.LAYOUT_WITH_STRING, values),
+                        closure.evaluate(frame), expression + " " + Arrays.toString(values));
+            }
+        }
+    }
+
+    @Test
+    void testResultTypes() {
+        val intExpression = ClosureExpression.compile(jexpr.parse("x * 2 + y"), PrimitiveType.INT);
+
+        assertEquals(PrimitiveType.INT, intExpression.getType());
+        assertEquals(Arrays.asList("x", "y"), intExpression.getLayout().getNames());
+
+        val frame = intExpression.newFrame().setInt(0, 20).setInt(1, 2);
+
+        assertEquals(42, intExpression.evalInt(frame));
+        assertEquals(42L, intExpression.evalLong(frame));
+        assertEquals(42.0, intExpression.evalDouble(frame));
+        assertThrows(IllegalStateException.class, () -> intExpression.evalBoolean(frame));
+        assertThrows(IllegalStateException.class, () -> intExpression.evalString(frame));
+
+        assertEquals(PrimitiveType.LONG, ClosureExpression.compile(jexpr.parse("x + 1L"), PrimitiveType.INT).getType());
+        assertEquals(PrimitiveType.FLOAT, ClosureExpression.compile(jexpr.parse("x / 2f"), PrimitiveType.LONG).getType());
+        assertEquals(PrimitiveType.BOOLEAN, ClosureExpression.compile(jexpr.parse("x > 1.5"), PrimitiveType.INT).getType());
+        assertEquals(PrimitiveType.STRING, ClosureExpression.compile(jexpr.parse("x + '%'"), PrimitiveType.INT).getType());
+
+        val stringExpression = ClosureExpression.compile(jexpr.parse("'Hello, ' + x"), PrimitiveType.STRING);
+
+        assertEquals("Hello, world", stringExpression.evalString(stringExpression.newFrame().setString(0, "world")));
+    }
+
+    @Test
+    void testLaziness() {
+        val expression = ClosureExpression.compile(jexpr.parse("x && 1 / y > 0 || z"),
+                SlotLayout.of("x", "y", "z"), PrimitiveType.BOOLEAN, PrimitiveType.INT, PrimitiveType.BOOLEAN);
+        val frame = expression.newFrame();
+
+        // правая часть && не вычисляется, иначе было бы деление на ноль
+        assertEquals(true, expression.evalBoolean(frame.setBoolean(0, false).setInt(1, 0).setBoolean(2, true)));
+        assertEquals(false, expression.evalBoolean(frame.setBoolean(0, true).setInt(1, -1).setBoolean(2, false)));
+        assertThrows(ArithmeticException.class, () -> expression.evalBoolean(frame.setBoolean(0, true).setInt(1, 0)));
+    }
+
+    @Test
+    void testUnsupported() {
+        assertThrows(IllegalArgumentException.class, () -> ClosureExpression.compile(jexpr.parse("x - 'text'"),
+                PrimitiveType.INT));
+        assertThrows(IllegalArgumentException.class, () -> ClosureExpression.compile(jexpr.parse("x + 1"),
+                PrimitiveType.BOOLEAN));
+        assertThrows(IllegalArgumentException.class, () -> ClosureExpression.compile(jexpr.parse("x && true"),
+                PrimitiveType.INT));
+        assertThrows(IllegalArgumentException.class, () -> ClosureExpression.compile(jexpr.parse("user.name"),
+                PrimitiveType.INT));
+        assertThrows(IllegalArgumentException.class, () -> ClosureExpression.compile(jexpr.parse("x + z"),
+                SlotLayout.of("x"), PrimitiveType.INT));
+
+        val expression = ClosureExpression.compile(jexpr.parse("x"), PrimitiveType.INT);
+
+        assertThrows(IllegalArgumentException.class, () -> expression.newFrame().setString(0, "x"));
+        assertThrows(IllegalArgumentException.class, () -> expression.evalInt(
+                ClosureExpression.compile(jexpr.parse("x"), PrimitiveType.INT).newFrame()));
+    }
+
+    @Test
+    void testDeepChains() {
+        val sum = new StringBuilder("x");
+        val conjunction = new StringBuilder("b");
+        val nested = new StringBuilder();
+
+        for (int i = 1; i < 50_000; i++) {
+            sum.append(" + x");
+            conjunction.append(" && x > ").append(i % 7);
+        }
+
+        // вложенность скобок ограничена рекурсией парсера
+        for (int i = 1; i < 1000; i++) {
+            nested.append("x - (");
+        }
+
+        nested.append('x');
+
+        for (int i = 1; i < 1000; i++) {
+            nested.append(')');
+        }
+
+        val layout = SlotLayout.of("x", "b");
+
+        val sumExpression = ClosureExpression.compile(jexpr.parse(sum.toString()),
+                layout, PrimitiveType.INT, PrimitiveType.BOOLEAN);
+        assertEquals(100_000, sumExpression.evalInt(sumExpression.newFrame().setInt(0, 2)));
+
+        val conjunctionExpression = ClosureExpression.compile(jexpr.parse(conjunction.toString()),
+                layout, PrimitiveType.INT, PrimitiveType.BOOLEAN);
+        val frame = conjunctionExpression.newFrame();
+
+        assertEquals(true, conjunctionExpression.evalBoolean(frame.setInt(0, 7).setBoolean(1, true)));
+        assertEquals(false, conjunctionExpression.evalBoolean(frame.setInt(0, 6)));
+        assertEquals(false, conjunctionExpression.evalBoolean(frame.setInt(0, 7).setBoolean(1, false)));
+
+        val nestedExpression = ClosureExpression.compile(jexpr.parse(nested.toString()),
+                layout, PrimitiveType.INT, PrimitiveType.BOOLEAN);
+        assertEquals(0, nestedExpression.evalInt(nestedExpression.newFrame().setInt(0, 3)));
+    }
+
+}
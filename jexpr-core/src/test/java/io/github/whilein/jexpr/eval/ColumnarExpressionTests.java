@@ -0,0 +1,236 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class ColumnarExpressionTests {
+
+    // больше одного вектора и не кратно его размеру
+    static final int ROWS = 2500;
+
+    static Jexpr jexpr;
+
+    static Object[] columns;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+
+        val random = new Random(42);
+
+        val x = new int[ROWS];
+        val y = new long[ROWS];
+        val f = new float[ROWS];
+        val d = new double[ROWS];
+        val b = new boolean[ROWS];
+        val c = new boolean[ROWS];
+
+        for (int i = 0; i < ROWS; i++) {
+            x[i] = i % 7 == 0 ? Integer.MIN_VALUE + i : random.nextInt(200) - 100;
+            y[i] = random.nextInt(10) - 5;
+            f[i] = random.nextFloat() * 100 - 50;
+            d[i] = i % 11 == 0 ? Double.NaN : random.nextGaussian() * 1e3;
+            b[i] = random.nextBoolean();
+            c[i] = random.nextInt(10) == 0;
+        }
+
+        columns = new Object[]{x, y, f, d, b, c};
+    }
+
+    @Test
+    void testSameAsScalar() {
+        val expressions = new ArrayList<>(EvaluatorFixture.EXPRESSIONS);
+        expressions.add("b && (c || x > 0) && !(y < 0 || d > 0)");
+        expressions.add("c && y > 0");
+        expressions.add("y != 0 && x / y > 2");
+        expressions.add("y == 0 || x % y == 1");
+
+        for (val expression : expressions) {
+            val columnar = ColumnarExpression.analyze(jexpr.parse(expression),
+                    EvaluatorFixture.LAYOUT, EvaluatorFixture.TYPES);
+            val primitive = PrimitiveExpression.analyze(jexpr.parse(expression),
+                    EvaluatorFixture.LAYOUT, EvaluatorFixture.TYPES);
+
+            assertArrayEquals(evaluateRows(primitive), evaluate(columnar), expression);
+        }
+    }
+
+    @Test
+    void testDivisionByZero() {
+        val expression = ColumnarExpression.analyze(jexpr.parse("x / y"),
+                EvaluatorFixture.LAYOUT, EvaluatorFixture.TYPES);
+
+        assertThrows(ArithmeticException.class, () -> expression.evalLong(columns, ROWS, new long[ROWS]));
+
+        // делители первой тысячи строк не равны нулю
+        val y = new long[ROWS];
+        Arrays.fill(y, 0, 1000, 3);
+
+        val output = new long[1000];
+        expression.evalLong(new Object[]{columns[0], y, columns[2], columns[3], columns[4], columns[5]},
+                1000, output);
+
+        assertEquals(((int[]) columns[0])[999] / 3, output[999]);
+    }
+
+    @Test
+    void testResultTypes() {
+        val expression = ColumnarExpression.analyze(jexpr.parse("x * 2 + y"), PrimitiveType.INT);
+        val columns = new Object[]{new int[]{1, 2, 3}, new int[]{40, 38, 36}};
+
+        assertEquals(PrimitiveType.INT, expression.getType());
+
+        val ints = new int[3];
+        expression.evalInt(columns, 3, ints);
+        assertArrayEquals(new int[]{42, 42, 42}, ints);
+
+        val doubles = new double[4];
+        expression.evalDouble(columns, 3, doubles);
+        assertArrayEquals(new double[]{42, 42, 42, 0}, doubles);
+
+        assertThrows(IllegalStateException.class, () -> expression.evalBoolean(columns, 3, new boolean[3]));
+    }
+
+    @Test
+    void testColumns() {
+        val expression = ColumnarExpression.analyze(jexpr.parse("x + y"), PrimitiveType.INT);
+
+        assertThrows(IllegalArgumentException.class, () -> expression.evalInt(
+                new Object[]{new int[3], new long[3]}, 3, new int[3]));
+        assertThrows(IllegalArgumentException.class, () -> expression.evalInt(
+                new Object[]{new int[3], new int[2]}, 3, new int[3]));
+        assertThrows(IllegalArgumentException.class, () -> expression.evalInt(
+                new Object[]{new int[3]}, 3, new int[3]));
+        assertThrows(IllegalArgumentException.class, () -> expression.evalInt(
+                new Object[]{new int[3], new int[3]}, 3, new int[2]));
+    }
+
+    @Test
+    void testDeepChain() {
+        val expression = new StringBuilder("x");
+
+        for (int i = 1; i < 10_000; i++) {
+            expression.append(i % 2 == 0 ? " && x" : " || !x");
+        }
+
+        val columnar = ColumnarExpression.analyze(jexpr.parse(expression.toString()), PrimitiveType.BOOLEAN);
+        val primitive = PrimitiveExpression.analyze(jexpr.parse(expression.toString()), PrimitiveType.BOOLEAN);
+
+        val x = new boolean[]{true, false, true};
+        val output = new boolean[3];
+
+        columnar.evalBoolean(new Object[]{x}, 3, output);
+
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(primitive.evalBoolean(primitive.newFrame().setBoolean(0, x[i])), output[i]);
+        }
+    }
+
+    private static Object[] evaluate(final ColumnarExpression expression) {
+        val result = new Object[ROWS];
+
+        switch (expression.getType()) {
+            case BOOLEAN: {
+                val output = new boolean[ROWS];
+                expression.evalBoolean(columns, ROWS, output);
+
+                for (int i = 0; i < ROWS; i++) {
+                    result[i] = output[i];
+                }
+                break;
+            }
+            case INT: {
+                val output = new int[ROWS];
+                expression.evalInt(columns, ROWS, output);
+
+                for (int i = 0; i < ROWS; i++) {
+                    result[i] = output[i];
+                }
+                break;
+            }
+            case LONG: {
+                val output = new long[ROWS];
+                expression.evalLong(columns, ROWS, output);
+
+                for (int i = 0; i < ROWS; i++) {
+                    result[i] = output[i];
+                }
+                break;
+            }
+            default: {
+                val output = new double[ROWS];
+                expression.evalDouble(columns, ROWS, output);
+
+                for (int i = 0; i < ROWS; i++) {
+                    result[i] = output[i];
+                }
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    private static Object[] evaluateRows(final PrimitiveExpression expression) {
+        val result = new Object[ROWS];
+        val frame = expression.newFrame();
+        val row = new Object[columns.length];
+
+        for (int i = 0; i < ROWS; i++) {
+            for (int slot = 0; slot < columns.length; slot++) {
+                row[slot] = Array.get(columns[slot], i);
+            }
+
+            EvaluatorFixture.setValues(frame, row);
+
+            switch (expression.getType()) {
+                case BOOLEAN:
+                    result[i] = expression.evalBoolean(frame);
+                    break;
+                case INT:
+                    result[i] = expression.evalInt(frame);
+                    break;
+                case LONG:
+                    result[i] = expression.evalLong(frame);
+                    break;
+                default:
+                    result[i] = expression.evalDouble(frame);
+                    break;
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Общие слоты, выражения и значения тестов вычислителей: каждый вычислитель должен давать
+ * тот же результат, что и {@link Operand#solve}, для каждого оператора и сочетания типов.
+ *
+ * @author whilein
+ */
+final class EvaluatorFixture {
+
+    static final SlotLayout LAYOUT = SlotLayout.of("x", "y", "f", "d", "b", "c");
+
+    static final PrimitiveType[] TYPES = {
+            PrimitiveType.INT, PrimitiveType.LONG, PrimitiveType.FLOAT,
+            PrimitiveType.DOUBLE, PrimitiveType.BOOLEAN, PrimitiveType.BOOLEAN
+    };
+
+    /**
+     * Слоты {@link #LAYOUT} и строковый слот {@code s}, поддерживаемый только {@link ClosureExpression}.
+     */
+    static final SlotLayout LAYOUT_WITH_STRING = SlotLayout.of("x", "y", "f", "d", "b", "c", "s");
+
+    static final PrimitiveType[] TYPES_WITH_STRING = {
+            PrimitiveType.INT, PrimitiveType.LONG, PrimitiveType.FLOAT, PrimitiveType.DOUBLE,
+            PrimitiveType.BOOLEAN, PrimitiveType.BOOLEAN, PrimitiveType.STRING
+    };
+
+    static final List<String> EXPRESSIONS = Collections.unmodifiableList(Arrays.asList(
+            "x + y * 2 - x / 3 % 5",
+            "x * f + d / 2 - f % 0.75f",
+            "x / 2f + y * 1.1f",
+            "x << 3 | y >>> 2 ^ ~x & 0xFF",
+            "y >> x",
+            "x >>> y",
+            "x << 33",
+            "-x + +y - -f * -d",
+            "(x > y) == b && !c || f <= d",
+            "b ^ c | b & c",
+            "x == 7.0f || y != 3",
+            "x >= y && f > d && x < f && y <= d",
+            "x * 1000000 * 1000",
+            "16777217 < 16777216f",
+            "x % -3 + y % -2L"
+    ));
+
+    // значения слотов LAYOUT_WITH_STRING, первые шесть из них - значения LAYOUT
+    static final Object[][] VALUES = {
+            {7, 3L, 2.5f, -1.25, true, false, "text"},
+            {Integer.MIN_VALUE, -13L, -0.1f, 1e300, false, true, "other"},
+            {16777217, Long.MAX_VALUE, 16777216f, Double.NaN, true, true, ""}
+    };
+
+    private EvaluatorFixture() {
+    }
+
+    /**
+     * Установить значения слотов {@link #LAYOUT}.
+     */
+    static <F extends AbstractFrame<F>> F setValues(final F frame, final Object[] values) {
+        return frame.setInt(0, (Integer) values[0])
+                .setLong(1, (Long) values[1])
+                .setFloat(2, (Float) values[2])
+                .setDouble(3, (Double) values[3])
+                .setBoolean(4, (Boolean) values[4])
+                .setBoolean(5, (Boolean) values[5]);
+    }
+
+    /**
+     * Вычислить операнд через {@link Operand#solve} со значениями слотов раскладки.
+     */
+    static Object solve(final Operand operand, final SlotLayout layout, final Object[] values) {
+        val resolver = new HashMap<String, Operand>();
+
+        for (int i = 0; i < layout.size(); i++) {
+            resolver.put(layout.getName(i), Operands.constant(values[i]));
+        }
+
+        return operand.solve(resolver::get).getValue();
+    }
+
+}
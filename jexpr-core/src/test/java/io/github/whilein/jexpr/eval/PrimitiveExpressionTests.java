@@ -0,0 +1,207 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @author whilein
+ */
+final class PrimitiveExpressionTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+    }
+
+    @Test
+    void testSameAsSolve() {
+        for (val expression : EvaluatorFixture.EXPRESSIONS) {
+            val operand = jexpr.parse(expression);
+            val primitive = PrimitiveExpression.analyze(operand, EvaluatorFixture.LAYOUT, EvaluatorFixture.TYPES);
+            val frame = primitive.newFrame();
+
+            for (val values : EvaluatorFixture.VALUES) {
+                assertEquals(EvaluatorFixture.solve(operand, EvaluatorFixture.LAYOUT, values),
+                        evaluate(primitive, EvaluatorFixture.setValues(frame, values)),
+                        expression + " " + Arrays.toString(values));
+            }
+        }
+    }
+
+    private static Object evaluate(final PrimitiveExpression expression, final PrimitiveFrame frame) {
+        switch (expression.getType()) {
+            case BOOLEAN:
+                return expression.evalBoolean(frame);
+            case INT:
+                return expression.evalInt(frame);
+            case LONG:
+                return expression.evalLong(frame);
+            case FLOAT:
+                return (float) expression.evalDouble(frame);
+            default:
+                return expression.evalDouble(frame);
+        }
+    }
+
+    @Test
+    void testResultTypes() {
+        val intExpression = PrimitiveExpression.analyze(jexpr.parse("x * 2 + y"), PrimitiveType.INT);
+
+        assertEquals(PrimitiveType.INT, intExpression.getType());
+        assertEquals(Arrays.asList("x", "y"), intExpression.getLayout().getNames());
+
+        val frame = intExpression.newFrame().setInt(0, 20).setInt(1, 2);
+
+        assertEquals(42, intExpression.evalInt(frame));
+        assertEquals(42L, intExpression.evalLong(frame));
+        assertEquals(42.0, intExpression.evalDouble(frame));
+        assertThrows(IllegalStateException.class, () -> intExpression.evalBoolean(frame));
+
+        assertEquals(PrimitiveType.LONG, PrimitiveExpression.analyze(jexpr.parse("x + 1L"),
+                PrimitiveType.INT).getType());
+        assertEquals(PrimitiveType.FLOAT, PrimitiveExpression.analyze(jexpr.parse("x / 2f"),
+                PrimitiveType.LONG).getType());
+        assertEquals(PrimitiveType.BOOLEAN, PrimitiveExpression.analyze(jexpr.parse("x > 1.5"),
+                PrimitiveType.INT).getType());
+
+        val doubleExpression = PrimitiveExpression.analyze(jexpr.parse("x / 2"), PrimitiveType.DOUBLE);
+
+        assertThrows(IllegalStateException.class, () -> doubleExpression.evalLong(doubleExpression.newFrame()));
+    }
+
+    @Test
+    void testFrameConversions() {
+        val expression = PrimitiveExpression.analyze(jexpr.parse("x + y"),
+                SlotLayout.of("x", "y"), PrimitiveType.DOUBLE, PrimitiveType.LONG);
+        val frame = expression.newFrame();
+
+        assertEquals(5.0, expression.evalDouble(frame.setInt(0, 2).setInt(1, 3)));
+        assertEquals(5.5, expression.evalDouble(frame.setFloat(0, 2.5f).setLong(1, 3)));
+
+        assertThrows(IllegalArgumentException.class, () -> frame.setDouble(1, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> frame.setBoolean(0, true));
+        assertThrows(IllegalArgumentException.class, () -> PrimitiveExpression.analyze(jexpr.parse("x + y"),
+                PrimitiveType.INT).evalInt(frame));
+    }
+
+    @Test
+    void testLaziness() {
+        val expression = PrimitiveExpression.analyze(jexpr.parse("x && 1 / y > 0 || z"),
+                SlotLayout.of("x", "y", "z"), PrimitiveType.BOOLEAN, PrimitiveType.INT, PrimitiveType.BOOLEAN);
+        val frame = expression.newFrame();
+
+        // правая часть && не вычисляется, иначе было бы деление на ноль
+        assertEquals(true, expression.evalBoolean(frame.setBoolean(0, false).setInt(1, 0).setBoolean(2, true)));
+        assertEquals(false, expression.evalBoolean(frame.setBoolean(0, true).setInt(1, -1).setBoolean(2, false)));
+        assertThrows(ArithmeticException.class, () -> expression.evalBoolean(frame.setBoolean(0, true).setInt(1, 0)));
+    }
+
+    @Test
+    void testUnsupported() {
+        assertThrows(IllegalArgumentException.class, () -> PrimitiveExpression.analyze(jexpr.parse("x + 'text'"),
+                PrimitiveType.INT));
+        assertThrows(IllegalArgumentException.class, () -> PrimitiveExpression.analyze(jexpr.parse("x + 1"),
+                PrimitiveType.BOOLEAN));
+        assertThrows(IllegalArgumentException.class, () -> PrimitiveExpression.analyze(jexpr.parse("x << 1.5"),
+                PrimitiveType.INT));
+        assertThrows(IllegalArgumentException.class, () -> PrimitiveExpression.analyze(jexpr.parse("x && true"),
+                PrimitiveType.INT));
+        assertThrows(IllegalArgumentException.class, () -> PrimitiveExpression.analyze(jexpr.parse("user.name"),
+                PrimitiveType.INT));
+        assertThrows(IllegalArgumentException.class, () -> PrimitiveExpression.analyze(jexpr.parse("x"),
+                PrimitiveType.STRING));
+        assertThrows(IllegalArgumentException.class, () -> PrimitiveExpression.analyze(jexpr.parse("x + z"),
+                SlotLayout.of("x"), PrimitiveType.INT));
+        assertThrows(IllegalArgumentException.class, () -> PrimitiveExpression.analyze(jexpr.parse("x"),
+                SlotLayout.of("x"), PrimitiveType.INT, PrimitiveType.INT));
+    }
+
+    @Test
+    void testZeroAllocation() {
+        val threadBean = ManagementFactory.getThreadMXBean();
+
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+
+        val bean = (com.sun.management.ThreadMXBean) threadBean;
+
+        assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+
+        val doubleExpression = PrimitiveExpression.analyze(jexpr.parse("(x * 1.5 + y / 3.0) * x - 0.1"),
+                PrimitiveType.DOUBLE);
+        val longExpression = PrimitiveExpression.analyze(jexpr.parse("x * 31 + (y << 3) - x % 7"),
+                PrimitiveType.LONG);
+        val intExpression = PrimitiveExpression.analyze(jexpr.parse("(x ^ y) * 17 + ~x"),
+                PrimitiveType.INT);
+        val booleanExpression = PrimitiveExpression.analyze(jexpr.parse("x > y && x * 2.5f < 1000 || y == 0"),
+                PrimitiveType.INT);
+
+        val doubleFrame = doubleExpression.newFrame();
+        val longFrame = longExpression.newFrame();
+        val intFrame = intExpression.newFrame();
+        val booleanFrame = booleanExpression.newFrame();
+
+        val iterations = 100_000;
+        val thread = Thread.currentThread().getId();
+
+        long allocated = 0;
+        double sink = 0;
+
+        // первый проход прогревает код, второй замеряется
+        for (int pass = 0; pass < 2; pass++) {
+            val before = bean.getThreadAllocatedBytes(thread);
+
+            for (int i = 0; i < iterations; i++) {
+                sink += doubleExpression.evalDouble(doubleFrame.setDouble(0, i).setDouble(1, i * 0.5));
+                sink += longExpression.evalLong(longFrame.setLong(0, i).setLong(1, -i));
+                sink += intExpression.evalInt(intFrame.setInt(0, i).setInt(1, i >> 1));
+                sink += booleanExpression.evalBoolean(booleanFrame.setInt(0, i).setInt(1, i & 3)) ? 1 : 0;
+            }
+
+            allocated = bean.getThreadAllocatedBytes(thread) - before;
+        }
+
+        assertEquals(0, allocated / iterations, "allocated " + allocated + " bytes, sink " + sink);
+    }
+
+    @Test
+    void testDeepChain() {
+        val expression = new StringBuilder("x");
+
+        for (int i = 1; i < 50_000; i++) {
+            expression.append(" + x");
+        }
+
+        val primitive = PrimitiveExpression.analyze(jexpr.parse(expression.toString()), PrimitiveType.INT);
+
+        assertEquals(100_000, primitive.evalInt(primitive.newFrame().setInt(0, 2)));
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.eval;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.exception.OperatorException;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class SpecializationCacheTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+    }
+
+    @Test
+    void testResidual() {
+        val operand = jexpr.parse("enabled && amount * (rate / 100.0) > limit * 2");
+        val cache = SpecializationCache.create(operand, Arrays.asList("rate", "limit", "enabled"), 16);
+
+        val specialization = cache.get(5.0, 100, true);
+
+        assertEquals("true && amount * 0.05 > 200", specialization.getResidual().toString());
+        assertSame(specialization.getResidual(), specialization.getCompiled());
+
+        assertEquals("false", cache.get(5.0, 100, false).getResidual().toString());
+
+        val values = new HashMap<String, Object>();
+        values.put("amount", 5000);
+        values.put("rate", 5.0);
+        values.put("limit", 100);
+        values.put("enabled", true);
+
+        assertEquals(operand.solve(name -> Operands.constant(values.get(name))),
+                specialization.getResidual().solve(name -> Operands.constant(values.get(name))));
+    }
+
+    @Test
+    void testCached() {
+        val cache = SpecializationCache.create(jexpr.parse("x * y + z"), Arrays.asList("y", "z"), 16);
+
+        val first = cache.get(2, 3);
+
+        assertSame(first, cache.get(2, 3));
+        assertSame(first, cache.get(new HashMap<String, Object>() {{
+            put("y", 2);
+            put("z", 3);
+        }}));
+        assertNotSame(first, cache.get(2L, 3));
+        assertNotSame(first, cache.get(3, 2));
+
+        assertEquals(3, cache.getStats().getMissCount());
+        assertEquals(2, cache.getStats().getHitCount());
+    }
+
+    @Test
+    void testCompiled() {
+        val cache = SpecializationCache.create(jexpr.parse("(x + bonus) * factor"),
+                Arrays.asList("bonus", "factor"), BoundExpression::bind, 16);
+
+        val bound = cache.get(10, 3).getCompiled();
+
+        assertEquals(Collections.singletonList("x"), bound.getLayout().getNames());
+        assertEquals(Operands.constantInt(45), bound.evaluate(new int[]{5}));
+    }
+
+    @Test
+    void testLazyBranchIsNotFolded() {
+        val cache = SpecializationCache.create(jexpr.parse("b > 0 || 1 / a == 0"),
+                Collections.singletonList("a"), 16);
+
+        val residual = cache.get(0).getResidual();
+
+        assertEquals(Operands.constantTrue(), residual.solve(name -> Operands.constantInt(1)));
+        assertThrows(ArithmeticException.class, () -> residual.solve(name -> Operands.constantInt(0)));
+
+        val bound = BoundExpression.bind(residual);
+
+        assertEquals(Operands.constantTrue(), bound.evaluate(new int[]{1}));
+        assertThrows(ArithmeticException.class, () -> bound.evaluate(new int[]{0}));
+    }
+
+    @Test
+    void testLazyUnaryIsNotFolded() {
+        val cache = SpecializationCache.create(jexpr.parse("c || !x && -b"), Arrays.asList("x", "b"), 4);
+
+        val residual = cache.get(0, false).getResidual();
+
+        assertEquals(Operands.constantTrue(), residual.solve(name -> Operands.constantTrue()));
+        assertThrows(OperatorException.class, () -> residual.solve(name -> Operands.constantFalse()));
+
+        val bound = BoundExpression.bind(residual);
+
+        assertEquals(Operands.constantTrue(), bound.evaluate(new Object[]{true}));
+        assertThrows(OperatorException.class, () -> bound.evaluate(new Object[]{false}));
+    }
+
+    @Test
+    void testDeepResidual() {
+        val expression = new StringBuilder("x");
+
+        for (int i = 0; i < 100_000; i++) {
+            expression.append(" + y");
+        }
+
+        val residual = SpecializationCache.create(jexpr.parse(expression.toString()),
+                Collections.singletonList("y"), 16).get(1).getResidual();
+
+        assertEquals(Operands.constantInt(100_005), residual.solve(name -> Operands.constantInt(5)));
+    }
+
+    @Test
+    void testBounded() {
+        val cache = SpecializationCache.create(jexpr.parse("x + y"), Collections.singletonList("y"), 32);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.get(i);
+        }
+
+        assertTrue(cache.size() <= 32);
+        assertEquals(1000 - cache.size(), cache.getStats().getEvictionCount());
+    }
+
+    @Test
+    void testInvalidValues() {
+        val cache = SpecializationCache.create(jexpr.parse("x + y"), Collections.singletonList("y"), 16);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> cache.get(Collections.singletonMap("x", 1)));
+        assertThrows(IllegalArgumentException.class, () -> SpecializationCache.create(jexpr.parse("x"),
+                Arrays.asList("x", "x"), 16));
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.operand;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.api.token.operand.OperandUnary;
+import io.github.whilein.jexpr.api.token.operand.OperandVariable;
+import io.github.whilein.jexpr.token.operand.OperandInterner;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author whilein
+ */
+final class OperandInternerTests {
+
+    static Jexpr jexpr;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+    }
+
+    @Test
+    void testStructuralEquality() {
+        val first = jexpr.parse("-(a + b) * c != null");
+        val second = jexpr.parse("-(a + b) * c != null");
+
+        assertNotSame(first, second);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        assertNotEquals(jexpr.parse("a + b"), jexpr.parse("b + a"));
+        assertNotEquals(jexpr.parse("a + b"), jexpr.parse("a - b"));
+        assertNotEquals(jexpr.parse("-a"), jexpr.parse("~a"));
+    }
+
+    @Test
+    void testSharedSubtrees() {
+        val interner = OperandInterner.create();
+
+        val first = (OperandBinary) interner.intern(jexpr.parse("(x * 2 + y) > 10"));
+        val second = (OperandBinary) interner.intern(jexpr.parse("(x * 2 + y) < 20 && -z"));
+
+        val firstSum = first.getLeftMember();
+        val secondSum = ((OperandBinary) second.getLeftMember()).getLeftMember();
+
+        assertSame(firstSum, secondSum);
+        assertSame(first, interner.intern(jexpr.parse("(x * 2 + y) > 10")));
+        assertSame(((OperandBinary) firstSum).getLeftMember(),
+                interner.binary(interner.intern(Operands.reference("x")), interner.intern(Operands.constantInt(2)),
+                        ((OperandBinary) ((OperandBinary) firstSum).getLeftMember()).getOperator()));
+
+        val unary = (OperandUnary) second.getRightMember();
+        assertSame(unary, interner.unary((OperandVariable) unary.getMember(), unary.getOperator()));
+    }
+
+    @Test
+    void testInternedAlreadyCanonical() {
+        val interner = OperandInterner.create();
+        val operand = jexpr.parse("a * b + c");
+
+        // члены уже канонические, поэтому новые узлы не создаются
+        assertSame(operand, interner.intern(operand));
+        assertSame(operand, interner.intern(jexpr.parse("a * b + c")));
+        assertEquals(5, interner.size());
+    }
+
+    @Test
+    void testDeepChain() {
+        val interner = OperandInterner.create();
+        val expression = new StringBuilder("x");
+
+        for (int i = 1; i < 50_000; i++) {
+            expression.append(" + -x");
+        }
+
+        val operand = interner.intern(jexpr.parse(expression.toString()));
+
+        assertSame(operand, interner.intern(jexpr.parse(expression.toString())));
+
+        // x, -x и по узлу на каждое сложение
+        assertEquals(50_001, interner.size());
+    }
+
+}
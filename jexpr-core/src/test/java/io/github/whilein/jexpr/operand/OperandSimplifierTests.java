@@ -0,0 +1,201 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.operand;
+
+import io.github.whilein.jexpr.DefaultJexpr;
+import io.github.whilein.jexpr.api.Jexpr;
+import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandBinary;
+import io.github.whilein.jexpr.token.operand.OperandSimplifier;
+import io.github.whilein.jexpr.token.operand.Operands;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author whilein
+ */
+final class OperandSimplifierTests {
+
+    static final Map<String, Class<?>> TYPES = new HashMap<>();
+
+    static Jexpr jexpr;
+
+    static OperandSimplifier simplifier;
+
+    @BeforeAll
+    static void setup() {
+        jexpr = DefaultJexpr.create();
+
+        TYPES.put("x", int.class);
+        TYPES.put("y", long.class);
+        TYPES.put("d", double.class);
+        TYPES.put("f", float.class);
+        TYPES.put("b", boolean.class);
+        TYPES.put("s", String.class);
+
+        simplifier = OperandSimplifier.create(TYPES::get);
+    }
+
+    private static String simplify(final String expression) {
+        return simplifier.simplify(jexpr.parse(expression)).getOperand().toString();
+    }
+
+    @Test
+    void testReassociation() {
+        assertEquals("x + 3", simplify("x + 1 + 2"));
+        assertEquals("x - 3", simplify("x - 1 - 2"));
+        assertEquals("x - 1", simplify("x + 1 - 2"));
+        assertEquals("x", simplify("x + 2 - 2"));
+        assertEquals("x * 24", simplify("x * 2 * 3 * 4"));
+        assertEquals("y + 3", simplify("y + 1 + 2"));
+        assertEquals("x & 2", simplify("x & 6 & 3"));
+        assertEquals(3L, ((OperandBinary) simplifier.simplify(jexpr.parse("x + 1L + 2")).getOperand())
+                .getRightMember().getValue());
+
+        // float и double не переносятся, строки склеиваются в прежнем порядке
+        assertEquals("(d + 1) + 2", simplify("d + 1 + 2"));
+        assertEquals("(f * 2) * 3", simplify("f * 2 * 3"));
+        assertEquals("(s + 1) + 2", simplify("s + 1 + 2"));
+        assertEquals("(z + 1) + 2", simplify("z + 1 + 2"));
+    }
+
+    @Test
+    void testIdentities() {
+        assertEquals("x", simplify("x * 1"));
+        assertEquals("x", simplify("0 + x"));
+        assertEquals("x", simplify("x - 0"));
+        assertEquals("x", simplify("x / 1"));
+        assertEquals("x", simplify("x | 0 ^ 0"));
+        assertEquals("y", simplify("y << 0"));
+        assertEquals("d", simplify("d - 0"));
+        assertEquals("d", simplify("d * 1"));
+        assertEquals("b", simplify("b && true"));
+        assertEquals("b", simplify("false || b"));
+        assertEquals("b", simplify("b == true"));
+        assertEquals("x > 1", simplify("true && x > 1"));
+
+        // тип узла меняется, -0.0 + 0 = 0.0, тип ссылки неизвестен
+        assertEquals("x + 0", simplify("x + 0L"));
+        assertEquals("d + 0", simplify("d + 0"));
+        assertEquals("d - -0.0", simplify("d - -0.0"));
+        assertEquals("z * 1", simplify("z * 1"));
+        assertEquals("z && true", simplify("z && true"));
+    }
+
+    @Test
+    void testAnnihilators() {
+        assertEquals("0", simplify("x * 0"));
+        assertEquals(0L, simplifier.simplify(jexpr.parse("(y + x) * 0")).getOperand().getValue());
+        assertEquals("false", simplify("b && false"));
+        assertEquals("true", simplify("x > 1 || true"));
+        assertEquals("0", simplify("x & 0"));
+
+        // удаляемый член может выбросить исключение
+        assertEquals("(x / y) * 0", simplify("x / y * 0"));
+        assertEquals("z * 0", simplify("z * 0"));
+        assertEquals("x / 0 > 1 && false", simplify("x / 0 > 1 && false"));
+        assertEquals("d * 0", simplify("d * 0"));
+    }
+
+    @Test
+    void testDoubleNegation() {
+        assertEquals("b", simplify("!!b"));
+        assertEquals("x > y", simplify("!(!(x > y))"));
+        assertEquals("x", simplify("-(-x)"));
+        assertEquals("y", simplify("~(~y)"));
+        assertEquals("!b", simplify("!!!b"));
+        assertEquals("!!z", simplify("!(!z)"));
+    }
+
+    @Test
+    void testRemovedNodeCount() {
+        val result = simplifier.simplify(jexpr.parse("x + 1 + 2 + 3"));
+
+        assertEquals("x + 6", result.getOperand().toString());
+        assertEquals(4, result.getRemovedNodeCount());
+
+        val unchanged = jexpr.parse("x + y");
+
+        assertSame(unchanged, simplifier.simplify(unchanged).getOperand());
+        assertEquals(0, simplifier.simplify(unchanged).getRemovedNodeCount());
+    }
+
+    @Test
+    void testSameAsSolve() {
+        val expressions = Arrays.asList(
+                "x + 1 + 2 - 3 * 1",
+                "x - 2147483647 - 2",
+                "y - 9223372036854775807L - 2",
+                "x * 65536 * 65536",
+                "(x + 2147483647) + 1L",
+                "x + 1L + 2147483647",
+                "!!(x > y) && true || false",
+                "-(-x) + ~(~y) * 1 - 0",
+                "(x | 0) & -1 ^ 0",
+                "d * 1 - 0 + x * 0",
+                "s + x + 1 + 2",
+                "(b & true) | false == true"
+        );
+
+        val values = new Object[][]{
+                {7, 3L, 2.5, 1.5f, true, "s"},
+                {Integer.MAX_VALUE, Long.MIN_VALUE, -0.0, Float.NaN, false, ""},
+                {Integer.MIN_VALUE, -1L, Double.NaN, -0.0f, true, "t"}
+        };
+
+        val names = new String[]{"x", "y", "d", "f", "b", "s"};
+
+        for (val expression : expressions) {
+            val operand = jexpr.parse(expression);
+            val simplified = simplifier.simplify(operand).getOperand();
+
+            for (val row : values) {
+                val resolver = new HashMap<String, Operand>();
+
+                for (int i = 0; i < names.length; i++) {
+                    resolver.put(names[i], Operands.constant(row[i]));
+                }
+
+                assertEquals(operand.solve(resolver::get), simplified.solve(resolver::get),
+                        expression + " " + Arrays.toString(row));
+            }
+        }
+    }
+
+    @Test
+    void testDeepChain() {
+        val expression = new StringBuilder("x");
+
+        for (int i = 0; i < 50_000; i++) {
+            expression.append(" + 1");
+        }
+
+        val result = simplifier.simplify(jexpr.parse(expression.toString()));
+
+        assertEquals("x + 50000", result.getOperand().toString());
+        assertEquals(100_001 - 3, result.getRemovedNodeCount());
+    }
+
+}
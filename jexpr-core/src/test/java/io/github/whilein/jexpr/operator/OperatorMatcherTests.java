@@ -0,0 +1,113 @@
+/*
+ *    Copyright 2022 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.github.whilein.jexpr.operator;
+
+import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
+import io.github.whilein.jexpr.api.token.operator.OperatorMatcher;
+import io.github.whilein.jexpr.api.token.operator.OperatorRegistry;
+import io.github.whilein.jexpr.token.operator.DefaultBinaryOperatorRegistry;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author whilein
+ */
+final class OperatorMatcherTests {
+
+    private static BinaryOperator match(final OperatorMatcher<BinaryOperator> matcher, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            matcher.next(value.charAt(i));
+        }
+
+        val result = matcher.getMatchedResult();
+        matcher.reset();
+
+        return result;
+    }
+
+    @Test
+    void testDefaultMatcherReusable() {
+        val registry = new ForeignRegistry(new DefaultBinaryOperatorRegistry());
+        val matcher = registry.createMatcher();
+
+        assertNull(matcher.getMatchedResult());
+        assertEquals("<=", match(matcher, "<=").getValue());
+        assertEquals("&&", match(matcher, "&&").getValue());
+        assertEquals("<", match(matcher, "<").getValue());
+    }
+
+    /**
+     * Реестр без собственной реализации {@link OperatorRegistry#createMatcher()}.
+     */
+    private static final class ForeignRegistry implements OperatorRegistry<BinaryOperator> {
+
+        final OperatorRegistry<BinaryOperator> delegate;
+
+        ForeignRegistry(final OperatorRegistry<BinaryOperator> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasMatcher(final int ch) {
+            return delegate.hasMatcher(ch);
+        }
+
+        @Override
+        public @NotNull OperatorMatcher<BinaryOperator> matchOperator(final int ch) {
+            return delegate.matchOperator(ch);
+        }
+
+        @Override
+        public void register(final @NotNull BinaryOperator item) {
+            delegate.register(item);
+        }
+
+        @Override
+        public void unregister(final @NotNull BinaryOperator item) {
+            delegate.unregister(item);
+        }
+
+        @Override
+        public void unregisterAll() {
+            delegate.unregisterAll();
+        }
+
+        @Override
+        public @Nullable BinaryOperator unregister(final @NotNull String value) {
+            return delegate.unregister(value);
+        }
+
+        @Override
+        public @NotNull List<BinaryOperator> getItems() {
+            return delegate.getItems();
+        }
+
+        @Override
+        public @Nullable BinaryOperator get(final @NotNull String value) {
+            return delegate.get(value);
+        }
+
+    }
+
+}
@@ -17,6 +17,7 @@
 package io.github.whilein.jexpr.tools;
 
 import io.github.whilein.jexpr.api.token.operand.Operand;
+import io.github.whilein.jexpr.api.token.operand.OperandConstant;
 import io.github.whilein.jexpr.api.token.operand.OperandMapper;
 import io.github.whilein.jexpr.api.token.operand.OperandVariable;
 import io.github.whilein.jexpr.api.token.operator.BinaryOperator;
@@ -43,6 +44,15 @@ public class GraphMapper implements OperandMapper<Node> {
 
     @Override
     public Node mapUnary(@NotNull OperandVariable left, @NotNull UnaryOperator op) {
+        return unary(left, op);
+    }
+
+    @Override
+    public Node mapUnary(@NotNull OperandConstant member, @NotNull UnaryOperator op) {
+        return unary(member, op);
+    }
+
+    private Node unary(Operand left, UnaryOperator op) {
         val x = this.x;
         val y = this.y;
 